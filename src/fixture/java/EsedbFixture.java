@@ -0,0 +1,377 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Synthetic ESE databases for the benchmarks and the tests: a WebCache-like Container_1 table with the 25 columns of the Edge
+ * and IE layouts, rowCount records, and an empty HstsEntryEx table.
+ *
+ * Records have EntryId 1 to rowCount, FILETIME columns one second apart (ModifiedTime NULL on every seventh),
+ * a cp1252 Url of 30 to 70 characters and a UTF-16 Filename, 7-bit compressed on every third record.
+ * Pages are 32 KiB with the extended page header (format revision 0x14), leaves are filled up and chained, and
+ * branch levels are added until one root page is left, so 5M rows give a three level tree as real files do.
+ *
+ * Files are written once into esedb.fixtures.dir (by default target/jmh-fixtures) and reused by later runs.
+ *
+ * Usage: EsedbFixture rowCount [file]
+ */
+final class EsedbFixture {
+
+    static final int PAGE_SIZE = 32768;
+    static final int FORMAT_REVISION = 0x14;
+    static final String TABLE = "Container_1";
+
+    private static final int PAGE_HEADER_SIZE = 80;
+    private static final int CATALOG_PAGE = 4;
+    private static final int EMPTY_TABLE_PAGE = 5;
+    private static final int FIRST_LEAF_PAGE = 6;
+
+    private static final int FLAG_ROOT = 0x01;
+    private static final int FLAG_LEAF = 0x02;
+    private static final int FLAG_PARENT = 0x04;
+    private static final int FLAG_EMPTY = 0x08;
+
+    private static final int CONTAINER_FDP = 10;
+    private static final int EMPTY_TABLE_FDP = 20;
+
+    private static final Charset CP1252 = Charset.forName("windows-1252");
+
+    /* Identifier, name, column type, size of the fixed columns */
+    private static final Object[][] COLUMNS = {
+            {1, "EntryId", 15, 8}, {2, "ContainerId", 15, 8}, {3, "CacheId", 15, 8}, {4, "UrlHash", 15, 8},
+            {5, "SecureDirectory", 14, 4}, {6, "FileSize", 15, 8}, {7, "Type", 14, 4}, {8, "Flags", 14, 4},
+            {9, "AccessCount", 14, 4}, {10, "SyncTime", 15, 8}, {11, "CreationTime", 15, 8}, {12, "ExpiryTime", 15, 8},
+            {13, "ModifiedTime", 15, 8}, {14, "AccessedTime", 15, 8}, {15, "PostCheckTime", 15, 8},
+            {16, "SyncCount", 14, 4}, {17, "ExemptionDelta", 14, 4},
+            {256, "Url", 12, 0}, {257, "Filename", 12, 0}, {258, "FileExtension", 12, 0},
+            {259, "RequestHeaders", 11, 0}, {260, "ResponseHeaders", 11, 0}, {261, "RedirectUrl", 12, 0},
+            {262, "Group", 11, 0}, {263, "ExtraData", 11, 0},
+    };
+    private static final int FIXED_COLUMNS = 17;
+    private static final long FIRST_CREATION_TIME = 130000000000000000L;
+
+    private EsedbFixture() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rows = Integer.parseInt(args[0]);
+        Path path = args.length > 1 ? Paths.get(args[1]) : get(rows);
+        if (args.length > 1) {
+            write(path, rows);
+        }
+        System.out.println(path + ": " + rows + " registros, " + Files.size(path) + " bytes");
+    }
+
+    /* The fixture with rowCount records, generated on first use */
+    static synchronized Path get(int rowCount) throws IOException {
+        Path directory = Paths.get(System.getProperty("esedb.fixtures.dir", "target/jmh-fixtures"));
+        Path path = directory.resolve("container-" + rowCount + ".edb");
+        if (!Files.exists(path)) {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "container", ".tmp");
+            try {
+                write(temporary, rowCount);
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        return path;
+    }
+
+    static String url(long record) {
+        StringBuilder url = new StringBuilder(80).append("https://example.com/page/").append(record).append("?q=");
+        for (long i = record % 40; i > 0; i--) {
+            url.append('x');
+        }
+        return url.toString();
+    }
+
+    static String filename(long record) {
+        return String.format("file%05d.htm", record);
+    }
+
+    static void write(Path path, int rowCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(4, 0x89abcdef).putInt(8, 0x620).putInt(232, FORMAT_REVISION).putInt(236, PAGE_SIZE);
+            writePage(channel, -1, header.array());
+            writePage(channel, 0, header.array());
+            for (int page = 1; page < CATALOG_PAGE; page++) {
+                writePage(channel, page, new PageBuilder(false).finish(FLAG_EMPTY, 0, 0, 0));
+            }
+
+            /* Leaves, each written once the next one is started so its next page is known */
+            List<byte[]> branchKeys = new ArrayList<>();
+            List<Integer> branchPages = new ArrayList<>();
+            int page = FIRST_LEAF_PAGE;
+            PageBuilder leaf = new PageBuilder(false);
+            byte[] lastKey = null;
+            for (long record = 0; record < rowCount; record++) {
+                byte[] key = ByteBuffer.allocate(8).putLong(record + 1).array();
+                byte[] value = keyed(key, containerRecord(record));
+                if (!leaf.fits(value.length)) {
+                    writePage(channel, page, leaf.finish(FLAG_LEAF, CONTAINER_FDP, page > FIRST_LEAF_PAGE ? page - 1 : 0, page + 1));
+                    branchKeys.add(lastKey);
+                    branchPages.add(page);
+                    page++;
+                    leaf = new PageBuilder(false);
+                }
+                leaf.add(value);
+                lastKey = key;
+            }
+            int root;
+            if (branchPages.isEmpty()) {
+                /* A single leaf is the root */
+                PageBuilder rootLeaf = new PageBuilder(true);
+                for (byte[] value : leaf.values.subList(1, leaf.values.size())) {
+                    rootLeaf.add(value);
+                }
+                writePage(channel, page, rootLeaf.finish(FLAG_ROOT | FLAG_LEAF, CONTAINER_FDP, 0, 0));
+                root = page;
+            } else {
+                writePage(channel, page, leaf.finish(FLAG_LEAF, CONTAINER_FDP, page - 1, 0));
+                branchKeys.add(lastKey);
+                branchPages.add(page);
+                root = writeBranches(channel, page + 1, branchKeys, branchPages);
+            }
+
+            writePage(channel, EMPTY_TABLE_PAGE, new PageBuilder(true).finish(FLAG_ROOT | FLAG_LEAF, EMPTY_TABLE_FDP, 0, 0));
+            writePage(channel, CATALOG_PAGE, catalog(root));
+        }
+    }
+
+    /* Adds parent levels above the pages until one page holds them all, returns the root page */
+    private static int writeBranches(FileChannel channel, int page, List<byte[]> keys, List<Integer> pages) throws IOException {
+        while (true) {
+            PageBuilder single = new PageBuilder(true);
+            boolean fits = true;
+            for (int i = 0; i < keys.size() && fits; i++) {
+                byte[] value = branchValue(keys.get(i), pages.get(i));
+                fits = single.fits(value.length);
+                if (fits) {
+                    single.add(value);
+                }
+            }
+            if (fits) {
+                writePage(channel, page, single.finish(FLAG_ROOT | FLAG_PARENT, CONTAINER_FDP, 0, 0));
+                return page;
+            }
+
+            List<byte[]> parentKeys = new ArrayList<>();
+            List<Integer> parentPages = new ArrayList<>();
+            PageBuilder branch = new PageBuilder(false);
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] value = branchValue(keys.get(i), pages.get(i));
+                if (!branch.fits(value.length)) {
+                    writePage(channel, page, branch.finish(FLAG_PARENT, CONTAINER_FDP, 0, 0));
+                    parentKeys.add(keys.get(i - 1));
+                    parentPages.add(page++);
+                    branch = new PageBuilder(false);
+                }
+                branch.add(value);
+            }
+            writePage(channel, page, branch.finish(FLAG_PARENT, CONTAINER_FDP, 0, 0));
+            parentKeys.add(keys.get(keys.size() - 1));
+            parentPages.add(page++);
+            keys = parentKeys;
+            pages = parentPages;
+        }
+    }
+
+    private static byte[] branchValue(byte[] key, int childPage) {
+        return keyed(key, ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(childPage).array());
+    }
+
+    private static byte[] catalog(int containerRoot) {
+        PageBuilder catalog = new PageBuilder(true);
+        List<byte[]> entries = new ArrayList<>();
+        entries.add(catalogEntry(2, 1, 2, 4, 0, 0, 0, "MSysObjects"));
+        entries.add(catalogEntry(CONTAINER_FDP, 1, CONTAINER_FDP, containerRoot, 0, 0, 0, TABLE));
+        int offset = 4;
+        for (Object[] column : COLUMNS) {
+            int identifier = (Integer) column[0];
+            int type = (Integer) column[2];
+            int size = (Integer) column[3];
+            int codepage = identifier == 256 ? 1252 : type == 12 ? 1200 : 0;
+            entries.add(catalogEntry(CONTAINER_FDP, 2, identifier, type, size, codepage, identifier < 128 ? offset : 0,
+                    (String) column[1]));
+            if (identifier < 128) {
+                offset += size;
+            }
+        }
+        entries.add(catalogEntry(EMPTY_TABLE_FDP, 1, EMPTY_TABLE_FDP, EMPTY_TABLE_PAGE, 0, 0, 0, "HstsEntryEx"));
+        for (int i = 0; i < entries.size(); i++) {
+            catalog.add(keyed(ByteBuffer.allocate(4).putInt(i).array(), entries.get(i)));
+        }
+        return catalog.finish(FLAG_ROOT | FLAG_LEAF, 2, 0, 0);
+    }
+
+    private static byte[] catalogEntry(int objectIdentifier, int type, int identifier, int columnTypeOrFdp, int spaceUsage,
+                                       int codepage, int recordOffset, String name) {
+        ByteBuffer fixed = ByteBuffer.allocate(35).order(ByteOrder.LITTLE_ENDIAN);
+        fixed.putInt(objectIdentifier).putShort((short) type).putInt(identifier).putInt(columnTypeOrFdp)
+                .putInt(spaceUsage).putInt(0).putInt(codepage).put((byte) 0).putShort((short) recordOffset)
+                .putInt(0).putShort((short) 0);
+        return record(11, fixed.array(), new byte[2], new byte[][]{name.getBytes(CP1252)}, null, null, null);
+    }
+
+    private static byte[] containerRecord(long record) {
+        long creationTime = FIRST_CREATION_TIME + record * 10000000L;
+        ByteBuffer fixed = ByteBuffer.allocate(8 * 12 + 4 * 5).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] nulls = new byte[(FIXED_COLUMNS + 7) / 8];
+        for (int i = 0; i < FIXED_COLUMNS; i++) {
+            int identifier = (Integer) COLUMNS[i][0];
+            long value;
+            switch (identifier) {
+                case 1: value = record + 1; break;
+                case 6: value = record * 1000 + 7; break;
+                case 9: value = record % 50; break;
+                case 11: value = creationTime; break;
+                case 13: value = creationTime + 1; break;
+                case 14: value = creationTime + 2; break;
+                default: value = identifier * 3; break;
+            }
+            if (identifier == 13 && record % 7 == 0) {
+                nulls[i / 8] |= 1 << (i % 8);
+            }
+            if ((Integer) COLUMNS[i][3] == 8) {
+                fixed.putLong(value);
+            } else {
+                fixed.putInt((int) value);
+            }
+        }
+        byte[] filename = record % 3 == 0
+                ? compress7bit(filename(record))
+                : (filename(record) + "\0").getBytes(StandardCharsets.UTF_16LE);
+        return record(FIXED_COLUMNS, fixed.array(), nulls, new byte[0][],
+                new int[]{256, 257}, new int[]{0x01, record % 3 == 0 ? 0x03 : 0x01},
+                new byte[][]{url(record).getBytes(CP1252), filename});
+    }
+
+    /*
+     * Data definition record: last fixed and last variable identifiers, offset of the variable sizes, fixed values,
+     * NULL bitmap, variable sizes and data, then the tagged values (identifier and offset, flag byte and data)
+     */
+    private static byte[] record(int lastFixed, byte[] fixed, byte[] nulls, byte[][] variable,
+                                 int[] taggedIdentifiers, int[] taggedFlags, byte[][] tagged) {
+        int taggedCount = tagged != null ? tagged.length : 0;
+        int size = 4 + fixed.length + nulls.length + 2 * variable.length + 4 * taggedCount;
+        for (byte[] value : variable) {
+            size += value.length;
+        }
+        for (int i = 0; i < taggedCount; i++) {
+            size += 1 + tagged[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) lastFixed).put((byte) (127 + variable.length)).putShort((short) (4 + fixed.length + nulls.length));
+        buffer.put(fixed).put(nulls);
+        int end = 0;
+        for (byte[] value : variable) {
+            end += value.length;
+            buffer.putShort((short) end);
+        }
+        for (byte[] value : variable) {
+            buffer.put(value);
+        }
+        int offset = 4 * taggedCount;
+        for (int i = 0; i < taggedCount; i++) {
+            buffer.putShort((short) taggedIdentifiers[i]).putShort((short) offset);
+            offset += 1 + tagged[i].length;
+        }
+        for (int i = 0; i < taggedCount; i++) {
+            buffer.put((byte) taggedFlags[i]).put(tagged[i]);
+        }
+        return buffer.array();
+    }
+
+    /* 7-bit compression of an ASCII string stored as UTF-16 */
+    private static byte[] compress7bit(String text) {
+        byte[] out = new byte[1 + (text.length() * 7 + 7) / 8];
+        int length = 1;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < text.length(); i++) {
+            bits |= text.charAt(i) << bitCount;
+            bitCount += 7;
+            while (bitCount >= 8) {
+                out[length++] = (byte) bits;
+                bits >>>= 8;
+                bitCount -= 8;
+            }
+        }
+        int usedBits = 8;
+        if (bitCount > 0) {
+            out[length++] = (byte) bits;
+            usedBits = bitCount;
+        }
+        out[0] = (byte) ((2 << 3) | (usedBits - 1));
+        return java.util.Arrays.copyOf(out, length);
+    }
+
+    private static byte[] keyed(byte[] key, byte[] data) {
+        return ByteBuffer.allocate(2 + key.length + data.length).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) key.length).put(key).put(data).array();
+    }
+
+    private static void writePage(FileChannel channel, int pageNumber, byte[] page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(page);
+        long position = (pageNumber + 1L) * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /*
+     * Values of one page. The first tag is the page header value: the root header of a root page, empty otherwise.
+     */
+    private static final class PageBuilder {
+
+        private final List<byte[]> values = new ArrayList<>();
+        private int dataSize;
+
+        PageBuilder(boolean root) {
+            byte[] first = root ? ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putInt(1).array() : new byte[0];
+            values.add(first);
+            dataSize = first.length;
+        }
+
+        boolean fits(int size) {
+            return PAGE_HEADER_SIZE + dataSize + size + 4 * (values.size() + 1) <= PAGE_SIZE;
+        }
+
+        void add(byte[] value) {
+            if (!fits(value.length)) {
+                throw new IllegalStateException("Value does not fit a page: " + value.length);
+            }
+            values.add(value);
+            dataSize += value.length;
+        }
+
+        byte[] finish(int flags, int fatherDataPage, int previousPage, int nextPage) {
+            ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            page.putInt(16, previousPage).putInt(20, nextPage).putInt(24, fatherDataPage);
+            page.putShort(32, (short) dataSize).putShort(34, (short) values.size()).putInt(36, flags);
+            int offset = 0;
+            for (int i = 0; i < values.size(); i++) {
+                byte[] value = values.get(i);
+                page.position(PAGE_HEADER_SIZE + offset);
+                page.put(value);
+                page.putShort(PAGE_SIZE - 4 * (i + 1), (short) value.length).putShort(PAGE_SIZE - 4 * (i + 1) + 2, (short) offset);
+                offset += value.length;
+            }
+            return page.array();
+        }
+    }
+}
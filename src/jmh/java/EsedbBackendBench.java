@@ -0,0 +1,52 @@
+/*
+ * Cost of each EsedbLibrary backend on the Container_1 record fetch of EsedbParser: every record goes through the
+ * same EsedbRecordReader calls with the DEFAULT_COLUMNS, so the difference between backends is the cost of the
+ * binding itself. Run with -prof gc for the bytes allocated per record, with the direct and ffm backends the steady
+ * state is the Url and Filename strings only.
+ *
+ * Needs libesedb on the library path, and the ffm backend a build with the ffm profile on JDK 22 or later. A backend
+ * that cannot be loaded fails in setup and JMH goes on with the next one. Run by esedb.jmh.EsedbBackendJmh.
+ */
+public class EsedbBackendBench implements esedb.jmh.EsedbBackendJmh.Workload {
+
+    private EsedbFile file;
+    private EsedbTable esedbTable;
+    private EsedbRecordReader recordReader;
+    private EsedbProjection projection;
+    private int numberOfRecords;
+    private int next;
+
+    @Override
+    public void setUp(int rows, String backend) throws Exception {
+        EsedbLibrary library = EsedbBackend.fromName(backend).newInstance();
+        file = EsedbFile.open(library, EsedbFixture.get(rows).toString());
+        esedbTable = file.table(EsedbFixture.TABLE);
+        recordReader = new EsedbRecordReader(library, true);
+        projection = esedbTable.getSchema().project(EsedbParser.DEFAULT_COLUMNS);
+        numberOfRecords = (int) esedbTable.getNumberOfRecords();
+    }
+
+    @Override
+    public void tearDown() {
+        if (esedbTable != null) {
+            esedbTable.close();
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    @Override
+    public Object[] fetchRecord() {
+        int entry = next;
+        next = entry + 1 < numberOfRecords ? entry + 1 : 0;
+        if (!recordReader.open(esedbTable.getPointer(), entry)) {
+            return null;
+        }
+        try {
+            return EsedbParser.readValues(recordReader, projection);
+        } finally {
+            recordReader.close();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/*
+ * Per value costs, over values taken from the 10000 record EsedbFixture: FILETIME formatting (the SimpleDateFormat
+ * method EsedbParser used before EsedbCodec against formatFiletime and appendFiletime) and conversion to epoch micros, extraction of the Url
+ * string (java reader or libesedb_record_get_value_utf8_string on an open record) and formatting of a
+ * DEFAULT_COLUMNS row in each EsedbOutputFormat.
+ *
+ * The text benchmarks append the Url (cp1252 in the fixture, libesedb transcodes it) or the Filename (stored UTF-16)
+ * of each record in turn to a StringBuilder, as a sink does, read by libesedb as UTF-8, as UTF-16 into a String, and
+ * as a UTF-16 view of the value buffer. They need libesedb on the library path.
+ *
+ * Run with -prof gc for the bytes allocated per operation. Run by esedb.jmh.EsedbDecodeJmh, the Strings, Texts and
+ * Formats states set up from its parameters.
+ */
+public class EsedbDecodeBench implements esedb.jmh.EsedbDecodeJmh.Workload {
+
+    private static final int ROWS = 10000;
+
+    private long[] filetimes;
+    private Object[][] rows;
+    private EsedbProjection projection;
+    private final StringBuilder builder = new StringBuilder(512);
+    private int next;
+
+    @Override
+    public void setUp() throws IOException {
+        try (EseDatabase database = EseDatabase.open(EsedbFixture.get(ROWS).toString())) {
+            EseTable table = database.getTable(EsedbFixture.TABLE);
+            projection = EsedbSchema.of(table).project(EsedbParser.DEFAULT_COLUMNS);
+            int creationTime = projection.indexOf("CreationTime");
+            rows = new Object[ROWS][];
+            filetimes = new long[ROWS];
+            for (int i = 0; i < ROWS; i++) {
+                rows[i] = EsedbParser.readValues(table.getRecord(i), projection);
+                filetimes[i] = (Long) rows[i][creationTime];
+            }
+        }
+    }
+
+    /* The Url of every record with the java reader, or of one open record with libesedb */
+    public static class Strings implements esedb.jmh.EsedbDecodeJmh.Resource {
+
+        private EseDatabase database;
+        private EseRecord[] records;
+        private int urlEntry;
+
+        private EsedbFile file;
+        private EsedbTable esedbTable;
+        private EsedbRecordReader recordReader;
+
+        @Override
+        public void setUp(String reader) throws IOException {
+            String filename = EsedbFixture.get(ROWS).toString();
+            if ("java".equals(reader)) {
+                database = EseDatabase.open(filename);
+                EseTable table = database.getTable(EsedbFixture.TABLE);
+                urlEntry = EsedbSchema.of(table).indexOf("Url");
+                records = new EseRecord[ROWS];
+                for (int i = 0; i < ROWS; i++) {
+                    records[i] = table.getRecord(i);
+                }
+            } else {
+                file = EsedbFile.open(filename);
+                esedbTable = file.table(EsedbFixture.TABLE);
+                urlEntry = esedbTable.getSchema().indexOf("Url");
+                recordReader = new EsedbRecordReader(file.getLibrary(), true);
+                recordReader.open(esedbTable.getPointer(), 0);
+            }
+        }
+
+        @Override
+        public void tearDown() throws IOException {
+            if (database != null) {
+                database.close();
+            }
+            if (recordReader != null) {
+                recordReader.close();
+            }
+            if (esedbTable != null) {
+                esedbTable.close();
+            }
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /* Every record of the table open with libesedb, read as UTF-8 or UTF-16 */
+    public static class Texts implements esedb.jmh.EsedbDecodeJmh.Resource {
+
+        private EsedbFile file;
+        private EsedbTable esedbTable;
+        private EsedbRecordReader recordReader;
+        private int valueEntry;
+        private int next;
+
+        @Override
+        public void setUp(String column) throws IOException {
+            file = EsedbFile.open(EsedbFixture.get(ROWS).toString());
+            esedbTable = file.table(EsedbFixture.TABLE);
+            valueEntry = esedbTable.getSchema().indexOf(column);
+            recordReader = new EsedbRecordReader(file.getLibrary(), true);
+        }
+
+        /* Opens the next record, the previous one is freed */
+        EsedbRecordReader next() {
+            recordReader.close();
+            recordReader.open(esedbTable.getPointer(), next);
+            next = next + 1 < ROWS ? next + 1 : 0;
+            return recordReader;
+        }
+
+        @Override
+        public void tearDown() throws IOException {
+            recordReader.close();
+            if (esedbTable != null) {
+                esedbTable.close();
+            }
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    public static class Formats implements esedb.jmh.EsedbDecodeJmh.Resource {
+
+        private EsedbOutputFormat outputFormat;
+
+        @Override
+        public void setUp(String format) {
+            outputFormat = EsedbOutputFormat.fromName(format);
+        }
+
+        @Override
+        public void tearDown() {
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 < ROWS ? index + 1 : 0;
+        return index;
+    }
+
+    @Override
+    public String filetimeLegacy() {
+        return legacyFormat(filetimes[nextIndex()]);
+    }
+
+    @Override
+    public String filetimeFormat() {
+        return EsedbCodec.formatFiletime(filetimes[nextIndex()]);
+    }
+
+    @Override
+    public int filetimeAppend() {
+        builder.setLength(0);
+        EsedbCodec.appendFiletime(builder, filetimes[nextIndex()]);
+        return builder.length();
+    }
+
+    @Override
+    public long filetimeMicros() {
+        return EsedbCodec.filetimeToEpochMicros(filetimes[nextIndex()]);
+    }
+
+    @Override
+    public String utf8String(esedb.jmh.EsedbDecodeJmh.Resource resource) throws IOException {
+        Strings strings = (Strings) resource;
+        if (strings.records != null) {
+            return strings.records[nextIndex()].getValueString(strings.urlEntry);
+        }
+        return strings.recordReader.getValueUtf8String(strings.urlEntry);
+    }
+
+    @Override
+    public int textUtf8(esedb.jmh.EsedbDecodeJmh.Resource resource) {
+        Texts texts = (Texts) resource;
+        builder.setLength(0);
+        builder.append(texts.next().getValueUtf8String(texts.valueEntry));
+        return builder.length();
+    }
+
+    @Override
+    public int textUtf16(esedb.jmh.EsedbDecodeJmh.Resource resource) {
+        Texts texts = (Texts) resource;
+        builder.setLength(0);
+        builder.append(texts.next().getValueUtf16String(texts.valueEntry));
+        return builder.length();
+    }
+
+    @Override
+    public int textUtf16View(esedb.jmh.EsedbDecodeJmh.Resource resource) {
+        Texts texts = (Texts) resource;
+        builder.setLength(0);
+        builder.append(texts.next().getValueUtf16(texts.valueEntry));
+        return builder.length();
+    }
+
+    @Override
+    public int formatRow(esedb.jmh.EsedbDecodeJmh.Resource resource) {
+        builder.setLength(0);
+        ((Formats) resource).outputFormat.appendRow(builder, projection, rows[nextIndex()], EsedbCodec.TimeFormat.TEXT);
+        return builder.length();
+    }
+
+    /* EsedbParser.convertLDAPTimeToString as it was */
+    static String legacyFormat(long nanoseconds) {
+        long mills = (nanoseconds / 10000000);
+        long unix = (((1970 - 1601) * 365) - 3 + Math.round((1970 - 1601) / 4)) * 86400L;
+        long timeStamp = mills - unix;
+        Date date = new Date(timeStamp * 1000L);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return sdf.format(date);
+    }
+}
@@ -0,0 +1,95 @@
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/*
+ * File level costs over the EsedbFixture databases, with the java reader and with libesedb:
+ * opening a file and loading its catalog, and fetching one record of Container_1 with the DEFAULT_COLUMNS
+ * decoded, in entry order so the page cache stays warm as in a scan.
+ *
+ * The libesedb runs need libesedb on the library path, they fail in setup without it and JMH goes on with the
+ * next benchmark. Run by esedb.jmh.EsedbFileJmh.
+ */
+public class EsedbFileBench implements esedb.jmh.EsedbFileJmh.Workload {
+
+    private String reader;
+    private String filename;
+
+    private EseDatabase database;
+    private EseTable eseTable;
+
+    private EsedbFile file;
+    private EsedbTable esedbTable;
+    private EsedbRecordReader recordReader;
+
+    private EsedbProjection projection;
+    private int numberOfRecords;
+    private int next;
+
+    @Override
+    public void setUp(int rows, String reader) throws IOException {
+        this.reader = reader;
+        filename = EsedbFixture.get(rows).toString();
+        if (isJava()) {
+            database = EseDatabase.open(filename);
+            eseTable = database.getTable(EsedbFixture.TABLE);
+            projection = EsedbSchema.of(eseTable).project(EsedbParser.DEFAULT_COLUMNS);
+            numberOfRecords = eseTable.getNumberOfRecords();
+        } else {
+            file = EsedbFile.open(filename);
+            esedbTable = file.table(EsedbFixture.TABLE);
+            recordReader = new EsedbRecordReader(file.getLibrary(), true);
+            projection = esedbTable.getSchema().project(EsedbParser.DEFAULT_COLUMNS);
+            numberOfRecords = (int) esedbTable.getNumberOfRecords();
+        }
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        if (database != null) {
+            database.close();
+        }
+        if (esedbTable != null) {
+            esedbTable.close();
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private boolean isJava() {
+        return "java".equals(reader);
+    }
+
+    @Override
+    public void openCatalog(Blackhole blackhole) throws IOException {
+        if (isJava()) {
+            try (EseDatabase opened = EseDatabase.open(filename)) {
+                for (EseTable table : opened.getTables()) {
+                    blackhole.consume(table.getColumns());
+                }
+            }
+        } else {
+            try (EsedbFile opened = EsedbFile.open(filename)) {
+                blackhole.consume(opened.getCatalog());
+            }
+        }
+    }
+
+    @Override
+    public Object[] fetchRecord() throws IOException {
+        int entry = next;
+        next = entry + 1 < numberOfRecords ? entry + 1 : 0;
+        if (isJava()) {
+            return EsedbParser.readValues(eseTable.getRecord(entry), projection);
+        }
+        if (!recordReader.open(esedbTable.getPointer(), entry)) {
+            return null;
+        }
+        try {
+            return EsedbParser.readValues(recordReader, projection);
+        } finally {
+            recordReader.close();
+        }
+    }
+}
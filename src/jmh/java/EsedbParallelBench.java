@@ -0,0 +1,49 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/*
+ * Scaling of EsedbParallelScanner: one scan of Container_1 per operation, records read and formatted as in
+ * EsedbParser (readValues and formatValues) and the text discarded, from 1 to 16 threads. The scanner and its worker handles are opened in setup.
+ * The backend comes from the esedb.backend system property.
+ *
+ * Needs libesedb on the library path, it fails in setup without it. Run by esedb.jmh.EsedbParallelJmh.
+ */
+public class EsedbParallelBench implements esedb.jmh.EsedbParallelJmh.Workload {
+
+    private EsedbFile file;
+    private EsedbTable esedbTable;
+    private EsedbParallelScanner scanner;
+    private EsedbProjection projection;
+    private EsedbSink sink;
+    private long numberOfRecords;
+
+    @Override
+    public void setUp(int rows, int threads) throws Exception {
+        String filename = EsedbFixture.get(rows).toString();
+        file = EsedbFile.open(filename);
+        esedbTable = file.table(EsedbFixture.TABLE);
+        projection = esedbTable.getSchema().project(EsedbParser.DEFAULT_COLUMNS);
+        sink = EsedbSink.of(new PrintStream(OutputStream.nullOutputStream()), EsedbOutputFormat.TABLE, EsedbCodec.TimeFormat.TEXT);
+        numberOfRecords = esedbTable.getNumberOfRecords();
+        scanner = new EsedbParallelScanner(file.getLibrary(), filename, threads);
+    }
+
+    @Override
+    public void tearDown() {
+        if (scanner != null) {
+            scanner.close();
+        }
+        if (esedbTable != null) {
+            esedbTable.close();
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    @Override
+    public long scan() {
+        return scanner.scan(esedbTable, 0, numberOfRecords, false,
+                reader -> EsedbParser.formatValues(sink, null, projection, EsedbParser.readValues(reader, projection)), text -> { });
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.util.BitSet;
+
+/*
+ * The same query on an EsedbSnapshot of Container_1 and by loading the table again: records accessed in the last
+ * 30 days of the table whose Url contains a text. load is the cost of building the snapshot, query of a query on it
+ * once built, so reload is about load plus query. Run with -prof gc for the heap taken by a snapshot.
+ *
+ * The libesedb runs need libesedb on the library path, they fail in setup without it. Run by
+ * esedb.jmh.EsedbSnapshotJmh.
+ */
+public class EsedbSnapshotBench implements esedb.jmh.EsedbSnapshotJmh.Workload {
+
+    private static final long DAYS_30 = 30L * 86400L * 10000000L;
+
+    private String reader;
+    private String text;
+    private String filename;
+    private EsedbSnapshot snapshot;
+
+    @Override
+    public void setUp(int rows, String reader, String text) throws IOException {
+        this.reader = reader;
+        this.text = text;
+        filename = EsedbFixture.get(rows).toString();
+        snapshot = loadSnapshot();
+    }
+
+    private EsedbSnapshot loadSnapshot() throws IOException {
+        if ("java".equals(reader)) {
+            try (EseDatabase database = EseDatabase.open(filename)) {
+                EseTable table = database.getTable(EsedbFixture.TABLE);
+                return EsedbSnapshot.load(table, EsedbSchema.of(table).project(EsedbParser.DEFAULT_COLUMNS));
+            }
+        }
+        try (EsedbFile file = EsedbFile.open(filename);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            return EsedbSnapshot.load(table, table.getSchema().project(EsedbParser.DEFAULT_COLUMNS));
+        }
+    }
+
+    private long query(EsedbSnapshot snapshot) {
+        EsedbSnapshot.LongColumn accessed = snapshot.getLongColumn("AccessedTime");
+        long latest = Long.MIN_VALUE;
+        for (long value : accessed.getValues()) {
+            latest = Math.max(latest, value);
+        }
+        BitSet matches = accessed.between(latest - DAYS_30, latest);
+        matches.and(snapshot.getStringColumn("Url").matching(url -> url.contains(text)));
+        return matches.cardinality();
+    }
+
+    @Override
+    public EsedbSnapshot load() throws IOException {
+        return loadSnapshot();
+    }
+
+    @Override
+    public long query() {
+        return query(snapshot);
+    }
+
+    @Override
+    public long reload() throws IOException {
+        return query(loadSnapshot());
+    }
+}
@@ -0,0 +1,122 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import com.sun.jna.ptr.PointerByReference;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Value fetching of a Container_1 record, the DEFAULT_COLUMNS read in one of two ways:
+ *   types - the calls EsedbParser made per value: column type plus the 32/64-bit or UTF-8 size and string calls
+ *   raw   - EsedbRecordReader.getValue: one libesedb_record_get_value_data per fixed size value decoded in Java,
+ *           one string call per text value
+ * Native calls per function are counted by running with -Desedb.metrics=true (EsedbInstrumentedLibrary).
+ * The backend comes from the esedb.backend system property.
+ *
+ * Needs libesedb on the library path, it fails in setup without it. Run by esedb.jmh.EsedbValueJmh.
+ */
+public class EsedbValueBench implements esedb.jmh.EsedbValueJmh.Workload {
+
+    private String mode;
+    private EsedbFile file;
+    private EsedbTable esedbTable;
+    private EsedbRecordReader recordReader;
+    private PerTypeReader perTypeReader;
+    private EsedbProjection projection;
+    private int numberOfRecords;
+    private int next;
+
+    @Override
+    public void setUp(int rows, String mode) throws Exception {
+        this.mode = mode;
+        file = EsedbFile.open(EsedbFixture.get(rows).toString());
+        esedbTable = file.table(EsedbFixture.TABLE);
+        recordReader = new EsedbRecordReader(file.getLibrary(), true);
+        perTypeReader = new PerTypeReader(file.getLibrary());
+        projection = esedbTable.getSchema().project(EsedbParser.DEFAULT_COLUMNS);
+        numberOfRecords = (int) esedbTable.getNumberOfRecords();
+    }
+
+    @Override
+    public void tearDown() {
+        if (esedbTable != null) {
+            esedbTable.close();
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    @Override
+    public void fetchRecord(Blackhole blackhole) {
+        int entry = next;
+        next = entry + 1 < numberOfRecords ? entry + 1 : 0;
+        if (!recordReader.open(esedbTable.getPointer(), entry)) {
+            return;
+        }
+        boolean raw = "raw".equals(mode);
+        try {
+            for (int v = 0; v < projection.size(); v++) {
+                int valueEntry = projection.getValueEntry(v);
+                if (valueEntry < 0) {
+                    continue;
+                }
+                blackhole.consume(raw ? recordReader.getValue(valueEntry, projection.getColumnType(v))
+                        : perTypeReader.read(recordReader.getRecord(), valueEntry));
+            }
+        } finally {
+            recordReader.close();
+        }
+    }
+
+    /*
+     * Value reading as EsedbParser did it before the raw fetch
+     */
+    private static final class PerTypeReader {
+
+        private final EsedbLibrary library;
+        private final PointerByReference errorPointer = new PointerByReference();
+        private final IntByReference columnType = new IntByReference();
+        private final IntByReference valueDataFlags = new IntByReference();
+        private final LongByReference stringSize = new LongByReference();
+        private final IntByReference value32bit = new IntByReference();
+        private final LongByReference value64bit = new LongByReference();
+        private Memory buffer = new Memory(1024);
+
+        PerTypeReader(EsedbLibrary library) {
+            this.library = library;
+        }
+
+        Object read(Pointer record, int valueEntry) {
+            library.libesedb_record_get_column_type(record, valueEntry, columnType, errorPointer);
+            switch (columnType.getValue()) {
+                case EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED:
+                case EseColumn.COLUMN_TYPE_INTEGER_32BIT_UNSIGNED:
+                    return library.libesedb_record_get_value_32bit(record, valueEntry, value32bit, errorPointer) == 1
+                            ? value32bit.getValue() : null;
+                case EseColumn.COLUMN_TYPE_CURRENCY:
+                case EseColumn.COLUMN_TYPE_DATE_TIME:
+                case EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED:
+                    return library.libesedb_record_get_value_64bit(record, valueEntry, value64bit, errorPointer) == 1
+                            ? value64bit.getValue() : null;
+                case EseColumn.COLUMN_TYPE_TEXT:
+                case EseColumn.COLUMN_TYPE_LARGE_TEXT:
+                    library.libesedb_record_get_value_data_flags(record, valueEntry, valueDataFlags, errorPointer);
+                    if ((valueDataFlags.getValue() & (EseRecord.VALUE_FLAG_LONG_VALUE | EseRecord.VALUE_FLAG_MULTI_VALUE)) != 0) {
+                        return null;
+                    }
+                    if (library.libesedb_record_get_value_utf8_string_size(record, valueEntry, stringSize, errorPointer) != 1
+                            || stringSize.getValue() <= 0) {
+                        return null;
+                    }
+                    if (buffer.size() < stringSize.getValue()) {
+                        buffer = new Memory(stringSize.getValue());
+                    }
+                    return library.libesedb_record_get_value_utf8_string(record, valueEntry, buffer, (int) stringSize.getValue(), errorPointer) == 1
+                            ? buffer.getString(0, "UTF-8") : null;
+                default:
+                    return null;
+            }
+        }
+    }
+}
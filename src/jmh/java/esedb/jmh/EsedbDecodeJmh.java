@@ -0,0 +1,169 @@
+package esedb.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Per value costs: FILETIME formatting, string extraction and row formatting, see EsedbDecodeBench.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EsedbDecodeJmh {
+
+    public interface Workload {
+
+        void setUp() throws IOException;
+
+        String filetimeLegacy();
+
+        String filetimeFormat();
+
+        int filetimeAppend();
+
+        long filetimeMicros();
+
+        String utf8String(Resource strings) throws IOException;
+
+        int textUtf8(Resource texts);
+
+        int textUtf16(Resource texts);
+
+        int textUtf16View(Resource texts);
+
+        int formatRow(Resource formats);
+    }
+
+    /* A state of the workload set up from one parameter: EsedbDecodeBench.Strings, Texts and Formats */
+    public interface Resource {
+
+        void setUp(String param) throws IOException;
+
+        void tearDown() throws IOException;
+    }
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workload = Workloads.load("EsedbDecodeBench", Workload.class);
+        workload.setUp();
+    }
+
+    @State(Scope.Thread)
+    public static class Strings {
+
+        @Param({"java", "libesedb"})
+        public String reader;
+
+        private Resource resource;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            resource = Workloads.load("EsedbDecodeBench$Strings", Resource.class);
+            resource.setUp(reader);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            resource.tearDown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Texts {
+
+        @Param({"Url", "Filename"})
+        public String column;
+
+        private Resource resource;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            resource = Workloads.load("EsedbDecodeBench$Texts", Resource.class);
+            resource.setUp(column);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            resource.tearDown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Formats {
+
+        @Param({"table", "csv", "tsv", "ndjson"})
+        public String format;
+
+        private Resource resource;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            resource = Workloads.load("EsedbDecodeBench$Formats", Resource.class);
+            resource.setUp(format);
+        }
+    }
+
+    @Benchmark
+    public String filetimeLegacy() {
+        return workload.filetimeLegacy();
+    }
+
+    @Benchmark
+    public String filetimeFormat() {
+        return workload.filetimeFormat();
+    }
+
+    @Benchmark
+    public int filetimeAppend() {
+        return workload.filetimeAppend();
+    }
+
+    @Benchmark
+    public long filetimeMicros() {
+        return workload.filetimeMicros();
+    }
+
+    @Benchmark
+    public String utf8String(Strings strings) throws IOException {
+        return workload.utf8String(strings.resource);
+    }
+
+    @Benchmark
+    public int textUtf8(Texts texts) {
+        return workload.textUtf8(texts.resource);
+    }
+
+    @Benchmark
+    public int textUtf16(Texts texts) {
+        return workload.textUtf16(texts.resource);
+    }
+
+    @Benchmark
+    public int textUtf16View(Texts texts) {
+        return workload.textUtf16View(texts.resource);
+    }
+
+    @Benchmark
+    public int formatRow(Formats formats) {
+        return workload.formatRow(formats.resource);
+    }
+}
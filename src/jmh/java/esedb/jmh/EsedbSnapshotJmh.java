@@ -0,0 +1,72 @@
+package esedb.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * A query on an EsedbSnapshot of Container_1 against loading the table again, see EsedbSnapshotBench.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EsedbSnapshotJmh {
+
+    public interface Workload {
+
+        void setUp(int rows, String reader, String text) throws IOException;
+
+        Object load() throws IOException;
+
+        long query();
+
+        long reload() throws IOException;
+    }
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"java", "libesedb"})
+    public String reader;
+
+    @Param({"page/1"})
+    public String text;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workload = Workloads.load("EsedbSnapshotBench", Workload.class);
+        workload.setUp(rows, reader, text);
+    }
+
+    @Benchmark
+    public Object load() throws IOException {
+        return workload.load();
+    }
+
+    @Benchmark
+    public long query() {
+        return workload.query();
+    }
+
+    @Benchmark
+    public long reload() throws IOException {
+        return workload.reload();
+    }
+}
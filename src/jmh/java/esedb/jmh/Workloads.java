@@ -0,0 +1,21 @@
+package esedb.jmh;
+
+/*
+ * JMH only generates benchmarks of classes in a named package, and the parser is in the default package, which a
+ * named package cannot import. So the benchmark classes here only hold the JMH annotations and parameters, and each
+ * delegates to a workload of the default package (EsedbDecodeJmh to EsedbDecodeBench, and so on) through the
+ * interface it declares, the workload loaded by name.
+ */
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    static <T> T load(String className, Class<T> type) {
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load the workload " + className, e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Column definition read from the ESE catalog (MSysObjects).
+ * https://github.com/libyal/libesedb/blob/main/documentation/Extensible%20Storage%20Engine%20(ESE)%20Database%20File%20(EDB)%20format.asciidoc
+ */
+public class EseColumn {
+
+    /* Same values as enum LIBESEDB_COLUMN_TYPES */
+    public static final int COLUMN_TYPE_NULL = 0;
+    public static final int COLUMN_TYPE_BOOLEAN = 1;
+    public static final int COLUMN_TYPE_INTEGER_8BIT_UNSIGNED = 2;
+    public static final int COLUMN_TYPE_INTEGER_16BIT_SIGNED = 3;
+    public static final int COLUMN_TYPE_INTEGER_32BIT_SIGNED = 4;
+    public static final int COLUMN_TYPE_CURRENCY = 5;
+    public static final int COLUMN_TYPE_FLOAT_32BIT = 6;
+    public static final int COLUMN_TYPE_DOUBLE_64BIT = 7;
+    public static final int COLUMN_TYPE_DATE_TIME = 8;
+    public static final int COLUMN_TYPE_BINARY_DATA = 9;
+    public static final int COLUMN_TYPE_TEXT = 10;
+    public static final int COLUMN_TYPE_LARGE_BINARY_DATA = 11;
+    public static final int COLUMN_TYPE_LARGE_TEXT = 12;
+    public static final int COLUMN_TYPE_SUPER_LARGE_VALUE = 13;
+    public static final int COLUMN_TYPE_INTEGER_32BIT_UNSIGNED = 14;
+    public static final int COLUMN_TYPE_INTEGER_64BIT_SIGNED = 15;
+    public static final int COLUMN_TYPE_GUID = 16;
+    public static final int COLUMN_TYPE_INTEGER_16BIT_UNSIGNED = 17;
+
+    /* Column identifiers 1-127 are fixed size, 128-255 variable size and 256+ tagged */
+    static final int FIRST_VARIABLE_IDENTIFIER = 128;
+    static final int FIRST_TAGGED_IDENTIFIER = 256;
+
+    private final int identifier;
+    private final int type;
+    private final int size;
+    private final int codepage;
+    private final int recordOffset;
+    private final String name;
+
+    EseColumn(int identifier, int type, int size, int codepage, int recordOffset, String name) {
+        this.identifier = identifier;
+        this.type = type;
+        this.size = size;
+        this.codepage = codepage;
+        this.recordOffset = recordOffset;
+        this.name = name;
+    }
+
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCodepage() {
+        return codepage;
+    }
+
+    /* Offset of a fixed size column inside the record data, 0 if the catalog does not store it */
+    int getRecordOffset() {
+        return recordOffset;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    boolean isFixedSize() {
+        return identifier < FIRST_VARIABLE_IDENTIFIER;
+    }
+
+    boolean isTagged() {
+        return identifier >= FIRST_TAGGED_IDENTIFIER;
+    }
+
+    boolean isText() {
+        return type == COLUMN_TYPE_TEXT || type == COLUMN_TYPE_LARGE_TEXT;
+    }
+
+    /* Number of bytes a fixed size column takes in the record */
+    int getFixedSize() {
+        int fixedSize = getFixedSize(type);
+        return fixedSize > 0 ? fixedSize : size;
+    }
+
+    /* Size of the values of a fixed size column type, 0 for variable size types */
+    static int getFixedSize(int type) {
+        switch (type) {
+            case COLUMN_TYPE_BOOLEAN:
+            case COLUMN_TYPE_INTEGER_8BIT_UNSIGNED:
+                return 1;
+            case COLUMN_TYPE_INTEGER_16BIT_SIGNED:
+            case COLUMN_TYPE_INTEGER_16BIT_UNSIGNED:
+                return 2;
+            case COLUMN_TYPE_INTEGER_32BIT_SIGNED:
+            case COLUMN_TYPE_INTEGER_32BIT_UNSIGNED:
+            case COLUMN_TYPE_FLOAT_32BIT:
+                return 4;
+            case COLUMN_TYPE_CURRENCY:
+            case COLUMN_TYPE_DOUBLE_64BIT:
+            case COLUMN_TYPE_DATE_TIME:
+            case COLUMN_TYPE_INTEGER_64BIT_SIGNED:
+                return 8;
+            case COLUMN_TYPE_GUID:
+                return 16;
+            default:
+                return 0;
+        }
+    }
+}
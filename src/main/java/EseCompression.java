@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+ * Decompression of ESE compressed values.
+ * The upper 5 bits of the first byte identify the compression:
+ *   1 - 7-bit compressed ASCII
+ *   2 - 7-bit compressed UTF-16
+ *   3 - LZXPRESS (plain LZ77, MS-XCA 2.4)
+ */
+final class EseCompression {
+
+    static final int COMPRESSION_7BIT_ASCII = 1;
+    static final int COMPRESSION_7BIT_UTF16 = 2;
+    static final int COMPRESSION_LZXPRESS = 3;
+
+    private EseCompression() {
+    }
+
+    static boolean isUtf16(byte[] compressed) {
+        return compressed.length > 0 && ((compressed[0] & 0xff) >>> 3) == COMPRESSION_7BIT_UTF16;
+    }
+
+    static byte[] decompress(byte[] compressed) throws IOException {
+        if (compressed.length == 0) {
+            return compressed;
+        }
+        int compression = (compressed[0] & 0xff) >>> 3;
+
+        switch (compression) {
+            case COMPRESSION_7BIT_ASCII:
+                return decompress7bit(compressed, false);
+            case COMPRESSION_7BIT_UTF16:
+                return decompress7bit(compressed, true);
+            case COMPRESSION_LZXPRESS:
+                if (compressed.length < 3) {
+                    throw new IOException("Invalid LZXPRESS compressed value");
+                }
+                int uncompressedSize = (compressed[1] & 0xff) | ((compressed[2] & 0xff) << 8);
+                return decompressLzxpress(compressed, 3, uncompressedSize);
+            default:
+                throw new IOException("Unsupported compression: " + compression);
+        }
+    }
+
+    /*
+     * Values packed 7 bits each, least significant bit first.
+     * The lower 3 bits of the first byte hold the number of bits used in the last byte minus 1.
+     */
+    private static byte[] decompress7bit(byte[] compressed, boolean utf16) {
+        int usedBitsInLastByte = (compressed[0] & 0x07) + 1;
+        int numberOfBits = compressed.length > 1 ? ((compressed.length - 2) * 8) + usedBitsInLastByte : 0;
+        int numberOfValues = numberOfBits / 7;
+        byte[] uncompressed = new byte[utf16 ? numberOfValues * 2 : numberOfValues];
+
+        int bitBuffer = 0;
+        int bitCount = 0;
+        int input = 1;
+        for (int i = 0; i < numberOfValues; i++) {
+            if (bitCount < 7) {
+                bitBuffer |= (compressed[input++] & 0xff) << bitCount;
+                bitCount += 8;
+            }
+            byte value = (byte) (bitBuffer & 0x7f);
+            bitBuffer >>>= 7;
+            bitCount -= 7;
+
+            if (utf16) {
+                uncompressed[i * 2] = value;
+            } else {
+                uncompressed[i] = value;
+            }
+        }
+        return uncompressed;
+    }
+
+    static byte[] decompressLzxpress(byte[] compressed, int offset, int uncompressedSize) throws IOException {
+        byte[] output = new byte[uncompressedSize];
+        int outputPosition = 0;
+        int inputPosition = offset;
+        int flags = 0;
+        int flagCount = 0;
+        int lastLengthHalfByte = 0;
+
+        while (outputPosition < uncompressedSize) {
+            if (flagCount == 0) {
+                if (inputPosition + 4 > compressed.length) {
+                    break;
+                }
+                flags = readInt(compressed, inputPosition);
+                inputPosition += 4;
+                flagCount = 32;
+            }
+            flagCount--;
+
+            if ((flags & (1 << flagCount)) == 0) {
+                if (inputPosition >= compressed.length) {
+                    break;
+                }
+                output[outputPosition++] = compressed[inputPosition++];
+                continue;
+            }
+            if (inputPosition + 2 > compressed.length) {
+                break;
+            }
+            int matchBytes = readShort(compressed, inputPosition);
+            inputPosition += 2;
+            int matchLength = matchBytes & 0x07;
+            int matchOffset = (matchBytes >>> 3) + 1;
+
+            if (matchLength == 7) {
+                if (lastLengthHalfByte == 0) {
+                    checkAvailable(compressed, inputPosition, 1);
+                    matchLength = compressed[inputPosition] & 0x0f;
+                    lastLengthHalfByte = inputPosition++;
+                } else {
+                    matchLength = (compressed[lastLengthHalfByte] & 0xff) >>> 4;
+                    lastLengthHalfByte = 0;
+                }
+                if (matchLength == 15) {
+                    checkAvailable(compressed, inputPosition, 1);
+                    matchLength = compressed[inputPosition++] & 0xff;
+                    if (matchLength == 255) {
+                        checkAvailable(compressed, inputPosition, 2);
+                        matchLength = readShort(compressed, inputPosition);
+                        inputPosition += 2;
+                        if (matchLength == 0) {
+                            checkAvailable(compressed, inputPosition, 4);
+                            matchLength = readInt(compressed, inputPosition);
+                            inputPosition += 4;
+                        }
+                        if (matchLength < 15 + 7) {
+                            throw new IOException("Invalid LZXPRESS match length");
+                        }
+                        matchLength -= 15 + 7;
+                    }
+                    matchLength += 15;
+                }
+                matchLength += 7;
+            }
+            matchLength += 3;
+
+            if (matchOffset > outputPosition) {
+                throw new IOException("Invalid LZXPRESS match offset");
+            }
+            for (int i = 0; i < matchLength && outputPosition < uncompressedSize; i++) {
+                output[outputPosition] = output[outputPosition - matchOffset];
+                outputPosition++;
+            }
+        }
+        return outputPosition == uncompressedSize ? output : Arrays.copyOf(output, outputPosition);
+    }
+
+    private static void checkAvailable(byte[] data, int position, int size) throws IOException {
+        if (position + size > data.length) {
+            throw new IOException("Truncated LZXPRESS compressed value");
+        }
+    }
+
+    private static int readShort(byte[] data, int position) {
+        return (data[position] & 0xff) | ((data[position + 1] & 0xff) << 8);
+    }
+
+    private static int readInt(byte[] data, int position) {
+        return readShort(data, position) | (readShort(data, position + 2) << 16);
+    }
+}
@@ -0,0 +1,241 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Pure Java ESE database reader.
+ * Maps the database file with FileChannel.map and walks the file header, the catalog (MSysObjects)
+ * and the table B-trees itself, so no value goes through a JNI call.
+ * Compared with libesedb by EseDatabaseTest, on the databases written by EsedbFixture and on a real file when one is
+ * given; until that has been run on real WebCacheV01.dat files -r java is left out of the EsedbCli help.
+ * https://github.com/libyal/libesedb/blob/main/documentation/Extensible%20Storage%20Engine%20(ESE)%20Database%20File%20(EDB)%20format.asciidoc
+ */
+public class EseDatabase implements Closeable {
+
+    static final int FILE_SIGNATURE = 0x89abcdef;
+    static final int FORMAT_REVISION_EXTENDED_PAGE_HEADER = 0x11;
+
+    /* The catalog (MSysObjects) always starts at page 4 */
+    static final int CATALOG_ROOT_PAGE = 4;
+
+    /* Catalog types */
+    static final int CATALOG_TYPE_TABLE = 1;
+    static final int CATALOG_TYPE_COLUMN = 2;
+    static final int CATALOG_TYPE_INDEX = 3;
+    static final int CATALOG_TYPE_LONG_VALUE = 4;
+
+    /* FileChannel.map is limited to 2 GiB per buffer */
+    private static final long MAXIMUM_REGION_SIZE = 1L << 30;
+
+    private final String filename;
+    private final RandomAccessFile file;
+    private final ByteBuffer[] regions;
+    private final long regionSize;
+    private final long fileSize;
+
+    private final int formatVersion;
+    private final int formatRevision;
+    private final int pageSize;
+    private final boolean extendedPageHeader;
+    private final boolean largePage;
+
+    private final List<EseTable> tables;
+
+    private EseDatabase(String filename) throws IOException {
+        this.filename = filename;
+        this.file = new RandomAccessFile(filename, "r");
+
+        try {
+            FileChannel channel = file.getChannel();
+            fileSize = channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(240).order(ByteOrder.LITTLE_ENDIAN);
+            if (fileSize < header.capacity() || channel.read(header, 0) < header.capacity()) {
+                throw new IOException("File does not contains an ESEDB: " + filename);
+            }
+            if (header.getInt(4) != FILE_SIGNATURE) {
+                throw new IOException("File does not contains an ESEDB: " + filename);
+            }
+            formatVersion = header.getInt(8);
+            formatRevision = header.getInt(232);
+            pageSize = header.getInt(236) != 0 ? header.getInt(236) : 4096;
+
+            if (Integer.bitCount(pageSize) != 1 || pageSize < 2048 || pageSize > 32768) {
+                throw new IOException("Unsupported page size: " + pageSize);
+            }
+            largePage = formatRevision >= FORMAT_REVISION_EXTENDED_PAGE_HEADER && pageSize >= 16384;
+            extendedPageHeader = largePage;
+
+            regionSize = (MAXIMUM_REGION_SIZE / pageSize) * pageSize;
+            regions = new ByteBuffer[(int) ((fileSize + regionSize - 1) / regionSize)];
+            for (int i = 0; i < regions.length; i++) {
+                long position = i * regionSize;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, fileSize - position));
+            }
+
+            tables = Collections.unmodifiableList(readCatalog());
+        } catch (IOException | RuntimeException ex) {
+            file.close();
+            throw ex;
+        }
+    }
+
+    public static EseDatabase open(String filename) throws IOException {
+        return new EseDatabase(filename);
+    }
+
+    /* Same check as libesedb_check_file_signature */
+    public static boolean checkFileSignature(String filename) throws IOException {
+        try (RandomAccessFile signatureFile = new RandomAccessFile(new File(filename), "r")) {
+            if (signatureFile.length() < 8) {
+                return false;
+            }
+            signatureFile.seek(4);
+            return Integer.reverseBytes(signatureFile.readInt()) == FILE_SIGNATURE;
+        }
+    }
+
+    static ByteBuffer slice(ByteBuffer buffer, int offset, int size) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(offset + size);
+        duplicate.position(offset);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    public int getFormatRevision() {
+        return formatRevision;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    boolean isLargePage() {
+        return largePage;
+    }
+
+    public List<EseTable> getTables() {
+        return tables;
+    }
+
+    public EseTable getTable(String name) {
+        for (EseTable eseTable : tables) {
+            if (eseTable.getName().equals(name)) {
+                return eseTable;
+            }
+        }
+        return null;
+    }
+
+    /* Database page numbers start at 1, the first two pages hold the file header and its shadow copy */
+    EsePage getPage(int pageNumber) throws IOException {
+        long offset = (pageNumber + 1L) * pageSize;
+
+        if (pageNumber <= 0 || offset + pageSize > fileSize) {
+            throw new IOException("Invalid page number: " + pageNumber);
+        }
+        ByteBuffer region = regions[(int) (offset / regionSize)];
+        return new EsePage(pageNumber, slice(region, (int) (offset % regionSize), pageSize), extendedPageHeader, largePage);
+    }
+
+    /*
+     * Appends the leaf pages of the B-tree starting at rootPageNumber, in key order
+     */
+    void collectLeafPages(int rootPageNumber, List<EsePage> leafPages) throws IOException {
+        collectLeafPages(getPage(rootPageNumber), leafPages, 0);
+    }
+
+    private void collectLeafPages(EsePage page, List<EsePage> leafPages, int depth) throws IOException {
+        if (depth > 32) {
+            throw new IOException("B-tree too deep at page: " + page.getNumber());
+        }
+        if (page.isEmpty()) {
+            return;
+        }
+        if (page.isLeaf()) {
+            leafPages.add(page);
+            return;
+        }
+        for (int tag = 1; tag < page.getNumberOfTags(); tag++) {
+            if (!page.isDefunct(tag)) {
+                collectLeafPages(getPage(page.getChildPageNumber(tag)), leafPages, depth + 1);
+            }
+        }
+    }
+
+    /*
+     * The catalog is a table whose records describe tables, columns, indexes and long value trees.
+     * Records are sorted by father data page object identifier, type and identifier,
+     * so a table entry is always followed by its columns.
+     */
+    private List<EseTable> readCatalog() throws IOException {
+        Map<Integer, EseTable> catalogTables = new LinkedHashMap<>();
+        EseTable catalog = EseTable.catalog(this);
+
+        List<EsePage> leafPages = new ArrayList<>();
+        collectLeafPages(CATALOG_ROOT_PAGE, leafPages);
+
+        for (EsePage page : leafPages) {
+            for (int tag = 1; tag < page.getNumberOfTags(); tag++) {
+                if (page.isDefunct(tag)) {
+                    continue;
+                }
+                EseRecord entry = new EseRecord(catalog, page.getRecordData(tag));
+
+                int fatherDataPageObjectIdentifier = entry.getValue32bit(EseTable.CATALOG_OBJECT_IDENTIFIER);
+                int type = entry.getValue16bit(EseTable.CATALOG_TYPE);
+                int identifier = entry.getValue32bit(EseTable.CATALOG_IDENTIFIER);
+                int columnTypeOrPageNumber = entry.getValue32bit(EseTable.CATALOG_COLUMN_TYPE_OR_FDP);
+                String name = entry.getValueString(EseTable.CATALOG_NAME);
+
+                EseTable owner = catalogTables.get(fatherDataPageObjectIdentifier);
+
+                switch (type) {
+                    case CATALOG_TYPE_TABLE:
+                        catalogTables.put(fatherDataPageObjectIdentifier,
+                                new EseTable(this, name, identifier, columnTypeOrPageNumber));
+                        break;
+                    case CATALOG_TYPE_COLUMN:
+                        if (owner != null) {
+                            owner.addColumn(new EseColumn(identifier, columnTypeOrPageNumber,
+                                    entry.getValue32bit(EseTable.CATALOG_SPACE_USAGE),
+                                    entry.getValue32bit(EseTable.CATALOG_CODEPAGE),
+                                    entry.getValue16bit(EseTable.CATALOG_RECORD_OFFSET) & 0xffff,
+                                    name));
+                        }
+                        break;
+                    case CATALOG_TYPE_LONG_VALUE:
+                        if (owner != null) {
+                            owner.setLongValueRootPage(columnTypeOrPageNumber);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return new ArrayList<>(catalogTables.values());
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
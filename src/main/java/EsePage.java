@@ -0,0 +1,139 @@
+import java.nio.ByteBuffer;
+
+/*
+ * View over one mapped ESE database page.
+ *
+ * Page layout:
+ *   page header (40 bytes, 80 bytes for extended page headers)
+ *   page values
+ *   page tags, stored backwards from the end of the page (tag 0 is the last 4 bytes)
+ */
+final class EsePage {
+
+    static final int FLAG_IS_ROOT = 0x0001;
+    static final int FLAG_IS_LEAF = 0x0002;
+    static final int FLAG_IS_PARENT = 0x0004;
+    static final int FLAG_IS_EMPTY = 0x0008;
+    static final int FLAG_IS_SPACE_TREE = 0x0020;
+    static final int FLAG_IS_INDEX = 0x0040;
+    static final int FLAG_IS_LONG_VALUE = 0x0080;
+
+    static final int TAG_FLAG_VERSION = 0x01;
+    static final int TAG_FLAG_IS_DEFUNCT = 0x02;
+    static final int TAG_FLAG_HAS_COMMON_KEY_SIZE = 0x04;
+
+    private final int number;
+    private final ByteBuffer data;
+    private final int headerSize;
+    private final boolean largePage;
+
+    EsePage(int number, ByteBuffer data, boolean extendedHeader, boolean largePage) {
+        this.number = number;
+        this.data = data;
+        this.headerSize = extendedHeader ? 80 : 40;
+        this.largePage = largePage;
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    ByteBuffer getData() {
+        return data;
+    }
+
+    int getPreviousPageNumber() {
+        return data.getInt(16);
+    }
+
+    int getNextPageNumber() {
+        return data.getInt(20);
+    }
+
+    int getFatherDataPageObjectIdentifier() {
+        return data.getInt(24);
+    }
+
+    int getNumberOfTags() {
+        return data.getShort(34) & 0xffff;
+    }
+
+    int getFlags() {
+        return data.getInt(36);
+    }
+
+    boolean isLeaf() {
+        return (getFlags() & FLAG_IS_LEAF) != 0;
+    }
+
+    boolean isEmpty() {
+        return (getFlags() & FLAG_IS_EMPTY) != 0;
+    }
+
+    /* Offset of the value of a tag, relative to the start of the page */
+    int getValueOffset(int tag) {
+        int rawOffset = data.getShort(data.capacity() - (4 * tag) - 2) & 0xffff;
+        return headerSize + (rawOffset & (largePage ? 0x7fff : 0x1fff));
+    }
+
+    int getValueSize(int tag) {
+        int rawSize = data.getShort(data.capacity() - (4 * tag) - 4) & 0xffff;
+        return rawSize & (largePage ? 0x7fff : 0x1fff);
+    }
+
+    /*
+     * Small pages keep the tag flags in the upper 3 bits of the value offset,
+     * pages of 16 KiB and more keep them in the upper 3 bits of the first 16-bit value of the data.
+     */
+    int getTagFlags(int tag) {
+        if (!largePage) {
+            int rawOffset = data.getShort(data.capacity() - (4 * tag) - 2) & 0xffff;
+            return rawOffset >>> 13;
+        }
+        if (tag == 0 || getValueSize(tag) < 2) {
+            return 0;
+        }
+        return (data.getShort(getValueOffset(tag)) & 0xffff) >>> 13;
+    }
+
+    boolean isDefunct(int tag) {
+        return (getTagFlags(tag) & TAG_FLAG_IS_DEFUNCT) != 0;
+    }
+
+    /*
+     * Values of tags 1 and up start with the key:
+     *   common key size (2 bytes, only with TAG_FLAG_HAS_COMMON_KEY_SIZE)
+     *   local key size (2 bytes)
+     *   local key
+     * followed by the record data (leaf pages) or the child page number (parent pages).
+     */
+    int getKeyedDataOffset(int tag) {
+        int valueOffset = getValueOffset(tag);
+        int offset = valueOffset;
+
+        if ((getTagFlags(tag) & TAG_FLAG_HAS_COMMON_KEY_SIZE) != 0) {
+            offset += 2;
+        }
+        int localKeySize = data.getShort(offset) & 0xffff;
+        if (largePage && offset == valueOffset) {
+            localKeySize &= 0x1fff;
+        }
+        return offset + 2 + localKeySize;
+    }
+
+    int getKeyedDataSize(int tag) {
+        return getValueOffset(tag) + getValueSize(tag) - getKeyedDataOffset(tag);
+    }
+
+    /* Record data of a leaf page value */
+    ByteBuffer getRecordData(int tag) {
+        int offset = getKeyedDataOffset(tag);
+        int size = getValueOffset(tag) + getValueSize(tag) - offset;
+        return EseDatabase.slice(data, offset, size);
+    }
+
+    /* Child page number of a parent page value */
+    int getChildPageNumber(int tag) {
+        return data.getInt(getValueOffset(tag) + getValueSize(tag) - 4);
+    }
+}
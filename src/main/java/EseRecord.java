@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Record of a memory-mapped ESE table, decoded on demand straight from the page.
+ * Decoding is compared with libesedb by EseDatabaseTest (see EseDatabase).
+ *
+ * Record data (data definition):
+ *   0 1 last fixed size column identifier
+ *   1 1 last variable size column identifier
+ *   2 2 offset of the variable size data
+ *   4   fixed size values, followed by their NULL bitmap
+ *       variable size value end offsets (2 bytes each, 0x8000 is the NULL flag) and values
+ *       tagged values: array of (column identifier, offset) pairs followed by the values
+ */
+public class EseRecord {
+
+    /* Same values as the libesedb value data flags */
+    public static final int VALUE_FLAG_VARIABLE_SIZE = 0x01;
+    public static final int VALUE_FLAG_COMPRESSED = 0x02;
+    public static final int VALUE_FLAG_LONG_VALUE = 0x04;
+    public static final int VALUE_FLAG_MULTI_VALUE = 0x08;
+    public static final int VALUE_FLAG_MULTI_VALUE_OFFSET = 0x10;
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private final EseTable table;
+    private final ByteBuffer data;
+    private final int lastFixed;
+    private final int lastVariable;
+    private final int variableOffset;
+    private final int variableDataOffset;
+    private final int taggedOffset;
+
+    /* Location of the last looked up value */
+    private int valueOffset;
+    private int valueSize;
+    private int valueFlags;
+
+    EseRecord(EseTable table, ByteBuffer data) {
+        this.table = table;
+        this.data = data;
+        this.lastFixed = data.get(0) & 0xff;
+        this.lastVariable = data.get(1) & 0xff;
+        this.variableOffset = data.getShort(2) & 0xffff;
+
+        int numberOfVariable = Math.max(0, lastVariable - EseColumn.FIRST_VARIABLE_IDENTIFIER + 1);
+        this.variableDataOffset = variableOffset + (2 * numberOfVariable);
+        this.taggedOffset = numberOfVariable == 0 ? variableDataOffset
+                : variableDataOffset + (data.getShort(variableDataOffset - 2) & 0x7fff);
+    }
+
+    public int getNumberOfValues() {
+        return table.getNumberOfColumns();
+    }
+
+    public int getColumnType(int valueEntry) {
+        return table.getColumns().get(valueEntry).getType();
+    }
+
+    public boolean isNull(int valueEntry) {
+        return !locate(valueEntry);
+    }
+
+    public int getValueDataFlags(int valueEntry) {
+        return locate(valueEntry) ? valueFlags : 0;
+    }
+
+    public int getValueDataSize(int valueEntry) {
+        return locate(valueEntry) ? valueSize : 0;
+    }
+
+    /* Raw value data as stored in the record, null if the value is NULL */
+    public byte[] getValueData(int valueEntry) {
+        if (!locate(valueEntry)) {
+            return null;
+        }
+        byte[] valueData = new byte[valueSize];
+        ByteBuffer duplicate = data.duplicate();
+        duplicate.position(valueOffset);
+        duplicate.get(valueData);
+        return valueData;
+    }
+
+    public byte getValue8bit(int valueEntry) {
+        return locate(valueEntry) && valueSize >= 1 ? data.get(valueOffset) : 0;
+    }
+
+    public short getValue16bit(int valueEntry) {
+        return locate(valueEntry) && valueSize >= 2 ? data.getShort(valueOffset) : 0;
+    }
+
+    public int getValue32bit(int valueEntry) {
+        return locate(valueEntry) && valueSize >= 4 ? data.getInt(valueOffset) : 0;
+    }
+
+    public long getValue64bit(int valueEntry) {
+        return locate(valueEntry) && valueSize >= 8 ? data.getLong(valueOffset) : 0;
+    }
+
+    /*
+     * Text value decoded with the column codepage, cut at the end of string character.
+     * Returns null if the value is NULL, not text or stored in the long value tree.
+     */
+    public String getValueString(int valueEntry) throws IOException {
+        EseColumn column = table.getColumns().get(valueEntry);
+
+        if (!column.isText() || !locate(valueEntry) || (valueFlags & VALUE_FLAG_LONG_VALUE) != 0) {
+            return null;
+        }
+        byte[] valueData = getValueData(valueEntry);
+        Charset charset = getCharset(column.getCodepage());
+
+        if ((valueFlags & VALUE_FLAG_COMPRESSED) != 0) {
+            if (EseCompression.isUtf16(valueData)) {
+                charset = StandardCharsets.UTF_16LE;
+            }
+            valueData = EseCompression.decompress(valueData);
+        }
+        String value = new String(valueData, charset);
+        int end = value.indexOf('\0');
+        return end < 0 ? value : value.substring(0, end);
+    }
+
+    /*
+     * Value as the Java type EsedbRecordReader.getValue returns for its column type (see EsedbValueDecoder),
+     * null if NULL. Long values and multi-values are not read and return null.
+     */
+    public Object getValue(int valueEntry) throws IOException {
+        if (!locate(valueEntry) || (valueFlags & (VALUE_FLAG_LONG_VALUE | VALUE_FLAG_MULTI_VALUE)) != 0) {
+            return null;
+        }
+        int columnType = getColumnType(valueEntry);
+        if (EsedbValueDecoder.isFixedSize(columnType)) {
+            return valueSize >= EseColumn.getFixedSize(columnType) ? EsedbValueDecoder.decodeFixed(columnType, data, valueOffset) : null;
+        }
+        if (EsedbValueDecoder.isBinary(columnType)) {
+            return getValueData(valueEntry);
+        }
+        return getValueString(valueEntry);
+    }
+
+    /*
+     * Same as EsedbRecordReader.writeValue for the values of a multi-value, sliced from the page mapping.
+     * Long values are in the long value tree, which this reader does not read: returns 0 for them.
+     */
+    public int writeValue(int valueEntry, EsedbValueOutput output) throws IOException {
+        if (!locate(valueEntry) || (valueFlags & VALUE_FLAG_MULTI_VALUE) == 0 || (valueFlags & VALUE_FLAG_LONG_VALUE) != 0) {
+            return 0;
+        }
+        ByteBuffer value = EseDatabase.slice(data, valueOffset, valueSize);
+        int[] bounds;
+        if ((valueFlags & VALUE_FLAG_MULTI_VALUE_OFFSET) != 0) {
+            /* Two values, the first byte is the size of the first */
+            int firstSize = valueSize > 0 ? Math.min(value.get(0) & 0xff, valueSize - 1) : 0;
+            bounds = new int[]{1, 1 + firstSize, valueSize};
+        } else {
+            /* Array of value offsets, the first offset is also the size of the array */
+            int count = valueSize >= 2 ? Math.min((value.getShort(0) & 0x7fff) / 2, valueSize / 2) : 0;
+            bounds = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                bounds[i] = Math.min(value.getShort(2 * i) & 0x7fff, valueSize);
+            }
+            bounds[count] = valueSize;
+        }
+        int count = bounds.length - 1;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer part = EseDatabase.slice(value, bounds[i], Math.max(0, bounds[i + 1] - bounds[i]));
+            try (WritableByteChannel channel = output.open(i, count)) {
+                while (part.hasRemaining()) {
+                    channel.write(part);
+                }
+            }
+        }
+        return count;
+    }
+
+    static Charset getCharset(int codepage) {
+        switch (codepage) {
+            case 1200:
+                return StandardCharsets.UTF_16LE;
+            case 20127:
+                return StandardCharsets.US_ASCII;
+            case 65001:
+                return StandardCharsets.UTF_8;
+            default:
+                return WINDOWS_1252;
+        }
+    }
+
+    /*
+     * Looks up the value of an entry, returns false if it is NULL
+     */
+    private boolean locate(int valueEntry) {
+        EseColumn column = table.getColumns().get(valueEntry);
+        int identifier = column.getIdentifier();
+
+        if (column.isFixedSize()) {
+            return locateFixed(column, identifier);
+        }
+        if (!column.isTagged()) {
+            return locateVariable(identifier);
+        }
+        return locateTagged(identifier);
+    }
+
+    private boolean locateFixed(EseColumn column, int identifier) {
+        if (identifier > lastFixed) {
+            return false;
+        }
+        int nullBitmapOffset = variableOffset - ((lastFixed + 7) / 8);
+        if ((data.get(nullBitmapOffset + ((identifier - 1) / 8)) & (1 << ((identifier - 1) % 8))) != 0) {
+            return false;
+        }
+        int offset = column.getRecordOffset();
+        if (offset < 4) {
+            /* The catalog does not store the offset, add up the preceding fixed size columns */
+            offset = 4;
+            for (EseColumn previous : table.getColumns()) {
+                if (previous.getIdentifier() >= identifier) {
+                    break;
+                }
+                offset += previous.getFixedSize();
+            }
+        }
+        valueOffset = offset;
+        valueSize = column.getFixedSize();
+        valueFlags = 0;
+        return offset + valueSize <= nullBitmapOffset;
+    }
+
+    private boolean locateVariable(int identifier) {
+        if (identifier > lastVariable) {
+            return false;
+        }
+        int index = identifier - EseColumn.FIRST_VARIABLE_IDENTIFIER;
+        int end = data.getShort(variableOffset + (2 * index)) & 0xffff;
+
+        if ((end & 0x8000) != 0) {
+            return false;
+        }
+        int start = index == 0 ? 0 : data.getShort(variableOffset + (2 * index) - 2) & 0x7fff;
+        valueOffset = variableDataOffset + start;
+        valueSize = end - start;
+        valueFlags = VALUE_FLAG_VARIABLE_SIZE;
+        return true;
+    }
+
+    private boolean locateTagged(int identifier) {
+        int taggedSize = data.limit() - taggedOffset;
+        if (taggedSize < 4) {
+            return false;
+        }
+        boolean largePage = table.getDatabase().isLargePage();
+        int offsetMask = largePage ? 0x7fff : 0x1fff;
+        int count = (data.getShort(taggedOffset + 2) & offsetMask) / 4;
+
+        for (int i = 0; i < count; i++) {
+            int entryIdentifier = data.getShort(taggedOffset + (4 * i)) & 0xffff;
+            if (entryIdentifier != identifier) {
+                continue;
+            }
+            int rawOffset = data.getShort(taggedOffset + (4 * i) + 2) & 0xffff;
+            int start = rawOffset & offsetMask;
+            int end = i + 1 < count ? data.getShort(taggedOffset + (4 * i) + 6) & offsetMask : taggedSize;
+
+            if (!largePage && (rawOffset & 0x2000) != 0) {
+                return false;
+            }
+            valueOffset = taggedOffset + start;
+            valueSize = end - start;
+            valueFlags = VALUE_FLAG_VARIABLE_SIZE;
+
+            /* The tagged data flags byte is always present on large pages and flagged by 0x4000 on small pages */
+            if (valueSize > 0 && (largePage || (rawOffset & 0x4000) != 0)) {
+                valueFlags = data.get(valueOffset) & 0xff;
+                valueOffset++;
+                valueSize--;
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Table of a memory-mapped ESE database.
+ * Records are numbered in B-tree order, like libesedb_table_get_record.
+ */
+public class EseTable {
+
+    /* Value entries of a catalog (MSysObjects) record */
+    static final int CATALOG_OBJECT_IDENTIFIER = 0;
+    static final int CATALOG_TYPE = 1;
+    static final int CATALOG_IDENTIFIER = 2;
+    static final int CATALOG_COLUMN_TYPE_OR_FDP = 3;
+    static final int CATALOG_SPACE_USAGE = 4;
+    static final int CATALOG_FLAGS = 5;
+    static final int CATALOG_CODEPAGE = 6;
+    static final int CATALOG_ROOT_FLAG = 7;
+    static final int CATALOG_RECORD_OFFSET = 8;
+    static final int CATALOG_NAME = 11;
+    static final int CATALOG_TEMPLATE_TABLE = 13;
+
+    private final EseDatabase database;
+    private final String name;
+    private final int fatherDataPageObjectIdentifier;
+    private final int rootPageNumber;
+    private int longValueRootPage;
+
+    private final List<EseColumn> columns = new ArrayList<>();
+    private boolean columnsSorted = true;
+
+    /* Leaf pages of the table B-tree and the number of the first record on each of them, loaded on first use */
+    private List<EsePage> leafPages;
+    private int[] firstRecords;
+    private int numberOfRecords;
+
+    EseTable(EseDatabase database, String name, int fatherDataPageObjectIdentifier, int rootPageNumber) {
+        this.database = database;
+        this.name = name;
+        this.fatherDataPageObjectIdentifier = fatherDataPageObjectIdentifier;
+        this.rootPageNumber = rootPageNumber;
+    }
+
+    /* The catalog describes itself with a fixed layout */
+    static EseTable catalog(EseDatabase database) {
+        EseTable catalog = new EseTable(database, "MSysObjects", 2, EseDatabase.CATALOG_ROOT_PAGE);
+        catalog.addColumn(new EseColumn(1, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 4, "ObjidTable"));
+        catalog.addColumn(new EseColumn(2, EseColumn.COLUMN_TYPE_INTEGER_16BIT_SIGNED, 2, 0, 8, "Type"));
+        catalog.addColumn(new EseColumn(3, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 10, "Id"));
+        catalog.addColumn(new EseColumn(4, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 14, "ColtypOrPgnoFDP"));
+        catalog.addColumn(new EseColumn(5, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 18, "SpaceUsage"));
+        catalog.addColumn(new EseColumn(6, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 22, "Flags"));
+        catalog.addColumn(new EseColumn(7, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 26, "PagesOrLocale"));
+        catalog.addColumn(new EseColumn(8, EseColumn.COLUMN_TYPE_BOOLEAN, 1, 0, 30, "RootFlag"));
+        catalog.addColumn(new EseColumn(9, EseColumn.COLUMN_TYPE_INTEGER_16BIT_SIGNED, 2, 0, 31, "RecordOffset"));
+        catalog.addColumn(new EseColumn(10, EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, 4, 0, 33, "LCMapFlags"));
+        catalog.addColumn(new EseColumn(11, EseColumn.COLUMN_TYPE_INTEGER_16BIT_UNSIGNED, 2, 0, 37, "KeyMost"));
+        catalog.addColumn(new EseColumn(128, EseColumn.COLUMN_TYPE_TEXT, 255, 1252, 0, "Name"));
+        catalog.addColumn(new EseColumn(129, EseColumn.COLUMN_TYPE_BINARY_DATA, 255, 0, 0, "Stats"));
+        catalog.addColumn(new EseColumn(130, EseColumn.COLUMN_TYPE_TEXT, 255, 1252, 0, "TemplateTable"));
+        return catalog;
+    }
+
+    EseDatabase getDatabase() {
+        return database;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int getFatherDataPageObjectIdentifier() {
+        return fatherDataPageObjectIdentifier;
+    }
+
+    int getLongValueRootPage() {
+        return longValueRootPage;
+    }
+
+    void setLongValueRootPage(int longValueRootPage) {
+        this.longValueRootPage = longValueRootPage;
+    }
+
+    void addColumn(EseColumn column) {
+        if (!columns.isEmpty() && columns.get(columns.size() - 1).getIdentifier() > column.getIdentifier()) {
+            columnsSorted = false;
+        }
+        columns.add(column);
+    }
+
+    /* Columns ordered by identifier, the value entry of a record is the index in this list */
+    public List<EseColumn> getColumns() {
+        if (!columnsSorted) {
+            Collections.sort(columns, new Comparator<EseColumn>() {
+                @Override
+                public int compare(EseColumn first, EseColumn second) {
+                    return Integer.compare(first.getIdentifier(), second.getIdentifier());
+                }
+            });
+            columnsSorted = true;
+        }
+        return Collections.unmodifiableList(columns);
+    }
+
+    public int getNumberOfColumns() {
+        return columns.size();
+    }
+
+    public int getNumberOfRecords() throws IOException {
+        loadLeafPages();
+        return numberOfRecords;
+    }
+
+    public EseRecord getRecord(int recordEntry) throws IOException {
+        loadLeafPages();
+
+        if (recordEntry < 0 || recordEntry >= numberOfRecords) {
+            throw new IOException("Invalid record entry: " + recordEntry);
+        }
+        int low = 0;
+        int high = firstRecords.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstRecords[middle] <= recordEntry) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        EsePage page = leafPages.get(low);
+        int remaining = recordEntry - firstRecords[low];
+
+        for (int tag = 1; tag < page.getNumberOfTags(); tag++) {
+            if (page.isDefunct(tag)) {
+                continue;
+            }
+            if (remaining-- == 0) {
+                return new EseRecord(this, page.getRecordData(tag));
+            }
+        }
+        throw new IOException("Invalid record entry: " + recordEntry);
+    }
+
+    private void loadLeafPages() throws IOException {
+        if (leafPages != null) {
+            return;
+        }
+        List<EsePage> pages = new ArrayList<>();
+        database.collectLeafPages(rootPageNumber, pages);
+
+        int[] first = new int[pages.size()];
+        int count = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            first[i] = count;
+            EsePage page = pages.get(i);
+            for (int tag = 1; tag < page.getNumberOfTags(); tag++) {
+                if (!page.isDefunct(tag)) {
+                    count++;
+                }
+            }
+        }
+        leafPages = pages;
+        firstRecords = first;
+        numberOfRecords = count;
+    }
+}
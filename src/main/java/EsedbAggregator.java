@@ -0,0 +1,390 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Grouped counts of --group-by, computed in one pass over the records as they are read instead of listing them:
+ *
+ *   --group-by host --top 100          most visited hosts of the Url column
+ *   --group-by day                     records per UTC day of AccessedTime
+ *   --group-by table --sum FileSize    records, cached bytes and smallest and largest file per container
+ *
+ * Keys are host[:column] (host of an URL, Url by default), day[:column] (UTC day of a timestamp, AccessedTime by
+ * default), table (name of the table) or any column, several separated by commas. --sum adds the sum, minimum and
+ * maximum of a numeric column to every group.
+ *
+ * A group is found by a 64-bit hash of its key values in an EsedbHeavyHitters of bounded capacity, so memory does not
+ * grow with the input: counts are exact while the groups fit, and past that the top groups are kept with the most
+ * their counts may be over (Error column). Records are added under a lock, the scanner threads may share it.
+ */
+public final class EsedbAggregator {
+
+    static final int DEFAULT_TOP = 100;
+
+    /* Groups kept for every group shown, and at least MIN_CAPACITY */
+    static final int CAPACITY_FACTOR = 16;
+    static final int MIN_CAPACITY = 4096;
+
+    /* FILETIME intervals in a day, and days from 1601-01-01 to 1970-01-01 */
+    private static final long FILETIME_DAY = 864000000000L;
+    private static final long FILETIME_EPOCH_DAYS = 134774;
+
+    private static final long NULL_HASH = 0x5bd1e9955bd1e995L;
+
+    enum KeyType {
+        HOST("host", "Url"), DAY("day", "AccessedTime"), TABLE("table", null), COLUMN(null, null);
+
+        private final String name;
+        private final String defaultColumn;
+
+        KeyType(String name, String defaultColumn) {
+            this.name = name;
+            this.defaultColumn = defaultColumn;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /* COLUMN for any other name, a column of the table */
+        public static KeyType fromName(String name) {
+            for (KeyType type : values()) {
+                if (type.name != null && type.name.equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+            return COLUMN;
+        }
+    }
+
+    private static final class Key {
+
+        private final KeyType type;
+        private final String name;
+        private final String column;
+        private int columnType = EseColumn.COLUMN_TYPE_TEXT;
+
+        Key(KeyType type, String name, String column) {
+            this.type = type;
+            this.name = name;
+            this.column = column;
+        }
+    }
+
+    private final Key[] keys;
+    private final String sumColumn;
+    private final int top;
+    private final EsedbHeavyHitters groups;
+    private int sumColumnType = EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED;
+
+    private EsedbAggregator(Key[] keys, String sumColumn, int top) {
+        this.keys = keys;
+        this.sumColumn = sumColumn;
+        this.top = top;
+        this.groups = new EsedbHeavyHitters((int) Math.min(EsedbHeavyHitters.MAX_CAPACITY,
+                Math.max(MIN_CAPACITY, (long) top * CAPACITY_FACTOR)));
+    }
+
+    /*
+     * Parses the keys of --group-by, sumColumn may be null. IllegalArgumentException if they are not valid.
+     */
+    public static EsedbAggregator parse(String groupBy, String sumColumn, int top) {
+        if (top < 1) {
+            throw new IllegalArgumentException("top must be at least 1: " + top);
+        }
+        List<Key> keys = new ArrayList<>();
+        for (String part : groupBy.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            int colon = name.indexOf(':');
+            KeyType type = KeyType.fromName(colon >= 0 ? name.substring(0, colon) : name);
+            String column = type == KeyType.COLUMN ? name : type.defaultColumn;
+            if (colon >= 0) {
+                if (type != KeyType.HOST && type != KeyType.DAY) {
+                    throw new IllegalArgumentException("Only host and day take a column: " + name);
+                }
+                column = name.substring(colon + 1).trim();
+                if (column.isEmpty()) {
+                    throw new IllegalArgumentException("Missing column: " + name);
+                }
+            }
+            keys.add(new Key(type, name, column));
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("No group key: " + groupBy);
+        }
+        if (sumColumn != null && sumColumn.trim().isEmpty()) {
+            throw new IllegalArgumentException("No column to sum");
+        }
+        return new EsedbAggregator(keys.toArray(new Key[0]), sumColumn != null ? sumColumn.trim() : null, top);
+    }
+
+    /*
+     * Resolves the columns of the keys against a table. Columns the table lacks group as NULL.
+     */
+    public Bound bind(EsedbSchema schema, String tableName) {
+        int[] valueEntries = new int[keys.length];
+        int[] columnTypes = new int[keys.length];
+        List<String> missingColumns = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            Key key = keys[i];
+            valueEntries[i] = key.column != null ? schema.indexOf(key.column) : -1;
+            if (valueEntries[i] >= 0) {
+                columnTypes[i] = schema.getColumnType(valueEntries[i]);
+                synchronized (groups) {
+                    key.columnType = columnTypes[i];
+                }
+            } else if (key.column != null) {
+                missingColumns.add(key.column);
+            }
+        }
+        int sumEntry = sumColumn != null ? schema.indexOf(sumColumn) : -1;
+        int sumType = sumEntry >= 0 ? schema.getColumnType(sumEntry) : EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED;
+        if (sumEntry >= 0) {
+            synchronized (groups) {
+                sumColumnType = sumType;
+            }
+        } else if (sumColumn != null) {
+            missingColumns.add(sumColumn);
+        }
+        return new Bound(tableName, valueEntries, columnTypes, sumEntry, sumType, missingColumns);
+    }
+
+    /* Number of records added */
+    public long getNumberOfRecords() {
+        synchronized (groups) {
+            return groups.getTotal();
+        }
+    }
+
+    /* True while every group is kept, the counts are then exact */
+    public boolean isExact() {
+        synchronized (groups) {
+            return groups.isExact();
+        }
+    }
+
+    /*
+     * Writes the top groups, largest count first: the keys, Count, the sum, minimum and maximum of the --sum column,
+     * and Error when the counts are approximate.
+     */
+    public void write(EsedbSink sink) {
+        synchronized (groups) {
+            boolean exact = groups.isExact();
+            List<String> names = new ArrayList<>();
+            List<Integer> types = new ArrayList<>();
+            for (Key key : keys) {
+                names.add(key.name);
+                types.add(key.type == KeyType.COLUMN ? key.columnType : EseColumn.COLUMN_TYPE_TEXT);
+            }
+            names.add("Count");
+            types.add(EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED);
+            if (sumColumn != null) {
+                names.add(sumColumn + "Sum");
+                types.add(EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED);
+                names.add("Min" + sumColumn);
+                types.add(sumColumnType);
+                names.add("Max" + sumColumn);
+                types.add(sumColumnType);
+            }
+            if (!exact) {
+                names.add("Error");
+                types.add(EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED);
+            }
+            int[] columnTypes = new int[types.size()];
+            for (int i = 0; i < columnTypes.length; i++) {
+                columnTypes[i] = types.get(i);
+            }
+            EsedbProjection projection = EsedbSchema.of(names.toArray(new String[0]), columnTypes).all();
+
+            sink.writeHeader(projection);
+            for (int slot : groups.top(top)) {
+                Object[] values = Arrays.copyOf(groups.getGroup(slot), names.size());
+                int column = keys.length;
+                values[column++] = groups.getCount(slot);
+                if (sumColumn != null) {
+                    boolean hasValue = groups.getMinimum(slot) <= groups.getMaximum(slot);
+                    values[column++] = hasValue ? groups.getSum(slot) : null;
+                    values[column++] = hasValue ? groups.getMinimum(slot) : null;
+                    values[column++] = hasValue ? groups.getMaximum(slot) : null;
+                }
+                if (!exact) {
+                    values[column] = groups.getError(slot);
+                }
+                sink.write(EsedbParser.formatValues(sink, names, projection, values));
+            }
+        }
+    }
+
+    /* FNV-1a of the characters from start to end, in lower case if ignoreCase */
+    static long hash(CharSequence text, int start, int end, boolean ignoreCase) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            hash ^= ignoreCase ? Character.toLowerCase(c) : c;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long hash(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long combine(long hash, long part) {
+        long mixed = (hash ^ part) * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 29);
+    }
+
+    /* Start of the host of an URL: past the scheme and the user, 0 if there is no scheme */
+    static int hostStart(String url) {
+        int scheme = url.indexOf("://");
+        int start = scheme >= 0 ? scheme + 3 : 0;
+        int end = hostEnd(url, start);
+        int at = url.lastIndexOf('@', end - 1);
+        return at >= start ? at + 1 : start;
+    }
+
+    /* End of the authority starting at start, before the port, path, query or fragment */
+    static int hostEnd(String url, int start) {
+        for (int i = start; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#' || c == ':' || c == '\\') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    /*
+     * The aggregation of one table, adding its records to the groups
+     */
+    public final class Bound {
+
+        private final int[] valueEntries;
+        private final int[] columnTypes;
+        private final int sumEntry;
+        private final int sumType;
+        private final String tableName;
+        private final long tableHash;
+        private final List<String> missingColumns;
+
+        private Bound(String tableName, int[] valueEntries, int[] columnTypes, int sumEntry, int sumType,
+                      List<String> missingColumns) {
+            this.tableName = tableName;
+            this.tableHash = EsedbAggregator.hash(tableName, 0, tableName.length(), false);
+            this.valueEntries = valueEntries;
+            this.columnTypes = columnTypes;
+            this.sumEntry = sumEntry;
+            this.sumType = sumType;
+            this.missingColumns = missingColumns;
+        }
+
+        /* Columns of the keys or of --sum the table lacks */
+        public List<String> getMissingColumns() {
+            return missingColumns;
+        }
+
+        /* Adds the open record, reading only the columns of the keys and of --sum */
+        public void accept(EsedbRecordReader reader) {
+            Object[] values = new Object[valueEntries.length];
+            for (int i = 0; i < values.length; i++) {
+                if (valueEntries[i] >= 0) values[i] = reader.getValue(valueEntries[i], columnTypes[i]);
+            }
+            add(values, sumEntry >= 0 ? reader.getValue(sumEntry, sumType) : null);
+        }
+
+        public void accept(EseRecord record) throws IOException {
+            Object[] values = new Object[valueEntries.length];
+            for (int i = 0; i < values.length; i++) {
+                if (valueEntries[i] >= 0) values[i] = record.getValue(valueEntries[i]);
+            }
+            add(values, sumEntry >= 0 ? record.getValue(sumEntry) : null);
+        }
+
+        private void add(Object[] values, Object sumValue) {
+            long hash = 0;
+            for (int i = 0; i < keys.length; i++) {
+                hash = combine(hash, hash(keys[i].type, values[i]));
+            }
+            boolean hasValue = sumValue instanceof Number;
+            long value = hasValue ? ((Number) sumValue).longValue() : 0;
+            synchronized (groups) {
+                int slot = groups.find(hash);
+                if (slot < 0) {
+                    slot = groups.insert(hash, group(values));
+                }
+                groups.add(slot, value, hasValue);
+            }
+        }
+
+        private long hash(KeyType type, Object value) {
+            switch (type) {
+                case TABLE:
+                    return tableHash;
+                case HOST:
+                    if (value instanceof String) {
+                        String url = (String) value;
+                        int start = hostStart(url);
+                        return EsedbAggregator.hash(url, start, hostEnd(url, start), true);
+                    }
+                    return NULL_HASH;
+                case DAY:
+                    return value instanceof Long ? Math.floorDiv((Long) value, FILETIME_DAY) : NULL_HASH;
+                default:
+                    if (value == null) {
+                        return NULL_HASH;
+                    }
+                    if (value instanceof String) {
+                        String text = (String) value;
+                        return EsedbAggregator.hash(text, 0, text.length(), false);
+                    }
+                    if (value instanceof byte[]) {
+                        return EsedbAggregator.hash((byte[]) value);
+                    }
+                    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                        return ((Number) value).longValue();
+                    }
+                    return value.hashCode();
+            }
+        }
+
+        /* Values shown for a new group, only built when the group is first kept */
+        private Object[] group(Object[] values) {
+            Object[] group = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Object value = values[i];
+                switch (keys[i].type) {
+                    case TABLE:
+                        group[i] = tableName;
+                        break;
+                    case HOST:
+                        if (value instanceof String) {
+                            String url = (String) value;
+                            int start = hostStart(url);
+                            group[i] = url.substring(start, hostEnd(url, start)).toLowerCase(Locale.ROOT);
+                        }
+                        break;
+                    case DAY:
+                        if (value instanceof Long) {
+                            group[i] = LocalDate.ofEpochDay(Math.floorDiv((Long) value, FILETIME_DAY) - FILETIME_EPOCH_DAYS).toString();
+                        }
+                        break;
+                    default:
+                        group[i] = value;
+                }
+            }
+            return group;
+        }
+    }
+}
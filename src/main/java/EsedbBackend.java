@@ -0,0 +1,74 @@
+import com.sun.jna.Native;
+
+import java.util.Locale;
+
+/*
+ * Native binding backends for EsedbLibrary.
+ *   proxy  - Native.load interface proxy, every call goes through JNA's reflective invocation handler
+ *   direct - JNA direct mapping (Native.register), calls go straight to the registered native methods
+ *   ffm    - java.lang.foreign downcall handles, only present when built with the "ffm" profile on JDK 22 or later
+ *
+ * EsedbLibrary.INSTANCE is loaded with the selected backend on first use, so select must be called before that.
+ * The default comes from the esedb.backend system property.
+ * With esedb.metrics set, the backend is wrapped in EsedbInstrumentedLibrary (see EsedbMetrics).
+ */
+public enum EsedbBackend {
+
+    PROXY {
+        @Override
+        public EsedbLibrary newInstance() {
+            return Native.load(LIBRARY_NAME, EsedbLibrary.class);
+        }
+    },
+
+    DIRECT {
+        @Override
+        public EsedbLibrary newInstance() {
+            return new EsedbDirectLibrary();
+        }
+    },
+
+    FFM {
+        @Override
+        public EsedbLibrary newInstance() {
+            try {
+                return (EsedbLibrary) Class.forName("EsedbForeignLibrary").getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException | UnsupportedClassVersionError ex) {
+                throw new UnsupportedOperationException("ffm backend requires a build and runtime on JDK 22 or later", ex);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("ffm backend could not be loaded", ex);
+            }
+        }
+    };
+
+    static final String LIBRARY_NAME = "esedb";
+
+    private static volatile EsedbBackend selected = fromName(System.getProperty("esedb.backend", "proxy"));
+
+    public abstract EsedbLibrary newInstance();
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static EsedbBackend fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown backend: " + name + " (proxy, direct or ffm)");
+        }
+    }
+
+    public static EsedbBackend getSelected() {
+        return selected;
+    }
+
+    public static void select(EsedbBackend backend) {
+        selected = backend;
+    }
+
+    static EsedbLibrary load() {
+        EsedbLibrary library = selected.newInstance();
+        return EsedbMetrics.ENABLED ? new EsedbInstrumentedLibrary(library, EsedbMetrics.get()) : library;
+    }
+}
@@ -0,0 +1,266 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Batch mode (--batch): lists the tables of many ESE files into one sink, each row tagged with its file in a leading
+ * SourceFile column.
+ *
+ * The input is a directory, walked recursively, or a text file with one path per line. Every regular file is checked
+ * for the ESE signature (libesedb_check_file_signature, or the header read in Java with the java reader), the others
+ * are skipped. At most jobs files are processed at once, on virtual threads when the JDK has them (21+) and on a fixed
+ * pool otherwise. Each file is opened, read and closed by its own job with its own native handles, so an error in one
+ * file is recorded in the summary and never stops the others.
+ *
+ * Rows are formatted by the job and written to the sink in blocks of whole rows, blocks of different files interleave.
+ * With a timeline the rows go to the EsedbTimeline instead, which writes them in time order once every file is read.
+ * A dictionary is shared by every file, so a string repeated across files is held and written once.
+ */
+public final class EsedbBatch {
+
+    static final String SOURCE_COLUMN = "SourceFile";
+
+    /* Rows of a job are written to the sink in blocks of about this size */
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    private final EsedbSink sink;
+    private final String table;
+    private final List<String> columns;
+    private final EsedbFilter filter;
+    private final EsedbTimeline timeline;
+    private final EsedbDictionary dictionary;
+    private final boolean javaReader;
+    private final int jobs;
+
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    /* filter null to list every record, timeline null to list the files as they are read, dictionary null for text */
+    public EsedbBatch(EsedbSink sink, String table, List<String> columns, EsedbFilter filter, EsedbTimeline timeline,
+                      EsedbDictionary dictionary, boolean javaReader, int jobs) {
+        this.sink = sink;
+        this.table = table;
+        this.columns = columns;
+        this.filter = filter;
+        this.timeline = timeline;
+        this.dictionary = dictionary;
+        this.javaReader = javaReader;
+        this.jobs = jobs;
+    }
+
+    /*
+     * Regular files under a directory, or the paths listed in a file (blank lines and # comments ignored)
+     */
+    public static List<Path> listFiles(Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> paths = Files.walk(input)) {
+                return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        }
+        List<Path> files = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    files.add(Paths.get(line));
+                }
+            }
+        }
+        return files;
+    }
+
+    /*
+     * Processes the files and prints the summary, returns the number of failed files
+     */
+    public int run(List<Path> files) throws InterruptedException {
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(jobs);
+        ExecutorService executor = newExecutor(jobs);
+        try {
+            for (Path file : files) {
+                executor.execute(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        process(file);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("=============================");
+        System.out.println("Arquivos encontrados: " + files.size());
+        System.out.println("Arquivos ESE processados: " + parsed.get());
+        System.out.println("Arquivos ignorados (sem assinatura ESE): " + skipped.get());
+        System.out.println("Arquivos com erro: " + failures.size());
+        for (String failure : failures) {
+            System.out.println("  " + failure);
+        }
+        System.out.println("Registros lidos: " + records.get());
+        System.out.println("Registros por segundo: " + (elapsed > 0 ? (records.get() * 1000000000L) / elapsed : 0));
+        System.out.println("Arquivos por segundo: " + (elapsed > 0 ? ((parsed.get() + failures.size()) * 1000000000L) / elapsed : 0));
+        System.out.println("=============================");
+        return failures.size();
+    }
+
+    /* One file, every error caught and recorded */
+    private void process(Path file) {
+        String filename = file.toString();
+        try {
+            boolean ese = javaReader ? EseDatabase.checkFileSignature(filename)
+                    : EsedbFile.checkFileSignature(EsedbLibrary.INSTANCE, filename);
+            if (!ese) {
+                skipped.incrementAndGet();
+                return;
+            }
+            StringBuilder block = new StringBuilder(BLOCK_SIZE + 4096);
+            try {
+                readRows(filename, table, columns, filter, dictionary, javaReader, new RowHandler() {
+                    @Override
+                    public void table(EsedbProjection projection) {
+                        if (timeline == null) sink.writeHeader(SOURCE_COLUMN, projection);
+                    }
+
+                    @Override
+                    public void row(EsedbProjection projection, Object[] values) {
+                        if (timeline != null) {
+                            try {
+                                timeline.add(projection, SOURCE_COLUMN, filename, values);
+                            } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                            records.incrementAndGet();
+                            return;
+                        }
+                        sink.appendRow(block, SOURCE_COLUMN, filename, projection, values);
+                        records.incrementAndGet();
+                        if (block.length() >= BLOCK_SIZE) {
+                            sink.write(block);
+                            block.setLength(0);
+                        }
+                    }
+                });
+            } finally {
+                /* Rows read before an error are kept, as when a single file is listed */
+                sink.write(block);
+            }
+            parsed.incrementAndGet();
+        } catch (IOException | RuntimeException | LinkageError ex) {
+            failures.add(filename + ": " + ex);
+        }
+    }
+
+    /*
+     * Receives the rows of readRows: table once before the rows of each table listed
+     */
+    interface RowHandler {
+
+        void table(EsedbProjection projection);
+
+        void row(EsedbProjection projection, Object[] values);
+    }
+
+    /*
+     * Reads the projected columns of the records matching filter (every record if null) of the tables matching
+     * table (see EsedbParser.matchesTable), with libesedb (its own handles, freed before returning) or the java
+     * reader. The columns of the dictionary, if not null, are read as codes. Errors are thrown, a filter that does
+     * not fit a table as IllegalArgumentException.
+     */
+    static void readRows(String filename, String table, List<String> columns, EsedbFilter filter, EsedbDictionary dictionary,
+                         boolean javaReader, RowHandler handler) throws IOException {
+        if (javaReader) {
+            try (EseDatabase database = EseDatabase.open(filename)) {
+                for (EseTable eseTable : database.getTables()) {
+                    if (!EsedbParser.matchesTable(eseTable.getName(), table)) {
+                        continue;
+                    }
+                    EsedbSchema schema = EsedbSchema.of(eseTable);
+                    EsedbProjection projection = schema.project(columns);
+                    EsedbFilter.Bound bound = filter != null ? filter.bind(schema) : null;
+                    handler.table(projection);
+                    int numberOfRecords = bound != null && bound.matchesNothing() ? 0 : eseTable.getNumberOfRecords();
+                    for (int i = 0; i < numberOfRecords; i++) {
+                        EseRecord record = eseTable.getRecord(i);
+                        if (bound != null && !bound.test(record)) continue;
+                        handler.row(projection, EsedbParser.readValues(record, projection, dictionary));
+                    }
+                }
+            }
+            return;
+        }
+        try (EsedbFile file = EsedbFile.open(filename)) {
+            EsedbRecordReader recordReader = new EsedbRecordReader(file.getLibrary(), true);
+            /* A -t =Name table is the only one opened, otherwise the names are read first, see EsedbParser.main */
+            String exactTable = EsedbParser.exactTable(table);
+            EsedbTable namedTable = exactTable != null ? file.findTable(exactTable) : null;
+            if (namedTable != null) {
+                try (EsedbTable esedbTable = namedTable) {
+                    readRows(esedbTable, recordReader, columns, filter, dictionary, handler);
+                }
+                return;
+            }
+            List<String> tableNames = file.getTableNames();
+            for (int entry = 0; entry < tableNames.size(); entry++) {
+                if (!EsedbParser.matchesTable(tableNames.get(entry), table)) {
+                    continue;
+                }
+                try (EsedbTable esedbTable = file.table(entry)) {
+                    readRows(esedbTable, recordReader, columns, filter, dictionary, handler);
+                }
+            }
+        }
+    }
+
+    private static void readRows(EsedbTable esedbTable, EsedbRecordReader recordReader, List<String> columns,
+                                 EsedbFilter filter, EsedbDictionary dictionary, RowHandler handler) throws IOException {
+        EsedbSchema schema = esedbTable.getSchema();
+        EsedbProjection projection = schema.project(columns);
+        EsedbFilter.Bound bound = filter != null ? filter.bind(schema) : null;
+        handler.table(projection);
+        long numberOfRecords = bound != null && bound.matchesNothing() ? 0 : esedbTable.getNumberOfRecords();
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (!recordReader.open(esedbTable.getPointer(), i)) continue;
+            try {
+                if (bound != null && !bound.test(recordReader)) continue;
+                handler.row(projection, EsedbParser.readValues(recordReader, projection, dictionary));
+            } finally {
+                recordReader.close();
+            }
+        }
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor when available, looked up by reflection as the code is compiled
+     * for Java 11. Jobs wait on a semaphore for a permit, so virtual threads only make the waiting cheap.
+     */
+    static ExecutorService newExecutor(int jobs) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(jobs);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/*
+ * On-disk cache of parsed databases, so a file already listed is not opened with libesedb again.
+ * An entry holds the table catalog (names, number of columns and records) and an EsedbSnapshot of each table listed,
+ * so any output format or time format can be written from it.
+ *
+ * Entries are keyed by the identity of the file: canonical path, size, modification time and a CRC32C of the database
+ * header pages plus 64 blocks spread over the file, together with the record reader (libesedb or java), the table
+ * filter and the requested columns.
+ * The cache lives in its own directory (esedb.cache.dir, by default ~/.cache/esedbparser), never next to the database,
+ * which is often evidence that must not be written to.
+ *
+ * Each entry starts with a magic number and FORMAT_VERSION, and entries of other versions are discarded.
+ * Entries are written to a temporary file and moved into place, so concurrent runs never read half an entry.
+ * The directory is kept under maxBytes (esedb.cache.maxBytes, by default 512 MiB) by removing the least recently used
+ * entries, the modification time of an entry being updated on every hit.
+ */
+public final class EsedbCache {
+
+    static final int MAGIC = 0x45434348;
+    static final int FORMAT_VERSION = 3;
+    static final long DEFAULT_MAX_BYTES = 512L << 20;
+
+    private static final String SUFFIX = ".cache";
+    private static final int HEADER_BYTES = 2 * 4096;
+    private static final int SAMPLE_BYTES = 4096;
+    private static final int SAMPLES = 64;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public EsedbCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /* The cache configured by the esedb.cache.dir and esedb.cache.maxBytes system properties */
+    public static EsedbCache open() {
+        String directory = System.getProperty("esedb.cache.dir");
+        return new EsedbCache(directory != null ? Paths.get(directory) : getDefaultDirectory(), getDefaultMaxBytes());
+    }
+
+    static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".cache", "esedbparser");
+    }
+
+    static long getDefaultMaxBytes() {
+        return Long.getLong("esedb.cache.maxBytes", DEFAULT_MAX_BYTES);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /*
+     * Identity of the file for the given record reader, table filter and columns (null for EsedbParser.DEFAULT_COLUMNS)
+     */
+    public Key identify(String filename, String reader, String table, List<String> columns) throws IOException {
+        Path path = Paths.get(filename).toRealPath();
+        return new Key(path, fileIdentity(path),
+                reader + "|" + table + "|" + (columns != null ? String.join(",", columns) : ""));
+    }
+
+    private static String fileIdentity(Path path) throws IOException {
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        return path + "|" + size + "|" + modified + "|" + Long.toHexString(contentHash(path, size));
+    }
+
+    /*
+     * The cached entry, null if there is none or it cannot be read
+     */
+    public Entry get(Key key) {
+        Path file = directory.resolve(key.getFileName());
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), EsedbSink.BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.description.equals(in.readUTF())) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            Entry entry = new Entry();
+            entry.setNumberOfTables(in.readInt());
+            int numberOfTables = in.readInt();
+            for (int i = 0; i < numberOfTables; i++) {
+                entry.addTable(in.readUTF(), in.readInt(), in.readLong());
+            }
+            int numberOfSnapshots = in.readInt();
+            for (int i = 0; i < numberOfSnapshots; i++) {
+                String name = in.readUTF();
+                entry.putSnapshot(name, EsedbSnapshot.readFrom(in));
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry;
+        } catch (IOException | RuntimeException ex) {
+            /* Truncated or damaged, parse the file again */
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    /*
+     * Stores the entry if the file is unchanged since key was computed, then evicts down to maxBytes
+     */
+    public void put(Key key, Entry entry) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "esedb", ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, EsedbSink.BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(key.description);
+                out.writeInt(entry.numberOfTables);
+                out.writeInt(entry.tables.size());
+                for (TableInfo table : entry.tables) {
+                    out.writeUTF(table.name);
+                    out.writeInt(table.numberOfColumns);
+                    out.writeLong(table.numberOfRecords);
+                }
+                out.writeInt(entry.snapshots.size());
+                for (Map.Entry<String, EsedbSnapshot> snapshot : entry.snapshots.entrySet()) {
+                    out.writeUTF(snapshot.getKey());
+                    snapshot.getValue().writeTo(out);
+                }
+            }
+            if (!key.identity.equals(fileIdentity(key.path))) {
+                /* Changed while it was parsed */
+                return;
+            }
+            Files.move(temporary, directory.resolve(key.getFileName()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        evict();
+    }
+
+    /* Removes the least recently used entries until the directory holds at most maxBytes */
+    void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                entries.add(path);
+                total += Files.size(path);
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Map<Path, Long> used = new LinkedHashMap<>();
+        for (Path path : entries) {
+            used.put(path, Files.getLastModifiedTime(path).toMillis());
+        }
+        Collections.sort(entries, Comparator.comparing(used::get));
+        for (Path path : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long size = Files.size(path);
+            if (Files.deleteIfExists(path)) {
+                total -= size;
+            }
+        }
+    }
+
+    /*
+     * CRC32C of the header pages, SAMPLES blocks at even intervals and the last block. The ESE header is rewritten
+     * whenever the database is attached for writing, and size and modification time are part of the key as well.
+     */
+    static long contentHash(Path path, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            update(crc, channel, buffer, 0);
+            buffer = ByteBuffer.allocate(SAMPLE_BYTES);
+            long step = Math.max(SAMPLE_BYTES, size / SAMPLES);
+            for (long position = HEADER_BYTES; position < size; position += step) {
+                update(crc, channel, buffer, position);
+            }
+            update(crc, channel, buffer, Math.max(0, size - SAMPLE_BYTES));
+        }
+        return crc.getValue();
+    }
+
+    private static void update(CRC32C crc, FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+        }
+        buffer.flip();
+        crc.update(buffer);
+    }
+
+    /*
+     * Identity of a file, see identify
+     */
+    public static final class Key {
+
+        private final Path path;
+        private final String identity;
+        private final String description;
+
+        private Key(Path path, String identity, String selection) {
+            this.path = path;
+            this.identity = identity;
+            this.description = FORMAT_VERSION + "|" + identity + "|" + selection;
+        }
+
+        String getFileName() {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(description.getBytes(StandardCharsets.UTF_8));
+                StringBuilder name = new StringBuilder(64 + SUFFIX.length());
+                for (byte b : digest) {
+                    name.append(Character.forDigit((b >> 4) & 0x0f, 16)).append(Character.forDigit(b & 0x0f, 16));
+                }
+                return name.append(SUFFIX).toString();
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /*
+     * The catalog of a database, in table order, and the snapshots of the tables listed.
+     * A table found by name holds only that table in the catalog, see hasCatalog.
+     */
+    public static final class Entry {
+
+        private final List<TableInfo> tables = new ArrayList<>();
+        private final Map<String, EsedbSnapshot> snapshots = new LinkedHashMap<>();
+        private int numberOfTables;
+
+        public void setNumberOfTables(int numberOfTables) {
+            this.numberOfTables = numberOfTables;
+        }
+
+        public int getNumberOfTables() {
+            return numberOfTables;
+        }
+
+        /* True if every table of the database is in the catalog */
+        public boolean hasCatalog() {
+            return tables.size() >= numberOfTables;
+        }
+
+        public void addTable(String name, int numberOfColumns, long numberOfRecords) {
+            tables.add(new TableInfo(name, numberOfColumns, numberOfRecords));
+        }
+
+        public void putSnapshot(String tableName, EsedbSnapshot snapshot) {
+            snapshots.put(tableName, snapshot);
+        }
+
+        public List<TableInfo> getTables() {
+            return Collections.unmodifiableList(tables);
+        }
+
+        /* Snapshot of a listed table, null if the table was not listed */
+        public EsedbSnapshot getSnapshot(String tableName) {
+            return snapshots.get(tableName);
+        }
+    }
+
+    public static final class TableInfo {
+
+        private final String name;
+        private final int numberOfColumns;
+        private final long numberOfRecords;
+
+        TableInfo(String name, int numberOfColumns, long numberOfRecords) {
+            this.name = name;
+            this.numberOfColumns = numberOfColumns;
+            this.numberOfRecords = numberOfRecords;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getNumberOfColumns() {
+            return numberOfColumns;
+        }
+
+        public long getNumberOfRecords() {
+            return numberOfRecords;
+        }
+    }
+}
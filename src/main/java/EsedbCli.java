@@ -1,19 +1,49 @@
 import org.apache.commons.cli.*;
-import com.google.inject.Inject;
+
+import java.util.Arrays;
+import java.util.List;
 
 public class EsedbCli extends DefaultParser {
 
+    /* Options that are parsed but not shown by printHelp until verified: -r java against libesedb on real files */
+    private static final List<String> UNLISTED = Arrays.asList("r");
+
     private final String[] args;
 
-    @Inject
     public EsedbCli(String... args) {
         super();
         this.args = args;
 
         options = new Options();
         options.addOption("f", "file", true, "file ESEDB to parse web history.");
+        options.addOption("B", "batch", true, "directory (searched recursively) or file listing the ESE files to parse together.");
+        options.addOption("j", "jobs", true, "with --batch or --serve, number of files parsed at once (default: number of cores).");
+        options.addOption(null, "serve", true, "run as a server on this loopback port, keeping libesedb loaded (--jobs parse at once).");
+        options.addOption(null, "connect", true, "send the job to the server on this loopback port instead of parsing here.");
         options.addOption("i", "info", false, "show ESEDB file info.");
-        options.addOption("t", "table", true, "specify table to list.");
+        options.addOption("t", "table", true, "specify tables to list: those whose name contains this (default Container_), or =Name for exactly that table.");
+        options.addOption("c", "columns", true, "comma separated columns to list, e.g. Url,AccessedTime.");
+        options.addOption("w", "where", true, "list only the records matching, e.g. \"AccessedTime >= 2026-01-01 AND Url ~ example.com\" (= != < <= > >= ~ !~).");
+        options.addOption(null, "values-dir", true, "stream the long values and multi-values of the listed columns (e.g. ResponseHeaders) into files of this directory.");
+        options.addOption("g", "group-by", true, "count the records per group instead of listing them: host[:column], day[:column], table or columns, comma separated.");
+        options.addOption(null, "top", true, "with --group-by, number of groups shown, largest first (default: 100).");
+        options.addOption(null, "sum", true, "with --group-by, sum, minimum and maximum of this column per group, e.g. FileSize.");
+        options.addOption(null, "timeline", true, "list the records of every table (and file with --batch) in the order of this timestamp column, e.g. AccessedTime.");
+        options.addOption(null, "timeline-dir", true, "with --timeline, directory of the sorted runs spilled to disk (default: the temporary directory).");
+        options.addOption(null, "dictionary", true, "list Url and Filename as codes, each distinct string written once to this file (Code, Value).");
+        options.addOption("d", "time-format", true, "timestamps as text (default), micros (since 1970) or filetime (raw).");
+        options.addOption("F", "format", true, "output format: table (default), csv, tsv or ndjson.");
+        options.addOption("o", "output", true, "write the records to this file instead of the standard output (.gz is compressed).");
+        options.addOption("z", "gzip", false, "gzip-compress the records.");
+        options.addOption(null, "no-cache", false, "do not read nor write the cache of parsed files.");
+        options.addOption(null, "cache-dir", true, "cache directory (default ~/.cache/esedbparser).");
+        options.addOption("I", "incremental", true, "state file: list only records new or changed since the last run, then update it.");
+        options.addOption(null, "new-only", false, "with --incremental, only new records (higher EntryId), reading the table from the end.");
+        options.addOption("r", "reader", true, "record reader: libesedb (default) or java (memory-mapped, no native calls; experimental, not yet verified against libesedb on real files).");
+        options.addOption("b", "backend", true, "libesedb binding: proxy (default), direct or ffm (JDK 22+).");
+        options.addOption("T", "threads", true, "number of threads scanning each table (libesedb reader).");
+        options.addOption(null, "metrics", false, "time every libesedb call and print latency histograms (JFR events and JMX MBean esedbparser:type=Metrics).");
+        options.addOption("O", "ordered", false, "keep record order when scanning with more than one thread.");
     }
 
     public String[] getArgs() {
@@ -32,6 +62,12 @@ public class EsedbCli extends DefaultParser {
         HelpFormatter formatter = new HelpFormatter();
         formatter.setOptionComparator(null);
 
-        formatter.printHelp( "esedbParser", options );
+        Options listed = new Options();
+        for (Option option : options.getOptions()) {
+            if (!UNLISTED.contains(option.getOpt())) {
+                listed.addOption(option);
+            }
+        }
+        formatter.printHelp( "esedbParser", listed );
     }
 }
@@ -0,0 +1,157 @@
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/*
+ * Conversion and text formatting of decoded values (see EsedbValueDecoder for the Java types).
+ *
+ * FILETIME is the number of 100-nanosecond intervals since 1601-01-01 UTC (also named LDAP or Windows NT time).
+ * It converts exactly to microseconds since the Unix epoch: 1601 to 1970 is 134774 days, 11644473600 seconds.
+ * Timestamps of years 1 to 9999 are formatted by hand into a StringBuilder, which allocates nothing when the builder
+ * is reused; others go through one shared DateTimeFormatter, immutable and thread-safe.
+ */
+public final class EsedbCodec {
+
+    /* 100 ns intervals between 1601-01-01 and 1970-01-01 */
+    public static final long FILETIME_EPOCH_OFFSET = 116444736000000000L;
+
+    static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT).withZone(ZoneOffset.UTC);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /*
+     * How timestamps are written
+     *   text     - yyyy-MM-dd HH:mm:ss.SSS UTC
+     *   micros   - microseconds since 1970-01-01 UTC
+     *   filetime - the value as stored
+     */
+    public enum TimeFormat {
+        TEXT, MICROS, FILETIME;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static TimeFormat fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown time format: " + name + " (text, micros or filetime)");
+            }
+        }
+    }
+
+    private EsedbCodec() {
+    }
+
+    /* Microseconds since 1970-01-01 UTC, rounded down */
+    public static long filetimeToEpochMicros(long filetime) {
+        return Math.floorDiv(filetime - FILETIME_EPOCH_OFFSET, 10L);
+    }
+
+    public static long epochMicrosToFiletime(long epochMicros) {
+        return (epochMicros * 10L) + FILETIME_EPOCH_OFFSET;
+    }
+
+    public static Instant filetimeToInstant(long filetime) {
+        long intervals = filetime - FILETIME_EPOCH_OFFSET;
+        return Instant.ofEpochSecond(Math.floorDiv(intervals, 10000000L), Math.floorMod(intervals, 10000000L) * 100L);
+    }
+
+    public static String formatFiletime(long filetime) {
+        StringBuilder builder = new StringBuilder(23);
+        appendFiletime(builder, filetime);
+        return builder.toString();
+    }
+
+    /*
+     * Appends yyyy-MM-dd HH:mm:ss.SSS (UTC), truncated to the millisecond
+     */
+    public static void appendFiletime(StringBuilder builder, long filetime) {
+        long millis = Math.floorDiv(filetime - FILETIME_EPOCH_OFFSET, 10000L);
+        long days = Math.floorDiv(millis, 86400000L);
+        long millisOfDay = Math.floorMod(millis, 86400000L);
+
+        /* Civil date from days since 1970-01-01 (proleptic Gregorian, eras of 400 years) */
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - (era * 146097);
+        long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+        long dayOfYear = dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+        long monthIndex = ((5 * dayOfYear) + 2) / 153;
+        long day = dayOfYear - (((153 * monthIndex) + 2) / 5) + 1;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + (era * 400) + (month <= 2 ? 1 : 0);
+
+        if (year < 1 || year > 9999) {
+            TIMESTAMP_FORMATTER.formatTo(filetimeToInstant(filetime), builder);
+            return;
+        }
+        appendDigits(builder, year, 4);
+        builder.append('-');
+        appendDigits(builder, month, 2);
+        builder.append('-');
+        appendDigits(builder, day, 2);
+        builder.append(' ');
+        appendDigits(builder, millisOfDay / 3600000L, 2);
+        builder.append(':');
+        appendDigits(builder, (millisOfDay / 60000L) % 60, 2);
+        builder.append(':');
+        appendDigits(builder, (millisOfDay / 1000L) % 60, 2);
+        builder.append('.');
+        appendDigits(builder, millisOfDay % 1000L, 3);
+    }
+
+    private static void appendDigits(StringBuilder builder, long value, int digits) {
+        for (long divisor = digits == 4 ? 1000 : digits == 3 ? 100 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + ((value / divisor) % 10)));
+        }
+    }
+
+    public static String formatTime(long filetime, TimeFormat format) {
+        switch (format) {
+            case MICROS:
+                return Long.toString(filetimeToEpochMicros(filetime));
+            case FILETIME:
+                return Long.toString(filetime);
+            default:
+                return formatFiletime(filetime);
+        }
+    }
+
+    /*
+     * WebCache stores its timestamps (CreationTime, AccessedTime, ...) as 64-bit integers holding a FILETIME,
+     * so those are written as timestamps like DATE_TIME columns
+     */
+    public static boolean isTimestamp(String columnName, int columnType) {
+        return columnType == EseColumn.COLUMN_TYPE_DATE_TIME
+                || (columnType == EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED && columnName != null && columnName.endsWith("Time"));
+    }
+
+    /*
+     * Text of a decoded value, "" for NULL. Binary values are written in hexadecimal.
+     */
+    public static String formatValue(Object value, String columnName, int columnType, TimeFormat format) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Long && isTimestamp(columnName, columnType)) {
+            return formatTime((Long) value, format);
+        }
+        if (value instanceof byte[]) {
+            return toHex((byte[]) value);
+        }
+        return value.toString();
+    }
+
+    public static String toHex(byte[] data) {
+        char[] hex = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(data[i] >> 4) & 0x0f];
+            hex[(i * 2) + 1] = HEX_DIGITS[data[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,82 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+/*
+ * Column definition of an EsedbTable, see EsedbTable.column.
+ * Name and type are read when the column is opened. Errors are thrown as EsedbException.
+ */
+public class EsedbColumn implements AutoCloseable {
+
+    private final int entry;
+    private final PointerByReference columnPointerReference = new PointerByReference();
+    private final EsedbHandles.Handle handle;
+
+    private final int type;
+    private final String name;
+
+    /* parent is the handle of the table wrapper, null when the table is only a pointer (EsedbSchema.read) */
+    EsedbColumn(EsedbLibrary library, Pointer table, int entry, EsedbHandles.Handle parent) {
+        this(library, table, entry, parent, EsedbSchema.COLUMN_FLAGS, new Memory(256));
+    }
+
+    /* utf8Name is a scratch buffer for the name, grown if too small */
+    EsedbColumn(EsedbLibrary library, Pointer table, int entry, EsedbHandles.Handle parent, int flags, Memory utf8Name) {
+        this.entry = entry;
+
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "Table Get Column",
+                library.libesedb_table_get_column(table, entry, columnPointerReference, flags, errorPointer), errorPointer);
+        this.handle = EsedbHandles.register(this, EsedbHandles.Kind.COLUMN, parent, free(library, columnPointerReference));
+
+        try {
+            Pointer column = columnPointerReference.getValue();
+            IntByReference columnType = new IntByReference();
+            EsedbException.check(library, "Column Get Type",
+                    library.libesedb_column_get_type(column, columnType, errorPointer), errorPointer);
+            type = columnType.getValue();
+
+            LongByReference nameSize = new LongByReference();
+            EsedbException.check(library, "Column Get UTF8 Name Size",
+                    library.libesedb_column_get_utf8_name_size(column, nameSize, errorPointer), errorPointer);
+            if (nameSize.getValue() > utf8Name.size()) {
+                utf8Name = new Memory(nameSize.getValue());
+            }
+            utf8Name.setByte(0, (byte) 0);
+            EsedbException.check(library, "Column Get UTF8 Name",
+                    library.libesedb_column_get_utf8_name(column, utf8Name, (int) nameSize.getValue(), errorPointer), errorPointer);
+            name = utf8Name.getString(0, "UTF-8");
+        } catch (RuntimeException ex) {
+            handle.close();
+            throw ex;
+        }
+    }
+
+    /* Frees the column, must not refer to the EsedbColumn */
+    private static Runnable free(EsedbLibrary library, PointerByReference columnPointerReference) {
+        return () -> {
+            PointerByReference errorPointer = EsedbHandles.errorPointer();
+            EsedbException.check(library, "Column Free", library.libesedb_column_free(columnPointerReference, errorPointer), errorPointer);
+        };
+    }
+
+    public int getEntry() {
+        return entry;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /* One of the EseColumn.COLUMN_TYPE_ constants */
+    public int getType() {
+        return type;
+    }
+
+    @Override
+    public void close() {
+        handle.close();
+    }
+}
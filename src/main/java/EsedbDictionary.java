@@ -0,0 +1,74 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Dictionary of --dictionary: the Url and Filename columns are listed as codes into one EsedbStringPool, shared by every
+ * table and, in batch mode, every file, and each distinct string is written once at the end (Code, Value) in the
+ * output format. URLs and file names repeat across the containers and across the copies of a WebCache, so rows shrink
+ * to numbers and each string is held once, off-heap.
+ *
+ * With libesedb the UTF-8 bytes are interned straight from the native value buffer of EsedbRecordReader: a value seen
+ * before allocates no String. The java reader decodes the value first. Codes are given in the order values are first
+ * seen. Safe for the scanner and batch threads.
+ */
+public final class EsedbDictionary {
+
+    static final List<String> COLUMNS = Arrays.asList("Url", "Filename");
+
+    private static final EsedbSchema SCHEMA = EsedbSchema.of(new String[]{"Code", "Value"},
+            new int[]{EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED, EseColumn.COLUMN_TYPE_TEXT});
+
+    private final EsedbStringPool pool = new EsedbStringPool();
+    private long references;
+
+    /* Whether the column is listed as codes */
+    public boolean isCoded(String columnName) {
+        if (columnName == null) {
+            return false;
+        }
+        for (String column : COLUMNS) {
+            if (column.equalsIgnoreCase(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Code of the UTF-8 bytes at offset of the buffer */
+    public synchronized int intern(ByteBuffer utf8, int offset, int length) {
+        references++;
+        return pool.intern(utf8, offset, length);
+    }
+
+    public synchronized int intern(String value) {
+        references++;
+        return pool.intern(value);
+    }
+
+    /* Number of distinct strings */
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    /* Number of values interned, repeated ones included */
+    public synchronized long getReferences() {
+        return references;
+    }
+
+    public synchronized long getOffHeapBytes() {
+        return pool.getOffHeapBytes();
+    }
+
+    /* Writes the strings in code order */
+    public synchronized void write(EsedbSink sink) {
+        EsedbProjection projection = SCHEMA.all();
+        sink.writeHeader(projection);
+        Object[] values = new Object[2];
+        for (int code = 0; code < pool.size(); code++) {
+            values[0] = code;
+            values[1] = pool.get(code);
+            sink.write(sink.formatRow(projection, values));
+        }
+    }
+}
@@ -0,0 +1,325 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+/*
+ * EsedbLibrary backend using JNA direct mapping.
+ * The functions are registered once with Native.register, so calls skip the reflective
+ * invocation handler of the Native.load proxy.
+ * https://github.com/java-native-access/jna/blob/master/www/DirectMapping.md
+ */
+final class EsedbDirectLibrary implements EsedbLibrary {
+
+    /* Native.register needs static native methods, which cannot implement the interface directly */
+    private static final class Natives {
+
+        static {
+            Native.register(Natives.class, EsedbBackend.LIBRARY_NAME);
+        }
+
+        static void register() {
+            /* Runs the static initializer */
+        }
+
+        static native String libesedb_get_version();
+        static native int libesedb_check_file_signature(String filename, PointerByReference error);
+        static native int libesedb_file_initialize(PointerByReference filePointer, PointerByReference error);
+        static native int libesedb_file_free(PointerByReference file, PointerByReference error);
+        static native int libesedb_file_open(Pointer file, String filename, int acessFlags, PointerByReference error);
+        static native int libesedb_file_get_type(Pointer file, LongByReference type, PointerByReference error);
+        static native int libesedb_file_close(Pointer file, PointerByReference error);
+        static native int libesedb_file_get_number_of_tables(Pointer file, IntByReference numberOfTables, PointerByReference error);
+        static native int libesedb_file_get_table(Pointer file, int tableEntry, PointerByReference table, PointerByReference error);
+        static native int libesedb_file_get_table_by_utf8_name(Pointer file, String utf8_string, int utf8_string_length, PointerByReference table, PointerByReference error);
+        static native int libesedb_table_get_utf8_name_size(Pointer table, LongByReference utf8_string_size, PointerByReference error);
+        static native int libesedb_table_get_utf8_name(Pointer table, Memory utf8_string, int utf8_string_size, PointerByReference error);
+        static native int libesedb_table_get_number_of_columns(Pointer table, IntByReference number_of_columns, int flags, PointerByReference error);
+        static native int libesedb_table_get_column(Pointer table, int column_entry, PointerByReference column, int flags, PointerByReference error);
+        static native int libesedb_table_get_number_of_records(Pointer table, LongByReference number_of_records, PointerByReference error);
+        static native int libesedb_table_get_record(Pointer table, int record_entry, PointerByReference record, PointerByReference error);
+        static native int libesedb_table_free(PointerByReference table, PointerByReference error);
+        static native int libesedb_column_get_type(Pointer column, IntByReference type, PointerByReference error);
+        static native int libesedb_column_get_utf8_name_size(Pointer column, LongByReference utf8_string_size, PointerByReference error);
+        static native int libesedb_column_get_utf8_name(Pointer column, Memory utf8_string, int utf8_string_size, PointerByReference error);
+        static native int libesedb_column_free(PointerByReference column, PointerByReference error);
+        static native int libesedb_record_get_number_of_values(Pointer record, IntByReference number_of_values, PointerByReference error);
+        static native int libesedb_record_get_column_identifier(Pointer record, int value_entry, IntByReference column_identifier, PointerByReference error);
+        static native int libesedb_record_get_column_type(Pointer record, int value_entry, IntByReference column_type, PointerByReference error);
+        static native int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error);
+        static native int libesedb_record_get_value_data_flags(Pointer record, int value_entry, IntByReference value_data_flags, PointerByReference error);
+        static native int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error);
+        static native int libesedb_record_get_value_data_size(Pointer record, int value_entry, LongByReference value_data_size, PointerByReference error);
+        static native int libesedb_record_get_value_data(Pointer record, int value_entry, Memory value_data, int value_data_size, PointerByReference error);
+        static native int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error);
+        static native int libesedb_record_get_value_utf8_string(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error);
+        static native int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, LongByReference utf16_string_size, PointerByReference error);
+        static native int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, Memory utf16_string, int utf16_string_size, PointerByReference error);
+        static native int libesedb_record_get_value_32bit(Pointer record, int value_entry, IntByReference value_32bit, PointerByReference error);
+        static native int libesedb_record_get_value_64bit(Pointer record, int value_entry, LongByReference value_64bit, PointerByReference error);
+        static native int libesedb_record_is_long_value(Pointer record, int value_entry, PointerByReference error);
+        static native int libesedb_record_get_long_value(Pointer record, int value_entry, PointerByReference long_value, PointerByReference error);
+        static native int libesedb_long_value_get_number_of_data_segments(Pointer long_value, IntByReference number_of_data_segments, PointerByReference error);
+        static native int libesedb_long_value_get_data_segment_size(Pointer long_value, int data_segment_index, LongByReference data_segment_size, PointerByReference error);
+        static native int libesedb_long_value_get_data_segment(Pointer long_value, int data_segment_index, Memory data_segment, int data_segment_size, PointerByReference error);
+        static native int libesedb_long_value_free(PointerByReference long_value, PointerByReference error);
+        static native int libesedb_record_is_multi_value(Pointer record, int value_entry, PointerByReference error);
+        static native int libesedb_record_get_multi_value(Pointer record, int value_entry, PointerByReference multi_value, PointerByReference error);
+        static native int libesedb_multi_value_get_number_of_values(Pointer multi_value, IntByReference number_of_values, PointerByReference error);
+        static native int libesedb_multi_value_get_value_data_size(Pointer multi_value, int multi_value_index, LongByReference value_data_size, PointerByReference error);
+        static native int libesedb_multi_value_get_value_data(Pointer multi_value, int multi_value_index, Memory value_data, int value_data_size, PointerByReference error);
+        static native int libesedb_multi_value_free(PointerByReference multi_value, PointerByReference error);
+        static native int libesedb_record_free(PointerByReference record, PointerByReference error);
+        static native void libesedb_error_free(PointerByReference error);
+    }
+
+    EsedbDirectLibrary() {
+        /* A missing library fails here instead of on the first call */
+        Natives.register();
+    }
+
+    @Override
+    public String libesedb_get_version() {
+        return Natives.libesedb_get_version();
+    }
+
+    @Override
+    public int libesedb_check_file_signature(String filename, PointerByReference error) {
+        return Natives.libesedb_check_file_signature(filename, error);
+    }
+
+    @Override
+    public int libesedb_file_initialize(PointerByReference filePointer, PointerByReference error) {
+        return Natives.libesedb_file_initialize(filePointer, error);
+    }
+
+    @Override
+    public int libesedb_file_free(PointerByReference file, PointerByReference error) {
+        return Natives.libesedb_file_free(file, error);
+    }
+
+    @Override
+    public int libesedb_file_open(Pointer file, String filename, int acessFlags, PointerByReference error) {
+        return Natives.libesedb_file_open(file, filename, acessFlags, error);
+    }
+
+    @Override
+    public int libesedb_file_get_type(Pointer file, LongByReference type, PointerByReference error) {
+        return Natives.libesedb_file_get_type(file, type, error);
+    }
+
+    @Override
+    public int libesedb_file_close(Pointer file, PointerByReference error) {
+        return Natives.libesedb_file_close(file, error);
+    }
+
+    @Override
+    public int libesedb_file_get_number_of_tables(Pointer file, IntByReference numberOfTables, PointerByReference error) {
+        return Natives.libesedb_file_get_number_of_tables(file, numberOfTables, error);
+    }
+
+    @Override
+    public int libesedb_file_get_table(Pointer file, int tableEntry, PointerByReference table, PointerByReference error) {
+        return Natives.libesedb_file_get_table(file, tableEntry, table, error);
+    }
+
+    @Override
+    public int libesedb_file_get_table_by_utf8_name(Pointer file, String utf8_string, int utf8_string_length, PointerByReference table, PointerByReference error) {
+        return Natives.libesedb_file_get_table_by_utf8_name(file, utf8_string, utf8_string_length, table, error);
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name_size(Pointer table, LongByReference utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_table_get_utf8_name_size(table, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name(Pointer table, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_table_get_utf8_name(table, utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_columns(Pointer table, IntByReference number_of_columns, int flags, PointerByReference error) {
+        return Natives.libesedb_table_get_number_of_columns(table, number_of_columns, flags, error);
+    }
+
+    @Override
+    public int libesedb_table_get_column(Pointer table, int column_entry, PointerByReference column, int flags, PointerByReference error) {
+        return Natives.libesedb_table_get_column(table, column_entry, column, flags, error);
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_records(Pointer table, LongByReference number_of_records, PointerByReference error) {
+        return Natives.libesedb_table_get_number_of_records(table, number_of_records, error);
+    }
+
+    @Override
+    public int libesedb_table_get_record(Pointer table, int record_entry, PointerByReference record, PointerByReference error) {
+        return Natives.libesedb_table_get_record(table, record_entry, record, error);
+    }
+
+    @Override
+    public int libesedb_table_free(PointerByReference table, PointerByReference error) {
+        return Natives.libesedb_table_free(table, error);
+    }
+
+    @Override
+    public int libesedb_column_get_type(Pointer column, IntByReference type, PointerByReference error) {
+        return Natives.libesedb_column_get_type(column, type, error);
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name_size(Pointer column, LongByReference utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_column_get_utf8_name_size(column, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name(Pointer column, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_column_get_utf8_name(column, utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_column_free(PointerByReference column, PointerByReference error) {
+        return Natives.libesedb_column_free(column, error);
+    }
+
+    @Override
+    public int libesedb_record_get_number_of_values(Pointer record, IntByReference number_of_values, PointerByReference error) {
+        return Natives.libesedb_record_get_number_of_values(record, number_of_values, error);
+    }
+
+    @Override
+    public int libesedb_record_get_column_identifier(Pointer record, int value_entry, IntByReference column_identifier, PointerByReference error) {
+        return Natives.libesedb_record_get_column_identifier(record, value_entry, column_identifier, error);
+    }
+
+    @Override
+    public int libesedb_record_get_column_type(Pointer record, int value_entry, IntByReference column_type, PointerByReference error) {
+        return Natives.libesedb_record_get_column_type(record, value_entry, column_type, error);
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_record_get_utf8_column_name_size(record, value_entry, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_flags(Pointer record, int value_entry, IntByReference value_data_flags, PointerByReference error) {
+        return Natives.libesedb_record_get_value_data_flags(record, value_entry, value_data_flags, error);
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_record_get_utf8_column_name(record, value_entry, utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_size(Pointer record, int value_entry, LongByReference value_data_size, PointerByReference error) {
+        return Natives.libesedb_record_get_value_data_size(record, value_entry, value_data_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_data(Pointer record, int value_entry, Memory value_data, int value_data_size, PointerByReference error) {
+        return Natives.libesedb_record_get_value_data(record, value_entry, value_data, value_data_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_record_get_value_utf8_string_size(record, value_entry, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        return Natives.libesedb_record_get_value_utf8_string(record, value_entry, utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, LongByReference utf16_string_size, PointerByReference error) {
+        return Natives.libesedb_record_get_value_utf16_string_size(record, value_entry, utf16_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, Memory utf16_string, int utf16_string_size, PointerByReference error) {
+        return Natives.libesedb_record_get_value_utf16_string(record, value_entry, utf16_string, utf16_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_32bit(Pointer record, int value_entry, IntByReference value_32bit, PointerByReference error) {
+        return Natives.libesedb_record_get_value_32bit(record, value_entry, value_32bit, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_64bit(Pointer record, int value_entry, LongByReference value_64bit, PointerByReference error) {
+        return Natives.libesedb_record_get_value_64bit(record, value_entry, value_64bit, error);
+    }
+
+    @Override
+    public int libesedb_record_is_long_value(Pointer record, int value_entry, PointerByReference error) {
+        return Natives.libesedb_record_is_long_value(record, value_entry, error);
+    }
+
+    @Override
+    public int libesedb_record_get_long_value(Pointer record, int value_entry, PointerByReference long_value, PointerByReference error) {
+        return Natives.libesedb_record_get_long_value(record, value_entry, long_value, error);
+    }
+
+    @Override
+    public int libesedb_long_value_get_number_of_data_segments(Pointer long_value, IntByReference number_of_data_segments, PointerByReference error) {
+        return Natives.libesedb_long_value_get_number_of_data_segments(long_value, number_of_data_segments, error);
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment_size(Pointer long_value, int data_segment_index, LongByReference data_segment_size, PointerByReference error) {
+        return Natives.libesedb_long_value_get_data_segment_size(long_value, data_segment_index, data_segment_size, error);
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment(Pointer long_value, int data_segment_index, Memory data_segment, int data_segment_size, PointerByReference error) {
+        return Natives.libesedb_long_value_get_data_segment(long_value, data_segment_index, data_segment, data_segment_size, error);
+    }
+
+    @Override
+    public int libesedb_long_value_free(PointerByReference long_value, PointerByReference error) {
+        return Natives.libesedb_long_value_free(long_value, error);
+    }
+
+    @Override
+    public int libesedb_record_is_multi_value(Pointer record, int value_entry, PointerByReference error) {
+        return Natives.libesedb_record_is_multi_value(record, value_entry, error);
+    }
+
+    @Override
+    public int libesedb_record_get_multi_value(Pointer record, int value_entry, PointerByReference multi_value, PointerByReference error) {
+        return Natives.libesedb_record_get_multi_value(record, value_entry, multi_value, error);
+    }
+
+    @Override
+    public int libesedb_multi_value_get_number_of_values(Pointer multi_value, IntByReference number_of_values, PointerByReference error) {
+        return Natives.libesedb_multi_value_get_number_of_values(multi_value, number_of_values, error);
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data_size(Pointer multi_value, int multi_value_index, LongByReference value_data_size, PointerByReference error) {
+        return Natives.libesedb_multi_value_get_value_data_size(multi_value, multi_value_index, value_data_size, error);
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data(Pointer multi_value, int multi_value_index, Memory value_data, int value_data_size, PointerByReference error) {
+        return Natives.libesedb_multi_value_get_value_data(multi_value, multi_value_index, value_data, value_data_size, error);
+    }
+
+    @Override
+    public int libesedb_multi_value_free(PointerByReference multi_value, PointerByReference error) {
+        return Natives.libesedb_multi_value_free(multi_value, error);
+    }
+
+    @Override
+    public int libesedb_record_free(PointerByReference record, PointerByReference error) {
+        return Natives.libesedb_record_free(record, error);
+    }
+
+    @Override
+    public void libesedb_error_free(PointerByReference error) {
+        Natives.libesedb_error_free(error);
+    }
+}
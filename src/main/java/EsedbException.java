@@ -0,0 +1,47 @@
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+/*
+ * Failure of a libesedb function, carries the message of the libesedb error.
+ * Used by the library API (EsedbFile, EsedbTable) where printing the error like EsedbParser.printError
+ * and carrying on is not an option.
+ */
+public class EsedbException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String function;
+    private final int result;
+
+    public EsedbException(String function, int result, String message) {
+        super(message == null || message.isEmpty() ? function : function + ": " + message);
+        this.function = function;
+        this.result = result;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    /*
+     * Throws if result is an error, the libesedb error is freed
+     */
+    static void check(EsedbLibrary library, String function, int result, PointerByReference errorPointer) {
+        if (result < 0) {
+            throw fromError(library, function, result, errorPointer);
+        }
+    }
+
+    static EsedbException fromError(EsedbLibrary library, String function, int result, PointerByReference errorPointer) {
+        Pointer error = errorPointer.getValue();
+        String message = error != null ? error.getString(0) : null;
+        if (error != null) {
+            library.libesedb_error_free(errorPointer);
+        }
+        return new EsedbException(function, result, message);
+    }
+}
@@ -0,0 +1,250 @@
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * ESE database file opened with libesedb, entry point of the library API.
+ *
+ *   try (EsedbFile file = EsedbFile.open(path)) {
+ *       file.table("Container_1").records().filter(...).forEach(...);
+ *   }
+ *
+ * Tables opened from the file are freed when it is closed. Errors are thrown as EsedbException.
+ * A table asked by name is looked up by libesedb (libesedb_file_get_table_by_utf8_name) without opening the others.
+ * The names of all tables and their catalog are only read when asked for, once each.
+ * A file that is never closed is freed with its tables once unreachable, see EsedbHandles.
+ * Not thread-safe, except for the parallel record streams of EsedbTable which open their own handles.
+ */
+public class EsedbFile implements AutoCloseable {
+
+    /* LIBESEDB_OPEN_READ */
+    static final int ACCESS_READ = 1;
+
+    private final EsedbLibrary library;
+    private final String filename;
+
+    private final PointerByReference filePointerReference = new PointerByReference();
+    private final List<EsedbTable> tables = new ArrayList<>();
+    private final EsedbHandles.Handle handle;
+
+    private Pointer file;
+    private List<TableInfo> catalog;
+    private List<String> tableNames;
+
+    private EsedbFile(EsedbLibrary library, String filename) {
+        this.library = library;
+        this.filename = filename;
+
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "File Initialize", library.libesedb_file_initialize(filePointerReference, errorPointer), errorPointer);
+
+        int result = library.libesedb_file_open(filePointerReference.getValue(), filename, ACCESS_READ, errorPointer);
+        if (result < 0) {
+            EsedbException ex = EsedbException.fromError(library, "File Open", result, errorPointer);
+            library.libesedb_file_free(filePointerReference, errorPointer);
+            throw ex;
+        }
+        file = filePointerReference.getValue();
+        handle = EsedbHandles.register(this, EsedbHandles.Kind.FILE, free(library, filePointerReference));
+    }
+
+    /* Closes and frees the file, must not refer to the EsedbFile */
+    private static Runnable free(EsedbLibrary library, PointerByReference filePointerReference) {
+        return () -> {
+            PointerByReference errorPointer = EsedbHandles.errorPointer();
+            int result = library.libesedb_file_close(filePointerReference.getValue(), errorPointer);
+            if (result < 0) {
+                EsedbException ex = EsedbException.fromError(library, "File Close", result, errorPointer);
+                library.libesedb_file_free(filePointerReference, errorPointer);
+                throw ex;
+            }
+            EsedbException.check(library, "File Free", library.libesedb_file_free(filePointerReference, errorPointer), errorPointer);
+        };
+    }
+
+    public static EsedbFile open(String filename) {
+        return open(EsedbLibrary.INSTANCE, filename);
+    }
+
+    public static EsedbFile open(EsedbLibrary library, String filename) {
+        return new EsedbFile(library, filename);
+    }
+
+    /* True if the file holds an ESE database, as told by libesedb_check_file_signature */
+    public static boolean checkFileSignature(EsedbLibrary library, String filename) {
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        int result = library.libesedb_check_file_signature(filename, errorPointer);
+        EsedbException.check(library, "Check File Signature", result, errorPointer);
+        return result == 1;
+    }
+
+    public EsedbLibrary getLibrary() {
+        return library;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public int getNumberOfTables() {
+        IntByReference numberOfTables = new IntByReference();
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "File Get Number of Tables",
+                library.libesedb_file_get_number_of_tables(checkOpen(), numberOfTables, errorPointer), errorPointer);
+        return numberOfTables.getValue();
+    }
+
+    /*
+     * Opens the table at entry
+     */
+    public EsedbTable table(int tableEntry) {
+        PointerByReference tablePointerReference = new PointerByReference();
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "File Get Table",
+                library.libesedb_file_get_table(checkOpen(), tableEntry, tablePointerReference, errorPointer), errorPointer);
+
+        EsedbTable table = new EsedbTable(this, tableEntry, tablePointerReference);
+        tables.add(table);
+        return table;
+    }
+
+    /*
+     * Opens the table with exactly this name, IllegalArgumentException if there is none
+     */
+    public EsedbTable table(String name) {
+        EsedbTable table = findTable(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Table not found: " + name);
+        }
+        return table;
+    }
+
+    /*
+     * Opens the table with exactly this name, null if there is none. libesedb finds it in its catalog,
+     * the other tables are not opened. Its entry is not known (EsedbTable.UNKNOWN_ENTRY).
+     */
+    public EsedbTable findTable(String name) {
+        PointerByReference tablePointerReference = new PointerByReference();
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        int result = library.libesedb_file_get_table_by_utf8_name(checkOpen(), name,
+                name.getBytes(StandardCharsets.UTF_8).length, tablePointerReference, errorPointer);
+        EsedbException.check(library, "File Get Table by UTF8 Name", result, errorPointer);
+        if (result == 0) {
+            return null;
+        }
+
+        EsedbTable table = new EsedbTable(this, EsedbTable.UNKNOWN_ENTRY, tablePointerReference);
+        tables.add(table);
+        return table;
+    }
+
+    /* Opens in this file the same table as one of another handle of the file, by entry or else by name */
+    EsedbTable table(EsedbTable other) {
+        return other.getEntry() != EsedbTable.UNKNOWN_ENTRY ? table(other.getEntry()) : table(other.getName());
+    }
+
+    /*
+     * Name, column and record counts of every table, in entry order. Read on first call, opening each table
+     * once, and kept for the life of the file.
+     */
+    public List<TableInfo> getCatalog() {
+        if (catalog == null) {
+            int numberOfTables = getNumberOfTables();
+            List<TableInfo> tables = new ArrayList<>(numberOfTables);
+            for (int tableEntry = 0; tableEntry < numberOfTables; tableEntry++) {
+                try (EsedbTable table = table(tableEntry)) {
+                    tables.add(new TableInfo(table.getName(), tableEntry, table.getNumberOfColumns(), table.getNumberOfRecords()));
+                }
+            }
+            catalog = Collections.unmodifiableList(tables);
+        }
+        return catalog;
+    }
+
+    /*
+     * Names of all tables, in entry order. Read on first call, opening each table once for its name only:
+     * the record counts of the catalog, which walk every table, are not read.
+     */
+    public List<String> getTableNames() {
+        if (tableNames == null) {
+            List<String> names = new ArrayList<>();
+            if (catalog != null) {
+                for (TableInfo table : catalog) {
+                    names.add(table.getName());
+                }
+            } else {
+                int numberOfTables = getNumberOfTables();
+                for (int tableEntry = 0; tableEntry < numberOfTables; tableEntry++) {
+                    try (EsedbTable table = table(tableEntry)) {
+                        names.add(table.getName());
+                    }
+                }
+            }
+            tableNames = Collections.unmodifiableList(names);
+        }
+        return tableNames;
+    }
+
+    EsedbHandles.Handle getHandle() {
+        return handle;
+    }
+
+    void release(EsedbTable table) {
+        tables.remove(table);
+    }
+
+    private Pointer checkOpen() {
+        if (file == null) {
+            throw new IllegalStateException("File is closed: " + filename);
+        }
+        return file;
+    }
+
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        for (EsedbTable table : new ArrayList<>(tables)) {
+            table.close();
+        }
+        file = null;
+        handle.close();
+    }
+
+    /* Catalog entry of a table */
+    public static final class TableInfo {
+
+        private final String name;
+        private final int entry;
+        private final int numberOfColumns;
+        private final long numberOfRecords;
+
+        TableInfo(String name, int entry, int numberOfColumns, long numberOfRecords) {
+            this.name = name;
+            this.entry = entry;
+            this.numberOfColumns = numberOfColumns;
+            this.numberOfRecords = numberOfRecords;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getEntry() {
+            return entry;
+        }
+
+        public int getNumberOfColumns() {
+            return numberOfColumns;
+        }
+
+        public long getNumberOfRecords() {
+            return numberOfRecords;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Row filter of --where: comparisons of a column with a literal joined by AND, e.g.
+ *
+ *   AccessedTime >= 2026-01-01 AND Url ~ example.com
+ *
+ * Operators are = != < <= > >= on numbers and timestamps, and = != ~ (contains, ignoring case) !~ on text.
+ * Timestamp columns (EsedbCodec.isTimestamp) take a UTC date, yyyy-MM-dd[ HH:mm[:ss[.SSS]]], or the raw FILETIME.
+ * Text literals may be quoted with ' or ", to hold spaces or the word AND.
+ *
+ * bind resolves the columns against a table and orders the comparisons by cost: fixed size values first, text last,
+ * so the strings of a record are only fetched when every cheaper comparison holds and a selective filter skips most
+ * of the decoding. A column the table lacks compares as NULL, and NULL satisfies no comparison.
+ */
+public final class EsedbFilter {
+
+    enum Operator {
+        EQUAL("="), NOT_EQUAL("!="), LESS("<"), LESS_OR_EQUAL("<="), GREATER(">"), GREATER_OR_EQUAL(">="),
+        CONTAINS("~"), NOT_CONTAINS("!~");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getName() {
+            return symbol;
+        }
+
+        boolean isTextOnly() {
+            return this == CONTAINS || this == NOT_CONTAINS;
+        }
+
+        /* Result of the comparison from compare(value, literal) */
+        boolean matches(int comparison) {
+            switch (this) {
+                case EQUAL:
+                    return comparison == 0;
+                case NOT_EQUAL:
+                    return comparison != 0;
+                case LESS:
+                    return comparison < 0;
+                case LESS_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER:
+                    return comparison > 0;
+                case GREATER_OR_EQUAL:
+                    return comparison >= 0;
+                default:
+                    return false;
+            }
+        }
+
+        /* Longest symbols first, so <= is not read as < */
+        private static final Operator[] BY_LENGTH = {
+                NOT_EQUAL, LESS_OR_EQUAL, GREATER_OR_EQUAL, NOT_CONTAINS, EQUAL, LESS, GREATER, CONTAINS};
+    }
+
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd[['T'][' ']HH:mm[:ss]]")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 1, 7, true).optionalEnd()
+            .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+            .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+            .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+            .toFormatter(Locale.ROOT);
+
+    private final String expression;
+    private final List<Condition> conditions;
+
+    private EsedbFilter(String expression, List<Condition> conditions) {
+        this.expression = expression;
+        this.conditions = conditions;
+    }
+
+    /*
+     * Parses the expression, throws IllegalArgumentException with the offending part when it is not valid
+     */
+    public static EsedbFilter parse(String expression) {
+        List<Condition> conditions = new ArrayList<>();
+        for (String clause : splitAnd(expression)) {
+            conditions.add(Condition.parse(clause));
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("Empty filter");
+        }
+        return new EsedbFilter(expression.trim(), Collections.unmodifiableList(conditions));
+    }
+
+    /* Clauses between the AND keywords outside quotes */
+    private static List<String> splitAnd(String expression) {
+        List<String> clauses = new ArrayList<>();
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (Character.isWhitespace(c) && expression.regionMatches(true, i + 1, "AND", 0, 3)
+                    && i + 4 < expression.length() && Character.isWhitespace(expression.charAt(i + 4))) {
+                clauses.add(expression.substring(start, i));
+                start = i + 4;
+                i += 3;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated quote in filter: " + expression);
+        }
+        clauses.add(expression.substring(start));
+        List<String> nonEmpty = new ArrayList<>(clauses.size());
+        for (String clause : clauses) {
+            if (clause.trim().isEmpty()) {
+                throw new IllegalArgumentException("Empty condition in filter: " + expression);
+            }
+            nonEmpty.add(clause.trim());
+        }
+        return nonEmpty;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /*
+     * The filter resolved against a table. Throws IllegalArgumentException when a literal does not fit its column
+     * type, or a text operator is used on a number.
+     */
+    public Bound bind(EsedbSchema schema) {
+        List<Predicate> fixed = new ArrayList<>();
+        List<Predicate> variable = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (Condition condition : conditions) {
+            int valueEntry = schema.indexOf(condition.column);
+            if (valueEntry < 0) {
+                missing.add(condition.column);
+                continue;
+            }
+            Predicate predicate = condition.bind(valueEntry, schema.getColumnName(valueEntry), schema.getColumnType(valueEntry));
+            (EsedbValueDecoder.isFixedSize(predicate.columnType) ? fixed : variable).add(predicate);
+        }
+        fixed.addAll(variable);
+        return new Bound(fixed.toArray(new Predicate[0]), missing);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /* FILETIME of a UTC date and time, or the value itself when it is a number */
+    static long parseFiletime(String literal) {
+        try {
+            return Long.parseLong(literal);
+        } catch (NumberFormatException ignored) {
+            /* Not a raw value */
+        }
+        try {
+            LocalDateTime dateTime = literal.length() == 10
+                    ? LocalDate.parse(literal).atStartOfDay()
+                    : LocalDateTime.parse(literal, DATE_TIME);
+            Instant instant = dateTime.toInstant(ZoneOffset.UTC);
+            return EsedbCodec.epochMicrosToFiletime(instant.getEpochSecond() * 1000000L + instant.getNano() / 1000)
+                    + (instant.getNano() / 100) % 10;
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid date: " + literal + " (yyyy-MM-dd[ HH:mm[:ss[.SSS]]] UTC or FILETIME)");
+        }
+    }
+
+    /* Case-insensitive substring search, without copying the value */
+    static boolean containsIgnoreCase(String value, String part) {
+        int last = value.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (value.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* One comparison as written */
+    private static final class Condition {
+
+        private final String column;
+        private final Operator operator;
+        private final String literal;
+
+        private Condition(String column, Operator operator, String literal) {
+            this.column = column;
+            this.operator = operator;
+            this.literal = literal;
+        }
+
+        static Condition parse(String clause) {
+            int end = 0;
+            while (end < clause.length() && (Character.isLetterOrDigit(clause.charAt(end)) || clause.charAt(end) == '_')) {
+                end++;
+            }
+            String column = clause.substring(0, end);
+            String rest = clause.substring(end).trim();
+            for (Operator operator : Operator.BY_LENGTH) {
+                if (!column.isEmpty() && rest.startsWith(operator.symbol)) {
+                    String literal = unquote(rest.substring(operator.symbol.length()).trim());
+                    if (literal.isEmpty() && operator != Operator.EQUAL && operator != Operator.NOT_EQUAL) {
+                        break;
+                    }
+                    return new Condition(column, operator, literal);
+                }
+            }
+            throw new IllegalArgumentException("Invalid condition: " + clause + " (column operator value, operators "
+                    + "= != < <= > >= ~ !~)");
+        }
+
+        private static String unquote(String literal) {
+            if (literal.length() >= 2 && (literal.charAt(0) == '\'' || literal.charAt(0) == '"')
+                    && literal.charAt(literal.length() - 1) == literal.charAt(0)) {
+                return literal.substring(1, literal.length() - 1);
+            }
+            return literal;
+        }
+
+        Predicate bind(int valueEntry, String columnName, int columnType) {
+            boolean text = columnType == EseColumn.COLUMN_TYPE_TEXT || columnType == EseColumn.COLUMN_TYPE_LARGE_TEXT;
+            if (text) {
+                return new Predicate(valueEntry, columnType, operator, 0, 0, literal);
+            }
+            if (!EsedbValueDecoder.isFixedSize(columnType) || columnType == EseColumn.COLUMN_TYPE_GUID) {
+                throw new IllegalArgumentException("Column " + column + " cannot be filtered (type " + columnType + ")");
+            }
+            if (operator.isTextOnly()) {
+                throw new IllegalArgumentException("Operator " + operator.symbol + " needs a text column: " + column);
+            }
+            try {
+                if (EsedbCodec.isTimestamp(columnName, columnType)) {
+                    return new Predicate(valueEntry, columnType, operator, parseFiletime(literal), 0, null);
+                }
+                if (columnType == EseColumn.COLUMN_TYPE_FLOAT_32BIT || columnType == EseColumn.COLUMN_TYPE_DOUBLE_64BIT) {
+                    return new Predicate(valueEntry, columnType, operator, 0, Double.parseDouble(literal), null);
+                }
+                if (columnType == EseColumn.COLUMN_TYPE_BOOLEAN) {
+                    boolean value = "true".equalsIgnoreCase(literal) || "1".equals(literal);
+                    if (!value && !"false".equalsIgnoreCase(literal) && !"0".equals(literal)) {
+                        throw new NumberFormatException(literal);
+                    }
+                    return new Predicate(valueEntry, columnType, operator, value ? 1 : 0, 0, null);
+                }
+                return new Predicate(valueEntry, columnType, operator, Long.parseLong(literal), 0, null);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid number for " + column + ": " + literal);
+            }
+        }
+    }
+
+    /* A comparison resolved to a value entry, with the literal converted to the column type */
+    private static final class Predicate {
+
+        private final int valueEntry;
+        private final int columnType;
+        private final Operator operator;
+        private final long longValue;
+        private final double doubleValue;
+        private final String text;
+
+        Predicate(int valueEntry, int columnType, Operator operator, long longValue, double doubleValue, String text) {
+            this.valueEntry = valueEntry;
+            this.columnType = columnType;
+            this.operator = operator;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+            this.text = text;
+        }
+
+        /* Value as read by getValue of the record readers, null when NULL */
+        boolean test(Object value) {
+            if (value == null) {
+                return false;
+            }
+            if (text != null) {
+                String string = value.toString();
+                switch (operator) {
+                    case CONTAINS:
+                        return containsIgnoreCase(string, text);
+                    case NOT_CONTAINS:
+                        return !containsIgnoreCase(string, text);
+                    default:
+                        return operator.matches(string.compareTo(text));
+                }
+            }
+            if (value instanceof Boolean) {
+                return operator.matches(Long.compare((Boolean) value ? 1 : 0, longValue));
+            }
+            if (value instanceof Float || value instanceof Double) {
+                return operator.matches(Double.compare(((Number) value).doubleValue(), doubleValue));
+            }
+            return operator.matches(Long.compare(((Number) value).longValue(), longValue));
+        }
+    }
+
+    /*
+     * The filter of one table, see bind. Immutable, the scanner threads share it.
+     */
+    public static final class Bound {
+
+        private final Predicate[] predicates;
+        private final List<String> missingColumns;
+
+        private Bound(Predicate[] predicates, List<String> missingColumns) {
+            this.predicates = predicates;
+            this.missingColumns = Collections.unmodifiableList(missingColumns);
+        }
+
+        /* Columns of the filter the table lacks */
+        public List<String> getMissingColumns() {
+            return missingColumns;
+        }
+
+        /* No record of the table can match, a compared column is missing */
+        public boolean matchesNothing() {
+            return !missingColumns.isEmpty();
+        }
+
+        /* Whether the open record matches, reading its values cheapest first and stopping at the first mismatch */
+        public boolean test(EsedbRecordReader reader) {
+            if (matchesNothing()) {
+                return false;
+            }
+            for (Predicate predicate : predicates) {
+                if (!predicate.test(reader.getValue(predicate.valueEntry, predicate.columnType))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public boolean test(EseRecord record) throws IOException {
+            if (matchesNothing()) {
+                return false;
+            }
+            for (Predicate predicate : predicates) {
+                if (!predicate.test(record.getValue(predicate.valueEntry))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+import com.sun.jna.ptr.PointerByReference;
+
+import java.lang.ref.Cleaner;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bookkeeping of the libesedb handles held by the wrappers (EsedbFile, EsedbTable, EsedbRecord, EsedbColumn and
+ * the record, long values and multi-values of EsedbRecordReader).
+ *
+ * Every handle is registered with a Cleaner: a wrapper that becomes unreachable without being closed still has its
+ * handle freed, and is counted as leaked. libesedb is not thread-safe, so the Cleaner thread only queues the handle
+ * for the thread that opened it, which frees it on its next open or when it closes a file (freeLeaked). A thread
+ * that ends first never frees its queued handles. A handle frees its children still open before itself (the tables
+ * of a file), whichever of them leaked first.
+ * The open handles of each kind are counted, checkNoLeaks fails when a run ends with handles still open, and
+ * esedb.leaks=true prints every handle freed this way instead of by close.
+ *
+ * errorPointer is the libesedb error out-param of the calling thread, reused by every call made on that thread.
+ */
+final class EsedbHandles {
+
+    enum Kind {
+        FILE, TABLE, RECORD, COLUMN, LONG_VALUE, MULTI_VALUE
+    }
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final boolean REPORT_LEAKS = Boolean.getBoolean("esedb.leaks");
+
+    private static final LongAdder[] OPEN = newCounters();
+    private static final LongAdder[] LEAKED = newCounters();
+    /* Leaked handles already reported by checkNoLeaks */
+    private static final long[] REPORTED = new long[Kind.values().length];
+
+    /* Leaked handles of each thread, waiting to be freed by it */
+    private static final ThreadLocal<Queue<Handle>> LEAKED_QUEUE = ThreadLocal.withInitial(ConcurrentLinkedQueue::new);
+
+    private static final ThreadLocal<PointerByReference> ERROR_POINTER = ThreadLocal.withInitial(PointerByReference::new);
+
+    private EsedbHandles() {
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[Kind.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /* libesedb error out-param of the current thread */
+    static PointerByReference errorPointer() {
+        return ERROR_POINTER.get();
+    }
+
+    /*
+     * Registers a handle just opened: free runs once, on close or when owner is unreachable.
+     * free must not refer to owner, or owner is never collected.
+     */
+    static Handle register(Object owner, Kind kind, Runnable free) {
+        return register(owner, kind, null, free);
+    }
+
+    /* Same, for a handle that must be freed before its parent (a table before its file) */
+    static Handle register(Object owner, Kind kind, Handle parent, Runnable free) {
+        freeLeaked();
+        Handle handle = new Handle(kind, parent, free, LEAKED_QUEUE.get());
+        OPEN[kind.ordinal()].increment();
+        handle.cleanable = CLEANER.register(owner, handle);
+        if (parent != null) {
+            parent.children.add(handle);
+        }
+        return handle;
+    }
+
+    /* Counts a handle opened and freed without a wrapper (EsedbRecordReader) */
+    static void opened(Kind kind) {
+        OPEN[kind.ordinal()].increment();
+    }
+
+    static void freed(Kind kind) {
+        OPEN[kind.ordinal()].decrement();
+    }
+
+    static long getOpenHandles(Kind kind) {
+        return OPEN[kind.ordinal()].sum();
+    }
+
+    static long getOpenHandles() {
+        long open = 0;
+        for (LongAdder counter : OPEN) {
+            open += counter.sum();
+        }
+        return open;
+    }
+
+    /*
+     * Frees the handles of this thread whose wrapper became unreachable without being closed. Called on every open
+     * and file close; a failure to free one is printed, not thrown into the unrelated call that found it.
+     */
+    static void freeLeaked() {
+        Queue<Handle> leaked = LEAKED_QUEUE.get();
+        for (Handle handle; (handle = leaked.poll()) != null; ) {
+            try {
+                handle.free();
+            } catch (RuntimeException ex) {
+                System.err.println("libesedb " + handle.kind + " handle not closed could not be freed: " + ex.getMessage());
+            }
+        }
+    }
+
+    /* Handles whose wrapper was never closed, freed or waiting to be (freeLeaked) */
+    static long getLeakedHandles() {
+        long leaked = 0;
+        for (LongAdder counter : LEAKED) {
+            leaked += counter.sum();
+        }
+        return leaked;
+    }
+
+    /*
+     * Throws IllegalStateException if a handle is still open, or leaked since the last check
+     */
+    static synchronized void checkNoLeaks() {
+        StringBuilder leaks = new StringBuilder();
+        for (Kind kind : Kind.values()) {
+            long open = OPEN[kind.ordinal()].sum();
+            long total = LEAKED[kind.ordinal()].sum();
+            long leaked = total - REPORTED[kind.ordinal()];
+            REPORTED[kind.ordinal()] = total;
+            if (open != 0 || leaked != 0) {
+                leaks.append(leaks.length() > 0 ? ", " : "").append(kind).append(": ").append(open).append(" open, ")
+                        .append(leaked).append(" leaked");
+            }
+        }
+        if (leaks.length() > 0) {
+            throw new IllegalStateException("libesedb handles not closed: " + leaks);
+        }
+    }
+
+    /*
+     * A registered handle, the cleaning action of its owner
+     */
+    static final class Handle implements Runnable {
+
+        private final Kind kind;
+        private final Handle parent;
+        private final Runnable free;
+        private final Queue<Handle> leakedQueue;
+        private final Set<Handle> children = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean freed = new AtomicBoolean();
+        private Cleaner.Cleanable cleanable;
+        private volatile boolean closing;
+        private volatile boolean closed;
+
+        private Handle(Kind kind, Handle parent, Runnable free, Queue<Handle> leakedQueue) {
+            this.kind = kind;
+            this.parent = parent;
+            this.free = free;
+            this.leakedQueue = leakedQueue;
+        }
+
+        /* True once freed, by close, with its parent or by freeLeaked */
+        boolean isClosed() {
+            return closed;
+        }
+
+        /* Frees the handle, at most once; a file also frees the leaked handles of this thread */
+        void close() {
+            closing = true;
+            cleanable.clean();
+            if (parent == null) {
+                freeLeaked();
+            }
+        }
+
+        /* Run by close, or by the Cleaner thread once the owner is unreachable: then only queued for freeLeaked */
+        @Override
+        public void run() {
+            if (closing) {
+                free();
+                return;
+            }
+            LEAKED[kind.ordinal()].increment();
+            if (REPORT_LEAKS) {
+                System.err.println("libesedb " + kind + " handle not closed, freed by the thread that opened it");
+            }
+            leakedQueue.add(this);
+        }
+
+        /* Frees the children still open, then the handle, on the calling thread */
+        private void free() {
+            if (!freed.compareAndSet(false, true)) {
+                return;
+            }
+            for (Handle child : children) {
+                child.closing = closing;
+                child.cleanable.clean();
+                child.free();
+            }
+            if (parent != null) {
+                parent.children.remove(this);
+            }
+            closed = true;
+            OPEN[kind.ordinal()].decrement();
+            free.run();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+import java.util.Arrays;
+
+/*
+ * Bounded summary of the most frequent keys of a stream (Space-Saving, Metwally et al. 2005).
+ * At most capacity groups are kept. A new key past capacity takes the place of the group with the smallest count
+ * and starts from that count, which becomes its error. Counts are exact while no group was replaced; after that a count
+ * overestimates by at most its error, and every key seen more than total / capacity times is kept.
+ *
+ * Keys are 64-bit hashes in an open addressing table of slot numbers, the groups are parallel primitive arrays, and a
+ * min-heap of the slots by count finds the group to replace. Each group also sums a value and keeps its minimum and
+ * maximum. Not thread-safe.
+ */
+final class EsedbHeavyHitters {
+
+    /* Slots are sorted in the low 24 bits of top() */
+    static final int MAX_CAPACITY = 1 << 24;
+
+    private final int capacity;
+
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final long[] sums;
+    private final long[] minimums;
+    private final long[] maximums;
+    private final Object[][] groups;
+
+    /* Slot + 1 of the key hashed there, 0 if free */
+    private final int[] index;
+    private final int[] heap;
+    private final int[] heapPositions;
+
+    private int size;
+    private long total;
+    private boolean replaced;
+
+    EsedbHeavyHitters(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        this.capacity = capacity;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        sums = new long[capacity];
+        minimums = new long[capacity];
+        maximums = new long[capacity];
+        groups = new Object[capacity][];
+        index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /* Number of adds */
+    long getTotal() {
+        return total;
+    }
+
+    /* True while no group was replaced, the counts are then exact */
+    boolean isExact() {
+        return !replaced;
+    }
+
+    /* Slot of the key, -1 if it is not kept */
+    int find(long key) {
+        int mask = index.length - 1;
+        for (int i = hash(key) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (keys[index[i] - 1] == key) {
+                return index[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Slot for a key not kept yet, described by group. Past capacity the group with the smallest count is replaced.
+     */
+    int insert(long key, Object[] group) {
+        int slot;
+        if (size < capacity) {
+            slot = size++;
+            heap[slot] = slot;
+            heapPositions[slot] = slot;
+            counts[slot] = 0;
+            errors[slot] = 0;
+            siftUp(slot);
+        } else {
+            slot = heap[0];
+            remove(keys[slot]);
+            errors[slot] = counts[slot];
+            replaced = true;
+        }
+        keys[slot] = key;
+        groups[slot] = group;
+        sums[slot] = 0;
+        minimums[slot] = Long.MAX_VALUE;
+        maximums[slot] = Long.MIN_VALUE;
+
+        int mask = index.length - 1;
+        int i = hash(key) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+        return slot;
+    }
+
+    /* Counts one more record of the group, with its value if hasValue */
+    void add(int slot, long value, boolean hasValue) {
+        counts[slot]++;
+        total++;
+        if (hasValue) {
+            sums[slot] += value;
+            minimums[slot] = Math.min(minimums[slot], value);
+            maximums[slot] = Math.max(maximums[slot], value);
+        }
+        siftDown(heapPositions[slot]);
+    }
+
+    Object[] getGroup(int slot) {
+        return groups[slot];
+    }
+
+    long getCount(int slot) {
+        return counts[slot];
+    }
+
+    /* Most the count may exceed the real one */
+    long getError(int slot) {
+        return errors[slot];
+    }
+
+    long getSum(int slot) {
+        return sums[slot];
+    }
+
+    /* Long.MAX_VALUE if the group had no value */
+    long getMinimum(int slot) {
+        return minimums[slot];
+    }
+
+    /* Long.MIN_VALUE if the group had no value */
+    long getMaximum(int slot) {
+        return maximums[slot];
+    }
+
+    /* Slots of the n largest counts, largest first */
+    int[] top(int n) {
+        long[] order = new long[size];
+        for (int slot = 0; slot < size; slot++) {
+            /* Counts fit in 39 bits for any table libesedb can hold */
+            order[slot] = (Math.min(counts[slot], (1L << 39) - 1) << 24) | slot;
+        }
+        Arrays.sort(order);
+        int[] slots = new int[Math.min(n, size)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = (int) (order[size - 1 - i] & 0xffffff);
+        }
+        return slots;
+    }
+
+    private static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /* Removes the key from the index, moving back the keys probed past it */
+    private void remove(long key) {
+        int mask = index.length - 1;
+        int i = hash(key) & mask;
+        while (keys[index[i] - 1] != key) {
+            i = (i + 1) & mask;
+        }
+        index[i] = 0;
+        for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[index[j] - 1]) & mask;
+            boolean between = i <= j ? i < home && home <= j : i < home || home <= j;
+            if (!between) {
+                index[i] = index[j];
+                index[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = (position * 2) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[slot] <= counts[heap[child]]) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(slot, position);
+    }
+
+    private void move(int slot, int position) {
+        heap[position] = slot;
+        heapPositions[slot] = position;
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.LongFunction;
+
+/*
+ * State of the incremental mode (--incremental): per table, the highest EntryId and the latest AccessedTime and
+ * ModifiedTime (FILETIME) listed so far. A later run lists only the records with a higher EntryId (new) or a later
+ * AccessedTime or ModifiedTime (changed), then saves the new marks.
+ *
+ * The state file is text, one line per table: name, EntryId, AccessedTime and ModifiedTime separated by tabs.
+ * It is written to a temporary file and moved into place, so an interrupted run keeps the previous state.
+ */
+public final class EsedbIncrementalState {
+
+    static final String ENTRY_ID = "EntryId";
+    static final String ACCESSED_TIME = "AccessedTime";
+    static final String MODIFIED_TIME = "ModifiedTime";
+
+    private final Path path;
+    private final Map<String, long[]> marks = new LinkedHashMap<>();
+
+    private EsedbIncrementalState(Path path) {
+        this.path = path;
+    }
+
+    /* Reads the state file, empty state if it does not exist yet */
+    public static EsedbIncrementalState load(Path path) throws IOException {
+        EsedbIncrementalState state = new EsedbIncrementalState(path);
+        if (!Files.exists(path)) {
+            return state;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 4) {
+                    throw new IOException("Invalid incremental state line: " + line);
+                }
+                try {
+                    state.marks.put(fields[0], new long[]{
+                            Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])});
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Invalid incremental state line: " + line);
+                }
+            }
+        }
+        return state;
+    }
+
+    public void save() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write("# table\tEntryId\tAccessedTime\tModifiedTime\n");
+                for (Map.Entry<String, long[]> mark : marks.entrySet()) {
+                    long[] values = mark.getValue();
+                    writer.write(mark.getKey() + "\t" + values[0] + "\t" + values[1] + "\t" + values[2] + "\n");
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /*
+     * Tracker of a table, null if the table has no EntryId column: it is then listed in full
+     */
+    public Tracker track(String tableName, EsedbSchema schema) {
+        int entryId = schema.indexOf(ENTRY_ID);
+        if (entryId < 0) {
+            return null;
+        }
+        return new Tracker(tableName, marks.get(tableName), schema, entryId);
+    }
+
+    /*
+     * Decides which records of a table are listed and keeps the marks seen. The marks are updated atomically,
+     * so records may be accepted from several scanner threads.
+     */
+    public final class Tracker {
+
+        private final String tableName;
+        private final long lastEntryId;
+        private final long lastAccessedTime;
+        private final long lastModifiedTime;
+        private final int entryIdEntry;
+        private final int entryIdType;
+        private final int accessedTimeEntry;
+        private final int accessedTimeType;
+        private final int modifiedTimeEntry;
+        private final int modifiedTimeType;
+        private final LongAccumulator entryId;
+        private final LongAccumulator accessedTime;
+        private final LongAccumulator modifiedTime;
+
+        private Tracker(String tableName, long[] mark, EsedbSchema schema, int entryIdEntry) {
+            this.tableName = tableName;
+            this.lastEntryId = mark != null ? mark[0] : Long.MIN_VALUE;
+            this.lastAccessedTime = mark != null ? mark[1] : Long.MIN_VALUE;
+            this.lastModifiedTime = mark != null ? mark[2] : Long.MIN_VALUE;
+            this.entryIdEntry = entryIdEntry;
+            this.entryIdType = schema.getColumnType(entryIdEntry);
+            this.accessedTimeEntry = schema.indexOf(ACCESSED_TIME);
+            this.accessedTimeType = accessedTimeEntry >= 0 ? schema.getColumnType(accessedTimeEntry) : EseColumn.COLUMN_TYPE_NULL;
+            this.modifiedTimeEntry = schema.indexOf(MODIFIED_TIME);
+            this.modifiedTimeType = modifiedTimeEntry >= 0 ? schema.getColumnType(modifiedTimeEntry) : EseColumn.COLUMN_TYPE_NULL;
+            this.entryId = new LongAccumulator(Math::max, lastEntryId);
+            this.accessedTime = new LongAccumulator(Math::max, lastAccessedTime);
+            this.modifiedTime = new LongAccumulator(Math::max, lastModifiedTime);
+        }
+
+        /* True if the table was listed before, otherwise every record is new */
+        public boolean hasMark() {
+            return lastEntryId != Long.MIN_VALUE;
+        }
+
+        /*
+         * Reads EntryId, AccessedTime and ModifiedTime of the current record (fixed size values only, the text
+         * is read afterwards for the records listed) and tells if the record is new or changed
+         */
+        public boolean accept(EsedbRecordReader reader) {
+            return accept(reader.getValue(entryIdEntry, entryIdType),
+                    accessedTimeEntry >= 0 ? reader.getValue(accessedTimeEntry, accessedTimeType) : null,
+                    modifiedTimeEntry >= 0 ? reader.getValue(modifiedTimeEntry, modifiedTimeType) : null);
+        }
+
+        public boolean accept(EseRecord record) throws IOException {
+            return accept(record.getValue(entryIdEntry),
+                    accessedTimeEntry >= 0 ? record.getValue(accessedTimeEntry) : null,
+                    modifiedTimeEntry >= 0 ? record.getValue(modifiedTimeEntry) : null);
+        }
+
+        boolean accept(Object entryIdValue, Object accessedTimeValue, Object modifiedTimeValue) {
+            boolean accepted = false;
+            if (entryIdValue instanceof Number) {
+                long value = ((Number) entryIdValue).longValue();
+                accepted = value > lastEntryId;
+                entryId.accumulate(value);
+            }
+            if (accessedTimeValue instanceof Number) {
+                long value = ((Number) accessedTimeValue).longValue();
+                accepted |= value > lastAccessedTime;
+                accessedTime.accumulate(value);
+            }
+            if (modifiedTimeValue instanceof Number) {
+                long value = ((Number) modifiedTimeValue).longValue();
+                accepted |= value > lastModifiedTime;
+                modifiedTime.accumulate(value);
+            }
+            return accepted;
+        }
+
+        public int getEntryIdValueEntry() {
+            return entryIdEntry;
+        }
+
+        public int getEntryIdColumnType() {
+            return entryIdType;
+        }
+
+        /*
+         * First record with an EntryId above the mark, reading EntryId backwards from the last record.
+         * Container_n records are stored in EntryId order, so the scan stops at the first old EntryId and costs one
+         * record per new row. If the EntryIds read are not descending the order cannot be relied on, and 0 is
+         * returned so the whole table is scanned.
+         * entryIdOfRecord returns the EntryId of a record, null if it cannot be read.
+         */
+        public long findFirstNew(long numberOfRecords, LongFunction<Object> entryIdOfRecord) {
+            if (!hasMark()) {
+                return 0;
+            }
+            long previous = Long.MAX_VALUE;
+            for (long record = numberOfRecords - 1; record >= 0; record--) {
+                Object value = entryIdOfRecord.apply(record);
+                if (!(value instanceof Number)) {
+                    return 0;
+                }
+                long id = ((Number) value).longValue();
+                if (id >= previous) {
+                    return 0;
+                }
+                if (id <= lastEntryId) {
+                    return record + 1;
+                }
+                previous = id;
+            }
+            return 0;
+        }
+
+        /*
+         * Stores the marks seen in the state, saved by EsedbIncrementalState.save. Unless the whole table was read
+         * (--new-only from findFirstNew) only the EntryId mark moves: the time maxima of the new records alone would
+         * hide the older records changed before the next run.
+         */
+        public void commit(boolean wholeTable) {
+            marks.put(tableName, wholeTable
+                    ? new long[]{entryId.get(), accessedTime.get(), modifiedTime.get()}
+                    : new long[]{entryId.get(), lastAccessedTime, lastModifiedTime});
+        }
+    }
+}
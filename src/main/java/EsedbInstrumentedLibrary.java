@@ -0,0 +1,606 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+/*
+ * EsedbLibrary decorator timing every call into a latency histogram of EsedbMetrics, one per function.
+ * Installed by EsedbBackend.load over the selected backend only when esedb.metrics is set, so the calls of an
+ * uninstrumented run go straight to the backend. Costs two System.nanoTime calls and a histogram update per call.
+ */
+final class EsedbInstrumentedLibrary implements EsedbLibrary {
+
+    private final EsedbLibrary library;
+
+    private final EsedbLatencyHistogram getVersion;
+    private final EsedbLatencyHistogram checkFileSignature;
+    private final EsedbLatencyHistogram fileInitialize;
+    private final EsedbLatencyHistogram fileFree;
+    private final EsedbLatencyHistogram fileOpen;
+    private final EsedbLatencyHistogram fileGetType;
+    private final EsedbLatencyHistogram fileClose;
+    private final EsedbLatencyHistogram fileGetNumberOfTables;
+    private final EsedbLatencyHistogram fileGetTable;
+    private final EsedbLatencyHistogram fileGetTableByUtf8Name;
+    private final EsedbLatencyHistogram tableGetUtf8NameSize;
+    private final EsedbLatencyHistogram tableGetUtf8Name;
+    private final EsedbLatencyHistogram tableGetNumberOfColumns;
+    private final EsedbLatencyHistogram tableGetColumn;
+    private final EsedbLatencyHistogram tableGetNumberOfRecords;
+    private final EsedbLatencyHistogram tableGetRecord;
+    private final EsedbLatencyHistogram tableFree;
+    private final EsedbLatencyHistogram columnGetType;
+    private final EsedbLatencyHistogram columnGetUtf8NameSize;
+    private final EsedbLatencyHistogram columnGetUtf8Name;
+    private final EsedbLatencyHistogram columnFree;
+    private final EsedbLatencyHistogram recordGetNumberOfValues;
+    private final EsedbLatencyHistogram recordGetColumnIdentifier;
+    private final EsedbLatencyHistogram recordGetColumnType;
+    private final EsedbLatencyHistogram recordGetUtf8ColumnNameSize;
+    private final EsedbLatencyHistogram recordGetValueDataFlags;
+    private final EsedbLatencyHistogram recordGetUtf8ColumnName;
+    private final EsedbLatencyHistogram recordGetValueDataSize;
+    private final EsedbLatencyHistogram recordGetValueData;
+    private final EsedbLatencyHistogram recordGetValueUtf8StringSize;
+    private final EsedbLatencyHistogram recordGetValueUtf8String;
+    private final EsedbLatencyHistogram recordGetValueUtf16StringSize;
+    private final EsedbLatencyHistogram recordGetValueUtf16String;
+    private final EsedbLatencyHistogram recordGetValue32bit;
+    private final EsedbLatencyHistogram recordGetValue64bit;
+    private final EsedbLatencyHistogram recordIsLongValue;
+    private final EsedbLatencyHistogram recordGetLongValue;
+    private final EsedbLatencyHistogram longValueGetNumberOfDataSegments;
+    private final EsedbLatencyHistogram longValueGetDataSegmentSize;
+    private final EsedbLatencyHistogram longValueGetDataSegment;
+    private final EsedbLatencyHistogram longValueFree;
+    private final EsedbLatencyHistogram recordIsMultiValue;
+    private final EsedbLatencyHistogram recordGetMultiValue;
+    private final EsedbLatencyHistogram multiValueGetNumberOfValues;
+    private final EsedbLatencyHistogram multiValueGetValueDataSize;
+    private final EsedbLatencyHistogram multiValueGetValueData;
+    private final EsedbLatencyHistogram multiValueFree;
+    private final EsedbLatencyHistogram recordFree;
+    private final EsedbLatencyHistogram errorFree;
+
+    EsedbInstrumentedLibrary(EsedbLibrary library, EsedbMetrics metrics) {
+        this.library = library;
+        getVersion = metrics.histogram("libesedb_get_version");
+        checkFileSignature = metrics.histogram("libesedb_check_file_signature");
+        fileInitialize = metrics.histogram("libesedb_file_initialize");
+        fileFree = metrics.histogram("libesedb_file_free");
+        fileOpen = metrics.histogram("libesedb_file_open");
+        fileGetType = metrics.histogram("libesedb_file_get_type");
+        fileClose = metrics.histogram("libesedb_file_close");
+        fileGetNumberOfTables = metrics.histogram("libesedb_file_get_number_of_tables");
+        fileGetTable = metrics.histogram("libesedb_file_get_table");
+        fileGetTableByUtf8Name = metrics.histogram("libesedb_file_get_table_by_utf8_name");
+        tableGetUtf8NameSize = metrics.histogram("libesedb_table_get_utf8_name_size");
+        tableGetUtf8Name = metrics.histogram("libesedb_table_get_utf8_name");
+        tableGetNumberOfColumns = metrics.histogram("libesedb_table_get_number_of_columns");
+        tableGetColumn = metrics.histogram("libesedb_table_get_column");
+        tableGetNumberOfRecords = metrics.histogram("libesedb_table_get_number_of_records");
+        tableGetRecord = metrics.histogram("libesedb_table_get_record");
+        tableFree = metrics.histogram("libesedb_table_free");
+        columnGetType = metrics.histogram("libesedb_column_get_type");
+        columnGetUtf8NameSize = metrics.histogram("libesedb_column_get_utf8_name_size");
+        columnGetUtf8Name = metrics.histogram("libesedb_column_get_utf8_name");
+        columnFree = metrics.histogram("libesedb_column_free");
+        recordGetNumberOfValues = metrics.histogram("libesedb_record_get_number_of_values");
+        recordGetColumnIdentifier = metrics.histogram("libesedb_record_get_column_identifier");
+        recordGetColumnType = metrics.histogram("libesedb_record_get_column_type");
+        recordGetUtf8ColumnNameSize = metrics.histogram("libesedb_record_get_utf8_column_name_size");
+        recordGetValueDataFlags = metrics.histogram("libesedb_record_get_value_data_flags");
+        recordGetUtf8ColumnName = metrics.histogram("libesedb_record_get_utf8_column_name");
+        recordGetValueDataSize = metrics.histogram("libesedb_record_get_value_data_size");
+        recordGetValueData = metrics.histogram("libesedb_record_get_value_data");
+        recordGetValueUtf8StringSize = metrics.histogram("libesedb_record_get_value_utf8_string_size");
+        recordGetValueUtf8String = metrics.histogram("libesedb_record_get_value_utf8_string");
+        recordGetValueUtf16StringSize = metrics.histogram("libesedb_record_get_value_utf16_string_size");
+        recordGetValueUtf16String = metrics.histogram("libesedb_record_get_value_utf16_string");
+        recordGetValue32bit = metrics.histogram("libesedb_record_get_value_32bit");
+        recordGetValue64bit = metrics.histogram("libesedb_record_get_value_64bit");
+        recordIsLongValue = metrics.histogram("libesedb_record_is_long_value");
+        recordGetLongValue = metrics.histogram("libesedb_record_get_long_value");
+        longValueGetNumberOfDataSegments = metrics.histogram("libesedb_long_value_get_number_of_data_segments");
+        longValueGetDataSegmentSize = metrics.histogram("libesedb_long_value_get_data_segment_size");
+        longValueGetDataSegment = metrics.histogram("libesedb_long_value_get_data_segment");
+        longValueFree = metrics.histogram("libesedb_long_value_free");
+        recordIsMultiValue = metrics.histogram("libesedb_record_is_multi_value");
+        recordGetMultiValue = metrics.histogram("libesedb_record_get_multi_value");
+        multiValueGetNumberOfValues = metrics.histogram("libesedb_multi_value_get_number_of_values");
+        multiValueGetValueDataSize = metrics.histogram("libesedb_multi_value_get_value_data_size");
+        multiValueGetValueData = metrics.histogram("libesedb_multi_value_get_value_data");
+        multiValueFree = metrics.histogram("libesedb_multi_value_free");
+        recordFree = metrics.histogram("libesedb_record_free");
+        errorFree = metrics.histogram("libesedb_error_free");
+    }
+
+    @Override
+    public String libesedb_get_version() {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_get_version();
+        } finally {
+            getVersion.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_check_file_signature(String filename, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_check_file_signature(filename, error);
+        } finally {
+            checkFileSignature.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_initialize(PointerByReference filePointer, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_initialize(filePointer, error);
+        } finally {
+            fileInitialize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_free(PointerByReference file, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_free(file, error);
+        } finally {
+            fileFree.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_open(Pointer file, String filename, int acessFlags, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_open(file, filename, acessFlags, error);
+        } finally {
+            fileOpen.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_type(Pointer file, LongByReference type, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_get_type(file, type, error);
+        } finally {
+            fileGetType.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_close(Pointer file, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_close(file, error);
+        } finally {
+            fileClose.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_number_of_tables(Pointer file, IntByReference numberOfTables, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_get_number_of_tables(file, numberOfTables, error);
+        } finally {
+            fileGetNumberOfTables.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_table(Pointer file, int tableEntry, PointerByReference table, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_get_table(file, tableEntry, table, error);
+        } finally {
+            fileGetTable.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_table_by_utf8_name(Pointer file, String utf8_string, int utf8_string_length, PointerByReference table, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_file_get_table_by_utf8_name(file, utf8_string, utf8_string_length, table, error);
+        } finally {
+            fileGetTableByUtf8Name.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name_size(Pointer table, LongByReference utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_get_utf8_name_size(table, utf8_string_size, error);
+        } finally {
+            tableGetUtf8NameSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name(Pointer table, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_get_utf8_name(table, utf8_string, utf8_string_size, error);
+        } finally {
+            tableGetUtf8Name.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_columns(Pointer table, IntByReference number_of_columns, int flags, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_get_number_of_columns(table, number_of_columns, flags, error);
+        } finally {
+            tableGetNumberOfColumns.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_column(Pointer table, int column_entry, PointerByReference column, int flags, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_get_column(table, column_entry, column, flags, error);
+        } finally {
+            tableGetColumn.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_records(Pointer table, LongByReference number_of_records, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_get_number_of_records(table, number_of_records, error);
+        } finally {
+            tableGetNumberOfRecords.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_record(Pointer table, int record_entry, PointerByReference record, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_get_record(table, record_entry, record, error);
+        } finally {
+            tableGetRecord.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_table_free(PointerByReference table, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_table_free(table, error);
+        } finally {
+            tableFree.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_column_get_type(Pointer column, IntByReference type, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_column_get_type(column, type, error);
+        } finally {
+            columnGetType.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name_size(Pointer column, LongByReference utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_column_get_utf8_name_size(column, utf8_string_size, error);
+        } finally {
+            columnGetUtf8NameSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name(Pointer column, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_column_get_utf8_name(column, utf8_string, utf8_string_size, error);
+        } finally {
+            columnGetUtf8Name.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_column_free(PointerByReference column, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_column_free(column, error);
+        } finally {
+            columnFree.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_number_of_values(Pointer record, IntByReference number_of_values, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_number_of_values(record, number_of_values, error);
+        } finally {
+            recordGetNumberOfValues.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_column_identifier(Pointer record, int value_entry, IntByReference column_identifier, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_column_identifier(record, value_entry, column_identifier, error);
+        } finally {
+            recordGetColumnIdentifier.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_column_type(Pointer record, int value_entry, IntByReference column_type, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_column_type(record, value_entry, column_type, error);
+        } finally {
+            recordGetColumnType.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_utf8_column_name_size(record, value_entry, utf8_string_size, error);
+        } finally {
+            recordGetUtf8ColumnNameSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_flags(Pointer record, int value_entry, IntByReference value_data_flags, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_data_flags(record, value_entry, value_data_flags, error);
+        } finally {
+            recordGetValueDataFlags.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_utf8_column_name(record, value_entry, utf8_string, utf8_string_size, error);
+        } finally {
+            recordGetUtf8ColumnName.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_size(Pointer record, int value_entry, LongByReference value_data_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_data_size(record, value_entry, value_data_size, error);
+        } finally {
+            recordGetValueDataSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_data(Pointer record, int value_entry, Memory value_data, int value_data_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_data(record, value_entry, value_data, value_data_size, error);
+        } finally {
+            recordGetValueData.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_utf8_string_size(record, value_entry, utf8_string_size, error);
+        } finally {
+            recordGetValueUtf8StringSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_utf8_string(record, value_entry, utf8_string, utf8_string_size, error);
+        } finally {
+            recordGetValueUtf8String.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, LongByReference utf16_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_utf16_string_size(record, value_entry, utf16_string_size, error);
+        } finally {
+            recordGetValueUtf16StringSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, Memory utf16_string, int utf16_string_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_utf16_string(record, value_entry, utf16_string, utf16_string_size, error);
+        } finally {
+            recordGetValueUtf16String.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_32bit(Pointer record, int value_entry, IntByReference value_32bit, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_32bit(record, value_entry, value_32bit, error);
+        } finally {
+            recordGetValue32bit.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_64bit(Pointer record, int value_entry, LongByReference value_64bit, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_value_64bit(record, value_entry, value_64bit, error);
+        } finally {
+            recordGetValue64bit.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_is_long_value(Pointer record, int value_entry, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_is_long_value(record, value_entry, error);
+        } finally {
+            recordIsLongValue.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_long_value(Pointer record, int value_entry, PointerByReference long_value, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_long_value(record, value_entry, long_value, error);
+        } finally {
+            recordGetLongValue.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_get_number_of_data_segments(Pointer long_value, IntByReference number_of_data_segments, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_long_value_get_number_of_data_segments(long_value, number_of_data_segments, error);
+        } finally {
+            longValueGetNumberOfDataSegments.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment_size(Pointer long_value, int data_segment_index, LongByReference data_segment_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_long_value_get_data_segment_size(long_value, data_segment_index, data_segment_size, error);
+        } finally {
+            longValueGetDataSegmentSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment(Pointer long_value, int data_segment_index, Memory data_segment, int data_segment_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_long_value_get_data_segment(long_value, data_segment_index, data_segment, data_segment_size, error);
+        } finally {
+            longValueGetDataSegment.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_free(PointerByReference long_value, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_long_value_free(long_value, error);
+        } finally {
+            longValueFree.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_is_multi_value(Pointer record, int value_entry, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_is_multi_value(record, value_entry, error);
+        } finally {
+            recordIsMultiValue.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_multi_value(Pointer record, int value_entry, PointerByReference multi_value, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_get_multi_value(record, value_entry, multi_value, error);
+        } finally {
+            recordGetMultiValue.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_get_number_of_values(Pointer multi_value, IntByReference number_of_values, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_multi_value_get_number_of_values(multi_value, number_of_values, error);
+        } finally {
+            multiValueGetNumberOfValues.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data_size(Pointer multi_value, int multi_value_index, LongByReference value_data_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_multi_value_get_value_data_size(multi_value, multi_value_index, value_data_size, error);
+        } finally {
+            multiValueGetValueDataSize.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data(Pointer multi_value, int multi_value_index, Memory value_data, int value_data_size, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_multi_value_get_value_data(multi_value, multi_value_index, value_data, value_data_size, error);
+        } finally {
+            multiValueGetValueData.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_free(PointerByReference multi_value, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_multi_value_free(multi_value, error);
+        } finally {
+            multiValueFree.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int libesedb_record_free(PointerByReference record, PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            return library.libesedb_record_free(record, error);
+        } finally {
+            recordFree.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void libesedb_error_free(PointerByReference error) {
+        long start = System.nanoTime();
+        try {
+            library.libesedb_error_free(error);
+        } finally {
+            errorFree.record(System.nanoTime() - start);
+        }
+    }
+}
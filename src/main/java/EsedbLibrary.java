@@ -1,9 +1,9 @@
 import com.sun.jna.*;
 import com.sun.jna.ptr.*;
-import jdk.nashorn.internal.objects.NativeString;
 
 /*
  * Libesedb JNA interface mapping and usage.
+ * Implemented by the backends listed in EsedbBackend.
  * https://github.com/libyal/libesedb
  */
 public interface EsedbLibrary extends Library {
@@ -13,9 +13,8 @@ public interface EsedbLibrary extends Library {
 //            Native.load((Platform.isWindows() ? "esedb" : "esedb"),
 //                    EsedbLibrary.class);
 
-    EsedbLibrary INSTANCE = (EsedbLibrary)
-            Native.load((Platform.isWindows() ? "esedb" : "esedb"),
-                    EsedbLibrary.class);
+    /* Loaded on first use with the backend chosen by EsedbBackend.select */
+    EsedbLibrary INSTANCE = EsedbBackend.load();
 
     /* Returns the library version
      * const char * libesedb_get_version(void);
@@ -94,14 +93,14 @@ public interface EsedbLibrary extends Library {
      * Returns 1 if successful or -1 on error
      * int libesedb_table_get_utf8_name_size(libesedb_table_t *table, size_t *utf8_string_size, libcerror_error_t **error);
      */
-    int libesedb_table_get_utf8_name_size(Pointer table, IntByReference utf8_string_size, PointerByReference error);
+    int libesedb_table_get_utf8_name_size(Pointer table, LongByReference utf8_string_size, PointerByReference error);
 
     /* Retrieves the UTF-8 encoded string of the table name
      * The size should include the end of string character
      * Returns 1 if successful or -1 on error
      * int libesedb_table_get_utf8_name(libesedb_table_t *table, uint8_t *utf8_string, size_t utf8_string_size, libcerror_error_t **error);
      */
-    int libesedb_table_get_utf8_name(Pointer table, IntByReference utf8_string, int utf8_string_size, PointerByReference error);
+    int libesedb_table_get_utf8_name(Pointer table, Memory utf8_string, int utf8_string_size, PointerByReference error);
 
     /* Retrieves the number of columns in the table
      * Use the flag LIBESEDB_GET_COLUMN_FLAG_IGNORE_TEMPLATE_TABLE (0x01) to retrieve the number of columns
@@ -148,14 +147,14 @@ public interface EsedbLibrary extends Library {
      * Returns 1 if successful or -1 on error
      * int libesedb_column_get_utf8_name_size(libesedb_column_t *column, size_t *utf8_string_size, libcerror_error_t **error);
      */
-    int libesedb_column_get_utf8_name_size(Pointer column, IntByReference utf8_string_size, PointerByReference error);
+    int libesedb_column_get_utf8_name_size(Pointer column, LongByReference utf8_string_size, PointerByReference error);
 
     /* Retrieves the UTF-8 encoded string of the column name
      * The size should include the end of string character
      * Returns 1 if successful or -1 on error
      * int libesedb_column_get_utf8_name(libesedb_column_t *column, uint8_t *utf8_string, size_t *utf8_string_size, libcerror_error_t **error)
      */
-    int libesedb_column_get_utf8_name(Pointer column, IntByReference utf8_string, int utf8_string_size, PointerByReference error);
+    int libesedb_column_get_utf8_name(Pointer column, Memory utf8_string, int utf8_string_size, PointerByReference error);
 
     /* Frees a column
      * Returns 1 if successful or -1 on error
@@ -186,7 +185,7 @@ public interface EsedbLibrary extends Library {
      * Returns 1 if successful or -1 on error
      * int libesedb_record_get_utf8_column_name_size(libesedb_record_t *record, int value_entry, size_t *utf8_string_size, libesedb_error_t **error);
      */
-    int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, IntByReference utf8_string_size, PointerByReference error);
+    int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error);
 
     /* Retrieves the value data flags of the specific entry
      * Returns 1 if successful or -1 on error
@@ -199,26 +198,29 @@ public interface EsedbLibrary extends Library {
      * Returns 1 if successful or -1 on error
      * int libesedb_record_get_utf8_column_name(libesedb_record_t *record, int value_entry, uint8_t *utf8_string, size_t utf8_string_size, libesedb_error_t **error);
      */
-    int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, IntByReference utf8_string, int utf8_string_size, PointerByReference error);
+    int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error);
 
     /* Retrieves the value data size of the specific entry
      * Returns 1 if successful or -1 on error
      * int libesedb_record_get_value_data_size(libesedb_record_t *record, int value_entry, size_t *value_data_size, libesedb_error_t **error);
+     * size_t is 8 bytes on 64-bit platforms, a LongByReference holds it on both (zero it first on 32-bit)
      */
-    int libesedb_record_get_value_data_size(Pointer record, int value_entry, IntByReference value_data_size, PointerByReference error);
+    int libesedb_record_get_value_data_size(Pointer record, int value_entry, LongByReference value_data_size, PointerByReference error);
 
     /* Retrieves the value data of the specific entry
      * Returns 1 if successful or -1 on error
      * int libesedb_record_get_value_data(libesedb_record_t *record, int value_entry, uint8_t *value_data, size_t value_data_size, libesedb_error_t **error);
+     * Copies the raw value as stored in the record: little-endian for fixed size columns, compressed text when the
+     * value data flags have LIBESEDB_VALUE_FLAG_COMPRESSED, the long value key when they have LIBESEDB_VALUE_FLAG_LONG_VALUE
      */
-    int libesedb_record_get_value_data(Pointer record, int value_entry, LongByReference value_data, int value_data_size, PointerByReference error);
+    int libesedb_record_get_value_data(Pointer record, int value_entry, Memory value_data, int value_data_size, PointerByReference error);
 
     /* Retrieves the size of an UTF-8 encoded string a specific entry
      * The returned size includes the end of string character
      * Returns 1 if successful, 0 if value is NULL or -1 on error
      * int libesedb_record_get_value_utf8_string_size(libesedb_record_t *record, int value_entry, size_t *utf8_string_size, libesedb_error_t **error);
      */
-    int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, IntByReference utf8_string_size, PointerByReference error);
+    int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error);
 
     /* Retrieves the UTF-8 encoded string of a specific entry
      * The function uses the codepage in the column definition if necessary
@@ -230,19 +232,19 @@ public interface EsedbLibrary extends Library {
     int libesedb_record_get_value_utf8_string(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error);
 
     /* Retrieves the size of an UTF-16 encoded string a specific entry
-     * The returned size includes the end of string character
+     * The returned size, in 16-bit units, includes the end of string character
      * Returns 1 if successful, 0 if value is NULL or -1 on error
      * int libesedb_record_get_value_utf16_string_size(libesedb_record_t *record, int value_entry, size_t *utf16_string_size, libesedb_error_t **error);
      */
-    int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, IntByReference utf16_string_size, PointerByReference error);
+    int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, LongByReference utf16_string_size, PointerByReference error);
 
-    /* Retrieves the UTF-16 encoded string of a specific entry
+    /* Retrieves the UTF-16 encoded string of a specific entry, in host byte order
      * The function uses the codepage in the column definition if necessary
-     * The size should include the end of string character
+     * The size, in 16-bit units, should include the end of string character
      * Returns 1 if successful, 0 if value is NULL or -1 on error
      * int libesedb_record_get_value_utf16_string(libesedb_record_t *record, int value_entry, uint16_t *utf16_string, size_t utf16_string_size, libesedb_error_t **error);
      */
-    int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, ShortByReference utf16_string, int utf16_string_size, PointerByReference error);
+    int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, Memory utf16_string, int utf16_string_size, PointerByReference error);
 
     /* Retrieves the 32-bit value of a specific entry
      * Returns 1 if successful, 0 if value is NULL or -1 on error
@@ -262,6 +264,33 @@ public interface EsedbLibrary extends Library {
      */
     int libesedb_record_is_long_value(Pointer record, int value_entry, PointerByReference error);
 
+    /* Retrieves the long value of a specific entry
+     * Creates a new long value
+     * Returns 1 if successful, 0 if the item does not contain such value or -1 on error
+     * int libesedb_record_get_long_value(libesedb_record_t *record, int value_entry, libesedb_long_value_t **long_value, libesedb_error_t **error);
+     */
+    int libesedb_record_get_long_value(Pointer record, int value_entry, PointerByReference long_value, PointerByReference error);
+
+    /* Retrieves the number of data segments
+     * Returns 1 if successful or -1 on error
+     * int libesedb_long_value_get_number_of_data_segments(libesedb_long_value_t *long_value, int *number_of_data_segments, libesedb_error_t **error);
+     */
+    int libesedb_long_value_get_number_of_data_segments(Pointer long_value, IntByReference number_of_data_segments, PointerByReference error);
+
+    /* Retrieves the size of a specific data segment
+     * Returns 1 if successful or -1 on error
+     * int libesedb_long_value_get_data_segment_size(libesedb_long_value_t *long_value, int data_segment_index, size_t *data_segment_size, libesedb_error_t **error);
+     * size_t, held in a LongByReference as for libesedb_record_get_value_data_size
+     */
+    int libesedb_long_value_get_data_segment_size(Pointer long_value, int data_segment_index, LongByReference data_segment_size, PointerByReference error);
+
+    /* Retrieves a specific data segment
+     * Segments are stored in pages, so one is at most a page size long
+     * Returns 1 if successful or -1 on error
+     * int libesedb_long_value_get_data_segment(libesedb_long_value_t *long_value, int data_segment_index, uint8_t *data_segment, size_t data_segment_size, libesedb_error_t **error);
+     */
+    int libesedb_long_value_get_data_segment(Pointer long_value, int data_segment_index, Memory data_segment, int data_segment_size, PointerByReference error);
+
     /* Frees a long value
      * Returns 1 if successful or -1 on error
      * int libesedb_long_value_free(libesedb_long_value_t **long_value, libesedb_error_t **error);
@@ -274,6 +303,31 @@ public interface EsedbLibrary extends Library {
      */
     int libesedb_record_is_multi_value(Pointer record, int value_entry, PointerByReference error);
 
+    /* Retrieves the multi value of a specific entry
+     * Creates a new multi value
+     * Returns 1 if successful, 0 if the item does not contain such value or -1 on error
+     * int libesedb_record_get_multi_value(libesedb_record_t *record, int value_entry, libesedb_multi_value_t **multi_value, libesedb_error_t **error);
+     */
+    int libesedb_record_get_multi_value(Pointer record, int value_entry, PointerByReference multi_value, PointerByReference error);
+
+    /* Retrieves the number of values of the multi value
+     * Returns 1 if successful or -1 on error
+     * int libesedb_multi_value_get_number_of_values(libesedb_multi_value_t *multi_value, int *number_of_values, libesedb_error_t **error);
+     */
+    int libesedb_multi_value_get_number_of_values(Pointer multi_value, IntByReference number_of_values, PointerByReference error);
+
+    /* Retrieves the value data size of the specific value
+     * Returns 1 if successful or -1 on error
+     * int libesedb_multi_value_get_value_data_size(libesedb_multi_value_t *multi_value, int multi_value_index, size_t *value_data_size, libesedb_error_t **error);
+     */
+    int libesedb_multi_value_get_value_data_size(Pointer multi_value, int multi_value_index, LongByReference value_data_size, PointerByReference error);
+
+    /* Retrieves the value data of the specific value
+     * Returns 1 if successful or -1 on error
+     * int libesedb_multi_value_get_value_data(libesedb_multi_value_t *multi_value, int multi_value_index, uint8_t *value_data, size_t value_data_size, libesedb_error_t **error);
+     */
+    int libesedb_multi_value_get_value_data(Pointer multi_value, int multi_value_index, Memory value_data, int value_data_size, PointerByReference error);
+
     /* Frees a multi value
      * Returns 1 if successful or -1 on error
      * int libesedb_multi_value_free(libesedb_multi_value_t **multi_value, libesedb_error_t **error);
@@ -0,0 +1,227 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Run time telemetry, enabled by the esedb.metrics system property (--metrics).
+ *
+ * When enabled, EsedbBackend wraps the library in EsedbInstrumentedLibrary, which times every libesedb call into a
+ * histogram per function, and EsedbRecordReader counts the records read and the value bytes copied out of libesedb.
+ * These, with the handles held (EsedbHandles), are published as the esedbparser:type=Metrics MXBean and as JFR
+ * events emitted every second while a recording runs (esedb.Metrics, esedb.NativeCall per function), so a slow scan
+ * can be told apart into native I/O, decoding and output.
+ *
+ * ENABLED is read once: the checks on it are constant folded by the JIT and a run without metrics pays nothing,
+ * the library is not even wrapped.
+ */
+final class EsedbMetrics implements EsedbMetricsMXBean {
+
+    static final boolean ENABLED = Boolean.getBoolean("esedb.metrics");
+
+    static final String OBJECT_NAME = "esedbparser:type=Metrics";
+
+    private static final EsedbMetrics INSTANCE = ENABLED ? create() : null;
+
+    private final long start = System.nanoTime();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytesDecoded = new LongAdder();
+    private final Map<String, EsedbLatencyHistogram> histograms = new LinkedHashMap<>();
+
+    private EsedbMetrics() {
+    }
+
+    private static EsedbMetrics create() {
+        EsedbMetrics metrics = new EsedbMetrics();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            System.err.println("Métricas JMX indisponíveis: " + ex.getMessage());
+        }
+        FlightRecorder.addPeriodicEvent(MetricsEvent.class, metrics::emitMetrics);
+        FlightRecorder.addPeriodicEvent(NativeCallEvent.class, metrics::emitNativeCalls);
+        return metrics;
+    }
+
+    /* The metrics of the process, null when not ENABLED */
+    static EsedbMetrics get() {
+        return INSTANCE;
+    }
+
+    /* Callers check ENABLED first */
+    static void recordRead() {
+        INSTANCE.records.increment();
+    }
+
+    static void bytesDecoded(long bytes) {
+        INSTANCE.bytesDecoded.add(bytes);
+    }
+
+    /* Histogram of a libesedb function, created on first request */
+    synchronized EsedbLatencyHistogram histogram(String function) {
+        return histograms.computeIfAbsent(function, EsedbLatencyHistogram::new);
+    }
+
+    private synchronized List<EsedbLatencyHistogram> getHistograms() {
+        return new ArrayList<>(histograms.values());
+    }
+
+    @Override
+    public long getRecordsRead() {
+        return records.sum();
+    }
+
+    @Override
+    public long getRecordsPerSecond() {
+        long elapsed = System.nanoTime() - start;
+        return elapsed > 0 ? (records.sum() * 1000000000L) / elapsed : 0;
+    }
+
+    @Override
+    public long getBytesDecoded() {
+        return bytesDecoded.sum();
+    }
+
+    @Override
+    public long getOpenHandles() {
+        return EsedbHandles.getOpenHandles();
+    }
+
+    @Override
+    public long getLeakedHandles() {
+        return EsedbHandles.getLeakedHandles();
+    }
+
+    @Override
+    public Map<String, Long> getNativeCalls() {
+        Map<String, Long> calls = new LinkedHashMap<>();
+        for (EsedbLatencyHistogram histogram : getHistograms()) {
+            calls.put(histogram.getName(), histogram.getCount());
+        }
+        return calls;
+    }
+
+    @Override
+    public Map<String, Long> getNativeLatencyP99Nanos() {
+        Map<String, Long> latencies = new LinkedHashMap<>();
+        for (EsedbLatencyHistogram histogram : getHistograms()) {
+            latencies.put(histogram.getName(), histogram.getPercentileNanos(99));
+        }
+        return latencies;
+    }
+
+    /*
+     * Table of the functions called: calls, total time, mean, median, 99th percentile and maximum latency
+     */
+    void print(PrintStream out) {
+        out.println("Registros lidos (libesedb): " + getRecordsRead());
+        out.println("Bytes decodificados: " + getBytesDecoded());
+        out.println("Handles abertos: " + getOpenHandles());
+        out.println(String.format("%-45s %12s %10s %9s %9s %9s %9s", "Função", "chamadas", "total ms", "média ns",
+                "p50 ns", "p99 ns", "máx ns"));
+        for (EsedbLatencyHistogram histogram : getHistograms()) {
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            out.println(String.format("%-45s %12d %10d %9d %9d %9d %9d", histogram.getName(), count,
+                    TimeUnit.NANOSECONDS.toMillis(histogram.getTotalNanos()), histogram.getTotalNanos() / count,
+                    histogram.getPercentileNanos(50), histogram.getPercentileNanos(99), histogram.getMaxNanos()));
+        }
+    }
+
+    private void emitMetrics() {
+        MetricsEvent event = new MetricsEvent();
+        event.recordsRead = getRecordsRead();
+        event.recordsPerSecond = getRecordsPerSecond();
+        event.bytesDecoded = getBytesDecoded();
+        event.openHandles = getOpenHandles();
+        event.commit();
+    }
+
+    private void emitNativeCalls() {
+        for (EsedbLatencyHistogram histogram : getHistograms()) {
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            NativeCallEvent event = new NativeCallEvent();
+            event.function = histogram.getName();
+            event.calls = count;
+            event.totalTime = histogram.getTotalNanos();
+            event.p50 = histogram.getPercentileNanos(50);
+            event.p99 = histogram.getPercentileNanos(99);
+            event.max = histogram.getMaxNanos();
+            event.commit();
+        }
+    }
+
+    @Name("esedb.Metrics")
+    @Label("ESE Parser Metrics")
+    @Category("ESE Parser")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class MetricsEvent extends Event {
+
+        @Label("Records Read")
+        long recordsRead;
+
+        @Label("Records per Second")
+        long recordsPerSecond;
+
+        @Label("Bytes Decoded")
+        @DataAmount
+        long bytesDecoded;
+
+        @Label("Open Handles")
+        @Description("libesedb file, table, record and column handles not freed yet")
+        long openHandles;
+    }
+
+    @Name("esedb.NativeCall")
+    @Label("libesedb Call Latency")
+    @Category("ESE Parser")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class NativeCallEvent extends Event {
+
+        @Label("Function")
+        String function;
+
+        @Label("Calls")
+        long calls;
+
+        @Label("Total Time")
+        @Timespan
+        long totalTime;
+
+        @Label("50th Percentile")
+        @Timespan
+        long p50;
+
+        @Label("99th Percentile")
+        @Timespan
+        long p99;
+
+        @Label("Maximum")
+        @Timespan
+        long max;
+    }
+}
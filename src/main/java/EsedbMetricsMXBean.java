@@ -0,0 +1,23 @@
+import java.util.Map;
+
+/*
+ * JMX view of EsedbMetrics, registered as esedbparser:type=Metrics when esedb.metrics is set
+ */
+public interface EsedbMetricsMXBean {
+
+    long getRecordsRead();
+
+    long getRecordsPerSecond();
+
+    long getBytesDecoded();
+
+    long getOpenHandles();
+
+    long getLeakedHandles();
+
+    /* Calls per libesedb function */
+    Map<String, Long> getNativeCalls();
+
+    /* 99th percentile latency per libesedb function, in nanoseconds */
+    Map<String, Long> getNativeLatencyP99Nanos();
+}
@@ -0,0 +1,269 @@
+import java.util.Locale;
+
+/*
+ * Output formats of EsedbSink.
+ *   table  - human readable listing, the header repeated above every record
+ *   csv    - RFC 4180, one header line, fields quoted only when needed
+ *   tsv    - one header line, tab, newline, carriage return and backslash escaped as \t \n \r \\
+ *   ndjson - one JSON object per line, numbers unquoted (timestamps too unless the time format is text)
+ * Escaping is done by hand on a StringBuilder, rows are never built through java.util.Formatter.
+ * Formats hold no state, rows may be formatted from several threads at once.
+ */
+public enum EsedbOutputFormat {
+
+    TABLE {
+        @Override
+        void appendHeader(StringBuilder builder, String tagName, EsedbProjection projection) {
+        }
+
+        @Override
+        void appendRow(StringBuilder builder, String tagName, String tag, EsedbProjection projection, Object[] values,
+                       EsedbCodec.TimeFormat timeFormat) {
+            StringBuilder line = new StringBuilder();
+            if (tagName != null) {
+                pad(builder, tagName);
+                pad(line, tag);
+                builder.append(' ');
+                line.append(' ');
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    builder.append(' ');
+                    line.append(' ');
+                }
+                pad(builder, projection.getName(i));
+                pad(line, EsedbCodec.formatValue(values[i], projection.getColumnName(i), projection.getColumnType(i), timeFormat));
+            }
+            builder.append(NEWLINE).append(line).append(NEWLINE);
+        }
+
+        /* Right-aligned in 30 characters, as String.format("%30s") */
+        private void pad(StringBuilder builder, String text) {
+            for (int i = text.length(); i < 30; i++) {
+                builder.append(' ');
+            }
+            builder.append(text);
+        }
+    },
+
+    CSV {
+        @Override
+        void appendHeader(StringBuilder builder, String tagName, EsedbProjection projection) {
+            if (tagName != null) {
+                appendField(builder, tagName);
+                builder.append(',');
+            }
+            for (int i = 0; i < projection.size(); i++) {
+                if (i > 0) builder.append(',');
+                appendField(builder, projection.getName(i));
+            }
+            builder.append(NEWLINE);
+        }
+
+        @Override
+        void appendRow(StringBuilder builder, String tagName, String tag, EsedbProjection projection, Object[] values,
+                       EsedbCodec.TimeFormat timeFormat) {
+            if (tagName != null) {
+                appendField(builder, tag);
+                builder.append(',');
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) builder.append(',');
+                appendField(builder, EsedbCodec.formatValue(values[i], projection.getColumnName(i), projection.getColumnType(i), timeFormat));
+            }
+            builder.append(NEWLINE);
+        }
+
+        private void appendField(StringBuilder builder, String field) {
+            boolean quote = false;
+            for (int i = 0; i < field.length() && !quote; i++) {
+                char c = field.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                builder.append(field);
+                return;
+            }
+            builder.append('"');
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '"') builder.append('"');
+                builder.append(c);
+            }
+            builder.append('"');
+        }
+    },
+
+    TSV {
+        @Override
+        void appendHeader(StringBuilder builder, String tagName, EsedbProjection projection) {
+            if (tagName != null) {
+                appendField(builder, tagName);
+                builder.append('\t');
+            }
+            for (int i = 0; i < projection.size(); i++) {
+                if (i > 0) builder.append('\t');
+                appendField(builder, projection.getName(i));
+            }
+            builder.append(NEWLINE);
+        }
+
+        @Override
+        void appendRow(StringBuilder builder, String tagName, String tag, EsedbProjection projection, Object[] values,
+                       EsedbCodec.TimeFormat timeFormat) {
+            if (tagName != null) {
+                appendField(builder, tag);
+                builder.append('\t');
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) builder.append('\t');
+                appendField(builder, EsedbCodec.formatValue(values[i], projection.getColumnName(i), projection.getColumnType(i), timeFormat));
+            }
+            builder.append(NEWLINE);
+        }
+
+        private void appendField(StringBuilder builder, String field) {
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                switch (c) {
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            }
+        }
+    },
+
+    NDJSON {
+        @Override
+        void appendHeader(StringBuilder builder, String tagName, EsedbProjection projection) {
+        }
+
+        @Override
+        void appendRow(StringBuilder builder, String tagName, String tag, EsedbProjection projection, Object[] values,
+                       EsedbCodec.TimeFormat timeFormat) {
+            builder.append('{');
+            if (tagName != null) {
+                appendString(builder, tagName);
+                builder.append(':');
+                appendString(builder, tag);
+                if (values.length > 0) builder.append(',');
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) builder.append(',');
+                appendString(builder, projection.getName(i));
+                builder.append(':');
+                appendValue(builder, values[i], projection.getColumnName(i), projection.getColumnType(i), timeFormat);
+            }
+            builder.append('}').append(NEWLINE);
+        }
+
+        private void appendValue(StringBuilder builder, Object value, String columnName, int columnType,
+                                 EsedbCodec.TimeFormat timeFormat) {
+            if (value == null) {
+                builder.append("null");
+            } else if (value instanceof Long && EsedbCodec.isTimestamp(columnName, columnType)) {
+                long filetime = (Long) value;
+                if (timeFormat == EsedbCodec.TimeFormat.TEXT) {
+                    builder.append('"');
+                    EsedbCodec.appendFiletime(builder, filetime);
+                    builder.append('"');
+                } else {
+                    builder.append(timeFormat == EsedbCodec.TimeFormat.MICROS ? EsedbCodec.filetimeToEpochMicros(filetime) : filetime);
+                }
+            } else if (value instanceof Float || value instanceof Double) {
+                double number = ((Number) value).doubleValue();
+                if (Double.isNaN(number) || Double.isInfinite(number)) {
+                    builder.append("null");
+                } else {
+                    builder.append(value);
+                }
+            } else if (value instanceof Number || value instanceof Boolean) {
+                builder.append(value);
+            } else if (value instanceof byte[]) {
+                builder.append('"').append(EsedbCodec.toHex((byte[]) value)).append('"');
+            } else {
+                appendString(builder, value.toString());
+            }
+        }
+
+        private void appendString(StringBuilder builder, String text) {
+            builder.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':
+                        builder.append("\\\"");
+                        break;
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            builder.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0x0f]);
+                        } else {
+                            builder.append(c);
+                        }
+                }
+            }
+            builder.append('"');
+        }
+    };
+
+    static final String NEWLINE = "\n";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /*
+     * tagName, if not null, names a leading column whose value is tag on every row (the source file in batch mode)
+     */
+    abstract void appendHeader(StringBuilder builder, String tagName, EsedbProjection projection);
+
+    abstract void appendRow(StringBuilder builder, String tagName, String tag, EsedbProjection projection, Object[] values,
+                            EsedbCodec.TimeFormat timeFormat);
+
+    void appendHeader(StringBuilder builder, EsedbProjection projection) {
+        appendHeader(builder, null, projection);
+    }
+
+    void appendRow(StringBuilder builder, EsedbProjection projection, Object[] values, EsedbCodec.TimeFormat timeFormat) {
+        appendRow(builder, null, null, projection, values, timeFormat);
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /* Formats meant for other programs, diagnostics must not be mixed with their output */
+    public boolean isMachineReadable() {
+        return this != TABLE;
+    }
+
+    public static EsedbOutputFormat fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown output format: " + name + " (table, csv, tsv or ndjson)");
+        }
+    }
+}
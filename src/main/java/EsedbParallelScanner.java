@@ -0,0 +1,231 @@
+import com.sun.jna.Pointer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Parallel scan of a table over record index ranges.
+ * libesedb handles are not thread-safe, so every worker opens its own libesedb_file and table handles.
+ * The record range is split into chunks that run on a work-stealing ForkJoinPool. Each chunk formats its
+ * records with the formatter and hands the text to the output as soon as it is done, or in record
+ * order when ordered is set.
+ */
+public class EsedbParallelScanner implements AutoCloseable {
+
+    static final int DEFAULT_CHUNK_SIZE = 2048;
+
+    private final EsedbLibrary library;
+    private final String filename;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    /* Workers are created on demand, at most one per pool thread is busy at a time */
+    private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+    private final List<Worker> workers = new ArrayList<>();
+
+    public EsedbParallelScanner(EsedbLibrary library, String filename, int threads) {
+        this(library, filename, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    public EsedbParallelScanner(EsedbLibrary library, String filename, int threads, int chunkSize) {
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("threads and chunk size must be at least 1");
+        }
+        this.library = library;
+        this.filename = filename;
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    /*
+     * Reads records 0 to numberOfRecords - 1 of the table entry, returns the number of records read
+     */
+    public long scan(int tableEntry, long numberOfRecords, boolean ordered, Function<EsedbRecordReader, String> formatter,
+                     Consumer<String> output) {
+        return scan(tableEntry, 0, numberOfRecords, ordered, formatter, output);
+    }
+
+    /*
+     * Reads records firstRecord to numberOfRecords - 1 of the table entry
+     */
+    public long scan(int tableEntry, long firstRecord, long numberOfRecords, boolean ordered,
+                     Function<EsedbRecordReader, String> formatter, Consumer<String> output) {
+        return scan(tableEntry, null, firstRecord, numberOfRecords, ordered, formatter, output);
+    }
+
+    /*
+     * Reads records firstRecord to numberOfRecords - 1 of the same table as table, which may have been opened by name
+     */
+    public long scan(EsedbTable table, long firstRecord, long numberOfRecords, boolean ordered,
+                     Function<EsedbRecordReader, String> formatter, Consumer<String> output) {
+        return scan(table.getEntry(), table.getName(), firstRecord, numberOfRecords, ordered, formatter, output);
+    }
+
+    private long scan(int tableEntry, String tableName, long firstRecord, long numberOfRecords, boolean ordered,
+                      Function<EsedbRecordReader, String> formatter, Consumer<String> output) {
+        int numberOfChunks = (int) ((Math.max(0, numberOfRecords - firstRecord) + chunkSize - 1) / chunkSize);
+        if (numberOfChunks == 0) {
+            return 0;
+        }
+        Emitter emitter = new Emitter(numberOfChunks, ordered, output);
+        LongAdder records = new LongAdder();
+
+        pool.invoke(new ChunkTask(tableEntry, tableName, firstRecord, numberOfRecords, 0, numberOfChunks, formatter, emitter, records));
+        return records.sum();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+        synchronized (workers) {
+            for (Worker worker : workers) {
+                worker.close();
+            }
+            workers.clear();
+        }
+        idleWorkers.clear();
+    }
+
+    private Worker borrowWorker() {
+        Worker worker = idleWorkers.poll();
+        if (worker == null) {
+            worker = new Worker();
+            synchronized (workers) {
+                workers.add(worker);
+            }
+        }
+        return worker;
+    }
+
+    /*
+     * Splits the chunk range in halves until a single chunk is left, idle threads steal the other halves
+     */
+    private final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int tableEntry;
+        private final String tableName;
+        private final long firstRecord;
+        private final long numberOfRecords;
+        private final int firstChunk;
+        private final int lastChunk;
+        private final Function<EsedbRecordReader, String> formatter;
+        private final Emitter emitter;
+        private final LongAdder records;
+
+        ChunkTask(int tableEntry, String tableName, long firstRecord, long numberOfRecords, int firstChunk, int lastChunk,
+                  Function<EsedbRecordReader, String> formatter, Emitter emitter, LongAdder records) {
+            this.tableEntry = tableEntry;
+            this.tableName = tableName;
+            this.firstRecord = firstRecord;
+            this.numberOfRecords = numberOfRecords;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+            this.formatter = formatter;
+            this.emitter = emitter;
+            this.records = records;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk > 1) {
+                int middle = (firstChunk + lastChunk) >>> 1;
+                invokeAll(new ChunkTask(tableEntry, tableName, firstRecord, numberOfRecords, firstChunk, middle, formatter, emitter, records),
+                        new ChunkTask(tableEntry, tableName, firstRecord, numberOfRecords, middle, lastChunk, formatter, emitter, records));
+                return;
+            }
+            long first = firstRecord + ((long) firstChunk * chunkSize);
+            long last = Math.min(first + chunkSize, numberOfRecords);
+            StringBuilder text = new StringBuilder();
+
+            Worker worker = borrowWorker();
+            try {
+                Pointer table = worker.getTable(tableEntry, tableName);
+                EsedbRecordReader recordReader = worker.recordReader;
+
+                for (long i = first; i < last; i++) {
+                    if (!recordReader.open(table, (int) i)) {
+                        continue;
+                    }
+                    try {
+                        text.append(formatter.apply(recordReader));
+                    } finally {
+                        recordReader.close();
+                    }
+                    records.increment();
+                }
+            } finally {
+                idleWorkers.add(worker);
+            }
+            emitter.complete(firstChunk, text.toString());
+        }
+    }
+
+    /*
+     * Passes finished chunks to the output, holding back chunks that complete ahead of their turn when ordered
+     */
+    private static final class Emitter {
+
+        private final String[] pending;
+        private final boolean ordered;
+        private final Consumer<String> output;
+        private int next;
+
+        Emitter(int numberOfChunks, boolean ordered, Consumer<String> output) {
+            this.pending = ordered ? new String[numberOfChunks] : null;
+            this.ordered = ordered;
+            this.output = output;
+        }
+
+        synchronized void complete(int chunk, String text) {
+            if (!ordered) {
+                output.accept(text);
+                return;
+            }
+            pending[chunk] = text;
+            while (next < pending.length && pending[next] != null) {
+                output.accept(pending[next]);
+                pending[next++] = null;
+            }
+        }
+    }
+
+    /*
+     * File and table handles owned by one worker at a time
+     */
+    private final class Worker {
+
+        private final EsedbFile file = EsedbFile.open(library, filename);
+        private final EsedbRecordReader recordReader = new EsedbRecordReader(library);
+
+        private EsedbTable table;
+
+        /* The table at entry, or named name when the entry is UNKNOWN_ENTRY */
+        Pointer getTable(int entry, String name) {
+            if (table != null && table.getEntry() == entry && (entry != EsedbTable.UNKNOWN_ENTRY || table.getName().equals(name))) {
+                return table.getPointer();
+            }
+            if (table != null) {
+                table.close();
+            }
+            table = entry != EsedbTable.UNKNOWN_ENTRY ? file.table(entry) : file.table(name);
+            return table.getPointer();
+        }
+
+        /* Frees the table with the file */
+        void close() {
+            file.close();
+        }
+    }
+}
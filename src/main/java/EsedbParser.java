@@ -1,15 +1,25 @@
-import com.google.common.base.Strings;
-import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
-import com.sun.jna.ptr.*;
+import com.sun.jna.ptr.PointerByReference;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /*
  * Esedd parser using libesedb.
@@ -17,28 +27,412 @@ import java.util.TimeZone;
  */
 public class EsedbParser {
 
+    /* Columns listed when --columns is not given, resolved by name in each table */
+    static final List<String> DEFAULT_COLUMNS = Arrays.asList(
+            "EntryId", "FileSize", "AccessCount", "CreationTime", "ModifiedTime", "AccessedTime", "Url", "Filename");
+    private static final int ENTRY_ID = 0;
+    private static final int FILE_SIZE = 1;
+    private static final int ACCESS_COUNT = 2;
+    private static final int CREATION_TIME = 3;
+    private static final int MODIFIED_TIME = 4;
+    private static final int ACCESSED_TIME = 5;
+    private static final int URL = 6;
+    private static final int FILENAME = 7;
+
+    /* With esedb.startup, the time from JVM start to the first record written is printed */
+    private static final boolean REPORT_STARTUP = Boolean.getBoolean("esedb.startup");
+    private static final AtomicBoolean firstRecordReported = new AtomicBoolean();
+
     static void printError(String function, int result, PointerByReference errorPointer) {
+        printError(EsedbLibrary.INSTANCE, function, result, errorPointer);
+    }
+
+    static void printError(EsedbLibrary library, String function, int result, PointerByReference errorPointer) {
+        printError(function, result, errorPointer.getValue().getString(0));
+        library.libesedb_error_free(errorPointer);
+
+    }
+
+    /* An error found in what libesedb returned rather than by libesedb */
+    static void printError(String function, int result, String message) {
         System.out.println("Função: " + function);
         System.out.println("Resultado: " + result);
-        System.out.println("Erro: " + errorPointer.getValue().getString(0));
+        System.out.println("Erro: " + message);
         System.out.println("=============================");
-        EsedbLibrary.INSTANCE.libesedb_error_free(errorPointer);
-        
     }
 
-    static String convertLDAPTimeToString(long nanoseconds) {
-        /* Convert LDAP Timestamp to human readable date
-         * https://www.epochconverter.com/ldap
-         * http://goliferay.blogspot.com/2015/11/convert-18-digit-ldap-timestamps-to.html
-         */
-        long mills = (nanoseconds / 10000000);
-        long unix = (((1970 - 1601) * 365) - 3 + Math.round((1970 - 1601) / 4)) * 86400L;
-        long timeStamp = mills - unix;
-        Date date = new Date(timeStamp * 1000L); // *1000 is to convert seconds to milliseconds
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"); // the format of your date
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC")); // give a timezone reference for formating (see comment at the bottom
-        String formattedDate = sdf.format(date);
-        return formattedDate;
+    /*
+     * -t selects the tables whose name contains it, or with a leading = (-t =Container_1) only the table with exactly
+     * that name. Every reader, the cache and the batch mode match tables this way.
+     */
+    static boolean matchesTable(String name, String table) {
+        return table.startsWith("=") ? name.equals(table.substring(1)) : name.contains(table);
+    }
+
+    /* The name of a -t =Name, null when -t is part of a name */
+    static String exactTable(String table) {
+        return table.startsWith("=") ? table.substring(1) : null;
+    }
+
+    /* Called by EsedbSink on its first row */
+    static void firstRecordWritten() {
+        if (REPORT_STARTUP && firstRecordReported.compareAndSet(false, true)) {
+            long now = System.currentTimeMillis();
+            System.err.println("Primeiro registro: " + (now - ManagementFactory.getRuntimeMXBean().getStartTime())
+                    + " ms após o início da JVM");
+        }
+    }
+
+    static String formatRecord(long entryId, long fileSize, long accessCount, String creationTime,
+                               String modifiedTime, String accessedTime, String file, String url) {
+        /* Imprime valores dos campos da tabela */
+        return String.format("%4s %10s %10s %20s %30s %30s %30s %40s%n",
+                "EntryId", "FileSize", "AccessCount", "CreationTime", "ModifiedTime", "AccessedTime", "Filename", "Url")
+                + String.format("%4d %10d %10d %30s %30s %30s %35s %50s%n",
+                                entryId, fileSize, accessCount, creationTime, modifiedTime, accessedTime, file, url);
+    }
+
+    /*
+     * Formats the decoded values of the DEFAULT_COLUMNS projection (readValues or an EsedbSnapshot) in the
+     * Container_n record layout. Missing columns keep the default value.
+     */
+    static String formatRecord(EsedbProjection projection, Object[] values, EsedbCodec.TimeFormat timeFormat) {
+        return formatRecord(toLong(values[ENTRY_ID]), toLong(values[FILE_SIZE]), toLong(values[ACCESS_COUNT]) & 0xffffffffL,
+                formatTime(projection, values, CREATION_TIME, timeFormat),
+                formatTime(projection, values, MODIFIED_TIME, timeFormat),
+                formatTime(projection, values, ACCESSED_TIME, timeFormat),
+                values[FILENAME] != null ? values[FILENAME].toString() : "",
+                values[URL] != null ? values[URL].toString() : "");
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /* NULL times are formatted as 0, as getValue64bit returns them; missing columns are left empty */
+    private static String formatTime(EsedbProjection projection, Object[] values, int index, EsedbCodec.TimeFormat timeFormat) {
+        return projection.getValueEntry(index) >= 0 ? EsedbCodec.formatTime(toLong(values[index]), timeFormat) : "";
+    }
+
+    /*
+     * Formats decoded values for the sink: the format's row for machine formats, otherwise the --columns
+     * listing or the Container_n record layout
+     */
+    static String formatValues(EsedbSink sink, List<String> columns, EsedbProjection projection, Object[] values) {
+        if (sink.getFormat().isMachineReadable()) {
+            return sink.formatRow(projection, values);
+        }
+        if (columns != null) {
+            return formatColumns(projection, values, sink.getTimeFormat());
+        }
+        return formatRecord(projection, values, sink.getTimeFormat());
+    }
+
+    /* Decoded values of the projected columns, null for missing columns and NULL values */
+    static Object[] readValues(EsedbRecordReader recordReader, EsedbProjection projection) {
+        Object[] values = new Object[projection.size()];
+        for (int i = 0; i < values.length; i++) {
+            int entry = projection.getValueEntry(i);
+            if (entry >= 0) values[i] = recordReader.getValue(entry, projection.getColumnType(i));
+        }
+        return values;
+    }
+
+    static String formatColumns(EsedbProjection projection, Object[] values, EsedbCodec.TimeFormat timeFormat) {
+        StringBuilder builder = new StringBuilder(512);
+        EsedbOutputFormat.TABLE.appendRow(builder, projection, values, timeFormat);
+        return builder.toString();
+    }
+
+    /* Decoded values of the projected columns of a record read with the Java reader */
+    static Object[] readValues(EseRecord record, EsedbProjection projection) throws IOException {
+        Object[] values = new Object[projection.size()];
+        for (int i = 0; i < values.length; i++) {
+            int entry = projection.getValueEntry(i);
+            if (entry >= 0) values[i] = record.getValue(entry);
+        }
+        return values;
+    }
+
+    /* Same as readValues, the columns of the dictionary (if not null) as their code */
+    static Object[] readValues(EsedbRecordReader recordReader, EsedbProjection projection, EsedbDictionary dictionary) {
+        if (dictionary == null) {
+            return readValues(recordReader, projection);
+        }
+        Object[] values = new Object[projection.size()];
+        for (int i = 0; i < values.length; i++) {
+            int entry = projection.getValueEntry(i);
+            if (entry < 0) continue;
+            if (dictionary.isCoded(projection.getColumnName(i))) {
+                int code = recordReader.internValue(entry, projection.getColumnType(i), dictionary);
+                values[i] = code < 0 ? null : code;
+            } else {
+                values[i] = recordReader.getValue(entry, projection.getColumnType(i));
+            }
+        }
+        return values;
+    }
+
+    static Object[] readValues(EseRecord record, EsedbProjection projection, EsedbDictionary dictionary) throws IOException {
+        Object[] values = readValues(record, projection);
+        if (dictionary != null) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null && dictionary.isCoded(projection.getColumnName(i))) {
+                    values[i] = dictionary.intern(EsedbCodec.formatValue(values[i], null, projection.getColumnType(i),
+                            EsedbCodec.TimeFormat.TEXT));
+                }
+            }
+        }
+        return values;
+    }
+
+    /* Writes the strings of --dictionary to their file, in the output format */
+    static void writeDictionary(EsedbDictionary dictionary, String filename, EsedbOutputFormat format,
+                                EsedbCodec.TimeFormat timeFormat) {
+        System.out.println("Dicionário: " + dictionary.size() + " valores distintos em " + dictionary.getReferences()
+                + " referências, " + dictionary.getOffHeapBytes() + " bytes fora do heap");
+        try (EsedbSink sink = EsedbSink.open(filename, format, timeFormat, false)) {
+            dictionary.write(sink);
+        } catch (IOException | UncheckedIOException ex) {
+            System.err.println("Erro: dicionário não gravado em " + filename + ": " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /*
+     * Resolves the listed columns, DEFAULT_COLUMNS if none, and warns about the ones the table does not have
+     */
+    static EsedbProjection project(EsedbSchema schema, List<String> columns, String tableName) {
+        EsedbProjection projection = schema.project(columns != null ? columns : DEFAULT_COLUMNS);
+        if (!projection.getMissingColumns().isEmpty()) {
+            System.out.println("Colunas inexistentes na tabela " + tableName + ": " + String.join(", ", projection.getMissingColumns()));
+        }
+        return projection;
+    }
+
+    /*
+     * The filter resolved against a table, warns when the table lacks a compared column: none of its records match
+     */
+    static EsedbFilter.Bound bind(EsedbFilter filter, EsedbSchema schema, String tableName) {
+        EsedbFilter.Bound bound = filter.bind(schema);
+        if (bound.matchesNothing()) {
+            System.out.println("Colunas do filtro inexistentes na tabela " + tableName + ": "
+                    + String.join(", ", bound.getMissingColumns()) + ", nenhum registro selecionado");
+        }
+        return bound;
+    }
+
+    /*
+     * Binds --group-by to a table, warning about the columns it lacks
+     */
+    static EsedbAggregator.Bound aggregate(EsedbAggregator aggregator, EsedbSchema schema, String tableName) {
+        EsedbAggregator.Bound bound = aggregator.bind(schema, tableName);
+        if (!bound.getMissingColumns().isEmpty()) {
+            System.out.println("Colunas do agrupamento inexistentes na tabela " + tableName + ": "
+                    + String.join(", ", bound.getMissingColumns()) + ", agrupadas como vazias");
+        }
+        return bound;
+    }
+
+    /*
+     * The projection of a table in the timeline, null (with a warning) if the table lacks its column
+     */
+    static EsedbProjection timelineProjection(EsedbTimeline timeline, EsedbProjection projection, String tableName) {
+        if (projection.indexOf(timeline.getColumn()) < 0) {
+            System.out.println("Tabela " + tableName + " sem coluna " + timeline.getColumn() + ", fora da linha do tempo");
+            return null;
+        }
+        return projection;
+    }
+
+    /* Adds a row to the timeline, tagged with its table */
+    static void addToTimeline(EsedbTimeline timeline, EsedbProjection projection, String tableName, Object[] values) {
+        try {
+            timeline.add(projection, EsedbTimeline.TABLE_COLUMN, tableName, values);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /* Writes the timeline, once every table (and file) is read */
+    static void printTimeline(EsedbTimeline timeline) {
+        System.out.println();
+        System.out.println("-----------------------------");
+        System.out.println("--------- TIMELINE ----------");
+        System.out.println("-----------------------------");
+        System.out.println();
+        System.out.println("Linha do tempo por " + timeline.getColumn() + ": " + timeline.getNumberOfRows() + " registros");
+        try {
+            timeline.finish();
+            System.out.println("Execuções ordenadas gravadas em disco: " + timeline.getNumberOfRuns());
+        } catch (IOException | UncheckedIOException ex) {
+            System.err.println("Erro: linha do tempo: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /* The groups of --group-by, once every table is read */
+    static void printGroups(EsedbAggregator aggregator, EsedbSink sink) {
+        System.out.println();
+        System.out.println("-----------------------------");
+        System.out.println("---------- GROUPS -----------");
+        System.out.println("-----------------------------");
+        System.out.println();
+        if (!aggregator.isExact()) {
+            System.out.println("Grupos demais para a memória: contagens aproximadas, acima do real em até Error");
+        }
+        aggregator.write(sink);
+    }
+
+    static void printTableInfo(String tableNameString, int numColumns, long numRecords) {
+        System.out.println();
+        System.out.println("-----------------------------");
+        System.out.println("-------- TABLE INFO ---------");
+        System.out.println("-----------------------------");
+        System.out.println();
+        System.out.println("Table name: " + tableNameString);
+        System.out.println("Number of columns: " + numColumns);
+        System.out.println("Number of records (rows): " + numRecords);
+    }
+
+    static void printTableDataHeader() {
+        System.out.println();
+        System.out.println("-----------------------------");
+        System.out.println("-------- TABLE DATA ---------");
+        System.out.println("-----------------------------");
+        System.out.println();
+    }
+
+    /*
+     * Same listing as main, reading the file with the pure Java page reader instead of libesedb.
+     * The record column entries are the same value entries used with libesedb_record_get_value_*.
+     */
+    static void parseWithJavaReader(String filename, String table, boolean info, List<String> columns, EsedbFilter filter,
+                                    EsedbValueExport export, EsedbAggregator aggregator, EsedbTimeline timeline,
+                                    EsedbDictionary dictionary, EsedbSink sink,
+                                    EsedbCache.Entry cacheEntry, EsedbIncrementalState state,
+                                    boolean newOnly) throws IOException {
+        System.out.println("Leitor: java (arquivo mapeado em memória)");
+        System.out.println("=============================");
+
+        System.out.println("Nome do arquivo: " + filename);
+        System.out.println("=============================");
+
+        if (!EseDatabase.checkFileSignature(filename)) {
+            System.out.println("File does not contains an ESEDB");
+            System.out.println("=============================");
+            return;
+        }
+
+        try (EseDatabase database = EseDatabase.open(filename)) {
+            System.out.println("Number of tables: " + database.getTables().size());
+            System.out.println("=============================");
+            if (cacheEntry != null) cacheEntry.setNumberOfTables(database.getTables().size());
+
+            if (table == null || table.isEmpty()) {
+                table = "Container_";
+            }
+
+            for (EseTable eseTable : database.getTables()) {
+                int numRecords = eseTable.getNumberOfRecords();
+                if (info) printTableInfo(eseTable.getName(), eseTable.getNumberOfColumns(), numRecords);
+                if (cacheEntry != null) cacheEntry.addTable(eseTable.getName(), eseTable.getNumberOfColumns(), numRecords);
+
+                if (!matchesTable(eseTable.getName(), table)) {
+                    continue;
+                }
+                printTableDataHeader();
+
+                EsedbSchema schema = EsedbSchema.of(eseTable);
+                EsedbProjection projection = project(schema, columns, eseTable.getName());
+                if (timeline != null && (projection = timelineProjection(timeline, projection, eseTable.getName())) == null) continue;
+                EsedbAggregator.Bound aggregate = aggregator != null ? aggregate(aggregator, schema, eseTable.getName()) : null;
+                if (aggregate == null && timeline == null) sink.writeHeader(projection);
+                EsedbSnapshot.Builder snapshot = cacheEntry != null ? EsedbSnapshot.builder(projection, numRecords) : null;
+                EsedbIncrementalState.Tracker tracker = state != null ? track(state, eseTable.getName(), schema) : null;
+                EsedbFilter.Bound bound = filter != null ? bind(filter, schema, eseTable.getName()) : null;
+                if (bound != null && bound.matchesNothing()) continue;
+
+                int first = 0;
+                if (tracker != null && newOnly) {
+                    first = (int) tracker.findFirstNew(numRecords, record -> {
+                        try {
+                            return eseTable.getRecord((int) record).getValue(tracker.getEntryIdValueEntry());
+                        } catch (IOException ex) {
+                            return null;
+                        }
+                    });
+                }
+                for (int i = first; i < numRecords; i++) {
+                    EseRecord record = eseTable.getRecord(i);
+                    if (tracker != null && !tracker.accept(record)) continue;
+                    if (bound != null && !bound.test(record)) continue;
+                    if (aggregate != null) {
+                        aggregate.accept(record);
+                        continue;
+                    }
+                    Object[] values = readValues(record, projection, dictionary);
+                    if (export != null) export.export(record, eseTable.getName(), i, projection, values);
+                    if (snapshot != null) snapshot.add(values);
+                    if (timeline != null) {
+                        addToTimeline(timeline, projection, eseTable.getName(), values);
+                        continue;
+                    }
+                    sink.write(formatValues(sink, columns, projection, values));
+                }
+                if (snapshot != null) cacheEntry.putSnapshot(eseTable.getName(), snapshot.build());
+                if (tracker != null) tracker.commit(first == 0);
+            }
+        }
+        if (aggregator != null) printGroups(aggregator, sink);
+
+        System.out.println();
+        System.out.println("=============================");
+    }
+
+    /*
+     * Tracker of the incremental mode for a table, warns when the table has no EntryId and is listed in full
+     */
+    static EsedbIncrementalState.Tracker track(EsedbIncrementalState state, String tableName, EsedbSchema schema) {
+        EsedbIncrementalState.Tracker tracker = state.track(tableName, schema);
+        if (tracker == null) {
+            System.out.println("Tabela " + tableName + " sem coluna " + EsedbIncrementalState.ENTRY_ID + ", listada por completo");
+        }
+        return tracker;
+    }
+
+    /*
+     * Same listing as main, from an EsedbCache entry: the file is not opened
+     */
+    static void printCached(String filename, String table, boolean info, List<String> columns, EsedbSink sink,
+                            EsedbCache.Entry entry) {
+        System.out.println("Leitor: cache");
+        System.out.println("=============================");
+
+        System.out.println("Nome do arquivo: " + filename);
+        System.out.println("=============================");
+
+        System.out.println("Number of tables: " + entry.getNumberOfTables());
+        System.out.println("=============================");
+
+        for (EsedbCache.TableInfo tableInfo : entry.getTables()) {
+            if (info) printTableInfo(tableInfo.getName(), tableInfo.getNumberOfColumns(), tableInfo.getNumberOfRecords());
+
+            EsedbSnapshot snapshot = entry.getSnapshot(tableInfo.getName());
+            if (!matchesTable(tableInfo.getName(), table) || snapshot == null) {
+                continue;
+            }
+            printTableDataHeader();
+
+            EsedbProjection projection = project(snapshot.getProjection().getSchema(), columns, tableInfo.getName());
+            sink.writeHeader(projection);
+            for (int i = 0; i < snapshot.getNumberOfRows(); i++) {
+                sink.write(formatValues(sink, columns, projection, snapshot.getRow(i)));
+            }
+        }
+
+        System.out.println();
+        System.out.println("=============================");
     }
 
     public static void main(String[] args) {
@@ -46,8 +440,9 @@ public class EsedbParser {
         String filename = "/home/herrmann/Documents/BrowsersArtifacts/Edge/WebCacheV01.dat";
         String table = "";
         Boolean info = false;
-        int contagemAbertura = 0;
-        int contagemFechamentos = 0;
+        int threads = 1;
+        List<String> columns = null;
+        EsedbCodec.TimeFormat timeFormat = EsedbCodec.TimeFormat.TEXT;
 
         EsedbCli cmd = new EsedbCli(args);
         CommandLine cmdLine = null;
@@ -59,13 +454,18 @@ public class EsedbParser {
             System.exit(1);
         }
 
+        if (cmdLine.hasOption("metrics")) {
+            /* Read by EsedbMetrics on first use, before the library is loaded */
+            System.setProperty("esedb.metrics", "true");
+        }
+
         if (cmdLine.hasOption("f")) {
             filename = cmdLine.getOptionValue("f");
             if (!new File(filename).exists()) {
                 System.err.println("Arquivo não existe!");
                 System.exit(0);
             }
-        } else {
+        } else if (!cmdLine.hasOption("B") && !cmdLine.hasOption("serve")) {
             cmd.printHelp();
             System.exit(0);
         }
@@ -78,21 +478,223 @@ public class EsedbParser {
             info = true;
         }
 
-        System.out.println("Versão da biblioteca: " + EsedbLibrary.INSTANCE.libesedb_get_version());
-        System.out.println("=============================");
+        if (cmdLine.hasOption("c")) {
+            columns = new ArrayList<>();
+            for (String column : cmdLine.getOptionValue("c").split(",")) {
+                if (!column.trim().isEmpty()) columns.add(column.trim());
+            }
+            if (columns.isEmpty()) {
+                System.err.println("Erro: nenhuma coluna informada");
+                System.exit(1);
+            }
+        }
+
+        EsedbFilter filter = null;
+        if (cmdLine.hasOption("w")) {
+            try {
+                filter = EsedbFilter.parse(cmdLine.getOptionValue("w"));
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+
+        EsedbValueExport export = null;
+        if (cmdLine.hasOption("values-dir")) {
+            if (cmdLine.hasOption("B") || cmdLine.hasOption("connect") || cmdLine.hasOption("serve")) {
+                System.err.println("Erro: --values-dir lista um único arquivo, sem --batch, --connect ou --serve");
+                System.exit(1);
+            }
+            export = new EsedbValueExport(Paths.get(cmdLine.getOptionValue("values-dir")));
+        }
+
+        EsedbAggregator aggregator = null;
+        if (cmdLine.hasOption("g")) {
+            if (cmdLine.hasOption("B") || cmdLine.hasOption("connect") || cmdLine.hasOption("serve") || export != null) {
+                System.err.println("Erro: --group-by agrega um único arquivo, sem --batch, --connect, --serve ou --values-dir");
+                System.exit(1);
+            }
+            try {
+                int top = Integer.parseInt(cmdLine.getOptionValue("top", String.valueOf(EsedbAggregator.DEFAULT_TOP)));
+                aggregator = EsedbAggregator.parse(cmdLine.getOptionValue("g"), cmdLine.getOptionValue("sum"), top);
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        } else if (cmdLine.hasOption("top") || cmdLine.hasOption("sum")) {
+            System.err.println("Erro: --top e --sum requerem --group-by");
+            System.exit(1);
+        }
+
+        if (cmdLine.hasOption("d")) {
+            try {
+                timeFormat = EsedbCodec.TimeFormat.fromName(cmdLine.getOptionValue("d"));
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+
+        EsedbOutputFormat format = EsedbOutputFormat.TABLE;
+        if (cmdLine.hasOption("F")) {
+            try {
+                format = EsedbOutputFormat.fromName(cmdLine.getOptionValue("F"));
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if (cmdLine.hasOption("T")) {
+            try {
+                threads = Integer.parseInt(cmdLine.getOptionValue("T"));
+            } catch (NumberFormatException ex) {
+                threads = 0;
+            }
+            if (threads < 1) {
+                System.err.println("Erro: número de threads inválido: " + cmdLine.getOptionValue("T"));
+                System.exit(1);
+            }
+        }
+
+        if (cmdLine.hasOption("b")) {
+            try {
+                EsedbBackend.select(EsedbBackend.fromName(cmdLine.getOptionValue("b")));
+            } catch (IllegalArgumentException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if (table == null || table.isEmpty()) {
+            table = "Container_";
+        }
+
+        if (cmdLine.hasOption("serve")) {
+            try {
+                new EsedbServer(parsePort(cmdLine, "serve"), parseJobs(cmdLine)).run();
+            } catch (IOException ex) {
+                System.err.println("Erro: " + ex);
+                System.exit(1);
+            }
+            return;
+        }
+
+        EsedbSink sink = openSink(cmdLine.getOptionValue("o"), format, timeFormat, cmdLine.hasOption("z"));
+
+        EsedbTimeline timeline = null;
+        if (cmdLine.hasOption("timeline")) {
+            if (cmdLine.hasOption("connect") || aggregator != null) {
+                System.err.println("Erro: --timeline lista neste processo, sem --connect ou --group-by");
+                System.exit(1);
+            }
+            String column = cmdLine.getOptionValue("timeline");
+            List<String> listed = columns != null ? columns : cmdLine.hasOption("B") ? DEFAULT_COLUMNS : null;
+            if (listed != null && listed.stream().noneMatch(column::equalsIgnoreCase)) {
+                System.err.println("Erro: a coluna da linha do tempo " + column + " deve estar em --columns");
+                System.exit(1);
+            }
+            Path directory = cmdLine.hasOption("timeline-dir")
+                    ? Paths.get(cmdLine.getOptionValue("timeline-dir")) : EsedbTimeline.getDefaultDirectory();
+            timeline = new EsedbTimeline(sink, column, directory, EsedbTimeline.getDefaultRunBytes());
+        } else if (cmdLine.hasOption("timeline-dir")) {
+            System.err.println("Erro: --timeline-dir requer --timeline");
+            System.exit(1);
+        }
+
+        EsedbDictionary dictionary = null;
+        if (cmdLine.hasOption("dictionary")) {
+            if (cmdLine.hasOption("connect")) {
+                System.err.println("Erro: --dictionary lista neste processo, sem --connect");
+                System.exit(1);
+            }
+            dictionary = new EsedbDictionary();
+        }
+
+        if (cmdLine.hasOption("connect")) {
+            EsedbServer.Job job = new EsedbServer.Job(new File(filename).getAbsolutePath(), table, columns, filter, format, timeFormat,
+                    "java".equals(cmdLine.getOptionValue("r", "libesedb")));
+            int status;
+            try {
+                status = EsedbServer.connect(parsePort(cmdLine, "connect"), job, sink);
+            } catch (IOException ex) {
+                System.err.println("Erro: servidor indisponível: " + ex.getMessage());
+                status = 1;
+            }
+            closeSink(sink);
+            System.out.flush();
+            System.exit(status);
+        }
+
+        if (cmdLine.hasOption("B")) {
+            int failures = runBatch(cmdLine, table, columns, filter, timeline, dictionary, sink);
+            if (dictionary != null) writeDictionary(dictionary, cmdLine.getOptionValue("dictionary"), format, timeFormat);
+            System.exit(failures > 0 ? 2 : 0);
+        }
+
+        EsedbIncrementalState state = null;
+        boolean newOnly = cmdLine.hasOption("new-only");
+        if (cmdLine.hasOption("I")) {
+            try {
+                state = EsedbIncrementalState.load(Paths.get(cmdLine.getOptionValue("I")));
+            } catch (IOException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        } else if (newOnly) {
+            System.err.println("Erro: --new-only requer --incremental");
+            System.exit(1);
+        }
 
         /*
-         * Variables used by file functions
+         * The cache holds whole tables as listed by default, the incremental mode reads the file to find what changed
          */
+        EsedbCache cache = null;
+        EsedbCache.Key cacheKey = null;
+        EsedbCache.Entry cacheEntry = null;
+        if (!cmdLine.hasOption("no-cache") && state == null && filter == null && export == null
+                && aggregator == null && timeline == null && dictionary == null) {
+            cache = cmdLine.hasOption("cache-dir")
+                    ? new EsedbCache(Paths.get(cmdLine.getOptionValue("cache-dir")), EsedbCache.getDefaultMaxBytes())
+                    : EsedbCache.open();
+            try {
+                cacheKey = cache.identify(filename, cmdLine.getOptionValue("r", "libesedb"), table, columns);
+                EsedbCache.Entry cached = cache.get(cacheKey);
+                /* An entry of a table found by name cannot show the info of the others */
+                if (cached != null && (!info || cached.hasCatalog())) {
+                    printCached(filename, table, info, columns, sink, cached);
+                    closeSink(sink);
+                    return;
+                }
+                cacheEntry = new EsedbCache.Entry();
+            } catch (IOException ex) {
+                System.out.println("Cache indisponível: " + ex.getMessage());
+                cache = null;
+            }
+        }
 
-        PointerByReference filePointerReference = new PointerByReference();
-        PointerByReference columnPointerReference = new PointerByReference();
-        PointerByReference errorPointer = new PointerByReference();
-        IntByReference numberOfTables = new IntByReference();
-        int numColumns;
-        int numTables;
+        if ("java".equals(cmdLine.getOptionValue("r", "libesedb"))) {
+            try {
+                parseWithJavaReader(filename, table, info, columns, filter, export, aggregator, timeline, dictionary, sink,
+                        cacheEntry, state, newOnly);
+            } catch (IOException | UncheckedIOException | IllegalArgumentException ex) {
+                System.err.println("Erro: " + ex);
+                System.exit(1);
+            }
+            if (timeline != null) printTimeline(timeline);
+            closeSink(sink);
+            if (dictionary != null) writeDictionary(dictionary, cmdLine.getOptionValue("dictionary"), format, timeFormat);
+            if (cache != null) putCache(cache, cacheKey, cacheEntry);
+            if (state != null) saveState(state);
+            return;
+        }
+
+        System.out.println("Versão da biblioteca: " + EsedbLibrary.INSTANCE.libesedb_get_version());
+        System.out.println("Backend: " + EsedbBackend.getSelected().getName());
+        System.out.println("=============================");
 
-        /* Table Container_n columns names
+        /* Table Container_n columns names, as in the files this was written against.
+         * The layout differs between IE10, IE11 and Edge builds, so columns are looked up by name (EsedbSchema).
          * 0 - EntryId
          * 1 - ContainerId
          * 2 - CacheId
@@ -120,273 +722,330 @@ public class EsedbParser {
          * 24 - ExtraData
          */
 
-        int[] recordColumnsValues = new int[]{0, 5, 8, 10, 12, 13, 17, 18};
-
-        int accessFlags = 1;
-        int columnFlags = 1;
-        int result = 0;
-
         System.out.println("Nome do arquivo: " + filename);
         System.out.println("=============================");
 
-        result = EsedbLibrary.INSTANCE.libesedb_file_initialize(filePointerReference, errorPointer);
-        if (result < 0) printError("File Initialize", result, errorPointer);
-
-        result = EsedbLibrary.INSTANCE.libesedb_check_file_signature(filename, errorPointer);
-        if (result < 0) printError("Check File Signature", result, errorPointer);
-        if (result == 0) {
-            System.out.println("File does not contains an ESEDB");
-            System.out.println("=============================");
-            System.exit(0);
+        try {
+            if (!EsedbFile.checkFileSignature(EsedbLibrary.INSTANCE, filename)) {
+                System.out.println("File does not contains an ESEDB");
+                System.out.println("=============================");
+                System.exit(0);
+            }
+        } catch (EsedbException ex) {
+            System.out.println("Erro: " + ex.getMessage());
         }
 
-        result = EsedbLibrary.INSTANCE.libesedb_file_open(filePointerReference.getValue(), filename, accessFlags, errorPointer);
-        if (result < 0) printError("File Open", result, errorPointer);
-        contagemAbertura++;
-
-        result = EsedbLibrary.INSTANCE.libesedb_file_get_number_of_tables(filePointerReference.getValue(), numberOfTables, errorPointer);
-        if (result < 0) printError("File Get Number of Tables", result, errorPointer);
-        numTables = numberOfTables.getValue();
-        System.out.println("Number of tables: " + numTables);
-        System.out.println("=============================");
-
-        for (int tables = 0; tables < numTables; tables++) {
-
-            /*
-             * Variables used by table functions
-             */
-            PointerByReference tablePointerReference = new PointerByReference();
-
-            IntByReference tableName = new IntByReference();
-            IntByReference tableNameSize = new IntByReference();
+        long registrosLidos = 0;
+        LongAdder registrosSelecionados = new LongAdder();
+        long inicio = System.nanoTime();
 
-            IntByReference numberOfColumns = new IntByReference();
-            LongByReference numberOfRecords = new LongByReference();
+        /* Every handle is closed on the way out of its block, whatever error ends it */
+        try (EsedbFile file = EsedbFile.open(filename);
+             EsedbParallelScanner scanner = threads > 1 ? new EsedbParallelScanner(EsedbLibrary.INSTANCE, filename, threads) : null) {
 
-            IntByReference columnType = new IntByReference();
-            IntByReference columnName = new IntByReference();
-            IntByReference columnNameSize = new IntByReference();
-
-            long numRecords;
-
-            if (info) {
-                System.out.println();
-                System.out.println("-----------------------------");
-                System.out.println("-------- TABLE INFO ---------");
-                System.out.println("-----------------------------");
-                System.out.println();
-            }
+            int numTables = file.getNumberOfTables();
+            System.out.println("Number of tables: " + numTables);
+            System.out.println("=============================");
 
-            result = EsedbLibrary.INSTANCE.libesedb_file_get_table(filePointerReference.getValue(), tables, tablePointerReference, errorPointer);
-            if (result < 0) printError("File Get Table", result, errorPointer);
-            contagemAbertura++;
+            if (cacheEntry != null) cacheEntry.setNumberOfTables(numTables);
 
-            result = EsedbLibrary.INSTANCE.libesedb_table_get_utf8_name_size(tablePointerReference.getValue(), tableNameSize, errorPointer);
-            if (result < 0) printError("Table Get UTF8 Name Size", result, errorPointer);
-//            System.out.println("Table name size: " + tableNameSize.getValue());
+            EsedbRecordReader recordReader = new EsedbRecordReader(EsedbLibrary.INSTANCE);
 
-            result = EsedbLibrary.INSTANCE.libesedb_table_get_utf8_name(tablePointerReference.getValue(), tableName, tableNameSize.getValue(), errorPointer);
-            if (result < 0) printError("Table Get UTF8 Name", result, errorPointer);
-            String tableNameString = tableName.getPointer().getString(0);
-            if (info) System.out.println("Table name: " + tableNameString);
+            /*
+             * A -t =Name table is found by libesedb and is the only one opened. Otherwise only the names of the tables
+             * are read, and the tables matching -t opened; the catalog, which counts the records of every table, is
+             * read when -i shows the info of all tables.
+             */
+            String exactTable = exactTable(table);
+            EsedbTable namedTable = !info && exactTable != null ? file.findTable(exactTable) : null;
+            List<EsedbFile.TableInfo> catalog = info ? file.getCatalog() : null;
+            List<String> tableNames = !info && namedTable == null ? file.getTableNames() : null;
+            int tablesListed = catalog != null ? catalog.size() : tableNames != null ? tableNames.size() : 1;
+
+            for (int tables = 0; tables < tablesListed; tables++) {
+                EsedbFile.TableInfo tableInfo = catalog != null ? catalog.get(tables) : null;
+                if (tableInfo != null) {
+                    printTableInfo(tableInfo.getName(), tableInfo.getNumberOfColumns(), tableInfo.getNumberOfRecords());
+                    if (cacheEntry != null) cacheEntry.addTable(tableInfo.getName(), tableInfo.getNumberOfColumns(), tableInfo.getNumberOfRecords());
+                }
+                String listedName = tableInfo != null ? tableInfo.getName() : tableNames != null ? tableNames.get(tables) : null;
+                if (listedName != null && !matchesTable(listedName, table)) {
+                    continue;
+                }
+                try (EsedbTable esedbTable = namedTable != null ? namedTable : file.table(tables)) {
 
-            result = EsedbLibrary.INSTANCE.libesedb_table_get_number_of_columns(tablePointerReference.getValue(), numberOfColumns, columnFlags, errorPointer);
-            if (result < 0) printError("Table Get Number of Columns", result, errorPointer);
-            if (info) System.out.println("Number of columns: " + numberOfColumns.getValue());
+                    String tableNameString = esedbTable.getName();
+                    long numRecords = esedbTable.getNumberOfRecords();
+                    if (tableInfo == null && cacheEntry != null) {
+                        cacheEntry.addTable(tableNameString, esedbTable.getNumberOfColumns(), numRecords);
+                    }
 
-            result = EsedbLibrary.INSTANCE.libesedb_table_get_number_of_records(tablePointerReference.getValue(), numberOfRecords, errorPointer);
-            if (result < 0) printError("Table Get Number of Records", result, errorPointer);
-            numRecords = numberOfRecords.getValue();
-            if (info) System.out.println("Number of records (rows): " + numRecords);
+                    printTableDataHeader();
 
-            if (Strings.isNullOrEmpty(table)) {
-                table = "Container_";
-            }
+                    Pointer tablePointer = esedbTable.getPointer();
 
-            if (tableNameString.contains(table)) {
-
-                System.out.println();
-                System.out.println("-----------------------------");
-                System.out.println("-------- TABLE DATA ---------");
-                System.out.println("-----------------------------");
-                System.out.println();
-
-
-                for (int i = 0; i < numRecords; i++) {
-
-                    /*
-                     * Variables used by record functions
-                     */
-                    PointerByReference recordPointerReference = new PointerByReference();
-                    IntByReference recordNumberOfValues = new IntByReference();
-
-                    /*
-                     * Variables used by value functions
-                     */
-                    IntByReference recordValueDataSize = new IntByReference();
-                    IntByReference recordValueData32 = new IntByReference();
-                    IntByReference valueDataFlags = new IntByReference();
-                    LongByReference recordValueData = new LongByReference();
-//                    ShortByReference recordValueDataShort = new ShortByReference();
-//                    ByteByReference recordValueDataByte = new ByteByReference();
-//                    IntByReference recordValueDataInt = new IntByReference();
-                    Memory recordValueDataUrl = new Memory(3072);
-                    Memory recordValueDataFilename = new Memory(1024);
-
-                    /* Valor dos campos da tabela */
-                    long entryId = 0;
-                    long fileSize = 0;
-                    long accessCount = 0;
-                    String modifiedTime = "";
-                    String accessedTime = "";
-                    String creationTime = "";
-                    String url = "";
-                    String file = "";
-
-//                    System.out.println("Entrou tabela com valores. " + (i + 1) + " de " + numRecords);
-
-                    result = EsedbLibrary.INSTANCE.libesedb_table_get_record(tablePointerReference.getValue(), i, recordPointerReference, errorPointer);
-                    if (result < 0) printError("Table Get Record", result, errorPointer);
-                    contagemAbertura++;
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_number_of_values(recordPointerReference.getValue(), recordNumberOfValues, errorPointer);
-                    if (result < 0) printError("Record Get Number of Values", result, errorPointer);
-//                    System.out.println("Record number of Values: " + recordNumberOfValues.getValue());
-//                    System.out.println();
-
-//                    for (int recordValueEntry : recordColumnsValues) {
-
-                    /*
-                     * The column types
-                     *
-                     *   enum LIBESEDB_COLUMN_TYPES
-                     *   {
-                     *       LIBESEDB_COLUMN_TYPE_NULL			= 0,
-                     *       LIBESEDB_COLUMN_TYPE_BOOLEAN			= 1,
-                     *       LIBESEDB_COLUMN_TYPE_INTEGER_8BIT_UNSIGNED	= 2,
-                     *       LIBESEDB_COLUMN_TYPE_INTEGER_16BIT_SIGNED	= 3,
-                     *       LIBESEDB_COLUMN_TYPE_INTEGER_32BIT_SIGNED	= 4,
-                     *       LIBESEDB_COLUMN_TYPE_CURRENCY			= 5,
-                     *       LIBESEDB_COLUMN_TYPE_FLOAT_32BIT		= 6,
-                     *       LIBESEDB_COLUMN_TYPE_DOUBLE_64BIT		= 7,
-                     *       LIBESEDB_COLUMN_TYPE_DATE_TIME			= 8,
-                     *       LIBESEDB_COLUMN_TYPE_BINARY_DATA		= 9,
-                     *       LIBESEDB_COLUMN_TYPE_TEXT			= 10,
-                     *       LIBESEDB_COLUMN_TYPE_LARGE_BINARY_DATA		= 11,
-                     *       === Url, Filename ===
-                     *       LIBESEDB_COLUMN_TYPE_LARGE_TEXT			= 12,
-                     *       LIBESEDB_COLUMN_TYPE_SUPER_LARGE_VALUE		= 13,
-                     *       === AccessCount ===
-                     *       LIBESEDB_COLUMN_TYPE_INTEGER_32BIT_UNSIGNED	= 14,
-                     *       === EntryId, FileSize, CreationTime, ModifiedTime, AccessedTime ===
-                     *       LIBESEDB_COLUMN_TYPE_INTEGER_64BIT_SIGNED	= 15,
-                     *       LIBESEDB_COLUMN_TYPE_GUID			= 16,
-                     *       LIBESEDB_COLUMN_TYPE_INTEGER_16BIT_UNSIGNED	= 17
-                     *   };
-                     */
-
-                    /*
-                     * Get values of interest
-                     */
-
-                    /* Integer 64bit signed */
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_64bit(recordPointerReference.getValue(), 0, recordValueData, errorPointer);
-                    if (result < 0) printError("Record Get EntryId Data", result, errorPointer);
-                    entryId = recordValueData.getValue();
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_64bit(recordPointerReference.getValue(), 5, recordValueData, errorPointer);
-                    if (result < 0) printError("Record Get FileSize Data", result, errorPointer);
-                    fileSize = recordValueData.getValue();
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_32bit(recordPointerReference.getValue(), 8, recordValueData32, errorPointer);
-                    if (result < 0) printError("Record Get AccessCount Data", result, errorPointer);
-                    accessCount = recordValueData.getValue();
-
-                    /* LDAP Timestamp
-                     * The 18-digit Active Directory timestamps, also named 'Windows NT time format' and 'Win32 FILETIME or SYSTEMTIME'.
-                     * These are used in Microsoft Active Directory for pwdLastSet, accountExpires, LastLogon, LastLogonTimestamp and LastPwdSet.
-                     * The timestamp is the number of 100-nanoseconds intervals (1 nanosecond = one billionth of a second) since Jan 1, 1601 UTC.
-                     */
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_64bit(recordPointerReference.getValue(), 10, recordValueData, errorPointer);
-                    if (result < 0) printError("Record Get CreationTime Data", result, errorPointer);
-                    creationTime = convertLDAPTimeToString(recordValueData.getValue());
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_64bit(recordPointerReference.getValue(), 12, recordValueData, errorPointer);
-                    if (result < 0) printError("Record Get ModifiedTime Data", result, errorPointer);
-                    modifiedTime = convertLDAPTimeToString(recordValueData.getValue());
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_64bit(recordPointerReference.getValue(), 13, recordValueData, errorPointer);
-                    if (result < 0) printError("Record Get AccessedTime Data", result, errorPointer);
-                    accessedTime = convertLDAPTimeToString(recordValueData.getValue());
-
-                    /* Large Text */
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_column_type(recordPointerReference.getValue(), 17, columnType, errorPointer);
-                    if (result < 0) printError("Record Get Column Type", result, errorPointer);
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_data_flags(recordPointerReference.getValue(), 17, valueDataFlags, errorPointer);
-                    if (result < 0) printError("Record Get Value Data Flags", result, errorPointer);
-
-                    if (valueDataFlags.getValue() == 1) {
-                        result = EsedbLibrary.INSTANCE.libesedb_record_get_value_utf8_string_size(recordPointerReference.getValue(), 17, recordValueDataSize, errorPointer);
-                        if (result < 0) printError("Record Get URL UTF8 String Size", result, errorPointer);
-
-                        if ((recordValueDataSize.getValue() > 0) && (result == 1)) {
-                            result = EsedbLibrary.INSTANCE.libesedb_record_get_value_utf8_string(recordPointerReference.getValue(), 17, recordValueDataUrl, recordValueDataSize.getValue(), errorPointer);
-                            if (result < 0) printError("Record Get URL UTF8 String", result, errorPointer);
-                            url = recordValueDataUrl.getString(0);
+                    EsedbProjection projection = null;
+                    EsedbIncrementalState.Tracker tracker = null;
+                    EsedbFilter.Bound bound = null;
+                    EsedbAggregator.Bound aggregate = null;
+                    try {
+                        EsedbSchema schema = esedbTable.getSchema();
+                        projection = project(schema, columns, tableNameString);
+                        if (timeline != null && (projection = timelineProjection(timeline, projection, tableNameString)) == null) {
+                            numRecords = 0;
                         }
+                        if (state != null) tracker = track(state, tableNameString, schema);
+                        if (filter != null) bound = bind(filter, schema, tableNameString);
+                        if (bound != null && bound.matchesNothing()) numRecords = 0;
+                        if (aggregator != null) aggregate = aggregate(aggregator, schema, tableNameString);
+                    } catch (EsedbException | IllegalArgumentException ex) {
+                        System.out.println("Erro: " + ex.getMessage());
+                        System.out.println("=============================");
+                        numRecords = 0;
                     }
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_get_value_utf8_string_size(recordPointerReference.getValue(), 18, recordValueDataSize, errorPointer);
-                    if (result < 0) printError("Record Get FileName UTF8 String Size", result, errorPointer);
-                    if ((recordValueDataSize.getValue() > 0) && (result == 1)) {
-                        result = EsedbLibrary.INSTANCE.libesedb_record_get_value_utf8_string(recordPointerReference.getValue(), 18, recordValueDataFilename, recordValueDataSize.getValue(), errorPointer);
-                        if (result < 0) printError("Record Get FileName UTF8 String", result, errorPointer);
-                        file = recordValueDataFilename.getString(0);
+                    final EsedbProjection tableProjection = projection;
+                    final List<String> tableColumns = columns;
+                    final EsedbIncrementalState.Tracker tableTracker = tracker;
+                    final EsedbFilter.Bound tableFilter = bound;
+                    final EsedbValueExport tableExport = export;
+                    final EsedbAggregator.Bound tableAggregate = aggregate;
+                    final EsedbTimeline tableTimeline = timeline;
+                    final EsedbDictionary tableDictionary = dictionary;
+                    /* The filter reads its columns cheapest first, the projection is only read for the records selected */
+                    Function<EsedbRecordReader, String> formatter = reader -> {
+                        if (tableTracker != null && !tableTracker.accept(reader)) return "";
+                        if (tableFilter != null && !tableFilter.test(reader)) return "";
+                        registrosSelecionados.increment();
+                        if (tableAggregate != null) {
+                            tableAggregate.accept(reader);
+                            return "";
+                        }
+                        Object[] values = readValues(reader, tableProjection, tableDictionary);
+                        if (tableExport != null) tableExport.export(reader, tableNameString, tableProjection, values);
+                        if (tableTimeline != null) {
+                            addToTimeline(tableTimeline, tableProjection, tableNameString, values);
+                            return "";
+                        }
+                        return formatValues(sink, tableColumns, tableProjection, values);
+                    };
+                    if (tableProjection != null && aggregate == null && timeline == null) sink.writeHeader(tableProjection);
+
+                    long first = 0;
+                    if (tracker != null && newOnly) {
+                        first = tracker.findFirstNew(numRecords, record -> {
+                            if (!recordReader.open(tablePointer, (int) record)) return null;
+                            try {
+                                return recordReader.getValue(tableTracker.getEntryIdValueEntry(), tableTracker.getEntryIdColumnType());
+                            } finally {
+                                recordReader.close();
+                            }
+                        });
                     }
 
-                    /* Imprime valores dos campos da tabela */
-                    System.out.format("%4s %10s %10s %20s %30s %30s %30s %40s",
-                            "EntryId", "FileSize", "AccessCount", "CreationTime", "ModifiedTime", "AccessedTime", "Filename", "Url");
-                    System.out.println();
-                    System.out.format("%4d %10d %10d %30s %30s %30s %35s %50s",
-                                        entryId, fileSize, accessCount, creationTime, modifiedTime, accessedTime, file, url);
-                    System.out.println();
-
-                    result = EsedbLibrary.INSTANCE.libesedb_record_free(recordPointerReference, errorPointer);
-                    if (result < 0) printError("Record Free", result, errorPointer);
-                    contagemFechamentos++;
+                    if (scanner != null) {
+                        /* Rows arrive from several threads, the cache is only filled by the sequential scan */
+                        cacheEntry = null;
+                        registrosLidos += scanner.scan(esedbTable, first, numRecords, cmdLine.hasOption("O"), formatter, sink::write);
+                    } else {
+                        EsedbSnapshot.Builder snapshot = cacheEntry != null && tableProjection != null
+                                ? EsedbSnapshot.builder(tableProjection, (int) Math.min(numRecords, Integer.MAX_VALUE)) : null;
+                        for (int i = (int) first; i < numRecords; i++) {
+
+                            if (!recordReader.open(tablePointer, i)) continue;
+                            registrosLidos++;
+                            try {
+                                if (tracker != null && !tracker.accept(recordReader)) {
+                                    continue;
+                                }
+                                if (bound != null && !bound.test(recordReader)) {
+                                    continue;
+                                }
+                                registrosSelecionados.increment();
+                                if (aggregate != null) {
+                                    aggregate.accept(recordReader);
+                                    continue;
+                                }
+
+                                Object[] values = readValues(recordReader, tableProjection, dictionary);
+                                if (export != null) export.export(recordReader, tableNameString, tableProjection, values);
+                                if (snapshot != null) snapshot.add(values);
+                                if (timeline != null) {
+                                    addToTimeline(timeline, tableProjection, tableNameString, values);
+                                    continue;
+                                }
+                                sink.write(formatValues(sink, tableColumns, tableProjection, values));
+                            } finally {
+                                recordReader.close();
+                            }
+                        }
+                        if (snapshot != null) cacheEntry.putSnapshot(tableNameString, snapshot.build());
+                    }
+                    if (tracker != null) tracker.commit(first == 0);
+                } catch (EsedbException ex) {
+                    System.out.println("Erro: " + ex.getMessage());
+                    System.out.println("=============================");
+                    /* The entry would miss this table */
+                    cacheEntry = null;
                 }
             }
-
-            result = EsedbLibrary.INSTANCE.libesedb_table_free(tablePointerReference, errorPointer);
-            if (result < 0) printError("Table Free", result, errorPointer);
-            contagemFechamentos++;
-
+        } catch (EsedbException | UncheckedIOException ex) {
+            closeSink(sink);
+            System.err.println("Erro: " + ex.getMessage());
+            System.exit(1);
         }
 
+        if (aggregator != null) printGroups(aggregator, sink);
+        if (timeline != null) printTimeline(timeline);
+        closeSink(sink);
+        if (dictionary != null) writeDictionary(dictionary, cmdLine.getOptionValue("dictionary"), format, timeFormat);
+        long duracao = System.nanoTime() - inicio;
 
+        System.out.println();
+        System.out.println("=============================");
+        System.out.println("Fechou arquivo " + filename);
+        System.out.println("=============================");
 
         System.out.println();
         System.out.println("=============================");
+        System.out.println("Handles abertos: " + EsedbHandles.getOpenHandles());
+        EsedbHandles.freeLeaked();
+        System.out.println("Handles não fechados: " + EsedbHandles.getLeakedHandles());
+        System.out.println("Registros lidos: " + registrosLidos);
+        if (filter != null) System.out.println("Registros selecionados pelo filtro: " + registrosSelecionados.sum());
+        System.out.println("Registros por segundo: " + (duracao > 0 ? (registrosLidos * 1000000000L) / duracao : 0));
+        System.out.println("=============================");
+        if (EsedbMetrics.ENABLED) {
+            EsedbMetrics.get().print(System.out);
+            System.out.println("=============================");
+        }
 
-        System.out.println("Fechará arquivo" + filename);
-        result = EsedbLibrary.INSTANCE.libesedb_file_close(filePointerReference.getValue(), errorPointer);
-        if (result < 0) printError("File Close", result, errorPointer);
-        System.out.println("Fechou arquivo" + filename);
+        if (cache != null && cacheEntry != null) putCache(cache, cacheKey, cacheEntry);
+        if (state != null) saveState(state);
+        System.out.flush();
+        if (Boolean.getBoolean("esedb.leaks")) {
+            try {
+                EsedbHandles.checkNoLeaks();
+            } catch (IllegalStateException ex) {
+                System.err.println("Erro: " + ex.getMessage());
+                System.exit(1);
+            }
+        }
+    }
 
-        System.out.println("Liberará arquivo" + filename);
-        result = EsedbLibrary.INSTANCE.libesedb_file_free(filePointerReference, errorPointer);
-        if (result < 0) printError("File Free", result, errorPointer);
-        contagemFechamentos++;
-        System.out.println("Liberou arquivo" + filename);
+    /* Saved once the records are written, an interrupted run lists the same changes again */
+    static void saveState(EsedbIncrementalState state) {
+        try {
+            state.save();
+        } catch (IOException ex) {
+            System.err.println("Erro: estado incremental não gravado: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
 
-        System.out.println("=============================");
+    /*
+     * Batch mode, every file listed into the sink with its SourceFile. The table output uses the --columns layout.
+     * Returns the number of files that failed.
+     */
+    static int runBatch(CommandLine cmdLine, String table, List<String> columns, EsedbFilter filter, EsedbTimeline timeline,
+                        EsedbDictionary dictionary, EsedbSink sink) {
+        int jobs = parseJobs(cmdLine);
 
-        System.out.println();
-        System.out.println("=============================");
-        System.out.println("Aberturas: " + (contagemAbertura));
-        System.out.println("Fechamentos: " + contagemFechamentos);
+        List<Path> files;
+        try {
+            files = EsedbBatch.listFiles(Paths.get(cmdLine.getOptionValue("B")));
+        } catch (IOException ex) {
+            System.err.println("Erro: " + ex);
+            return 1;
+        }
+        boolean javaReader = "java".equals(cmdLine.getOptionValue("r", "libesedb"));
+        System.out.println("Lote: " + files.size() + " arquivos, " + jobs + " simultâneos, leitor " + (javaReader ? "java" : "libesedb"));
         System.out.println("=============================");
+
+        EsedbBatch batch = new EsedbBatch(sink, table, columns != null ? columns : DEFAULT_COLUMNS, filter, timeline,
+                dictionary, javaReader, jobs);
+        int failures;
+        try {
+            failures = batch.run(files);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failures = 1;
+        }
+        if (timeline != null) printTimeline(timeline);
+        closeSink(sink);
+        System.out.flush();
+        return failures;
+    }
+
+    /* --jobs, by default the number of cores */
+    static int parseJobs(CommandLine cmdLine) {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        if (cmdLine.hasOption("j")) {
+            try {
+                jobs = Integer.parseInt(cmdLine.getOptionValue("j"));
+            } catch (NumberFormatException ex) {
+                jobs = 0;
+            }
+            if (jobs < 1) {
+                System.err.println("Erro: número de arquivos simultâneos inválido: " + cmdLine.getOptionValue("j"));
+                System.exit(1);
+            }
+        }
+        return jobs;
+    }
+
+    static int parsePort(CommandLine cmdLine, String option) {
+        int port;
+        try {
+            port = Integer.parseInt(cmdLine.getOptionValue(option));
+        } catch (NumberFormatException ex) {
+            port = -1;
+        }
+        if (port < 0 || port > 65535) {
+            System.err.println("Erro: porta inválida: " + cmdLine.getOptionValue(option));
+            System.exit(1);
+        }
+        return port;
+    }
+
+    static void closeSink(EsedbSink sink) {
+        try {
+            sink.close();
+        } catch (IOException | UncheckedIOException ex) {
+            System.err.println("Erro: " + ex);
+            System.exit(1);
+        }
+    }
+
+    static void putCache(EsedbCache cache, EsedbCache.Key key, EsedbCache.Entry entry) {
+        try {
+            cache.put(key, entry);
+        } catch (IOException ex) {
+            System.out.println("Cache não gravado: " + ex.getMessage());
+        }
+        System.out.flush();
+    }
+
+    /*
+     * Where the records go. The table listing shares standard output with the messages, through a 1 MiB buffer
+     * flushed at exit. Machine formats get their own stream, and when that is standard output the messages
+     * are moved to standard error so the data stays parseable.
+     */
+    static EsedbSink openSink(String outputFile, EsedbOutputFormat format, EsedbCodec.TimeFormat timeFormat, boolean gzip) {
+        if (outputFile == null && !format.isMachineReadable() && !gzip) {
+            PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), EsedbSink.BUFFER_SIZE), false);
+            System.setOut(out);
+            Runtime.getRuntime().addShutdownHook(new Thread(out::flush));
+            return EsedbSink.of(out, format, timeFormat);
+        }
+        if (outputFile == null) {
+            System.setOut(System.err);
+        }
+        try {
+            return EsedbSink.open(outputFile, format, timeFormat, gzip);
+        } catch (IOException ex) {
+            System.err.println("Erro: não foi possível abrir " + outputFile + ": " + ex.getMessage());
+            System.exit(1);
+            return null;
+        }
     }
 }
@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Columns to read from the records of a table, resolved by name against an EsedbSchema.
+ * Only the projected values are fetched, so a narrow projection makes fewer native calls per record.
+ * Columns the table does not have keep their name with value entry -1 and always read as NULL.
+ */
+public final class EsedbProjection {
+
+    private final EsedbSchema schema;
+    private final String[] names;
+    private final int[] valueEntries;
+    private final int[] types;
+
+    EsedbProjection(EsedbSchema schema, String[] names, int[] valueEntries) {
+        this.schema = schema;
+        this.names = names;
+        this.valueEntries = valueEntries;
+        this.types = new int[valueEntries.length];
+        for (int i = 0; i < valueEntries.length; i++) {
+            types[i] = valueEntries[i] >= 0 ? schema.getColumnType(valueEntries[i]) : EseColumn.COLUMN_TYPE_NULL;
+        }
+    }
+
+    public EsedbSchema getSchema() {
+        return schema;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /* Name as spelled in the table, the requested name if the column is missing */
+    public String getColumnName(int index) {
+        return valueEntries[index] >= 0 ? schema.getColumnName(valueEntries[index]) : names[index];
+    }
+
+    /* Value entry of the record, -1 if the column is missing */
+    public int getValueEntry(int index) {
+        return valueEntries[index];
+    }
+
+    public int getColumnType(int index) {
+        return types[index];
+    }
+
+    /* Index of a column in the projection, -1 if it is not projected */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public List<String> getMissingColumns() {
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (valueEntries[i] < 0) {
+                missing.add(names[i]);
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,81 @@
+import com.sun.jna.ptr.PointerByReference;
+
+/*
+ * One record of an EsedbTable, see EsedbTable.record. Values are typed as in EsedbRecordReader.getValue.
+ * Holds a libesedb_record handle until closed, to read many records use EsedbTable.records() or an
+ * EsedbRecordReader, which reuse their buffers. Errors are thrown as EsedbException.
+ */
+public class EsedbRecord implements AutoCloseable {
+
+    private final EsedbTable table;
+    private final int entry;
+    private final PointerByReference recordPointerReference = new PointerByReference();
+    private final EsedbHandles.Handle handle;
+    private final EsedbRecordReader reader;
+
+    EsedbRecord(EsedbTable table, int entry) {
+        this.table = table;
+        this.entry = entry;
+        EsedbLibrary library = table.getFile().getLibrary();
+
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "Table Get Record",
+                library.libesedb_table_get_record(table.getPointer(), entry, recordPointerReference, errorPointer), errorPointer);
+        this.handle = EsedbHandles.register(this, EsedbHandles.Kind.RECORD, table.getHandle(), free(library, recordPointerReference));
+        this.reader = new EsedbRecordReader(library, true);
+        reader.attach(recordPointerReference.getValue(), entry);
+    }
+
+    /* Frees the record, must not refer to the EsedbRecord */
+    private static Runnable free(EsedbLibrary library, PointerByReference recordPointerReference) {
+        return () -> {
+            PointerByReference errorPointer = EsedbHandles.errorPointer();
+            EsedbException.check(library, "Record Free", library.libesedb_record_free(recordPointerReference, errorPointer), errorPointer);
+        };
+    }
+
+    public EsedbTable getTable() {
+        return table;
+    }
+
+    public int getEntry() {
+        return entry;
+    }
+
+    public int getNumberOfValues() {
+        return checkOpen().getNumberOfValues();
+    }
+
+    public Object getValue(int valueEntry) {
+        return checkOpen().getValue(valueEntry, table.getSchema().getColumnType(valueEntry));
+    }
+
+    public Object getValue(String columnName) {
+        int valueEntry = table.getSchema().indexOf(columnName);
+        if (valueEntry < 0) {
+            throw new IllegalArgumentException("Column not found: " + columnName);
+        }
+        return getValue(valueEntry);
+    }
+
+    /* Values of the projected columns, detached from the record */
+    public EsedbRow toRow(EsedbProjection projection) {
+        return EsedbRow.read(checkOpen(), entry, projection);
+    }
+
+    private EsedbRecordReader checkOpen() {
+        if (!reader.isOpen() || handle.isClosed()) {
+            throw new IllegalStateException("Record is closed: " + entry);
+        }
+        return reader;
+    }
+
+    @Override
+    public void close() {
+        if (!reader.isOpen()) {
+            return;
+        }
+        reader.close();
+        handle.close();
+    }
+}
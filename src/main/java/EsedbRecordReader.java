@@ -0,0 +1,530 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/*
+ * Reusable context for reading libesedb records.
+ * Owns the out-params and the native value buffer of the record functions, so reading a record
+ * allocates nothing on the Java heap apart from the returned values (with the direct and ffm backends;
+ * the proxy backend boxes the arguments of every call).
+ * Values are fetched with one native call where possible: fixed size values are copied raw into the buffer
+ * and decoded in Java (EsedbValueDecoder), strings are copied straight into the buffer. Only when that call
+ * fails (NULL value, buffer too small) is the size asked for, and the buffer grown to it.
+ * Errors are printed with EsedbParser.printError, or thrown as EsedbException when the reader is strict.
+ * Long values and multi-values are not decoded by getValue, writeValue streams them chunk by chunk instead.
+ * internValue resolves a text value to its code in an EsedbDictionary without decoding it.
+ * Text is read as UTF-8 by default. getValueUtf16String and getValueUtf16 read it as UTF-16 instead, the form ESE
+ * stores most text columns in and Java strings are made of: libesedb copies it into the buffer and the chars go to the
+ * String as they are, with no transcoding to UTF-8 and back. With esedb.utf16 set, getValue reads text that way.
+ * Records opened are counted in EsedbHandles, a record left open shows as a leak.
+ * Not thread-safe, use one reader per thread.
+ */
+public class EsedbRecordReader {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /* Written to the last byte of a fixed size value before it is copied, see getValueData */
+    private static final byte SENTINEL = 0x5a;
+
+    /* Text of getValue read as UTF-16 */
+    static final boolean UTF16 = Boolean.getBoolean("esedb.utf16");
+
+    private final EsedbLibrary library;
+    private final boolean strict;
+
+    private final PointerByReference recordPointerReference = new PointerByReference();
+    private final PointerByReference errorPointer = new PointerByReference();
+    private final PointerByReference valuePointerReference = new PointerByReference();
+
+    /* Handle of the current record, updated in place instead of PointerByReference.getValue() */
+    private final Pointer record = new Pointer(0);
+
+    private final IntByReference numberOfValues = new IntByReference();
+    private final IntByReference numberOfParts = new IntByReference();
+    private final IntByReference columnType = new IntByReference();
+    private final IntByReference valueDataFlags = new IntByReference();
+    private final LongByReference rawValueDataSize = new LongByReference();
+    private final IntByReference value32bit = new IntByReference();
+    private final LongByReference value64bit = new LongByReference();
+
+    private Memory buffer = new Memory(INITIAL_BUFFER_SIZE);
+    private ByteBuffer bufferView = buffer.getByteBuffer(0, buffer.size()).order(ByteOrder.LITTLE_ENDIAN);
+    /* UTF-16 view of the value buffer, libesedb writes the units in host byte order */
+    private CharBuffer charView = charView(buffer);
+    private char[] chars = new char[INITIAL_BUFFER_SIZE / 2];
+
+    /* Whether the last value read was NULL, as in java.sql.ResultSet.wasNull */
+    private boolean lastNull;
+
+    /* The current record belongs to an EsedbRecord, close only forgets it */
+    private boolean attached;
+
+    private int recordEntry = -1;
+
+    public EsedbRecordReader(EsedbLibrary library) {
+        this(library, false);
+    }
+
+    public EsedbRecordReader(EsedbLibrary library, boolean strict) {
+        this.library = library;
+        this.strict = strict;
+    }
+
+    /*
+     * Retrieves a record of the table, returns false on error
+     */
+    public boolean open(Pointer table, int recordEntry) {
+        int result = library.libesedb_table_get_record(table, recordEntry, recordPointerReference, errorPointer);
+        if (result < 0) {
+            error("Table Get Record", result);
+            return false;
+        }
+        Pointer reference = recordPointerReference.getPointer();
+        Pointer.nativeValue(record, Native.POINTER_SIZE == 8 ? reference.getLong(0) : reference.getInt(0) & 0xffffffffL);
+        this.recordEntry = recordEntry;
+        EsedbHandles.opened(EsedbHandles.Kind.RECORD);
+        if (EsedbMetrics.ENABLED) EsedbMetrics.recordRead();
+        return true;
+    }
+
+    /*
+     * Reads a record opened and freed by its owner
+     */
+    void attach(Pointer handle, int recordEntry) {
+        Pointer.nativeValue(record, Pointer.nativeValue(handle));
+        this.recordEntry = recordEntry;
+        attached = true;
+    }
+
+    public boolean isOpen() {
+        return Pointer.nativeValue(record) != 0;
+    }
+
+    public Pointer getRecord() {
+        return record;
+    }
+
+    /* Entry of the current record in its table */
+    public int getRecordEntry() {
+        return recordEntry;
+    }
+
+    public int getNumberOfValues() {
+        int result = library.libesedb_record_get_number_of_values(record, numberOfValues, errorPointer);
+        if (result < 0) error("Record Get Number of Values", result);
+        return result == 1 ? numberOfValues.getValue() : 0;
+    }
+
+    public int getColumnType(int valueEntry) {
+        int result = library.libesedb_record_get_column_type(record, valueEntry, columnType, errorPointer);
+        if (result < 0) error("Record Get Column Type", result);
+        return result == 1 ? columnType.getValue() : 0;
+    }
+
+    public int getValueDataFlags(int valueEntry) {
+        int result = library.libesedb_record_get_value_data_flags(record, valueEntry, valueDataFlags, errorPointer);
+        if (result < 0) error("Record Get Value Data Flags", result);
+        return result == 1 ? valueDataFlags.getValue() & 0xff : 0;
+    }
+
+    /* Returns 0 if the value is NULL */
+    public int getValue32bit(int valueEntry) {
+        int result = library.libesedb_record_get_value_32bit(record, valueEntry, value32bit, errorPointer);
+        if (result < 0) error("Record Get 32bit Value", result);
+        lastNull = result != 1;
+        return lastNull ? 0 : value32bit.getValue();
+    }
+
+    /* Returns 0 if the value is NULL */
+    public long getValue64bit(int valueEntry) {
+        int result = library.libesedb_record_get_value_64bit(record, valueEntry, value64bit, errorPointer);
+        if (result < 0) error("Record Get 64bit Value", result);
+        lastNull = result != 1;
+        return lastNull ? 0 : value64bit.getValue();
+    }
+
+    /*
+     * Returns the string value, read as UTF-16 with esedb.utf16 and as UTF-8 otherwise, or null if it is NULL or empty
+     */
+    public String getValueString(int valueEntry) {
+        return UTF16 ? getValueUtf16String(valueEntry) : getValueUtf8String(valueEntry);
+    }
+
+    /*
+     * Returns the UTF-8 string value or null if the value is NULL or empty
+     */
+    public String getValueUtf8String(int valueEntry) {
+        if (!readUtf8String(valueEntry)) {
+            return null;
+        }
+        if (EsedbMetrics.ENABLED) EsedbMetrics.bytesDecoded(buffer.indexOf(0, (byte) 0));
+        return buffer.getString(0, "UTF-8");
+    }
+
+    /*
+     * Returns the string value read as UTF-16, or null if the value is NULL or empty
+     */
+    public String getValueUtf16String(int valueEntry) {
+        int length = readUtf16String(valueEntry);
+        if (length < 0) {
+            return null;
+        }
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        charView.get(chars, 0, length);
+        return new String(chars, 0, length);
+    }
+
+    /*
+     * The string value read as UTF-16, as a view of the value buffer valid until the next value is read, or null if the
+     * value is NULL or empty. Appending it to a StringBuilder copies the chars with no String in between.
+     */
+    public CharSequence getValueUtf16(int valueEntry) {
+        int length = readUtf16String(valueEntry);
+        if (length < 0) {
+            return null;
+        }
+        charView.limit(length);
+        return charView;
+    }
+
+    /*
+     * Code in the dictionary of the text value, -1 if it is NULL, empty, a long value or a multi-value.
+     * The UTF-8 bytes are interned straight from the value buffer, no String is made for a value seen before.
+     */
+    public int internValue(int valueEntry, int columnType, EsedbDictionary dictionary) {
+        if (columnType != EseColumn.COLUMN_TYPE_TEXT && columnType != EseColumn.COLUMN_TYPE_LARGE_TEXT) {
+            Object value = getValue(valueEntry, columnType);
+            return value == null ? -1 : dictionary.intern(EsedbCodec.formatValue(value, null, columnType, EsedbCodec.TimeFormat.TEXT));
+        }
+        if (isLongOrMultiValue(valueEntry)) {
+            return -1;
+        }
+        if (!readUtf8String(valueEntry)) {
+            return -1;
+        }
+        int length = (int) buffer.indexOf(0, (byte) 0);
+        if (EsedbMetrics.ENABLED) EsedbMetrics.bytesDecoded(length);
+        return dictionary.intern(bufferView, 0, length);
+    }
+
+    /*
+     * Copies the UTF-8 string value, NUL-terminated, into the buffer. Returns false if it is NULL or empty.
+     */
+    private boolean readUtf8String(int valueEntry) {
+        /* Fast path, the string fits the buffer */
+        int result = library.libesedb_record_get_value_utf8_string(record, valueEntry, buffer, (int) buffer.size(), errorPointer);
+        if (result >= 0) {
+            lastNull = result != 1 || buffer.getByte(0) == 0;
+            return !lastNull;
+        }
+        library.libesedb_error_free(errorPointer);
+
+        rawValueDataSize.setValue(0);
+        result = library.libesedb_record_get_value_utf8_string_size(record, valueEntry, rawValueDataSize, errorPointer);
+        if (result < 0) error("Record Get UTF8 String Size", result);
+
+        long size = rawValueDataSize.getValue();
+        lastNull = result != 1 || size <= 0;
+        if (lastNull) {
+            return false;
+        }
+        ensureCapacity((int) size);
+        result = library.libesedb_record_get_value_utf8_string(record, valueEntry, buffer, (int) size, errorPointer);
+        if (result < 0) error("Record Get UTF8 String", result);
+
+        lastNull = result != 1;
+        return !lastNull;
+    }
+
+    /*
+     * Copies the UTF-16 string value, NUL-terminated, into the buffer. Returns its length in chars, -1 if it is NULL or
+     * empty.
+     */
+    private int readUtf16String(int valueEntry) {
+        /* Fast path, the string fits the buffer */
+        int result = library.libesedb_record_get_value_utf16_string(record, valueEntry, buffer, (int) (buffer.size() / 2), errorPointer);
+        if (result < 0) {
+            library.libesedb_error_free(errorPointer);
+
+            rawValueDataSize.setValue(0);
+            result = library.libesedb_record_get_value_utf16_string_size(record, valueEntry, rawValueDataSize, errorPointer);
+            if (result < 0) error("Record Get UTF16 String Size", result);
+
+            long size = rawValueDataSize.getValue();
+            lastNull = result != 1 || size <= 0;
+            if (lastNull) {
+                return -1;
+            }
+            ensureCapacity((int) (size * 2));
+            result = library.libesedb_record_get_value_utf16_string(record, valueEntry, buffer, (int) size, errorPointer);
+            if (result < 0) error("Record Get UTF16 String", result);
+        }
+        lastNull = result != 1;
+        if (lastNull) {
+            return -1;
+        }
+        charView.clear();
+        int length = 0;
+        while (length < charView.capacity() && charView.get(length) != 0) {
+            length++;
+        }
+        lastNull = length == 0;
+        if (EsedbMetrics.ENABLED) EsedbMetrics.bytesDecoded(length * 2L);
+        return lastNull ? -1 : length;
+    }
+
+    /*
+     * Copies the raw value data of an entry into the value buffer (getValueBuffer), returns its size or -1 if NULL.
+     * With the size of a fixed size column it is a single native call, and a value of another size is an error (read
+     * as NULL) rather than bytes of the previous value decoded with it.
+     *
+     * libesedb_record_get_value_data copies the value as stored and returns 1 whenever it fits the buffer, also when
+     * it is shorter, as a value of a column whose type changed can be. So the last byte of the value is set to
+     * SENTINEL first: overwritten, the value filled the buffer. Only when it is still there, a shorter value or one
+     * that ends with that byte, is the size asked for.
+     */
+    public int getValueData(int valueEntry, int fixedSize) {
+        if (fixedSize > 0) {
+            ensureCapacity(fixedSize);
+            buffer.setByte(fixedSize - 1, SENTINEL);
+            int result = library.libesedb_record_get_value_data(record, valueEntry, buffer, fixedSize, errorPointer);
+            if (result == 1 && buffer.getByte(fixedSize - 1) != SENTINEL) {
+                lastNull = false;
+                if (EsedbMetrics.ENABLED) EsedbMetrics.bytesDecoded(fixedSize);
+                return fixedSize;
+            }
+            /* NULL values have no data to copy, the size call below tells them apart from errors */
+            if (result < 0) library.libesedb_error_free(errorPointer);
+        }
+
+        rawValueDataSize.setValue(0);
+        int result = library.libesedb_record_get_value_data_size(record, valueEntry, rawValueDataSize, errorPointer);
+        if (result < 0) error("Record Get Value Data Size", result);
+
+        long size = rawValueDataSize.getValue();
+        lastNull = result != 1 || size <= 0;
+        if (lastNull) {
+            return -1;
+        }
+        if (fixedSize > 0 && size != fixedSize) {
+            sizeError(valueEntry, size, fixedSize);
+            lastNull = true;
+            return -1;
+        }
+        ensureCapacity((int) size);
+        result = library.libesedb_record_get_value_data(record, valueEntry, buffer, (int) size, errorPointer);
+        if (result < 0) error("Record Get Value Data", result);
+
+        lastNull = result != 1;
+        if (EsedbMetrics.ENABLED && !lastNull) EsedbMetrics.bytesDecoded(size);
+        return lastNull ? -1 : (int) size;
+    }
+
+    /* Little-endian view of the value buffer, valid until the next call that may grow it */
+    public ByteBuffer getValueBuffer() {
+        return bufferView;
+    }
+
+    /*
+     * Value of an entry as the Java type of its column type (see EsedbValueDecoder), null if NULL.
+     * Text and binary long values and multi-values are not read and return null.
+     */
+    public Object getValue(int valueEntry, int columnType) {
+        int fixedSize = EseColumn.getFixedSize(columnType);
+        if (fixedSize > 0) {
+            return getValueData(valueEntry, fixedSize) < 0 ? null : EsedbValueDecoder.decodeFixed(columnType, bufferView, 0);
+        }
+        if (columnType == EseColumn.COLUMN_TYPE_TEXT || columnType == EseColumn.COLUMN_TYPE_LARGE_TEXT) {
+            if (isLongOrMultiValue(valueEntry)) {
+                return null;
+            }
+            return getValueString(valueEntry);
+        }
+        if (EsedbValueDecoder.isBinary(columnType)) {
+            if (isLongOrMultiValue(valueEntry)) {
+                return null;
+            }
+            int size = getValueData(valueEntry, 0);
+            return size < 0 ? null : buffer.getByteArray(0, size);
+        }
+        lastNull = true;
+        return null;
+    }
+
+    /*
+     * Streams a long value or the values of a multi-value of the current record to output, in the chunks libesedb
+     * holds them in: the segments of a long value, at most a page each, and the values of a multi-value. Chunks go
+     * from the native value buffer to the channel, so a value is never whole on the Java heap whatever its size.
+     * Long values are the raw data, text in the codepage of its column. Returns the number of values written,
+     * 0 if the entry is neither or NULL.
+     */
+    public int writeValue(int valueEntry, EsedbValueOutput output) throws IOException {
+        int flags = getValueDataFlags(valueEntry);
+        if ((flags & EseRecord.VALUE_FLAG_LONG_VALUE) != 0) {
+            return writeLongValue(valueEntry, output);
+        }
+        if ((flags & EseRecord.VALUE_FLAG_MULTI_VALUE) != 0) {
+            return writeMultiValue(valueEntry, output);
+        }
+        return 0;
+    }
+
+    private int writeLongValue(int valueEntry, EsedbValueOutput output) throws IOException {
+        int result = library.libesedb_record_get_long_value(record, valueEntry, valuePointerReference, errorPointer);
+        if (result < 0) error("Record Get Long Value", result);
+        if (result != 1) {
+            return 0;
+        }
+        Pointer longValue = valuePointerReference.getValue();
+        EsedbHandles.opened(EsedbHandles.Kind.LONG_VALUE);
+        try (WritableByteChannel channel = output.open(0, 1)) {
+            result = library.libesedb_long_value_get_number_of_data_segments(longValue, numberOfParts, errorPointer);
+            if (result < 0) {
+                error("Long Value Get Number of Data Segments", result);
+                return 0;
+            }
+            for (int segment = 0; segment < numberOfParts.getValue(); segment++) {
+                rawValueDataSize.setValue(0);
+                result = library.libesedb_long_value_get_data_segment_size(longValue, segment, rawValueDataSize, errorPointer);
+                if (result < 0) {
+                    error("Long Value Get Data Segment Size", result);
+                    return 0;
+                }
+                int size = (int) rawValueDataSize.getValue();
+                ensureCapacity(size);
+                result = library.libesedb_long_value_get_data_segment(longValue, segment, buffer, size, errorPointer);
+                if (result < 0) {
+                    error("Long Value Get Data Segment", result);
+                    return 0;
+                }
+                writeBuffer(channel, size);
+            }
+        } finally {
+            result = library.libesedb_long_value_free(valuePointerReference, errorPointer);
+            EsedbHandles.freed(EsedbHandles.Kind.LONG_VALUE);
+            if (result < 0) error("Long Value Free", result);
+        }
+        return 1;
+    }
+
+    private int writeMultiValue(int valueEntry, EsedbValueOutput output) throws IOException {
+        int result = library.libesedb_record_get_multi_value(record, valueEntry, valuePointerReference, errorPointer);
+        if (result < 0) error("Record Get Multi Value", result);
+        if (result != 1) {
+            return 0;
+        }
+        Pointer multiValue = valuePointerReference.getValue();
+        EsedbHandles.opened(EsedbHandles.Kind.MULTI_VALUE);
+        int written = 0;
+        try {
+            result = library.libesedb_multi_value_get_number_of_values(multiValue, numberOfParts, errorPointer);
+            if (result < 0) {
+                error("Multi Value Get Number of Values", result);
+                return 0;
+            }
+            int count = numberOfParts.getValue();
+            for (int index = 0; index < count; index++) {
+                rawValueDataSize.setValue(0);
+                result = library.libesedb_multi_value_get_value_data_size(multiValue, index, rawValueDataSize, errorPointer);
+                if (result < 0) {
+                    error("Multi Value Get Value Data Size", result);
+                    return written;
+                }
+                int size = (int) rawValueDataSize.getValue();
+                ensureCapacity(size);
+                result = library.libesedb_multi_value_get_value_data(multiValue, index, buffer, size, errorPointer);
+                if (result < 0) {
+                    error("Multi Value Get Value Data", result);
+                    return written;
+                }
+                try (WritableByteChannel channel = output.open(index, count)) {
+                    writeBuffer(channel, size);
+                }
+                written++;
+            }
+        } finally {
+            result = library.libesedb_multi_value_free(valuePointerReference, errorPointer);
+            EsedbHandles.freed(EsedbHandles.Kind.MULTI_VALUE);
+            if (result < 0) error("Multi Value Free", result);
+        }
+        return written;
+    }
+
+    /* Writes the first size bytes of the value buffer, straight from native memory */
+    private void writeBuffer(WritableByteChannel channel, int size) throws IOException {
+        ByteBuffer chunk = bufferView.duplicate();
+        chunk.clear().limit(size);
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+        if (EsedbMetrics.ENABLED) EsedbMetrics.bytesDecoded(size);
+    }
+
+    private boolean isLongOrMultiValue(int valueEntry) {
+        int flags = getValueDataFlags(valueEntry);
+        lastNull = (flags & (EseRecord.VALUE_FLAG_LONG_VALUE | EseRecord.VALUE_FLAG_MULTI_VALUE)) != 0;
+        return lastNull;
+    }
+
+    private void ensureCapacity(int size) {
+        if (buffer.size() < size) {
+            buffer = new Memory(Math.max(size, buffer.size() * 2));
+            bufferView = buffer.getByteBuffer(0, buffer.size()).order(ByteOrder.LITTLE_ENDIAN);
+            charView = charView(buffer);
+        }
+    }
+
+    private static CharBuffer charView(Memory buffer) {
+        return buffer.getByteBuffer(0, buffer.size()).order(ByteOrder.nativeOrder()).asCharBuffer();
+    }
+
+    /*
+     * Returns true if the last value read was NULL
+     */
+    public boolean wasNull() {
+        return lastNull;
+    }
+
+    /*
+     * Frees the current record
+     */
+    public void close() {
+        if (!isOpen()) {
+            return;
+        }
+        if (attached) {
+            attached = false;
+            Pointer.nativeValue(record, 0);
+            return;
+        }
+        int result = library.libesedb_record_free(recordPointerReference, errorPointer);
+        Pointer.nativeValue(record, 0);
+        EsedbHandles.freed(EsedbHandles.Kind.RECORD);
+        if (result < 0) error("Record Free", result);
+    }
+
+    private void error(String function, int result) {
+        if (strict) {
+            throw EsedbException.fromError(library, function, result, errorPointer);
+        }
+        EsedbParser.printError(library, function, result, errorPointer);
+    }
+
+    private void sizeError(int valueEntry, long size, int fixedSize) {
+        String message = "value " + valueEntry + " of record " + recordEntry + " has " + size
+                + " bytes, its column type " + fixedSize;
+        if (strict) {
+            throw new EsedbException("Record Get Value Data", -1, message);
+        }
+        EsedbParser.printError("Record Get Value Data", -1, message);
+    }
+}
@@ -0,0 +1,104 @@
+import com.sun.jna.Pointer;
+
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+ * Spliterator over a record index range of an EsedbTable.
+ * Every tryAdvance fetches one record, copies its values into an EsedbRow and frees the record handle
+ * before handing the row over, so stopping early leaves no record handle behind.
+ * trySplit hands out the first half of the range. libesedb handles must not be used by two threads at once,
+ * so a split opens its own libesedb_file and table on first use; these are registered in splitFiles and
+ * freed when the split is exhausted, or by the stream's close handler.
+ */
+final class EsedbRecordSpliterator implements Spliterator<EsedbRow> {
+
+    /* Ranges shorter than this are not split, opening a file costs more than reading them */
+    static final long MINIMUM_SPLIT_SIZE = 1024;
+
+    private final EsedbTable owner;
+    private final Queue<EsedbFile> splitFiles;
+    private final EsedbProjection projection;
+    private final long end;
+    private long index;
+
+    /* Table handle, null for a split until its first tryAdvance */
+    private Pointer table;
+    private EsedbFile splitFile;
+    private EsedbRecordReader recordReader;
+
+    EsedbRecordSpliterator(EsedbTable owner, Pointer table, long index, long end, EsedbProjection projection,
+                           Queue<EsedbFile> splitFiles) {
+        this.owner = owner;
+        this.table = table;
+        this.index = index;
+        this.end = end;
+        this.projection = projection;
+        this.splitFiles = splitFiles;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super EsedbRow> action) {
+        if (index >= end) {
+            release();
+            return false;
+        }
+        EsedbRecordReader reader = getRecordReader();
+        int recordEntry = (int) index++;
+
+        reader.open(table, recordEntry);
+        EsedbRow row;
+        try {
+            row = EsedbRow.read(reader, recordEntry, projection);
+        } finally {
+            reader.close();
+        }
+        action.accept(row);
+        return true;
+    }
+
+    @Override
+    public Spliterator<EsedbRow> trySplit() {
+        long remaining = end - index;
+        if (remaining < 2 * MINIMUM_SPLIT_SIZE) {
+            return null;
+        }
+        long middle = index + remaining / 2;
+        EsedbRecordSpliterator prefix = new EsedbRecordSpliterator(owner, null, index, middle, projection, splitFiles);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    /* Records that cannot be read throw EsedbException instead of being skipped, so the size is exact */
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private EsedbRecordReader getRecordReader() {
+        if (table == null) {
+            splitFile = EsedbFile.open(owner.getFile().getLibrary(), owner.getFile().getFilename());
+            splitFiles.add(splitFile);
+            /* The file holds on to the table until it is closed */
+            table = splitFile.table(owner).getPointer();
+        }
+        if (recordReader == null) {
+            recordReader = new EsedbRecordReader(owner.getFile().getLibrary(), true);
+        }
+        return recordReader;
+    }
+
+    /* Frees the handles of a split as soon as its range is done */
+    private void release() {
+        if (splitFile != null && splitFiles.remove(splitFile)) {
+            splitFile.close();
+        }
+        splitFile = null;
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/*
+ * Values of one record, detached from libesedb so the record handle can be freed before the row is used.
+ * Holds the columns of the projection it was read with, values are typed as in EsedbRecordReader.getValue.
+ */
+public final class EsedbRow {
+
+    private final long recordEntry;
+    private final EsedbProjection projection;
+    private final Object[] values;
+
+    EsedbRow(long recordEntry, EsedbProjection projection, Object[] values) {
+        this.recordEntry = recordEntry;
+        this.projection = projection;
+        this.values = values;
+    }
+
+    /*
+     * Reads the projected values of the current record of the reader
+     */
+    static EsedbRow read(EsedbRecordReader reader, long recordEntry, EsedbProjection projection) {
+        Object[] values = new Object[projection.size()];
+        for (int i = 0; i < values.length; i++) {
+            int valueEntry = projection.getValueEntry(i);
+            if (valueEntry >= 0) {
+                values[i] = reader.getValue(valueEntry, projection.getColumnType(i));
+            }
+        }
+        return new EsedbRow(recordEntry, projection, values);
+    }
+
+    /* Entry of the record in its table */
+    public long getRecordEntry() {
+        return recordEntry;
+    }
+
+    public EsedbProjection getProjection() {
+        return projection;
+    }
+
+    public int getNumberOfValues() {
+        return values.length;
+    }
+
+    public String getColumnName(int index) {
+        return projection.getName(index);
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    public Object getValue(String columnName) {
+        int index = projection.indexOf(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column not projected: " + columnName);
+        }
+        return values[index];
+    }
+
+    public boolean isNull(int index) {
+        return values[index] == null;
+    }
+
+    /* Integer, currency and date time values, 0 if NULL */
+    public long getLong(int index) {
+        Object value = values[index];
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public long getLong(String columnName) {
+        Object value = getValue(columnName);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public String getString(int index) {
+        Object value = values[index];
+        return value != null ? value.toString() : null;
+    }
+
+    public String getString(String columnName) {
+        Object value = getValue(columnName);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "EsedbRow{" + recordEntry + ", " + Arrays.toString(values) + "}";
+    }
+}
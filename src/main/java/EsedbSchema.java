@@ -0,0 +1,168 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Column names and types of a table, indexed by value entry.
+ * Read once per table with libesedb_table_get_column, libesedb_column_get_utf8_name and libesedb_column_get_type,
+ * then interned: tables with the same layout (all Container_n tables of a WebCache file) share one instance,
+ * and with it the projections resolved against it.
+ * Immutable and thread-safe.
+ */
+public final class EsedbSchema {
+
+    /* Include the columns of the template table, so column entries match record value entries */
+    static final int COLUMN_FLAGS = 0;
+
+    private static final ConcurrentHashMap<EsedbSchema, EsedbSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private final String[] names;
+    private final int[] types;
+    private final Map<String, Integer> entries;
+    private final int hashCode;
+
+    private final ConcurrentHashMap<List<String>, EsedbProjection> projections = new ConcurrentHashMap<>();
+    private volatile EsedbProjection all;
+
+    private EsedbSchema(String[] names, int[] types) {
+        this.names = names;
+        this.types = types;
+        this.entries = new HashMap<>();
+        for (int i = names.length - 1; i >= 0; i--) {
+            entries.put(names[i], i);
+        }
+        this.hashCode = 31 * Arrays.hashCode(names) + Arrays.hashCode(types);
+    }
+
+    /*
+     * Schema of a table layout, shared with every table of the same layout
+     */
+    public static EsedbSchema of(String[] names, int[] types) {
+        if (names.length != types.length) {
+            throw new IllegalArgumentException("names and types differ in length");
+        }
+        EsedbSchema schema = new EsedbSchema(names.clone(), types.clone());
+        EsedbSchema shared = SCHEMAS.putIfAbsent(schema, schema);
+        return shared != null ? shared : schema;
+    }
+
+    /*
+     * Reads the columns of a libesedb table, errors are thrown as EsedbException
+     */
+    public static EsedbSchema read(EsedbLibrary library, Pointer table, PointerByReference errorPointer) {
+        IntByReference numberOfColumns = new IntByReference();
+        EsedbException.check(library, "Table Get Number of Columns",
+                library.libesedb_table_get_number_of_columns(table, numberOfColumns, COLUMN_FLAGS, errorPointer), errorPointer);
+
+        String[] names = new String[numberOfColumns.getValue()];
+        int[] types = new int[names.length];
+        Memory utf8Name = new Memory(256);
+
+        for (int i = 0; i < names.length; i++) {
+            try (EsedbColumn column = new EsedbColumn(library, table, i, null, COLUMN_FLAGS, utf8Name)) {
+                types[i] = column.getType();
+                names[i] = column.getName();
+            }
+        }
+        return of(names, types);
+    }
+
+    /*
+     * Schema of a table read by the pure Java reader, value entries follow the column order of EseTable
+     */
+    public static EsedbSchema of(EseTable table) {
+        List<EseColumn> columns = table.getColumns();
+        String[] names = new String[columns.size()];
+        int[] types = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = columns.get(i).getName();
+            types[i] = columns.get(i).getType();
+        }
+        return of(names, types);
+    }
+
+    public int getNumberOfColumns() {
+        return names.length;
+    }
+
+    public String getColumnName(int valueEntry) {
+        return names[valueEntry];
+    }
+
+    public int getColumnType(int valueEntry) {
+        return types[valueEntry];
+    }
+
+    /*
+     * Value entry of a column, -1 if the table has no such column.
+     * Names are matched exactly first and then ignoring case, as ESE column names are case-insensitive.
+     */
+    public int indexOf(String name) {
+        Integer entry = entries.get(name);
+        if (entry != null) {
+            return entry;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* All columns in value entry order */
+    public EsedbProjection all() {
+        EsedbProjection projection = all;
+        if (projection == null) {
+            int[] valueEntries = new int[names.length];
+            for (int i = 0; i < valueEntries.length; i++) {
+                valueEntries[i] = i;
+            }
+            projection = new EsedbProjection(this, names, valueEntries);
+            all = projection;
+        }
+        return projection;
+    }
+
+    /*
+     * Resolves column names to value entries, once per schema and list of names
+     */
+    public EsedbProjection project(List<String> columns) {
+        return projections.computeIfAbsent(columns, key -> {
+            String[] projectedNames = key.toArray(new String[0]);
+            int[] valueEntries = new int[projectedNames.length];
+            for (int i = 0; i < valueEntries.length; i++) {
+                valueEntries[i] = indexOf(projectedNames[i]);
+            }
+            return new EsedbProjection(this, projectedNames, valueEntries);
+        });
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof EsedbSchema)) {
+            return false;
+        }
+        EsedbSchema schema = (EsedbSchema) other;
+        return hashCode == schema.hashCode && Arrays.equals(names, schema.names) && Arrays.equals(types, schema.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "EsedbSchema" + Arrays.toString(names);
+    }
+}
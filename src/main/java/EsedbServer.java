@@ -0,0 +1,415 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Server mode (--serve): a long-running process that loads libesedb once and lists files for thin clients
+ * (--connect), so small databases do not pay for JVM startup, JIT warm-up and Native.load on every run.
+ *
+ * The server listens on the loopback interface only. A job names the file, table filter, columns, output format,
+ * time format and reader, the rows come back formatted as the client would have written them and the client writes
+ * them to its own sink (standard output, -o, -z).
+ *
+ * Files are opened with the permissions of the user running the server, so any local process that can reach the port
+ * could read through it. At startup the server writes a random token to server-<port>.token in the cache directory
+ * (~/.cache/esedbparser), readable by its owner only where the file system has POSIX permissions, and refuses jobs
+ * without it. The client reads the token from the same place: only the server's own user can submit jobs. Other
+ * users may still see that the port is open.
+ *
+ * Admission control: jobs run on jobs worker threads with at most queueSize jobs waiting (esedb.server.queue,
+ * by default 4 per worker). A job beyond that is refused at once with a busy frame rather than queued without bound,
+ * so the workers, with their compiled code, stay the only ones parsing.
+ *
+ * Protocol, DataInput/DataOutput on one connection per job. The request is MAGIC, VERSION, token, file name, table,
+ * number of columns (-1 for the default columns) and their names, --where filter (empty for none), format, time format
+ * and java reader flag.
+ * The response is a sequence of frames, each a type byte:
+ *   'D' int length, UTF-8 bytes: formatted rows, a character may be split across two frames
+ *   'M' UTF: message for the user
+ *   'E' long records, long nanoseconds: end of a successful job
+ *   'X' UTF: error, end of the job
+ *   'B' UTF: server busy, job refused
+ */
+public final class EsedbServer {
+
+    static final int MAGIC = 0x45534456;
+    static final int VERSION = 3;
+
+    static final byte DATA = 'D';
+    static final byte MESSAGE = 'M';
+    static final byte END = 'E';
+    static final byte ERROR = 'X';
+    static final byte BUSY = 'B';
+
+    private static final int FRAME_SIZE = 256 * 1024;
+    private static final int REQUEST_TIMEOUT_MILLIS = 30000;
+    private static final int TOKEN_BYTES = 32;
+
+    private final int port;
+    private final int jobs;
+    private final int queueSize;
+    private final AtomicLong jobNumber = new AtomicLong();
+    private String token;
+
+    public EsedbServer(int port, int jobs) {
+        this(port, jobs, Integer.getInteger("esedb.server.queue", 4 * jobs));
+    }
+
+    public EsedbServer(int port, int jobs, int queueSize) {
+        this.port = port;
+        this.jobs = jobs;
+        this.queueSize = queueSize;
+    }
+
+    /*
+     * Loads libesedb, then accepts jobs until the process is stopped. Without libesedb only java reader jobs
+     * succeed, the others get the load error.
+     */
+    public void run() throws IOException {
+        try {
+            System.out.println("libesedb " + EsedbLibrary.INSTANCE.libesedb_get_version() + " carregada");
+        } catch (LinkageError ex) {
+            System.out.println("libesedb indisponível, apenas o leitor java: " + ex);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(jobs, jobs, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)));
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            token = writeToken(port);
+            System.out.println("Servidor em " + server.getLocalSocketAddress() + ", " + jobs + " simultâneos, fila " + queueSize);
+            System.out.flush();
+            while (true) {
+                Socket socket = server.accept();
+                try {
+                    executor.execute(() -> serve(socket));
+                } catch (RejectedExecutionException ex) {
+                    refuse(socket);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /* Token file of the server on port */
+    static Path getTokenFile(int port) {
+        return EsedbCache.getDefaultDirectory().resolve("server-" + port + ".token");
+    }
+
+    /* Writes a new random token, owner-only, replacing the one of a previous server on the port */
+    private static String writeToken(int port) throws IOException {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder(TOKEN_BYTES * 2);
+        for (byte b : random) {
+            token.append(String.format("%02x", b));
+        }
+        Path file = getTokenFile(port);
+        Files.createDirectories(file.getParent());
+        Files.deleteIfExists(file);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+        }
+        Files.write(file, token.toString().getBytes(StandardCharsets.US_ASCII));
+        file.toFile().deleteOnExit();
+        return token.toString();
+    }
+
+    private static void refuse(Socket socket) {
+        try (Socket closing = socket;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(closing.getOutputStream()))) {
+            out.writeByte(BUSY);
+            out.writeUTF("servidor ocupado");
+        } catch (IOException ignored) {
+        }
+    }
+
+    /* One job, every error sent to the client */
+    private void serve(Socket socket) {
+        long number = jobNumber.incrementAndGet();
+        try (Socket closing = socket;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(closing.getOutputStream(), FRAME_SIZE + 8))) {
+            Job job;
+            try {
+                socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+                job = Job.readFrom(new DataInputStream(new BufferedInputStream(socket.getInputStream())), token);
+                socket.setSoTimeout(0);
+            } catch (IOException | IllegalArgumentException ex) {
+                out.writeByte(ERROR);
+                out.writeUTF("pedido inválido: " + ex.getMessage());
+                return;
+            }
+            out.writeByte(MESSAGE);
+            out.writeUTF("Servidor: job " + number + ", leitor " + (job.javaReader ? "java" : "libesedb"));
+            long start = System.nanoTime();
+            AtomicLong records = new AtomicLong();
+            EsedbSink sink = EsedbSink.of(new FrameOutputStream(out), job.format, job.timeFormat);
+            String error = null;
+            try {
+                EsedbBatch.readRows(job.filename, job.table, job.columns != null ? job.columns : EsedbParser.DEFAULT_COLUMNS,
+                        job.filter, null, job.javaReader, new EsedbBatch.RowHandler() {
+                            @Override
+                            public void table(EsedbProjection projection) {
+                                if (job.format.isMachineReadable()) {
+                                    sink.writeHeader(projection);
+                                }
+                            }
+
+                            @Override
+                            public void row(EsedbProjection projection, Object[] values) {
+                                sink.write(EsedbParser.formatValues(sink, job.columns, projection, values));
+                                records.incrementAndGet();
+                            }
+                        });
+            } catch (IOException | RuntimeException | LinkageError ex) {
+                error = ex.toString();
+            }
+            /* Rows read before an error are sent, as when the file is listed locally */
+            sink.close();
+            long elapsed = System.nanoTime() - start;
+            if (error != null) {
+                out.writeByte(ERROR);
+                out.writeUTF(error);
+            } else {
+                out.writeByte(END);
+                out.writeLong(records.get());
+                out.writeLong(elapsed);
+            }
+            System.out.println("Job " + number + ": " + job.filename + ", " + records.get() + " registros, "
+                    + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms" + (error != null ? ", erro: " + error : ""));
+        } catch (IOException | UncheckedIOException ex) {
+            /* Client gone */
+            System.out.println("Job " + number + ": conexão perdida: " + ex.getMessage());
+        }
+    }
+
+    /*
+     * Client side: sends the job to the server on port and writes the rows to sink. Prints the messages and the
+     * summary, returns 0 on success, 1 on error and 3 if the server is busy.
+     */
+    public static int connect(int port, Job job, EsedbSink sink) throws IOException {
+        String token;
+        try {
+            token = new String(Files.readAllBytes(getTokenFile(port)), StandardCharsets.US_ASCII).trim();
+        } catch (NoSuchFileException ex) {
+            System.err.println("Erro: token do servidor não encontrado: " + ex.getFile());
+            return 1;
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            job.writeTo(out, token);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), FRAME_SIZE + 8));
+            /* One decoder for every frame, so a character split across two frames is decoded whole */
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ByteBuffer bytes = ByteBuffer.allocate(FRAME_SIZE + 4);
+            CharBuffer chars = CharBuffer.allocate(FRAME_SIZE + 4);
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException ex) {
+                    System.err.println("Erro: conexão encerrada pelo servidor");
+                    return 1;
+                }
+                switch (type) {
+                    case DATA:
+                        int length = in.readInt();
+                        if (length > bytes.remaining()) {
+                            bytes = ByteBuffer.allocate(bytes.position() + length).put(bytes.flip());
+                            chars = CharBuffer.allocate(bytes.capacity());
+                        }
+                        in.readFully(bytes.array(), bytes.position(), length);
+                        bytes.position(bytes.position() + length).flip();
+                        decoder.decode(bytes, chars, false);
+                        bytes.compact();
+                        sink.write(chars.flip());
+                        chars.clear();
+                        break;
+                    case MESSAGE:
+                        System.out.println(in.readUTF());
+                        break;
+                    case END:
+                        decoder.decode(bytes.flip(), chars, true);
+                        decoder.flush(chars);
+                        sink.write(chars.flip());
+                        long records = in.readLong();
+                        long elapsed = in.readLong();
+                        System.out.println();
+                        System.out.println("=============================");
+                        System.out.println("Registros lidos: " + records);
+                        System.out.println("Tempo no servidor: " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+                        System.out.println("=============================");
+                        return 0;
+                    case ERROR:
+                        System.err.println("Erro: " + in.readUTF());
+                        return 1;
+                    case BUSY:
+                        System.err.println("Erro: " + in.readUTF());
+                        return 3;
+                    default:
+                        throw new IOException("Invalid frame: " + type);
+                }
+            }
+        }
+    }
+
+    /*
+     * A parse job, as sent by the client
+     */
+    public static final class Job {
+
+        private final String filename;
+        private final String table;
+        private final List<String> columns;
+        private final EsedbFilter filter;
+        private final EsedbOutputFormat format;
+        private final EsedbCodec.TimeFormat timeFormat;
+        private final boolean javaReader;
+
+        /* columns null for EsedbParser.DEFAULT_COLUMNS, filter null for every record */
+        public Job(String filename, String table, List<String> columns, EsedbFilter filter, EsedbOutputFormat format,
+                   EsedbCodec.TimeFormat timeFormat, boolean javaReader) {
+            this.filename = filename;
+            this.table = table;
+            this.columns = columns;
+            this.filter = filter;
+            this.format = format;
+            this.timeFormat = timeFormat;
+            this.javaReader = javaReader;
+        }
+
+        void writeTo(DataOutputStream out, String token) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(token);
+            out.writeUTF(filename);
+            out.writeUTF(table);
+            out.writeInt(columns != null ? columns.size() : -1);
+            if (columns != null) {
+                for (String column : columns) {
+                    out.writeUTF(column);
+                }
+            }
+            out.writeUTF(filter != null ? filter.getExpression() : "");
+            out.writeUTF(format.getName());
+            out.writeUTF(timeFormat.getName());
+            out.writeBoolean(javaReader);
+        }
+
+        /* Reads a job, refused unless it carries the token of the server */
+        static Job readFrom(DataInputStream in, String token) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unknown protocol");
+            }
+            if (!MessageDigest.isEqual(in.readUTF().getBytes(StandardCharsets.US_ASCII), token.getBytes(StandardCharsets.US_ASCII))) {
+                throw new IOException("invalid token");
+            }
+            String filename = in.readUTF();
+            String table = in.readUTF();
+            int numberOfColumns = in.readInt();
+            List<String> columns = null;
+            if (numberOfColumns >= 0) {
+                columns = new ArrayList<>(numberOfColumns);
+                for (int i = 0; i < numberOfColumns; i++) {
+                    columns.add(in.readUTF());
+                }
+            }
+            String where = in.readUTF();
+            EsedbFilter filter = where.isEmpty() ? null : EsedbFilter.parse(where);
+            EsedbOutputFormat format = EsedbOutputFormat.fromName(in.readUTF());
+            EsedbCodec.TimeFormat timeFormat = EsedbCodec.TimeFormat.fromName(in.readUTF());
+            return new Job(filename, table, columns, filter, format, timeFormat, in.readBoolean());
+        }
+    }
+
+    /*
+     * Sends the bytes written as DATA frames of at most FRAME_SIZE bytes. Closing it flushes the last frame only,
+     * the connection stays open for the end frame.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[FRAME_SIZE];
+        private int count;
+
+        FrameOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                sendFrame();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    sendFrame();
+                }
+                int n = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        private void sendFrame() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            out.writeByte(DATA);
+            out.writeInt(count);
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            sendFrame();
+        }
+
+        @Override
+        public void close() throws IOException {
+            sendFrame();
+        }
+    }
+}
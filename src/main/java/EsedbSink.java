@@ -0,0 +1,141 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Destination of the listed records: a file or standard output, written through large buffers and
+ * optionally gzip-compressed, in one of the EsedbOutputFormat formats.
+ * The header is written once, before the first row, whatever the number of tables listed.
+ * formatRow is thread-safe so scanner threads can format their chunks, and write is synchronized so batch jobs can
+ * share one sink, each writing whole rows.
+ * I/O errors are thrown as UncheckedIOException.
+ */
+public class EsedbSink implements Closeable {
+
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final Appendable out;
+    private final Closeable closeable;
+    private final EsedbOutputFormat format;
+    private final EsedbCodec.TimeFormat timeFormat;
+    private boolean headerWritten;
+    private boolean rowWritten;
+
+    private EsedbSink(Appendable out, Closeable closeable, EsedbOutputFormat format, EsedbCodec.TimeFormat timeFormat) {
+        this.out = out;
+        this.closeable = closeable;
+        this.format = format;
+        this.timeFormat = timeFormat;
+    }
+
+    /*
+     * Opens the file (created or truncated), or standard output if filename is null.
+     * Files ending in .gz are compressed even without gzip.
+     */
+    public static EsedbSink open(String filename, EsedbOutputFormat format, EsedbCodec.TimeFormat timeFormat, boolean gzip)
+            throws IOException {
+        OutputStream output;
+        if (filename == null) {
+            output = new FileOutputStream(FileDescriptor.out);
+        } else {
+            output = Channels.newOutputStream(FileChannel.open(Paths.get(filename),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+            gzip = gzip || filename.endsWith(".gz");
+        }
+        OutputStream stream = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : new BufferedOutputStream(output, BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return new EsedbSink(writer, writer, format, timeFormat);
+    }
+
+    /*
+     * Writes through a stream shared with other output (the human listing on standard output), so both stay in order.
+     * Closing the sink only flushes the stream.
+     */
+    public static EsedbSink of(PrintStream stream, EsedbOutputFormat format, EsedbCodec.TimeFormat timeFormat) {
+        return new EsedbSink(stream, stream::flush, format, timeFormat);
+    }
+
+    /*
+     * Writes UTF-8 text to the stream through a BUFFER_SIZE writer, closing the sink flushes and closes the stream
+     */
+    static EsedbSink of(OutputStream stream, EsedbOutputFormat format, EsedbCodec.TimeFormat timeFormat) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return new EsedbSink(writer, writer, format, timeFormat);
+    }
+
+    public EsedbOutputFormat getFormat() {
+        return format;
+    }
+
+    public EsedbCodec.TimeFormat getTimeFormat() {
+        return timeFormat;
+    }
+
+    /* Writes the header of the format the first time it is called */
+    public void writeHeader(EsedbProjection projection) {
+        writeHeader(null, projection);
+    }
+
+    /* Same, with a leading tagName column */
+    public synchronized void writeHeader(String tagName, EsedbProjection projection) {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        StringBuilder builder = new StringBuilder();
+        format.appendHeader(builder, tagName, projection);
+        append(builder);
+    }
+
+    public String formatRow(EsedbProjection projection, Object[] values) {
+        StringBuilder builder = new StringBuilder(256);
+        format.appendRow(builder, projection, values, timeFormat);
+        return builder.toString();
+    }
+
+    /* Appends the row with tag in a leading tagName column */
+    public void appendRow(StringBuilder builder, String tagName, String tag, EsedbProjection projection, Object[] values) {
+        format.appendRow(builder, tagName, tag, projection, values, timeFormat);
+    }
+
+    public void writeRow(EsedbProjection projection, Object[] values) {
+        writeHeader(projection);
+        write(formatRow(projection, values));
+    }
+
+    /* Writes rows already formatted with formatRow (empty for rows the filter dropped) */
+    public synchronized void write(CharSequence text) {
+        if (!rowWritten && text.length() > 0) {
+            rowWritten = true;
+            EsedbParser.firstRecordWritten();
+        }
+        append(text);
+    }
+
+    private void append(CharSequence text) {
+        try {
+            out.append(text);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeable.close();
+    }
+}
@@ -0,0 +1,678 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/*
+ * Columnar copy of the projected columns of a table, loaded once and queried many times without going back to the file.
+ *   IntColumn    - BOOLEAN, 8/16-bit integers and INTEGER_32BIT_SIGNED in an int[]
+ *   LongColumn   - INTEGER_32BIT_UNSIGNED, INTEGER_64BIT_SIGNED, CURRENCY and DATE_TIME in a long[]
+ *                  (FILETIME timestamps as stored), FLOAT_32BIT and DOUBLE_64BIT as their raw bits
+ *   StringColumn - every other type, text as an int[] of codes into an EsedbStringPool of the column,
+ *                  GUIDs as text and binary values in hexadecimal, code -1 for NULL
+ * Numeric columns mark their non-NULL rows in a bitmap, so the heap cost is the primitive arrays plus one bit per value.
+ *
+ * Filters return the matching rows as a BitSet, combined with and/or/andNot. They scan the primitive arrays 64 rows
+ * at a time into bitmap words, with no boxing and no branch per row. Text predicates are evaluated once per distinct
+ * string, then the codes are compared.
+ */
+public final class EsedbSnapshot {
+
+    private final EsedbProjection projection;
+    private final Column[] columns;
+    private final int numberOfRows;
+
+    private EsedbSnapshot(EsedbProjection projection, Column[] columns, int numberOfRows) {
+        this.projection = projection;
+        this.columns = columns;
+        this.numberOfRows = numberOfRows;
+    }
+
+    /*
+     * Loads the projected columns of every record, with the record loop of EsedbParser
+     */
+    public static EsedbSnapshot load(EsedbTable table, EsedbProjection projection) {
+        long numberOfRecords = table.getNumberOfRecords();
+        Builder builder = builder(projection, (int) Math.min(numberOfRecords, Integer.MAX_VALUE));
+        EsedbRecordReader recordReader = new EsedbRecordReader(table.getFile().getLibrary(), true);
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (!recordReader.open(table.getPointer(), i)) continue;
+            try {
+                builder.add(EsedbParser.readValues(recordReader, projection));
+            } finally {
+                recordReader.close();
+            }
+        }
+        return builder.build();
+    }
+
+    public static EsedbSnapshot load(EsedbTable table, String... columns) {
+        return load(table, table.getSchema().project(Arrays.asList(columns)));
+    }
+
+    /*
+     * Same, reading the file with the pure Java page reader
+     */
+    public static EsedbSnapshot load(EseTable table, EsedbProjection projection) throws IOException {
+        int numberOfRecords = table.getNumberOfRecords();
+        Builder builder = builder(projection, numberOfRecords);
+        for (int i = 0; i < numberOfRecords; i++) {
+            builder.add(EsedbParser.readValues(table.getRecord(i), projection));
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(EsedbProjection projection, int expectedRows) {
+        return new Builder(projection, expectedRows);
+    }
+
+    public EsedbProjection getProjection() {
+        return projection;
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    public int getNumberOfColumns() {
+        return columns.length;
+    }
+
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+
+    public Column getColumn(String name) {
+        int index = projection.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column not in snapshot: " + name);
+        }
+        return columns[index];
+    }
+
+    public LongColumn getLongColumn(String name) {
+        return getColumn(name, LongColumn.class);
+    }
+
+    public IntColumn getIntColumn(String name) {
+        return getColumn(name, IntColumn.class);
+    }
+
+    public StringColumn getStringColumn(String name) {
+        return getColumn(name, StringColumn.class);
+    }
+
+    private <T extends Column> T getColumn(String name, Class<T> type) {
+        Column column = getColumn(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + name + " is a " + column.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    /* Every row, to start a filter chain */
+    public BitSet all() {
+        BitSet rows = new BitSet(numberOfRows);
+        rows.set(0, numberOfRows);
+        return rows;
+    }
+
+    /* Values of a row, typed as EsedbRecordReader.getValue except for the text of StringColumn */
+    public Object[] getRow(int row) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].getValue(row);
+        }
+        return values;
+    }
+
+    /* Approximate heap bytes of the column arrays, the strings are off-heap */
+    public long getHeapBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.getHeapBytes();
+        }
+        return bytes;
+    }
+
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            if (column instanceof StringColumn) {
+                bytes += ((StringColumn) column).getPool().getOffHeapCapacity();
+            }
+        }
+        return bytes;
+    }
+
+    /*
+     * Binary form kept by EsedbCache: the table schema, the requested column names, the number of rows and the arrays
+     * of each column
+     */
+    void writeTo(DataOutput out) throws IOException {
+        EsedbSchema schema = projection.getSchema();
+        out.writeInt(schema.getNumberOfColumns());
+        for (int i = 0; i < schema.getNumberOfColumns(); i++) {
+            out.writeUTF(schema.getColumnName(i));
+            out.writeInt(schema.getColumnType(i));
+        }
+        out.writeInt(projection.size());
+        for (int i = 0; i < projection.size(); i++) {
+            out.writeUTF(projection.getName(i));
+        }
+        out.writeInt(numberOfRows);
+        for (Column column : columns) {
+            column.write(out);
+        }
+    }
+
+    static EsedbSnapshot readFrom(DataInput in) throws IOException {
+        String[] names = new String[in.readInt()];
+        int[] types = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+            types[i] = in.readInt();
+        }
+        int numberOfColumns = in.readInt();
+        List<String> requested = new ArrayList<>(numberOfColumns);
+        for (int i = 0; i < numberOfColumns; i++) {
+            requested.add(in.readUTF());
+        }
+        EsedbProjection projection = EsedbSchema.of(names, types).project(requested);
+        int numberOfRows = in.readInt();
+        Column[] columns = new Column[numberOfColumns];
+        for (int i = 0; i < numberOfColumns; i++) {
+            columns[i] = Column.of(projection.getColumnType(i), numberOfRows);
+            columns[i].read(in, numberOfRows);
+        }
+        return new EsedbSnapshot(projection, columns, numberOfRows);
+    }
+
+    /*
+     * Accumulates rows in growing arrays, trimmed by build. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final EsedbProjection projection;
+        private final Column[] columns;
+        private int numberOfRows;
+
+        private Builder(EsedbProjection projection, int expectedRows) {
+            this.projection = projection;
+            this.columns = new Column[projection.size()];
+            int capacity = Math.max(expectedRows, 16);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Column.of(projection.getColumnType(i), capacity);
+            }
+        }
+
+        /* Adds a row, values in projection order typed as EsedbRecordReader.getValue */
+        public Builder add(Object[] values) {
+            if (numberOfRows == Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Snapshot full: " + numberOfRows + " rows");
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(numberOfRows, values[i]);
+            }
+            numberOfRows++;
+            return this;
+        }
+
+        public EsedbSnapshot build() {
+            for (Column column : columns) {
+                column.trim(numberOfRows);
+            }
+            return new EsedbSnapshot(projection, columns, numberOfRows);
+        }
+    }
+
+    /*
+     * Values of one column, by row
+     */
+    public abstract static class Column {
+
+        final int columnType;
+
+        Column(int columnType) {
+            this.columnType = columnType;
+        }
+
+        static Column of(int columnType, int capacity) {
+            switch (columnType) {
+                case EseColumn.COLUMN_TYPE_BOOLEAN:
+                case EseColumn.COLUMN_TYPE_INTEGER_8BIT_UNSIGNED:
+                case EseColumn.COLUMN_TYPE_INTEGER_16BIT_SIGNED:
+                case EseColumn.COLUMN_TYPE_INTEGER_16BIT_UNSIGNED:
+                case EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED:
+                    return new IntColumn(columnType, capacity);
+                case EseColumn.COLUMN_TYPE_INTEGER_32BIT_UNSIGNED:
+                case EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED:
+                case EseColumn.COLUMN_TYPE_CURRENCY:
+                case EseColumn.COLUMN_TYPE_DATE_TIME:
+                case EseColumn.COLUMN_TYPE_FLOAT_32BIT:
+                case EseColumn.COLUMN_TYPE_DOUBLE_64BIT:
+                    return new LongColumn(columnType, capacity);
+                default:
+                    return new StringColumn(columnType, capacity);
+            }
+        }
+
+        public int getColumnType() {
+            return columnType;
+        }
+
+        public abstract boolean isNull(int row);
+
+        public abstract Object getValue(int row);
+
+        /* Rows that are not NULL */
+        public abstract BitSet notNull();
+
+        abstract void add(int row, Object value);
+
+        abstract void trim(int numberOfRows);
+
+        abstract long getHeapBytes();
+
+        abstract void write(DataOutput out) throws IOException;
+
+        abstract void read(DataInput in, int numberOfRows) throws IOException;
+    }
+
+    /* Shared by the numeric columns: one bit per row, set when the value is not NULL */
+    private abstract static class NumericColumn extends Column {
+
+        long[] present;
+        int numberOfRows;
+
+        NumericColumn(int columnType, int capacity) {
+            super(columnType);
+            present = new long[words(capacity)];
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return (present[row >>> 6] & (1L << row)) == 0;
+        }
+
+        @Override
+        public BitSet notNull() {
+            return BitSet.valueOf(present);
+        }
+
+        void setPresent(int row) {
+            if ((row >>> 6) >= present.length) {
+                present = Arrays.copyOf(present, present.length * 2);
+            }
+            present[row >>> 6] |= 1L << row;
+        }
+
+        void trimPresent(int numberOfRows) {
+            this.numberOfRows = numberOfRows;
+            present = Arrays.copyOf(present, words(numberOfRows));
+        }
+
+        static int words(int numberOfRows) {
+            return (numberOfRows + 63) >>> 6;
+        }
+
+        void writePresent(DataOutput out) throws IOException {
+            for (long word : present) {
+                out.writeLong(word);
+            }
+        }
+
+        void readPresent(DataInput in, int numberOfRows) throws IOException {
+            this.numberOfRows = numberOfRows;
+            present = new long[words(numberOfRows)];
+            for (int w = 0; w < present.length; w++) {
+                present[w] = in.readLong();
+            }
+        }
+    }
+
+    public static final class IntColumn extends NumericColumn {
+
+        private int[] values;
+
+        IntColumn(int columnType, int capacity) {
+            super(columnType, capacity);
+            values = new int[capacity];
+        }
+
+        /* The value, 0 for NULL */
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        /* The values, 0 for NULL, by row. Not a copy */
+        public int[] getValues() {
+            return values;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (columnType) {
+                case EseColumn.COLUMN_TYPE_BOOLEAN:
+                    return values[row] != 0;
+                case EseColumn.COLUMN_TYPE_INTEGER_16BIT_SIGNED:
+                    return (short) values[row];
+                default:
+                    return values[row];
+            }
+        }
+
+        /* Rows not NULL with min <= value <= max */
+        public BitSet between(int min, int max) {
+            long[] words = new long[present.length];
+            for (int w = 0; w < words.length; w++) {
+                int base = w << 6;
+                int end = Math.min(64, numberOfRows - base);
+                long bits = 0;
+                for (int b = 0; b < end; b++) {
+                    int value = values[base + b];
+                    bits |= (value >= min & value <= max ? 1L : 0L) << b;
+                }
+                words[w] = bits & present[w];
+            }
+            return BitSet.valueOf(words);
+        }
+
+        public BitSet equalTo(int value) {
+            return between(value, value);
+        }
+
+        public BitSet matching(IntPredicate predicate) {
+            long[] words = new long[present.length];
+            for (int row = 0; row < numberOfRows; row++) {
+                if (predicate.test(values[row])) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+            for (int w = 0; w < words.length; w++) {
+                words[w] &= present[w];
+            }
+            return BitSet.valueOf(words);
+        }
+
+        @Override
+        void add(int row, Object value) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            if (value == null) {
+                return;
+            }
+            values[row] = value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Number) value).intValue();
+            setPresent(row);
+        }
+
+        @Override
+        void trim(int numberOfRows) {
+            values = Arrays.copyOf(values, numberOfRows);
+            trimPresent(numberOfRows);
+        }
+
+        @Override
+        long getHeapBytes() {
+            return (4L * values.length) + (8L * present.length);
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+            writePresent(out);
+        }
+
+        @Override
+        void read(DataInput in, int numberOfRows) throws IOException {
+            values = new int[numberOfRows];
+            for (int row = 0; row < numberOfRows; row++) {
+                values[row] = in.readInt();
+            }
+            readPresent(in, numberOfRows);
+        }
+    }
+
+    public static final class LongColumn extends NumericColumn {
+
+        private long[] values;
+
+        LongColumn(int columnType, int capacity) {
+            super(columnType, capacity);
+            values = new long[capacity];
+        }
+
+        /* The value, 0 for NULL. Raw bits for FLOAT_32BIT and DOUBLE_64BIT columns */
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        /* The values, 0 for NULL, by row. Not a copy */
+        public long[] getValues() {
+            return values;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (columnType) {
+                case EseColumn.COLUMN_TYPE_FLOAT_32BIT:
+                    return Float.intBitsToFloat((int) values[row]);
+                case EseColumn.COLUMN_TYPE_DOUBLE_64BIT:
+                    return Double.longBitsToDouble(values[row]);
+                default:
+                    return values[row];
+            }
+        }
+
+        /* Rows not NULL with min <= value <= max, e.g. a FILETIME range */
+        public BitSet between(long min, long max) {
+            long[] words = new long[present.length];
+            for (int w = 0; w < words.length; w++) {
+                int base = w << 6;
+                int end = Math.min(64, numberOfRows - base);
+                long bits = 0;
+                for (int b = 0; b < end; b++) {
+                    long value = values[base + b];
+                    bits |= (value >= min & value <= max ? 1L : 0L) << b;
+                }
+                words[w] = bits & present[w];
+            }
+            return BitSet.valueOf(words);
+        }
+
+        public BitSet equalTo(long value) {
+            return between(value, value);
+        }
+
+        public BitSet matching(LongPredicate predicate) {
+            long[] words = new long[present.length];
+            for (int row = 0; row < numberOfRows; row++) {
+                if (predicate.test(values[row])) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+            for (int w = 0; w < words.length; w++) {
+                words[w] &= present[w];
+            }
+            return BitSet.valueOf(words);
+        }
+
+        @Override
+        void add(int row, Object value) {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            if (value == null) {
+                return;
+            }
+            if (value instanceof Float) {
+                values[row] = Float.floatToRawIntBits((Float) value);
+            } else if (value instanceof Double) {
+                values[row] = Double.doubleToRawLongBits((Double) value);
+            } else {
+                values[row] = ((Number) value).longValue();
+            }
+            setPresent(row);
+        }
+
+        @Override
+        void trim(int numberOfRows) {
+            values = Arrays.copyOf(values, numberOfRows);
+            trimPresent(numberOfRows);
+        }
+
+        @Override
+        long getHeapBytes() {
+            return (8L * values.length) + (8L * present.length);
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            for (long value : values) {
+                out.writeLong(value);
+            }
+            writePresent(out);
+        }
+
+        @Override
+        void read(DataInput in, int numberOfRows) throws IOException {
+            values = new long[numberOfRows];
+            for (int row = 0; row < numberOfRows; row++) {
+                values[row] = in.readLong();
+            }
+            readPresent(in, numberOfRows);
+        }
+    }
+
+    public static final class StringColumn extends Column {
+
+        private final EsedbStringPool pool = new EsedbStringPool();
+        private int[] codes;
+        private int numberOfRows;
+
+        StringColumn(int columnType, int capacity) {
+            super(columnType);
+            codes = new int[capacity];
+        }
+
+        public EsedbStringPool getPool() {
+            return pool;
+        }
+
+        /* Code of the string in the pool, -1 for NULL */
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        /* The codes by row. Not a copy */
+        public int[] getCodes() {
+            return codes;
+        }
+
+        public String getString(int row) {
+            return codes[row] < 0 ? null : pool.get(codes[row]);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return getString(row);
+        }
+
+        @Override
+        public BitSet notNull() {
+            long[] words = new long[(numberOfRows + 63) >>> 6];
+            for (int row = 0; row < numberOfRows; row++) {
+                words[row >>> 6] |= (codes[row] >= 0 ? 1L : 0L) << row;
+            }
+            return BitSet.valueOf(words);
+        }
+
+        public BitSet equalTo(String value) {
+            int code = pool.find(value);
+            long[] words = new long[(numberOfRows + 63) >>> 6];
+            if (code >= 0) {
+                for (int row = 0; row < numberOfRows; row++) {
+                    words[row >>> 6] |= (codes[row] == code ? 1L : 0L) << row;
+                }
+            }
+            return BitSet.valueOf(words);
+        }
+
+        /* Rows whose string matches, the predicate is called once per distinct string */
+        public BitSet matching(Predicate<String> predicate) {
+            boolean[] matches = new boolean[pool.size()];
+            for (int code = 0; code < matches.length; code++) {
+                matches[code] = predicate.test(pool.get(code));
+            }
+            long[] words = new long[(numberOfRows + 63) >>> 6];
+            for (int row = 0; row < numberOfRows; row++) {
+                int code = codes[row];
+                words[row >>> 6] |= (code >= 0 && matches[code] ? 1L : 0L) << row;
+            }
+            return BitSet.valueOf(words);
+        }
+
+        @Override
+        void add(int row, Object value) {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            if (value == null) {
+                codes[row] = -1;
+            } else if (value instanceof byte[]) {
+                codes[row] = pool.intern(EsedbCodec.toHex((byte[]) value));
+            } else {
+                codes[row] = pool.intern(value.toString());
+            }
+        }
+
+        @Override
+        void trim(int numberOfRows) {
+            this.numberOfRows = numberOfRows;
+            codes = Arrays.copyOf(codes, numberOfRows);
+        }
+
+        @Override
+        long getHeapBytes() {
+            return (4L * codes.length) + pool.getHeapBytes();
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            pool.writeTo(out);
+            for (int code : codes) {
+                out.writeInt(code);
+            }
+        }
+
+        @Override
+        void read(DataInput in, int numberOfRows) throws IOException {
+            pool.readFrom(in);
+            this.numberOfRows = numberOfRows;
+            codes = new int[numberOfRows];
+            for (int row = 0; row < numberOfRows; row++) {
+                codes[row] = in.readInt();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Dictionary of distinct strings, stored once as UTF-8 in off-heap memory and referred to by int codes (0, 1, 2, ...)
+ * in the order they were first added.
+ * The heap only holds the offsets of the strings and an open-addressing hash table of codes, about 12 bytes per distinct
+ * string, whatever their length. Lookups hash the UTF-8 bytes and compare them against the pool, no String is kept.
+ * Bytes may be interned straight from a (direct) ByteBuffer, so a value already in the pool costs no allocation.
+ * Not thread-safe while strings are added; once filled it can be read from several threads.
+ */
+public final class EsedbStringPool {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int EMPTY = -1;
+
+    private ByteBuffer data;
+    private int[] offsets;
+    private int size;
+    private int[] table;
+
+    public EsedbStringPool() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public EsedbStringPool(int initialBytes) {
+        data = ByteBuffer.allocateDirect(Math.max(initialBytes, 16));
+        offsets = new int[64];
+        table = new int[128];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /* Number of distinct strings */
+    public int size() {
+        return size;
+    }
+
+    /* Code of the string, added if not in the pool yet */
+    public int intern(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return intern(bytes, 0, bytes.length);
+    }
+
+    public int intern(byte[] bytes, int offset, int length) {
+        return intern(ByteBuffer.wrap(bytes), offset, length);
+    }
+
+    /* Code of the UTF-8 bytes at offset of the buffer, its position is left unchanged */
+    public int intern(ByteBuffer bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int code = table[slot];
+            if (code == EMPTY) {
+                code = add(bytes, offset, length);
+                table[slot] = code;
+                if ((size * 2) > table.length) {
+                    rehash();
+                }
+                return code;
+            }
+            if (equals(code, bytes, offset, length)) {
+                return code;
+            }
+        }
+    }
+
+    /* Code of the string, -1 if it is not in the pool */
+    public int find(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int slot = hash(buffer, 0, bytes.length) & mask; ; slot = (slot + 1) & mask) {
+            int code = table[slot];
+            if (code == EMPTY || equals(code, buffer, 0, bytes.length)) {
+                return code;
+            }
+        }
+    }
+
+    public String get(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("String code " + code + " of " + size);
+        }
+        byte[] bytes = new byte[length(code)];
+        ByteBuffer view = data.duplicate();
+        view.position(offsets[code]);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* Length in UTF-8 bytes */
+    public int length(int code) {
+        return (code + 1 < size ? offsets[code + 1] : data.position()) - offsets[code];
+    }
+
+    /* Bytes used by the strings off-heap, and reserved */
+    public long getOffHeapBytes() {
+        return data.position();
+    }
+
+    public long getOffHeapCapacity() {
+        return data.capacity();
+    }
+
+    /* Approximate heap bytes of the offsets and the hash table */
+    public long getHeapBytes() {
+        return 4L * (offsets.length + table.length);
+    }
+
+    /* The strings in code order, each as its length and UTF-8 bytes */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        byte[] bytes = new byte[256];
+        for (int code = 0; code < size; code++) {
+            int length = length(code);
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            for (int i = 0; i < length; i++) {
+                bytes[i] = data.get(offsets[code] + i);
+            }
+            out.writeInt(length);
+            out.write(bytes, 0, length);
+        }
+    }
+
+    /* Adds the strings written by writeTo, codes are kept if the pool was empty */
+    void readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            in.readFully(bytes, 0, length);
+            intern(bytes, 0, length);
+        }
+    }
+
+    private int add(ByteBuffer bytes, int offset, int length) {
+        if (data.remaining() < length) {
+            int capacity = data.capacity();
+            while (capacity - data.position() < length) {
+                capacity = Math.multiplyExact(capacity, 2);
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            data.flip();
+            grown.put(data);
+            data = grown;
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        offsets[size] = data.position();
+        ByteBuffer source = bytes.duplicate();
+        source.limit(offset + length).position(offset);
+        data.put(source);
+        return size++;
+    }
+
+    private boolean equals(int code, ByteBuffer bytes, int offset, int length) {
+        if (length(code) != length) {
+            return false;
+        }
+        int start = offsets[code];
+        for (int i = 0; i < length; i++) {
+            if (data.get(start + i) != bytes.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, EMPTY);
+        int mask = table.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = hash(data, offsets[code], length(code)) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code;
+        }
+    }
+
+    /* FNV-1a of the bytes, spread so the low bits used for the slot depend on all of them */
+    private static int hash(ByteBuffer bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (bytes.get(offset + i) & 0xff)) * 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
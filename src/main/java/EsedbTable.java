@@ -0,0 +1,187 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Table of an EsedbFile.
+ * records() streams the rows lazily: each record handle is fetched when the stream asks for the next row
+ * and freed as soon as its values are copied into an EsedbRow, so memory stays constant whatever the table size.
+ * Close the stream (or the table) when it is not read to the end, parallel streams hold extra file handles.
+ */
+public class EsedbTable implements AutoCloseable {
+
+    /* Entry of a table opened by name, libesedb does not tell it */
+    public static final int UNKNOWN_ENTRY = -1;
+
+    private final EsedbFile file;
+    private final EsedbLibrary library;
+    private final int entry;
+    private final String name;
+
+    private final PointerByReference tablePointerReference;
+    private final EsedbHandles.Handle handle;
+
+    private Pointer table;
+    private EsedbSchema schema;
+
+    EsedbTable(EsedbFile file, int entry, PointerByReference tablePointerReference) {
+        this.file = file;
+        this.library = file.getLibrary();
+        this.entry = entry;
+        this.tablePointerReference = tablePointerReference;
+        this.table = tablePointerReference.getValue();
+        this.handle = EsedbHandles.register(this, EsedbHandles.Kind.TABLE, file.getHandle(), free(library, tablePointerReference));
+        try {
+            this.name = readName();
+        } catch (RuntimeException ex) {
+            handle.close();
+            throw ex;
+        }
+    }
+
+    /* Frees the table, must not refer to the EsedbTable */
+    private static Runnable free(EsedbLibrary library, PointerByReference tablePointerReference) {
+        return () -> {
+            PointerByReference errorPointer = EsedbHandles.errorPointer();
+            EsedbException.check(library, "Table Free", library.libesedb_table_free(tablePointerReference, errorPointer), errorPointer);
+        };
+    }
+
+    private String readName() {
+        LongByReference nameSize = new LongByReference();
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "Table Get UTF8 Name Size",
+                library.libesedb_table_get_utf8_name_size(table, nameSize, errorPointer), errorPointer);
+        if (nameSize.getValue() <= 0) {
+            return "";
+        }
+        Memory utf8Name = new Memory(nameSize.getValue());
+        EsedbException.check(library, "Table Get UTF8 Name",
+                library.libesedb_table_get_utf8_name(table, utf8Name, (int) nameSize.getValue(), errorPointer), errorPointer);
+        return utf8Name.getString(0, "UTF-8");
+    }
+
+    public EsedbFile getFile() {
+        return file;
+    }
+
+    /* UNKNOWN_ENTRY if the table was opened by name */
+    public int getEntry() {
+        return entry;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNumberOfRecords() {
+        LongByReference numberOfRecords = new LongByReference();
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "Table Get Number of Records",
+                library.libesedb_table_get_number_of_records(checkOpen(), numberOfRecords, errorPointer), errorPointer);
+        return numberOfRecords.getValue();
+    }
+
+    /* Asked to libesedb until the schema is read, without reading the column definitions */
+    public int getNumberOfColumns() {
+        if (schema != null) {
+            return schema.getNumberOfColumns();
+        }
+        IntByReference numberOfColumns = new IntByReference();
+        PointerByReference errorPointer = EsedbHandles.errorPointer();
+        EsedbException.check(library, "Table Get Number of Columns",
+                library.libesedb_table_get_number_of_columns(checkOpen(), numberOfColumns, EsedbSchema.COLUMN_FLAGS, errorPointer), errorPointer);
+        return numberOfColumns.getValue();
+    }
+
+    public List<String> getColumnNames() {
+        EsedbSchema schema = getSchema();
+        List<String> names = new ArrayList<>(schema.getNumberOfColumns());
+        for (int i = 0; i < schema.getNumberOfColumns(); i++) {
+            names.add(schema.getColumnName(i));
+        }
+        return names;
+    }
+
+    /* Read on first use, shared with the other tables of the same layout */
+    public EsedbSchema getSchema() {
+        if (schema == null) {
+            schema = EsedbSchema.read(library, checkOpen(), EsedbHandles.errorPointer());
+        }
+        return schema;
+    }
+
+    /*
+     * Lazily evaluated stream of all records, in record order.
+     * The stream may be parallel: splits of the record range read through their own file and table handles,
+     * which are freed when the split is exhausted or the stream is closed.
+     */
+    public Stream<EsedbRow> records() {
+        return records(getSchema().all());
+    }
+
+    /*
+     * Same as records(), reading only the named columns
+     */
+    public Stream<EsedbRow> records(String... columns) {
+        return records(getSchema().project(Arrays.asList(columns)));
+    }
+
+    public Stream<EsedbRow> records(EsedbProjection projection) {
+        ConcurrentLinkedQueue<EsedbFile> splitFiles = new ConcurrentLinkedQueue<>();
+        EsedbRecordSpliterator spliterator = new EsedbRecordSpliterator(this, checkOpen(), 0, getNumberOfRecords(),
+                projection, splitFiles);
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            for (EsedbFile splitFile; (splitFile = splitFiles.poll()) != null; ) {
+                splitFile.close();
+            }
+        });
+    }
+
+    /*
+     * Opens the record at entry, to be closed by the caller. Prefer records() or EsedbRecordReader to read many.
+     */
+    public EsedbRecord record(long recordEntry) {
+        return new EsedbRecord(this, (int) recordEntry);
+    }
+
+    /*
+     * Opens the column at entry, to be closed by the caller
+     */
+    public EsedbColumn column(int columnEntry) {
+        return new EsedbColumn(library, checkOpen(), columnEntry, handle);
+    }
+
+    EsedbHandles.Handle getHandle() {
+        return handle;
+    }
+
+    Pointer getPointer() {
+        return checkOpen();
+    }
+
+    private Pointer checkOpen() {
+        if (table == null || handle.isClosed()) {
+            throw new IllegalStateException("Table is closed: " + name);
+        }
+        return table;
+    }
+
+    @Override
+    public void close() {
+        if (table == null) {
+            return;
+        }
+        table = null;
+        file.release(this);
+        handle.close();
+    }
+}
@@ -0,0 +1,259 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * Timeline mode (--timeline): the rows of every table listed, and of every file in batch mode, written in the order of
+ * one timestamp column (AccessedTime, ModifiedTime...) instead of table by table in storage order.
+ *
+ * Rows are formatted as they are read, each tagged with its table or file, and kept with their timestamp until about
+ * runBytes of text are held. That run is then sorted and spilled to a temporary file of the directory. finish writes
+ * the rows to the sink: sorted in memory if nothing was spilled, else by a k-way merge of the runs through a heap of
+ * their next rows, reading each run sequentially. Memory stays about runBytes (esedb.timeline.runBytes, by default
+ * 64 MiB) plus one buffer per run, whatever the number of rows.
+ *
+ * Rows of equal timestamp keep the order they were added in, rows whose timestamp is NULL come last. The header is the
+ * one of the first table, list tables of different layouts with --columns. Rows may be added from several threads.
+ */
+public final class EsedbTimeline implements Closeable {
+
+    static final String TABLE_COLUMN = "SourceTable";
+    static final long DEFAULT_RUN_BYTES = 64L << 20;
+
+    /* Estimated heap cost of a row besides its characters */
+    private static final int ROW_OVERHEAD = 64;
+    private static final int RUN_BUFFER_SIZE = 64 * 1024;
+
+    private final EsedbSink sink;
+    private final String column;
+    private final Path directory;
+    private final long runBytes;
+
+    private final List<Path> runs = new ArrayList<>();
+    private long[] keys = new long[1024];
+    private String[] texts = new String[1024];
+    private int size;
+    private long bytes;
+    private long rows;
+    private int spilled;
+
+    private EsedbProjection lastProjection;
+    private int lastKeyIndex;
+
+    public EsedbTimeline(EsedbSink sink, String column, Path directory, long runBytes) {
+        if (runBytes < 1) {
+            throw new IllegalArgumentException("run size must be at least 1 byte");
+        }
+        this.sink = sink;
+        this.column = column;
+        this.directory = directory;
+        this.runBytes = runBytes;
+    }
+
+    static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    static long getDefaultRunBytes() {
+        return Long.getLong("esedb.timeline.runBytes", DEFAULT_RUN_BYTES);
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /* Rows added */
+    public synchronized long getNumberOfRows() {
+        return rows;
+    }
+
+    /* Runs spilled to disk, the last one by finish */
+    public synchronized int getNumberOfRuns() {
+        return spilled;
+    }
+
+    /*
+     * Adds a row of the projection, tagged with tag in a leading tagName column. The projection must hold the column
+     * of the timeline, IllegalArgumentException otherwise. Throws IOException if a run cannot be spilled.
+     */
+    public synchronized void add(EsedbProjection projection, String tagName, String tag, Object[] values) throws IOException {
+        if (projection != lastProjection) {
+            lastKeyIndex = projection.indexOf(column);
+            if (lastKeyIndex < 0) {
+                throw new IllegalArgumentException("Timeline column not listed: " + column);
+            }
+            lastProjection = projection;
+            sink.writeHeader(tagName, projection);
+        }
+        Object key = values[lastKeyIndex];
+        StringBuilder builder = new StringBuilder(256);
+        sink.appendRow(builder, tagName, tag, projection, values);
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        keys[size] = key instanceof Number ? ((Number) key).longValue() : Long.MAX_VALUE;
+        texts[size] = builder.toString();
+        size++;
+        rows++;
+        bytes += (builder.length() * 2L) + ROW_OVERHEAD;
+        if (bytes >= runBytes) {
+            spill();
+        }
+    }
+
+    /*
+     * Writes every row to the sink in timeline order and deletes the runs, returns the number of rows written
+     */
+    public synchronized long finish() throws IOException {
+        int[] order = sort();
+        if (runs.isEmpty()) {
+            for (int i : order) {
+                sink.write(texts[i]);
+            }
+            long written = size;
+            clear();
+            return written;
+        }
+        spill(order);
+
+        PriorityQueue<Run> heap = new PriorityQueue<>(runs.size(), (a, b) -> a.key != b.key
+                ? Long.compare(a.key, b.key) : Integer.compare(a.number, b.number));
+        List<Run> opened = new ArrayList<>(runs.size());
+        long written = 0;
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = new Run(runs.get(i), i);
+                opened.add(run);
+                if (run.next()) heap.add(run);
+            }
+            for (Run run; (run = heap.poll()) != null; ) {
+                sink.write(run.text);
+                written++;
+                if (run.next()) heap.add(run);
+            }
+        } finally {
+            for (Run run : opened) {
+                run.close();
+            }
+            close();
+        }
+        return written;
+    }
+
+    /* Deletes the runs not merged yet */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException error = null;
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException ex) {
+                error = ex;
+            }
+        }
+        runs.clear();
+        clear();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void spill() throws IOException {
+        spill(sort());
+    }
+
+    /* Writes the rows held in the order given to a new run and forgets them */
+    private void spill(int[] order) throws IOException {
+        Path run = Files.createTempFile(directory, "esedb-timeline", ".run");
+        runs.add(run);
+        spilled++;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), RUN_BUFFER_SIZE))) {
+            for (int i : order) {
+                byte[] text = texts[i].getBytes(StandardCharsets.UTF_8);
+                out.writeLong(keys[i]);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+        clear();
+    }
+
+    private void clear() {
+        Arrays.fill(texts, 0, size, null);
+        size = 0;
+        bytes = 0;
+    }
+
+    /* Indexes of the rows held by timestamp, stable: a merge sort of the indexes on the primitive keys */
+    private int[] sort() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int middle = Math.min(low + width, size);
+                int high = Math.min(low + (2 * width), size);
+                int left = low;
+                int right = middle;
+                for (int k = low; k < high; k++) {
+                    if (left < middle && (right >= high || keys[order[left]] <= keys[order[right]])) {
+                        buffer[k] = order[left++];
+                    } else {
+                        buffer[k] = order[right++];
+                    }
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    /* A spilled run read back row by row */
+    private static final class Run implements Closeable {
+
+        private final DataInputStream in;
+        private final int number;
+        private long key;
+        private String text;
+
+        Run(Path path, int number) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), RUN_BUFFER_SIZE));
+            this.number = number;
+        }
+
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException ex) {
+                return false;
+            }
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            text = new String(data, StandardCharsets.UTF_8);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/*
+ * Java decoding of raw fixed size ESE values, as copied by libesedb_record_get_value_data or read from the
+ * page by EseRecord. The buffer must be little-endian.
+ *   BOOLEAN                                             Boolean
+ *   INTEGER_8BIT_UNSIGNED, INTEGER_16BIT_UNSIGNED       Integer
+ *   INTEGER_16BIT_SIGNED                                Short
+ *   INTEGER_32BIT_SIGNED                                Integer
+ *   INTEGER_32BIT_UNSIGNED                              Long
+ *   CURRENCY, INTEGER_64BIT_SIGNED                      Long
+ *   DATE_TIME                                           Long, FILETIME (100 ns intervals since 1601-01-01 UTC)
+ *   FLOAT_32BIT                                         Float
+ *   DOUBLE_64BIT                                        Double
+ *   GUID                                                UUID
+ * Variable size types are TEXT and LARGE_TEXT (String), BINARY_DATA, LARGE_BINARY_DATA and SUPER_LARGE_VALUE (byte[]).
+ */
+final class EsedbValueDecoder {
+
+    private EsedbValueDecoder() {
+    }
+
+    static boolean isFixedSize(int columnType) {
+        return EseColumn.getFixedSize(columnType) > 0;
+    }
+
+    static boolean isBinary(int columnType) {
+        return columnType == EseColumn.COLUMN_TYPE_BINARY_DATA
+                || columnType == EseColumn.COLUMN_TYPE_LARGE_BINARY_DATA
+                || columnType == EseColumn.COLUMN_TYPE_SUPER_LARGE_VALUE;
+    }
+
+    /*
+     * Decodes the fixed size value at offset, null for variable size types
+     */
+    static Object decodeFixed(int columnType, ByteBuffer data, int offset) {
+        switch (columnType) {
+            case EseColumn.COLUMN_TYPE_BOOLEAN:
+                return data.get(offset) != 0;
+            case EseColumn.COLUMN_TYPE_INTEGER_8BIT_UNSIGNED:
+                return data.get(offset) & 0xff;
+            case EseColumn.COLUMN_TYPE_INTEGER_16BIT_SIGNED:
+                return data.getShort(offset);
+            case EseColumn.COLUMN_TYPE_INTEGER_16BIT_UNSIGNED:
+                return data.getShort(offset) & 0xffff;
+            case EseColumn.COLUMN_TYPE_INTEGER_32BIT_SIGNED:
+                return data.getInt(offset);
+            case EseColumn.COLUMN_TYPE_INTEGER_32BIT_UNSIGNED:
+                return data.getInt(offset) & 0xffffffffL;
+            case EseColumn.COLUMN_TYPE_CURRENCY:
+            case EseColumn.COLUMN_TYPE_DATE_TIME:
+            case EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED:
+                return data.getLong(offset);
+            case EseColumn.COLUMN_TYPE_FLOAT_32BIT:
+                return data.getFloat(offset);
+            case EseColumn.COLUMN_TYPE_DOUBLE_64BIT:
+                return data.getDouble(offset);
+            case EseColumn.COLUMN_TYPE_GUID:
+                return decodeGuid(data, offset);
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * Windows GUID layout: Data1, Data2 and Data3 little-endian, Data4 as stored
+     */
+    static UUID decodeGuid(ByteBuffer data, int offset) {
+        long data1 = data.getInt(offset) & 0xffffffffL;
+        long data2 = data.getShort(offset + 4) & 0xffffL;
+        long data3 = data.getShort(offset + 6) & 0xffffL;
+        long data4 = 0;
+        for (int i = 8; i < 16; i++) {
+            data4 = (data4 << 8) | (data.get(offset + i) & 0xff);
+        }
+        return new UUID((data1 << 32) | (data2 << 16) | data3, data4);
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * --values-dir: the long values and multi-values of the listed columns, which the rows leave empty, streamed into
+ * files of a directory as <table>/<record entry>-<column>.bin, and <record entry>-<column>-<index>.bin for each value
+ * of a multi-value. The row gets the names of the files, relative to the directory and separated by ';', instead.
+ *
+ * Values are copied by EsedbRecordReader.writeValue (EseRecord.writeValue with the java reader, multi-values only)
+ * a chunk at a time, so values of any size are listed with bounded memory. Write errors are thrown as
+ * UncheckedIOException, as the export runs inside the record formatters. Safe for the scanner threads.
+ */
+final class EsedbValueExport {
+
+    private final Path directory;
+
+    EsedbValueExport(Path directory) {
+        this.directory = directory;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /* Writes the values readValues left null of the current record of reader */
+    void export(EsedbRecordReader reader, String tableName, EsedbProjection projection, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            int entry = projection.getValueEntry(i);
+            if (values[i] != null || entry < 0 || EsedbValueDecoder.isFixedSize(projection.getColumnType(i))) {
+                continue;
+            }
+            String columnName = projection.getColumnName(i);
+            List<String> names = new ArrayList<>();
+            try {
+                reader.writeValue(entry, (index, count) -> open(tableName, reader.getRecordEntry(), columnName, index, count, names));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (!names.isEmpty()) values[i] = String.join(";", names);
+        }
+    }
+
+    /* Same, for a record of the java reader */
+    void export(EseRecord record, String tableName, int recordEntry, EsedbProjection projection, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            int entry = projection.getValueEntry(i);
+            if (values[i] != null || entry < 0 || EsedbValueDecoder.isFixedSize(projection.getColumnType(i))) {
+                continue;
+            }
+            String columnName = projection.getColumnName(i);
+            List<String> names = new ArrayList<>();
+            try {
+                record.writeValue(entry, (index, count) -> open(tableName, recordEntry, columnName, index, count, names));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (!names.isEmpty()) values[i] = String.join(";", names);
+        }
+    }
+
+    private FileChannel open(String tableName, int recordEntry, String columnName, int index, int count, List<String> names)
+            throws IOException {
+        String name = tableName + "/" + recordEntry + "-" + columnName + (count > 1 || index > 0 ? "-" + index : "") + ".bin";
+        Path path = directory.resolve(name);
+        Files.createDirectories(path.getParent());
+        names.add(name);
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+}
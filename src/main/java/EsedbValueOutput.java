@@ -0,0 +1,12 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/*
+ * Destination of the values streamed by EsedbRecordReader.writeValue and EseRecord.writeValue: one channel per value,
+ * closed by the writer once the value is written.
+ */
+public interface EsedbValueOutput {
+
+    /* Channel for the value index of count, count is 1 for a long value */
+    WritableByteChannel open(int index, int count) throws IOException;
+}
@@ -0,0 +1,863 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.*;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+import static java.lang.foreign.ValueLayout.*;
+
+/*
+ * EsedbLibrary backend using java.lang.foreign downcall handles (JDK 22 or later).
+ * The downcall handles are linked once. libesedb only ever gets memory this class owns: the out-params and value
+ * buffers of each thread are MemorySegments of its own Arena (OutParams), reused by every call. Their values are
+ * copied into the caller's JNA references and buffers once the call returned, the in-out ones (the handle of a
+ * *_free, the error, a value buffer) copied in first. size_t is SIZE_T (64-bit platforms only), uint8_t a byte.
+ * Only compiled by the "ffm" profile, see pom.xml.
+ */
+final class EsedbForeignLibrary implements EsedbLibrary {
+
+    /* size_t, libesedb is only loaded on 64-bit platforms */
+    private static final ValueLayout.OfLong SIZE_T = JAVA_LONG;
+
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final SymbolLookup LOOKUP =
+            SymbolLookup.libraryLookup(System.mapLibraryName(EsedbBackend.LIBRARY_NAME), Arena.global());
+
+    private static final MethodHandle LIBESEDB_GET_VERSION = downcall("libesedb_get_version", ADDRESS);
+    private static final MethodHandle LIBESEDB_CHECK_FILE_SIGNATURE = downcall("libesedb_check_file_signature", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_INITIALIZE = downcall("libesedb_file_initialize", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_FREE = downcall("libesedb_file_free", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_OPEN = downcall("libesedb_file_open", JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_GET_TYPE = downcall("libesedb_file_get_type", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_CLOSE = downcall("libesedb_file_close", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_GET_NUMBER_OF_TABLES = downcall("libesedb_file_get_number_of_tables", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_GET_TABLE = downcall("libesedb_file_get_table", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_FILE_GET_TABLE_BY_UTF8_NAME = downcall("libesedb_file_get_table_by_utf8_name", JAVA_INT, ADDRESS, ADDRESS, SIZE_T, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_GET_UTF8_NAME_SIZE = downcall("libesedb_table_get_utf8_name_size", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_GET_UTF8_NAME = downcall("libesedb_table_get_utf8_name", JAVA_INT, ADDRESS, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_GET_NUMBER_OF_COLUMNS = downcall("libesedb_table_get_number_of_columns", JAVA_INT, ADDRESS, ADDRESS, JAVA_BYTE, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_GET_COLUMN = downcall("libesedb_table_get_column", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, JAVA_BYTE, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_GET_NUMBER_OF_RECORDS = downcall("libesedb_table_get_number_of_records", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_GET_RECORD = downcall("libesedb_table_get_record", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_TABLE_FREE = downcall("libesedb_table_free", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_COLUMN_GET_TYPE = downcall("libesedb_column_get_type", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_COLUMN_GET_UTF8_NAME_SIZE = downcall("libesedb_column_get_utf8_name_size", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_COLUMN_GET_UTF8_NAME = downcall("libesedb_column_get_utf8_name", JAVA_INT, ADDRESS, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_COLUMN_FREE = downcall("libesedb_column_free", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_NUMBER_OF_VALUES = downcall("libesedb_record_get_number_of_values", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_COLUMN_IDENTIFIER = downcall("libesedb_record_get_column_identifier", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_COLUMN_TYPE = downcall("libesedb_record_get_column_type", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_UTF8_COLUMN_NAME_SIZE = downcall("libesedb_record_get_utf8_column_name_size", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_DATA_FLAGS = downcall("libesedb_record_get_value_data_flags", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_UTF8_COLUMN_NAME = downcall("libesedb_record_get_utf8_column_name", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_DATA_SIZE = downcall("libesedb_record_get_value_data_size", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_DATA = downcall("libesedb_record_get_value_data", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_UTF8_STRING_SIZE = downcall("libesedb_record_get_value_utf8_string_size", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_UTF8_STRING = downcall("libesedb_record_get_value_utf8_string", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_UTF16_STRING_SIZE = downcall("libesedb_record_get_value_utf16_string_size", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_UTF16_STRING = downcall("libesedb_record_get_value_utf16_string", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_32BIT = downcall("libesedb_record_get_value_32bit", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_VALUE_64BIT = downcall("libesedb_record_get_value_64bit", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_IS_LONG_VALUE = downcall("libesedb_record_is_long_value", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_LONG_VALUE = downcall("libesedb_record_get_long_value", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_LONG_VALUE_GET_NUMBER_OF_DATA_SEGMENTS = downcall("libesedb_long_value_get_number_of_data_segments", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_LONG_VALUE_GET_DATA_SEGMENT_SIZE = downcall("libesedb_long_value_get_data_segment_size", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_LONG_VALUE_GET_DATA_SEGMENT = downcall("libesedb_long_value_get_data_segment", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_LONG_VALUE_FREE = downcall("libesedb_long_value_free", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_IS_MULTI_VALUE = downcall("libesedb_record_is_multi_value", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_GET_MULTI_VALUE = downcall("libesedb_record_get_multi_value", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_MULTI_VALUE_GET_NUMBER_OF_VALUES = downcall("libesedb_multi_value_get_number_of_values", JAVA_INT, ADDRESS, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_MULTI_VALUE_GET_VALUE_DATA_SIZE = downcall("libesedb_multi_value_get_value_data_size", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_MULTI_VALUE_GET_VALUE_DATA = downcall("libesedb_multi_value_get_value_data", JAVA_INT, ADDRESS, JAVA_INT, ADDRESS, SIZE_T, ADDRESS);
+    private static final MethodHandle LIBESEDB_MULTI_VALUE_FREE = downcall("libesedb_multi_value_free", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_RECORD_FREE = downcall("libesedb_record_free", JAVA_INT, ADDRESS, ADDRESS);
+    private static final MethodHandle LIBESEDB_ERROR_FREE = downcall("libesedb_error_free", null, ADDRESS);
+
+    private static MethodHandle downcall(String name, MemoryLayout result, MemoryLayout... arguments) {
+        MemorySegment symbol = LOOKUP.find(name).orElseThrow(() -> new UnsatisfiedLinkError(name));
+        FunctionDescriptor descriptor = result == null
+                ? FunctionDescriptor.ofVoid(arguments)
+                : FunctionDescriptor.of(result, arguments);
+        return LINKER.downcallHandle(symbol, descriptor);
+    }
+
+    /* Per thread out-params, allocated once */
+    private static final ThreadLocal<OutParams> OUT_PARAMS = ThreadLocal.withInitial(OutParams::new);
+
+    /*
+     * The out-params handed to libesedb by the calls of one thread. Freed with the arena once the thread is gone,
+     * a value buffer outgrown on its own.
+     */
+    private static final class OutParams {
+
+        private final Arena arena = Arena.ofAuto();
+        private final MemorySegment error = arena.allocate(ADDRESS);
+        private final MemorySegment pointer = arena.allocate(ADDRESS);
+        private final MemorySegment int32 = arena.allocate(JAVA_INT);
+        private final MemorySegment int64 = arena.allocate(JAVA_LONG);
+        private final MemorySegment size = arena.allocate(SIZE_T);
+        private final MemorySegment uint8 = arena.allocate(JAVA_BYTE);
+        private MemorySegment data = arena.allocate(256);
+
+        /* The error, set to the caller's one */
+        MemorySegment error(PointerByReference reference) {
+            error.set(JAVA_LONG, 0, view(reference.getPointer(), 8).get(JAVA_LONG, 0));
+            return error;
+        }
+
+        /* The pointer, set to the caller's one: NULL for the handle a call returns, the handle a *_free frees */
+        MemorySegment pointer(PointerByReference reference) {
+            pointer.set(JAVA_LONG, 0, view(reference.getPointer(), 8).get(JAVA_LONG, 0));
+            return pointer;
+        }
+
+        /* A buffer of at least length bytes for a string */
+        MemorySegment buffer(int length) {
+            if (data.byteSize() < length) {
+                data = Arena.ofAuto().allocate(Math.max(length, 2 * data.byteSize()));
+            }
+            return data;
+        }
+
+        /* Same, holding the bytes of the caller's buffer: those libesedb does not write stay as they were */
+        MemorySegment data(Memory buffer, int length) {
+            long copied = Math.min(length, buffer.size());
+            MemorySegment.copy(view(buffer, copied), 0, buffer(length), 0, copied);
+            return data;
+        }
+
+        /* Copies the error back into the caller's reference, libesedb sets it on failure; returns result */
+        int result(int result, PointerByReference reference) {
+            view(reference.getPointer(), 8).set(JAVA_LONG, 0, error.get(JAVA_LONG, 0));
+            return result;
+        }
+
+        void copyPointer(PointerByReference reference) {
+            view(reference.getPointer(), 8).set(JAVA_LONG, 0, pointer.get(JAVA_LONG, 0));
+        }
+
+        void copyInt(IntByReference reference) {
+            view(reference.getPointer(), 4).set(JAVA_INT, 0, int32.get(JAVA_INT, 0));
+        }
+
+        /* An uint32_t of libesedb into a LongByReference */
+        void copyUnsignedInt(LongByReference reference) {
+            view(reference.getPointer(), 8).set(JAVA_LONG, 0, Integer.toUnsignedLong(int32.get(JAVA_INT, 0)));
+        }
+
+        /* An int of libesedb into a LongByReference */
+        void copySignedInt(LongByReference reference) {
+            view(reference.getPointer(), 8).set(JAVA_LONG, 0, int32.get(JAVA_INT, 0));
+        }
+
+        void copyUnsignedByte(IntByReference reference) {
+            view(reference.getPointer(), 4).set(JAVA_INT, 0, Byte.toUnsignedInt(uint8.get(JAVA_BYTE, 0)));
+        }
+
+        void copySize(LongByReference reference) {
+            view(reference.getPointer(), 8).set(JAVA_LONG, 0, size.get(SIZE_T, 0));
+        }
+
+        void copyLong(LongByReference reference) {
+            view(reference.getPointer(), 8).set(JAVA_LONG, 0, int64.get(JAVA_LONG, 0));
+        }
+
+        void copyData(Memory buffer, int length) {
+            long copied = Math.min(length, buffer.size());
+            MemorySegment.copy(data, 0, view(buffer, copied), 0, copied);
+        }
+    }
+
+    /* The memory of a JNA reference or buffer, only read and written here, never passed to libesedb */
+    private static MemorySegment view(Pointer pointer, long size) {
+        return MemorySegment.ofAddress(Pointer.nativeValue(pointer)).reinterpret(size);
+    }
+
+    private static MemorySegment address(Pointer pointer) {
+        return pointer == null ? MemorySegment.NULL : MemorySegment.ofAddress(Pointer.nativeValue(pointer));
+    }
+
+    private static String getString(MemorySegment string) {
+        return string.equals(MemorySegment.NULL) ? null : string.reinterpret(Long.MAX_VALUE).getString(0);
+    }
+
+    private static RuntimeException rethrow(Throwable ex) {
+        if (ex instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (ex instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(ex);
+    }
+
+    @Override
+    public String libesedb_get_version() {
+        try {
+            return getString((MemorySegment) LIBESEDB_GET_VERSION.invokeExact());
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_check_file_signature(String filename, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try (Arena arena = Arena.ofConfined()) {
+            int result = (int) LIBESEDB_CHECK_FILE_SIGNATURE.invokeExact(arena.allocateFrom(filename), out.error(error));
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_initialize(PointerByReference filePointer, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_FILE_INITIALIZE.invokeExact(out.pointer(filePointer), out.error(error));
+            if (result == 1) {
+                out.copyPointer(filePointer);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_free(PointerByReference file, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_FILE_FREE.invokeExact(out.pointer(file), out.error(error));
+            if (result == 1) {
+                out.copyPointer(file);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_open(Pointer file, String filename, int acessFlags, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try (Arena arena = Arena.ofConfined()) {
+            int result = (int) LIBESEDB_FILE_OPEN.invokeExact(address(file), arena.allocateFrom(filename), acessFlags, out.error(error));
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_type(Pointer file, LongByReference type, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_FILE_GET_TYPE.invokeExact(address(file), out.int32, out.error(error));
+            if (result == 1) {
+                out.copyUnsignedInt(type);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_close(Pointer file, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_FILE_CLOSE.invokeExact(address(file), out.error(error));
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_number_of_tables(Pointer file, IntByReference numberOfTables, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_FILE_GET_NUMBER_OF_TABLES.invokeExact(address(file), out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(numberOfTables);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_table(Pointer file, int tableEntry, PointerByReference table, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_FILE_GET_TABLE.invokeExact(address(file), tableEntry, out.pointer(table), out.error(error));
+            if (result == 1) {
+                out.copyPointer(table);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_file_get_table_by_utf8_name(Pointer file, String utf8_string, int utf8_string_length, PointerByReference table, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try (Arena arena = Arena.ofConfined()) {
+            int result = (int) LIBESEDB_FILE_GET_TABLE_BY_UTF8_NAME.invokeExact(address(file), arena.allocateFrom(utf8_string), (long) utf8_string_length, out.pointer(table), out.error(error));
+            if (result == 1) {
+                out.copyPointer(table);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name_size(Pointer table, LongByReference utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_GET_UTF8_NAME_SIZE.invokeExact(address(table), out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name(Pointer table, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_GET_UTF8_NAME.invokeExact(address(table), out.buffer(utf8_string_size), (long) utf8_string_size, out.error(error));
+            if (result == 1) {
+                out.copyData(utf8_string, utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_columns(Pointer table, IntByReference number_of_columns, int flags, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_GET_NUMBER_OF_COLUMNS.invokeExact(address(table), out.int32, (byte) flags, out.error(error));
+            if (result == 1) {
+                out.copyInt(number_of_columns);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_column(Pointer table, int column_entry, PointerByReference column, int flags, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_GET_COLUMN.invokeExact(address(table), column_entry, out.pointer(column), (byte) flags, out.error(error));
+            if (result == 1) {
+                out.copyPointer(column);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_records(Pointer table, LongByReference number_of_records, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_GET_NUMBER_OF_RECORDS.invokeExact(address(table), out.int32, out.error(error));
+            if (result == 1) {
+                out.copySignedInt(number_of_records);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_get_record(Pointer table, int record_entry, PointerByReference record, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_GET_RECORD.invokeExact(address(table), record_entry, out.pointer(record), out.error(error));
+            if (result == 1) {
+                out.copyPointer(record);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_table_free(PointerByReference table, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_TABLE_FREE.invokeExact(out.pointer(table), out.error(error));
+            if (result == 1) {
+                out.copyPointer(table);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_column_get_type(Pointer column, IntByReference type, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_COLUMN_GET_TYPE.invokeExact(address(column), out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(type);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name_size(Pointer column, LongByReference utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_COLUMN_GET_UTF8_NAME_SIZE.invokeExact(address(column), out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name(Pointer column, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_COLUMN_GET_UTF8_NAME.invokeExact(address(column), out.buffer(utf8_string_size), (long) utf8_string_size, out.error(error));
+            if (result == 1) {
+                out.copyData(utf8_string, utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_column_free(PointerByReference column, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_COLUMN_FREE.invokeExact(out.pointer(column), out.error(error));
+            if (result == 1) {
+                out.copyPointer(column);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_number_of_values(Pointer record, IntByReference number_of_values, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_NUMBER_OF_VALUES.invokeExact(address(record), out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(number_of_values);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_column_identifier(Pointer record, int value_entry, IntByReference column_identifier, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_COLUMN_IDENTIFIER.invokeExact(address(record), value_entry, out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(column_identifier);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_column_type(Pointer record, int value_entry, IntByReference column_type, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_COLUMN_TYPE.invokeExact(address(record), value_entry, out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(column_type);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_UTF8_COLUMN_NAME_SIZE.invokeExact(address(record), value_entry, out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_flags(Pointer record, int value_entry, IntByReference value_data_flags, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_DATA_FLAGS.invokeExact(address(record), value_entry, out.uint8, out.error(error));
+            if (result == 1) {
+                out.copyUnsignedByte(value_data_flags);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_UTF8_COLUMN_NAME.invokeExact(address(record), value_entry, out.buffer(utf8_string_size), (long) utf8_string_size, out.error(error));
+            if (result == 1) {
+                out.copyData(utf8_string, utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_size(Pointer record, int value_entry, LongByReference value_data_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_DATA_SIZE.invokeExact(address(record), value_entry, out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(value_data_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_data(Pointer record, int value_entry, Memory value_data, int value_data_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_DATA.invokeExact(address(record), value_entry, out.data(value_data, value_data_size), (long) value_data_size, out.error(error));
+            if (result == 1) {
+                out.copyData(value_data, value_data_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, LongByReference utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_UTF8_STRING_SIZE.invokeExact(address(record), value_entry, out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_UTF8_STRING.invokeExact(address(record), value_entry, out.buffer(utf8_string_size), (long) utf8_string_size, out.error(error));
+            if (result == 1) {
+                out.copyData(utf8_string, utf8_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, LongByReference utf16_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_UTF16_STRING_SIZE.invokeExact(address(record), value_entry, out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(utf16_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, Memory utf16_string, int utf16_string_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_UTF16_STRING.invokeExact(address(record), value_entry, out.buffer(2 * utf16_string_size), (long) utf16_string_size, out.error(error));
+            if (result == 1) {
+                out.copyData(utf16_string, 2 * utf16_string_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_32bit(Pointer record, int value_entry, IntByReference value_32bit, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_32BIT.invokeExact(address(record), value_entry, out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(value_32bit);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_value_64bit(Pointer record, int value_entry, LongByReference value_64bit, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_VALUE_64BIT.invokeExact(address(record), value_entry, out.int64, out.error(error));
+            if (result == 1) {
+                out.copyLong(value_64bit);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_is_long_value(Pointer record, int value_entry, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_IS_LONG_VALUE.invokeExact(address(record), value_entry, out.error(error));
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_long_value(Pointer record, int value_entry, PointerByReference long_value, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_LONG_VALUE.invokeExact(address(record), value_entry, out.pointer(long_value), out.error(error));
+            if (result == 1) {
+                out.copyPointer(long_value);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_get_number_of_data_segments(Pointer long_value, IntByReference number_of_data_segments, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_LONG_VALUE_GET_NUMBER_OF_DATA_SEGMENTS.invokeExact(address(long_value), out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(number_of_data_segments);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment_size(Pointer long_value, int data_segment_index, LongByReference data_segment_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_LONG_VALUE_GET_DATA_SEGMENT_SIZE.invokeExact(address(long_value), data_segment_index, out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(data_segment_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment(Pointer long_value, int data_segment_index, Memory data_segment, int data_segment_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_LONG_VALUE_GET_DATA_SEGMENT.invokeExact(address(long_value), data_segment_index, out.data(data_segment, data_segment_size), (long) data_segment_size, out.error(error));
+            if (result == 1) {
+                out.copyData(data_segment, data_segment_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_long_value_free(PointerByReference long_value, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_LONG_VALUE_FREE.invokeExact(out.pointer(long_value), out.error(error));
+            if (result == 1) {
+                out.copyPointer(long_value);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_is_multi_value(Pointer record, int value_entry, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_IS_MULTI_VALUE.invokeExact(address(record), value_entry, out.error(error));
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_get_multi_value(Pointer record, int value_entry, PointerByReference multi_value, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_GET_MULTI_VALUE.invokeExact(address(record), value_entry, out.pointer(multi_value), out.error(error));
+            if (result == 1) {
+                out.copyPointer(multi_value);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_get_number_of_values(Pointer multi_value, IntByReference number_of_values, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_MULTI_VALUE_GET_NUMBER_OF_VALUES.invokeExact(address(multi_value), out.int32, out.error(error));
+            if (result == 1) {
+                out.copyInt(number_of_values);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data_size(Pointer multi_value, int multi_value_index, LongByReference value_data_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_MULTI_VALUE_GET_VALUE_DATA_SIZE.invokeExact(address(multi_value), multi_value_index, out.size, out.error(error));
+            if (result == 1) {
+                out.copySize(value_data_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data(Pointer multi_value, int multi_value_index, Memory value_data, int value_data_size, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_MULTI_VALUE_GET_VALUE_DATA.invokeExact(address(multi_value), multi_value_index, out.data(value_data, value_data_size), (long) value_data_size, out.error(error));
+            if (result == 1) {
+                out.copyData(value_data, value_data_size);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_multi_value_free(PointerByReference multi_value, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_MULTI_VALUE_FREE.invokeExact(out.pointer(multi_value), out.error(error));
+            if (result == 1) {
+                out.copyPointer(multi_value);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public int libesedb_record_free(PointerByReference record, PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            int result = (int) LIBESEDB_RECORD_FREE.invokeExact(out.pointer(record), out.error(error));
+            if (result == 1) {
+                out.copyPointer(record);
+            }
+            return out.result(result, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    @Override
+    public void libesedb_error_free(PointerByReference error) {
+        OutParams out = OUT_PARAMS.get();
+        try {
+            LIBESEDB_ERROR_FREE.invokeExact(out.error(error));
+            out.result(0, error);
+        } catch (Throwable ex) {
+            throw rethrow(ex);
+        }
+    }
+}
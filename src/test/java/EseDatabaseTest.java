@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * The java reader (-r java) against libesedb: same tables, columns and listed rows, every column of every record
+ * formatted as EsedbParser lists them. Runs on EsedbFixture files of one leaf page and of a two level B-tree, and on
+ * a real database given with -Desedb.equivalence.file=WebCacheV01.dat; skipped without libesedb. The branched table
+ * is also read through the ffm backend when it can be loaded.
+ */
+class EseDatabaseTest {
+
+    @Test
+    void listsASingleLeafTableAsLibesedb() throws IOException {
+        assertSameOutput(EsedbFixture.get(10).toString());
+    }
+
+    @Test
+    void listsABranchedTableAsLibesedb() throws IOException {
+        assertSameOutput(EsedbFixture.get(10000).toString());
+    }
+
+    @Test
+    void listsABranchedTableAsLibesedbThroughTheForeignBackend() throws IOException {
+        assertSameOutput(EsedbFixture.get(10000).toString(), EsedbBackend.FFM);
+    }
+
+    @Test
+    void listsARealFileAsLibesedb() throws IOException {
+        String filename = System.getProperty("esedb.equivalence.file");
+        assumeTrue(filename != null, "no esedb.equivalence.file");
+        assertSameOutput(filename);
+    }
+
+    private static void assertSameOutput(String filename) throws IOException {
+        assertSameOutput(filename, EsedbBackend.DIRECT);
+    }
+
+    private static void assertSameOutput(String filename, EsedbBackend backend) throws IOException {
+        EsedbLibrary library = EsedbRecordReaderTest.libesedb(backend);
+        assumeTrue(library != null, "libesedb not found with the " + backend + " backend");
+
+        try (EseDatabase database = EseDatabase.open(filename);
+             EsedbFile file = EsedbFile.open(library, filename)) {
+            List<String> names = new ArrayList<>();
+            for (EseTable eseTable : database.getTables()) {
+                names.add(eseTable.getName());
+            }
+            assertEquals(file.getTableNames(), names, "tables");
+
+            for (EseTable eseTable : database.getTables()) {
+                try (EsedbTable table = file.table(eseTable.getName())) {
+                    assertSameTable(library, eseTable, table);
+                }
+            }
+        }
+    }
+
+    private static void assertSameTable(EsedbLibrary library, EseTable eseTable, EsedbTable table) throws IOException {
+        String name = eseTable.getName();
+        EsedbSchema schema = table.getSchema();
+        EsedbSchema eseSchema = EsedbSchema.of(eseTable);
+        assertEquals(schema.getNumberOfColumns(), eseSchema.getNumberOfColumns(), name + " columns");
+        List<String> columns = new ArrayList<>();
+        for (int i = 0; i < schema.getNumberOfColumns(); i++) {
+            assertEquals(schema.getColumnName(i), eseSchema.getColumnName(i), name + " column " + i);
+            assertEquals(schema.getColumnType(i), eseSchema.getColumnType(i), name + " column type " + i);
+            columns.add(schema.getColumnName(i));
+        }
+        assertEquals(table.getNumberOfRecords(), eseTable.getNumberOfRecords(), name + " records");
+
+        EsedbProjection projection = schema.project(columns);
+        EsedbProjection eseProjection = eseSchema.project(columns);
+        EsedbRecordReader recordReader = new EsedbRecordReader(library, true);
+        for (int i = 0; i < eseTable.getNumberOfRecords(); i++) {
+            assertTrue(recordReader.open(table.getPointer(), i), name + " record " + i);
+            try {
+                assertEquals(
+                        EsedbParser.formatColumns(projection, EsedbParser.readValues(recordReader, projection),
+                                EsedbCodec.TimeFormat.TEXT),
+                        EsedbParser.formatColumns(eseProjection, EsedbParser.readValues(eseTable.getRecord(i), eseProjection),
+                                EsedbCodec.TimeFormat.TEXT),
+                        name + " record " + i);
+            } finally {
+                recordReader.close();
+            }
+        }
+    }
+}
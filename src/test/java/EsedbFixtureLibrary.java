@@ -0,0 +1,533 @@
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * EsedbLibrary over an ESE file read by the java reader, to test the libesedb wrappers without libesedb.
+ * The values of every record are read once when the file is opened, in the forms libesedb hands them out: the raw
+ * data, the data flags and the UTF-8 and UTF-16 strings of the text columns. The record functions then only copy
+ * from those arrays into the caller's memory and allocate nothing, so allocation measured around them is the
+ * wrapper's own.
+ *
+ * Handles are numbers (64-bit JVMs): the kind in the top 16 bits, the table in the next 16 and the entry in the
+ * low 32. Handles opened and not freed are counted per kind (getOpen). failNext makes the next call of a function
+ * fail with -1 and an error, as libesedb does. Long values and multi-values are not supported.
+ */
+class EsedbFixtureLibrary implements EsedbLibrary {
+
+    static final int FILE = 1;
+    static final int TABLE = 2;
+    static final int COLUMN = 3;
+    static final int RECORD = 4;
+
+    private static final Memory ERROR = new Memory(64);
+    private static final Charset UTF16 = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
+            ? StandardCharsets.UTF_16LE : StandardCharsets.UTF_16BE;
+
+    static {
+        ERROR.setString(0, "EsedbFixtureLibrary error", "UTF-8");
+    }
+
+    private final int[] open = new int[RECORD + 1];
+    private Table[] tables;
+    private String failing;
+
+    /* One table of the file, the values indexed [record][value entry], null where NULL */
+    private static final class Table {
+
+        byte[] name;
+        byte[][] columnNames;
+        int[] columnTypes;
+        byte[][][] data;
+        int[][] flags;
+        byte[][][] utf8;
+        byte[][][] utf16;
+    }
+
+    /* Handles of a kind opened and not freed */
+    int getOpen(int kind) {
+        return open[kind];
+    }
+
+    /* Replaces the raw data of a value of the open file, e.g. by one of another size than its column type */
+    void setValueData(String tableName, int record, int valueEntry, byte[] data) {
+        byte[] name = nulTerminated(tableName, StandardCharsets.UTF_8);
+        for (Table table : tables) {
+            if (Arrays.equals(table.name, name)) {
+                table.data[record][valueEntry] = data;
+            }
+        }
+    }
+
+    /* The next call of function returns -1 with an error */
+    void failNext(String function) {
+        failing = function;
+    }
+
+    private boolean fails(String function, PointerByReference error) {
+        if (!function.equals(failing)) {
+            return false;
+        }
+        failing = null;
+        error.getPointer().setPointer(0, ERROR);
+        return true;
+    }
+
+    private static int error(PointerByReference error) {
+        error.getPointer().setPointer(0, ERROR);
+        return -1;
+    }
+
+    private static long handle(int kind, int table, int entry) {
+        return (long) kind << 48 | (long) table << 32 | entry & 0xffffffffL;
+    }
+
+    private void opened(PointerByReference reference, int kind, int table, int entry) {
+        reference.getPointer().setLong(0, handle(kind, table, entry));
+        open[kind]++;
+    }
+
+    private int free(PointerByReference reference, int kind) {
+        if (reference.getPointer().getLong(0) != 0) {
+            reference.getPointer().setLong(0, 0);
+            open[kind]--;
+        }
+        return 1;
+    }
+
+    private Table table(Pointer handle) {
+        return tables[(int) (Pointer.nativeValue(handle) >>> 32 & 0xffff)];
+    }
+
+    private static int entry(Pointer handle) {
+        return (int) Pointer.nativeValue(handle);
+    }
+
+    private static int copy(byte[] bytes, Memory memory, int size, PointerByReference error) {
+        if (size < bytes.length || memory.size() < bytes.length) {
+            return error(error);
+        }
+        memory.write(0, bytes, 0, bytes.length);
+        return 1;
+    }
+
+    private static byte[] nulTerminated(String text, Charset charset) {
+        byte[] bytes = text.getBytes(charset);
+        int nul = charset == StandardCharsets.UTF_8 ? 1 : 2;
+        byte[] terminated = new byte[bytes.length + nul];
+        System.arraycopy(bytes, 0, terminated, 0, bytes.length);
+        return terminated;
+    }
+
+    private static boolean isText(int columnType) {
+        return columnType == EseColumn.COLUMN_TYPE_TEXT || columnType == EseColumn.COLUMN_TYPE_LARGE_TEXT;
+    }
+
+    private static Table read(EseTable eseTable) throws IOException {
+        Table table = new Table();
+        table.name = nulTerminated(eseTable.getName(), StandardCharsets.UTF_8);
+        List<EseColumn> columns = eseTable.getColumns();
+        table.columnNames = new byte[columns.size()][];
+        table.columnTypes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            table.columnNames[i] = nulTerminated(columns.get(i).getName(), StandardCharsets.UTF_8);
+            table.columnTypes[i] = columns.get(i).getType();
+        }
+        int numberOfRecords = eseTable.getNumberOfRecords();
+        table.data = new byte[numberOfRecords][columns.size()][];
+        table.flags = new int[numberOfRecords][columns.size()];
+        table.utf8 = new byte[numberOfRecords][columns.size()][];
+        table.utf16 = new byte[numberOfRecords][columns.size()][];
+        for (int r = 0; r < numberOfRecords; r++) {
+            EseRecord record = eseTable.getRecord(r);
+            for (int v = 0; v < columns.size(); v++) {
+                table.data[r][v] = record.getValueData(v);
+                table.flags[r][v] = record.getValueDataFlags(v);
+                if (isText(table.columnTypes[v]) && (table.flags[r][v] & (EseRecord.VALUE_FLAG_LONG_VALUE
+                        | EseRecord.VALUE_FLAG_MULTI_VALUE)) == 0) {
+                    String text = record.getValueString(v);
+                    if (text != null) {
+                        table.utf8[r][v] = nulTerminated(text, StandardCharsets.UTF_8);
+                        table.utf16[r][v] = nulTerminated(text, UTF16);
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public String libesedb_get_version() {
+        return "fixture";
+    }
+
+    @Override
+    public int libesedb_check_file_signature(String filename, PointerByReference error) {
+        return 1;
+    }
+
+    @Override
+    public int libesedb_file_initialize(PointerByReference filePointer, PointerByReference error) {
+        if (fails("libesedb_file_initialize", error)) return -1;
+        opened(filePointer, FILE, 0, 0);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_file_free(PointerByReference file, PointerByReference error) {
+        if (fails("libesedb_file_free", error)) return -1;
+        return free(file, FILE);
+    }
+
+    @Override
+    public int libesedb_file_open(Pointer file, String filename, int acessFlags, PointerByReference error) {
+        if (fails("libesedb_file_open", error)) return -1;
+        try (EseDatabase database = EseDatabase.open(filename)) {
+            List<EseTable> eseTables = database.getTables();
+            tables = new Table[eseTables.size()];
+            for (int i = 0; i < tables.length; i++) {
+                tables[i] = read(eseTables.get(i));
+            }
+        } catch (IOException ex) {
+            return error(error);
+        }
+        return 1;
+    }
+
+    @Override
+    public int libesedb_file_get_type(Pointer file, LongByReference type, PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_file_get_type");
+    }
+
+    @Override
+    public int libesedb_file_close(Pointer file, PointerByReference error) {
+        if (fails("libesedb_file_close", error)) return -1;
+        return 0;
+    }
+
+    @Override
+    public int libesedb_file_get_number_of_tables(Pointer file, IntByReference numberOfTables, PointerByReference error) {
+        if (fails("libesedb_file_get_number_of_tables", error)) return -1;
+        numberOfTables.setValue(tables.length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_file_get_table(Pointer file, int tableEntry, PointerByReference table, PointerByReference error) {
+        if (fails("libesedb_file_get_table", error) || tableEntry < 0 || tableEntry >= tables.length) {
+            return error(error);
+        }
+        opened(table, TABLE, tableEntry, 0);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_file_get_table_by_utf8_name(Pointer file, String utf8_string, int utf8_string_length,
+                                                    PointerByReference table, PointerByReference error) {
+        if (fails("libesedb_file_get_table_by_utf8_name", error)) return -1;
+        byte[] name = nulTerminated(utf8_string.substring(0, utf8_string_length), StandardCharsets.UTF_8);
+        for (int i = 0; i < tables.length; i++) {
+            if (Arrays.equals(tables[i].name, name)) {
+                opened(table, TABLE, i, 0);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name_size(Pointer table, LongByReference utf8_string_size, PointerByReference error) {
+        if (fails("libesedb_table_get_utf8_name_size", error)) return -1;
+        utf8_string_size.setValue(table(table).name.length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_table_get_utf8_name(Pointer table, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        if (fails("libesedb_table_get_utf8_name", error)) return -1;
+        return copy(table(table).name, utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_columns(Pointer table, IntByReference number_of_columns, int flags,
+                                                    PointerByReference error) {
+        if (fails("libesedb_table_get_number_of_columns", error)) return -1;
+        number_of_columns.setValue(table(table).columnTypes.length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_table_get_column(Pointer table, int column_entry, PointerByReference column, int flags,
+                                         PointerByReference error) {
+        if (fails("libesedb_table_get_column", error) || column_entry < 0
+                || column_entry >= table(table).columnTypes.length) {
+            return error(error);
+        }
+        opened(column, COLUMN, (int) (Pointer.nativeValue(table) >>> 32 & 0xffff), column_entry);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_table_get_number_of_records(Pointer table, LongByReference number_of_records, PointerByReference error) {
+        if (fails("libesedb_table_get_number_of_records", error)) return -1;
+        number_of_records.setValue(table(table).data.length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_table_get_record(Pointer table, int record_entry, PointerByReference record, PointerByReference error) {
+        if (fails("libesedb_table_get_record", error) || record_entry < 0 || record_entry >= table(table).data.length) {
+            return error(error);
+        }
+        opened(record, RECORD, (int) (Pointer.nativeValue(table) >>> 32 & 0xffff), record_entry);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_table_free(PointerByReference table, PointerByReference error) {
+        if (fails("libesedb_table_free", error)) return -1;
+        return free(table, TABLE);
+    }
+
+    @Override
+    public int libesedb_column_get_type(Pointer column, IntByReference type, PointerByReference error) {
+        if (fails("libesedb_column_get_type", error)) return -1;
+        type.setValue(table(column).columnTypes[entry(column)]);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name_size(Pointer column, LongByReference utf8_string_size, PointerByReference error) {
+        if (fails("libesedb_column_get_utf8_name_size", error)) return -1;
+        utf8_string_size.setValue(table(column).columnNames[entry(column)].length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_column_get_utf8_name(Pointer column, Memory utf8_string, int utf8_string_size, PointerByReference error) {
+        if (fails("libesedb_column_get_utf8_name", error)) return -1;
+        return copy(table(column).columnNames[entry(column)], utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_column_free(PointerByReference column, PointerByReference error) {
+        if (fails("libesedb_column_free", error)) return -1;
+        return free(column, COLUMN);
+    }
+
+    @Override
+    public int libesedb_record_get_number_of_values(Pointer record, IntByReference number_of_values, PointerByReference error) {
+        if (fails("libesedb_record_get_number_of_values", error)) return -1;
+        number_of_values.setValue(table(record).columnTypes.length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_column_identifier(Pointer record, int value_entry, IntByReference column_identifier,
+                                                     PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_record_get_column_identifier");
+    }
+
+    @Override
+    public int libesedb_record_get_column_type(Pointer record, int value_entry, IntByReference column_type, PointerByReference error) {
+        if (fails("libesedb_record_get_column_type", error)) return -1;
+        column_type.setValue(table(record).columnTypes[value_entry]);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name_size(Pointer record, int value_entry, LongByReference utf8_string_size,
+                                                         PointerByReference error) {
+        if (fails("libesedb_record_get_utf8_column_name_size", error)) return -1;
+        utf8_string_size.setValue(table(record).columnNames[value_entry].length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_flags(Pointer record, int value_entry, IntByReference value_data_flags,
+                                                    PointerByReference error) {
+        if (fails("libesedb_record_get_value_data_flags", error)) return -1;
+        value_data_flags.setValue(table(record).flags[entry(record)][value_entry]);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_utf8_column_name(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size,
+                                                    PointerByReference error) {
+        if (fails("libesedb_record_get_utf8_column_name", error)) return -1;
+        return copy(table(record).columnNames[value_entry], utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_data_size(Pointer record, int value_entry, LongByReference value_data_size,
+                                                   PointerByReference error) {
+        if (fails("libesedb_record_get_value_data_size", error)) return -1;
+        byte[] data = table(record).data[entry(record)][value_entry];
+        value_data_size.setValue(data == null ? 0 : data.length);
+        return 1;
+    }
+
+    /* As libfvalue, the data is copied if it fits and the size of the buffer is not checked against it */
+    @Override
+    public int libesedb_record_get_value_data(Pointer record, int value_entry, Memory value_data, int value_data_size,
+                                              PointerByReference error) {
+        if (fails("libesedb_record_get_value_data", error)) return -1;
+        byte[] data = table(record).data[entry(record)][value_entry];
+        return data == null ? error(error) : copy(data, value_data, value_data_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string_size(Pointer record, int value_entry, LongByReference utf8_string_size,
+                                                          PointerByReference error) {
+        if (fails("libesedb_record_get_value_utf8_string_size", error)) return -1;
+        byte[] utf8 = table(record).utf8[entry(record)][value_entry];
+        if (utf8 == null) {
+            return 0;
+        }
+        utf8_string_size.setValue(utf8.length);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf8_string(Pointer record, int value_entry, Memory utf8_string, int utf8_string_size,
+                                                     PointerByReference error) {
+        if (fails("libesedb_record_get_value_utf8_string", error)) return -1;
+        byte[] utf8 = table(record).utf8[entry(record)][value_entry];
+        return utf8 == null ? 0 : copy(utf8, utf8_string, utf8_string_size, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string_size(Pointer record, int value_entry, LongByReference utf16_string_size,
+                                                           PointerByReference error) {
+        if (fails("libesedb_record_get_value_utf16_string_size", error)) return -1;
+        byte[] utf16 = table(record).utf16[entry(record)][value_entry];
+        if (utf16 == null) {
+            return 0;
+        }
+        utf16_string_size.setValue(utf16.length / 2);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_value_utf16_string(Pointer record, int value_entry, Memory utf16_string, int utf16_string_size,
+                                                      PointerByReference error) {
+        if (fails("libesedb_record_get_value_utf16_string", error)) return -1;
+        byte[] utf16 = table(record).utf16[entry(record)][value_entry];
+        return utf16 == null ? 0 : copy(utf16, utf16_string, utf16_string_size * 2, error);
+    }
+
+    @Override
+    public int libesedb_record_get_value_32bit(Pointer record, int value_entry, IntByReference value_32bit, PointerByReference error) {
+        if (fails("libesedb_record_get_value_32bit", error)) return -1;
+        byte[] data = table(record).data[entry(record)][value_entry];
+        if (data == null) {
+            return 0;
+        }
+        value_32bit.setValue(data[0] & 0xff | (data[1] & 0xff) << 8 | (data[2] & 0xff) << 16 | (data[3] & 0xff) << 24);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_get_value_64bit(Pointer record, int value_entry, LongByReference value_64bit, PointerByReference error) {
+        if (fails("libesedb_record_get_value_64bit", error)) return -1;
+        byte[] data = table(record).data[entry(record)][value_entry];
+        if (data == null) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = value << 8 | data[i] & 0xff;
+        }
+        value_64bit.setValue(value);
+        return 1;
+    }
+
+    @Override
+    public int libesedb_record_is_long_value(Pointer record, int value_entry, PointerByReference error) {
+        if (fails("libesedb_record_is_long_value", error)) return -1;
+        return (table(record).flags[entry(record)][value_entry] & EseRecord.VALUE_FLAG_LONG_VALUE) != 0 ? 1 : 0;
+    }
+
+    @Override
+    public int libesedb_record_get_long_value(Pointer record, int value_entry, PointerByReference long_value, PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_record_get_long_value");
+    }
+
+    @Override
+    public int libesedb_long_value_get_number_of_data_segments(Pointer long_value, IntByReference number_of_data_segments,
+                                                               PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_long_value_get_number_of_data_segments");
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment_size(Pointer long_value, int data_segment_index, LongByReference data_segment_size,
+                                                         PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_long_value_get_data_segment_size");
+    }
+
+    @Override
+    public int libesedb_long_value_get_data_segment(Pointer long_value, int data_segment_index, Memory data_segment,
+                                                    int data_segment_size, PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_long_value_get_data_segment");
+    }
+
+    @Override
+    public int libesedb_long_value_free(PointerByReference long_value, PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_long_value_free");
+    }
+
+    @Override
+    public int libesedb_record_is_multi_value(Pointer record, int value_entry, PointerByReference error) {
+        if (fails("libesedb_record_is_multi_value", error)) return -1;
+        return (table(record).flags[entry(record)][value_entry] & EseRecord.VALUE_FLAG_MULTI_VALUE) != 0 ? 1 : 0;
+    }
+
+    @Override
+    public int libesedb_record_get_multi_value(Pointer record, int value_entry, PointerByReference multi_value,
+                                               PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_record_get_multi_value");
+    }
+
+    @Override
+    public int libesedb_multi_value_get_number_of_values(Pointer multi_value, IntByReference number_of_values,
+                                                         PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_multi_value_get_number_of_values");
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data_size(Pointer multi_value, int multi_value_index, LongByReference value_data_size,
+                                                        PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_multi_value_get_value_data_size");
+    }
+
+    @Override
+    public int libesedb_multi_value_get_value_data(Pointer multi_value, int multi_value_index, Memory value_data,
+                                                   int value_data_size, PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_multi_value_get_value_data");
+    }
+
+    @Override
+    public int libesedb_multi_value_free(PointerByReference multi_value, PointerByReference error) {
+        throw new UnsupportedOperationException("libesedb_multi_value_free");
+    }
+
+    @Override
+    public int libesedb_record_free(PointerByReference record, PointerByReference error) {
+        if (fails("libesedb_record_free", error)) return -1;
+        return free(record, RECORD);
+    }
+
+    @Override
+    public void libesedb_error_free(PointerByReference error) {
+        error.getPointer().setPointer(0, null);
+    }
+}
@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * The handles of EsedbFile, EsedbTable, EsedbRecord and EsedbColumn over EsedbFixtureLibrary: each one freed once on
+ * close and on the failures of its constructor, and leaked ones freed by the thread that opened them, not the Cleaner.
+ */
+class EsedbHandlesTest {
+
+    private static String fixture;
+
+    private final EsedbFixtureLibrary library = new EsedbFixtureLibrary();
+
+    @BeforeAll
+    static void generateFixture() throws IOException {
+        fixture = EsedbFixture.get(100).toString();
+    }
+
+    @AfterEach
+    void noHandleOpen() {
+        EsedbHandles.checkNoLeaks();
+        for (int kind = EsedbFixtureLibrary.FILE; kind <= EsedbFixtureLibrary.RECORD; kind++) {
+            assertEquals(0, library.getOpen(kind), "libesedb handles of kind " + kind);
+        }
+    }
+
+    @Test
+    void closesAFile() {
+        EsedbFile file = EsedbFile.open(library, fixture);
+        assertEquals(1, library.getOpen(EsedbFixtureLibrary.FILE));
+        file.close();
+        file.close();
+    }
+
+    @Test
+    void closesTablesByEntryAndByName() {
+        try (EsedbFile file = EsedbFile.open(library, fixture)) {
+            try (EsedbTable table = file.table(EsedbFixture.TABLE);
+                 EsedbTable first = file.table(0)) {
+                assertEquals(2, library.getOpen(EsedbFixtureLibrary.TABLE));
+            }
+            assertEquals(0, library.getOpen(EsedbFixtureLibrary.TABLE));
+        }
+    }
+
+    @Test
+    void closesRecordsAndColumns() {
+        try (EsedbFile file = EsedbFile.open(library, fixture);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            try (EsedbRecord record = table.record(1);
+                 EsedbColumn column = table.column(0)) {
+                assertEquals(EsedbFixture.TABLE, table.getName());
+                assertEquals(table.getSchema().getColumnName(0), column.getName());
+                record.getValue(0);
+                assertEquals(1, library.getOpen(EsedbFixtureLibrary.RECORD));
+                assertEquals(1, library.getOpen(EsedbFixtureLibrary.COLUMN));
+            }
+        }
+    }
+
+    /* Closing the file frees the tables, records and columns still open from it */
+    @Test
+    void closingAFileFreesItsChildren() {
+        EsedbFile file = EsedbFile.open(library, fixture);
+        EsedbTable table = file.table(EsedbFixture.TABLE);
+        EsedbRecord record = table.record(1);
+        EsedbColumn column = table.column(0);
+        file.close();
+        assertThrows(RuntimeException.class, () -> record.getValue(0));
+        record.close();
+        column.close();
+        table.close();
+    }
+
+    @Test
+    void freesTheFileWhenItCannotBeOpened() {
+        library.failNext("libesedb_file_open");
+        assertThrows(EsedbException.class, () -> EsedbFile.open(library, fixture));
+    }
+
+    @Test
+    void freesTheTableWhenItsNameCannotBeRead() {
+        try (EsedbFile file = EsedbFile.open(library, fixture)) {
+            library.failNext("libesedb_table_get_utf8_name");
+            assertThrows(EsedbException.class, () -> file.table(0));
+            library.failNext("libesedb_file_get_table");
+            assertThrows(EsedbException.class, () -> file.table(0));
+            assertEquals(0, library.getOpen(EsedbFixtureLibrary.TABLE));
+        }
+    }
+
+    @Test
+    void opensNoRecordOrColumnOnFailure() {
+        try (EsedbFile file = EsedbFile.open(library, fixture);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            library.failNext("libesedb_table_get_record");
+            assertThrows(EsedbException.class, () -> table.record(1));
+            library.failNext("libesedb_column_get_utf8_name");
+            assertThrows(EsedbException.class, () -> table.column(0));
+            assertEquals(0, library.getOpen(EsedbFixtureLibrary.RECORD));
+            assertEquals(0, library.getOpen(EsedbFixtureLibrary.COLUMN));
+        }
+    }
+
+    /* The Cleaner only queues a file and table never closed, the next open on this thread frees them */
+    @Test
+    void freesLeakedHandlesOnTheThreadThatOpenedThem() throws InterruptedException {
+        long leaked = EsedbHandles.getLeakedHandles();
+        openAndDrop();
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (EsedbHandles.getLeakedHandles() < leaked + 2 && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(leaked + 2, EsedbHandles.getLeakedHandles());
+        assertEquals(1, library.getOpen(EsedbFixtureLibrary.FILE));
+        assertEquals(1, library.getOpen(EsedbFixtureLibrary.TABLE));
+
+        EsedbFile.open(library, fixture).close();
+        assertEquals(0, library.getOpen(EsedbFixtureLibrary.FILE));
+        assertEquals(0, library.getOpen(EsedbFixtureLibrary.TABLE));
+        assertThrows(IllegalStateException.class, EsedbHandles::checkNoLeaks);
+    }
+
+    private void openAndDrop() {
+        EsedbFile.open(library, fixture).table(EsedbFixture.TABLE);
+    }
+}
@@ -0,0 +1,180 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * EsedbRecordReader over the 10000 record EsedbFixture, through EsedbFixtureLibrary and through libesedb when it
+ * can be loaded: the values it reads, and the heap it allocates per record in the steady state of the EsedbParser
+ * record loop (open, readValues, close).
+ */
+class EsedbRecordReaderTest {
+
+    private static final int ROWS = 10000;
+
+    /*
+     * Per record: the Object[8] of readValues, the boxed EntryId, FileSize, AccessCount and FILETIME values, and the
+     * Url and Filename strings (30 to 70 characters) with the byte[] JNA reads them into, about 420 bytes with
+     * compressed oops. A single IntByReference allocated per text value goes over.
+     */
+    private static final long BYTES_PER_RECORD = 512;
+
+    private static String fixture;
+
+    @BeforeAll
+    static void generateFixture() throws IOException {
+        fixture = EsedbFixture.get(ROWS).toString();
+    }
+
+    @Test
+    void readsTheValuesOfTheJavaReader() throws IOException {
+        EsedbLibrary library = new EsedbFixtureLibrary();
+        try (EseDatabase database = EseDatabase.open(fixture);
+             EsedbFile file = EsedbFile.open(library, fixture);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            EseTable eseTable = database.getTable(EsedbFixture.TABLE);
+            EsedbProjection projection = table.getSchema().project(EsedbParser.DEFAULT_COLUMNS);
+            EsedbProjection eseProjection = EsedbSchema.of(eseTable).project(EsedbParser.DEFAULT_COLUMNS);
+            EsedbRecordReader recordReader = new EsedbRecordReader(library, true);
+
+            assertEquals(ROWS, table.getNumberOfRecords());
+            for (int i = 0; i < ROWS; i++) {
+                assertTrue(recordReader.open(table.getPointer(), i));
+                try {
+                    assertArrayEquals(EsedbParser.readValues(eseTable.getRecord(i), eseProjection),
+                            EsedbParser.readValues(recordReader, projection), "record " + i);
+                } finally {
+                    recordReader.close();
+                }
+            }
+        }
+    }
+
+    /* libesedb returns 1 for a value shorter than the buffer, the bytes after it must not be read as part of it */
+    @Test
+    void rejectsAFixedSizeValueOfAnotherSize() {
+        EsedbFixtureLibrary library = new EsedbFixtureLibrary();
+        try (EsedbFile file = EsedbFile.open(library, fixture);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            int entryId = table.getSchema().indexOf("EntryId");
+            int fileSize = table.getSchema().indexOf("FileSize");
+            library.setValueData(EsedbFixture.TABLE, 1, entryId, new byte[]{7, 0, 0, 0});
+
+            EsedbRecordReader lenient = new EsedbRecordReader(library);
+            assertTrue(lenient.open(table.getPointer(), 1));
+            try {
+                lenient.getValue(fileSize, EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED);
+                assertNull(lenient.getValue(entryId, EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED));
+                assertTrue(lenient.wasNull());
+            } finally {
+                lenient.close();
+            }
+
+            EsedbRecordReader strict = new EsedbRecordReader(library, true);
+            assertTrue(strict.open(table.getPointer(), 1));
+            try {
+                assertThrows(EsedbException.class, () -> strict.getValue(entryId, EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED));
+            } finally {
+                strict.close();
+            }
+        }
+    }
+
+    /* A value of the right size that happens to end with the sentinel byte is read through the size call */
+    @Test
+    void readsAFixedSizeValueEndingWithTheSentinel() {
+        EsedbFixtureLibrary library = new EsedbFixtureLibrary();
+        try (EsedbFile file = EsedbFile.open(library, fixture);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            int entryId = table.getSchema().indexOf("EntryId");
+            library.setValueData(EsedbFixture.TABLE, 1, entryId, new byte[]{1, 0, 0, 0, 0, 0, 0, 0x5a});
+
+            EsedbRecordReader recordReader = new EsedbRecordReader(library, true);
+            assertTrue(recordReader.open(table.getPointer(), 1));
+            try {
+                assertEquals(0x5a00000000000001L, recordReader.getValue(entryId, EseColumn.COLUMN_TYPE_INTEGER_64BIT_SIGNED));
+            } finally {
+                recordReader.close();
+            }
+        }
+    }
+
+    @Test
+    void allocatesOnlyTheValuesPerRecord() {
+        long perRecord = allocatedPerRecord(new EsedbFixtureLibrary());
+        assertTrue(perRecord <= BYTES_PER_RECORD, perRecord + " bytes allocated per record");
+    }
+
+    /* The same loop on libesedb, with the direct backend the proxy one boxes every argument; skipped without libesedb */
+    @Test
+    void allocatesOnlyTheValuesPerRecordWithLibesedb() {
+        EsedbLibrary library = libesedb(EsedbBackend.DIRECT);
+        assumeTrue(library != null, "libesedb not found");
+        long perRecord = allocatedPerRecord(library);
+        assertTrue(perRecord <= BYTES_PER_RECORD, perRecord + " bytes allocated per record");
+    }
+
+    /* Same with the ffm backend, skipped unless built with the ffm profile and run on JDK 22 or later */
+    @Test
+    void allocatesOnlyTheValuesPerRecordWithTheForeignBackend() {
+        EsedbLibrary library = libesedb(EsedbBackend.FFM);
+        assumeTrue(library != null, "ffm backend or libesedb not found");
+        long perRecord = allocatedPerRecord(library);
+        assertTrue(perRecord <= BYTES_PER_RECORD, perRecord + " bytes allocated per record");
+    }
+
+    /* libesedb through backend, null if either cannot be loaded */
+    static EsedbLibrary libesedb(EsedbBackend backend) {
+        try {
+            return backend.newInstance();
+        } catch (LinkageError | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /* Heap allocated by the thread per record over a scan of the table, after two scans of warm-up */
+    private static long allocatedPerRecord(EsedbLibrary library) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        try (EsedbFile file = EsedbFile.open(library, fixture);
+             EsedbTable table = file.table(EsedbFixture.TABLE)) {
+            EsedbProjection projection = table.getSchema().project(EsedbParser.DEFAULT_COLUMNS);
+            EsedbRecordReader recordReader = new EsedbRecordReader(library, true);
+            scan(recordReader, table, projection);
+            scan(recordReader, table, projection);
+
+            long before = threads.getThreadAllocatedBytes(thread);
+            long values = scan(recordReader, table, projection);
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+            assertTrue(values > ROWS, "values read");
+            return allocated / ROWS;
+        }
+    }
+
+    /* Reads every record as the EsedbParser record loop does, returns the number of values that are not NULL */
+    private static long scan(EsedbRecordReader recordReader, EsedbTable table, EsedbProjection projection) {
+        long values = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (!recordReader.open(table.getPointer(), i)) {
+                continue;
+            }
+            try {
+                for (Object value : EsedbParser.readValues(recordReader, projection)) {
+                    if (value != null) values++;
+                }
+            } finally {
+                recordReader.close();
+            }
+        }
+        return values;
+    }
+}